@@ -0,0 +1,70 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Вычисление одного выражения над столбцами: построчно и пакетно.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchBenchmark {
+    @Param({"short", "variables"})
+    public String scenario;
+
+    @Param({"1000000"})
+    public int rows;
+
+    private CompiledExpression compiled;
+    private double[][] columns;
+    private double[] out;
+    private long[] errors;
+
+    @Setup
+    public void setup() {
+        compiled = ExpressionEvaluator.compile(BenchmarkExpressions.expression(scenario));
+        Random random = new Random(1);
+        columns = new double[compiled.getVariableCount()][rows];
+        for (double[] column : columns) {
+            for (int row = 0; row < rows; row++) {
+                column[row] = 1 + random.nextDouble();
+            }
+        }
+        out = new double[rows];
+        errors = new long[BatchEvaluator.errorWords(rows)];
+    }
+
+    @Benchmark
+    public double[] rowByRow() {
+        double[] slots = new double[compiled.getVariableCount()];
+        for (int row = 0; row < rows; row++) {
+            for (int slot = 0; slot < slots.length; slot++) {
+                slots[slot] = columns[slot][row];
+            }
+            out[row] = compiled.evaluate(slots);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] batch() {
+        BatchEvaluator.evaluate(compiled, columns, out, errors);
+        return out;
+    }
+}
@@ -0,0 +1,60 @@
+package org.example;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Набор выражений, на которых измеряется производительность разбора и вычисления.
+ */
+final class BenchmarkExpressions {
+    /** Короткое выражение из нескольких операций */
+    static final String SHORT = "2 * x + 1";
+
+    /** Функции, вложенные друг в друга */
+    static final String FUNCTIONS = "sqrt(abs(sin(x)) + log(1 + exp(cos(y)))) * ln(sqrt(2 + sin(x)^2)) - atan(tan(y) / 3)";
+
+    /** Много различных переменных */
+    static final String VARIABLES = "a*b + c*d - e/f + g^2 + h*i - j + k*l*m + n/o - p*q + r - s*t";
+
+    /** Глубоко вложенные скобки */
+    static final String NESTED = nested(32);
+
+    private BenchmarkExpressions() {
+    }
+
+    /**
+     * Возвращает выражение сценария по имени
+     * @param scenario имя сценария: short, nested, functions или variables
+     * @return текст выражения
+     */
+    static String expression(String scenario) {
+        switch (scenario) {
+            case "short": return SHORT;
+            case "nested": return NESTED;
+            case "functions": return FUNCTIONS;
+            case "variables": return VARIABLES;
+            default: throw new IllegalArgumentException("Неизвестный сценарий: " + scenario);
+        }
+    }
+
+    /**
+     * Возвращает значения для всех переменных, которые встречаются в сценариях
+     * @return карта значений переменных
+     */
+    static Map<String, Double> variables() {
+        Map<String, Double> variables = new HashMap<>();
+        for (char c = 'a'; c <= 'z'; c++) {
+            variables.put(String.valueOf(c), 1.0 + (c - 'a') * 0.25);
+        }
+        return variables;
+    }
+
+    private static String nested(int depth) {
+        StringBuilder expression = new StringBuilder("x");
+        for (int i = 1; i <= depth; i++) {
+            char op = "+-*/".charAt(i % 4);
+            expression.insert(0, '(').append(' ').append(op).append(' ').append(i).append(')');
+        }
+        return expression.toString();
+    }
+}
@@ -0,0 +1,81 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Построчное вычисление набора строк, часть которых дает ошибку области определения:
+ * перехват исключений против кодов результата {@link CompiledExpression#tryEvaluate(double[], int[])}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorHandlingBenchmark {
+    private static final int ROWS = 1000;
+
+    /** Доля строк с ошибкой, в процентах */
+    @Param({"0", "5", "10"})
+    public int errorPercent;
+
+    private CompiledExpression compiled;
+    private double[][] rows;
+    private final int[] status = new int[1];
+
+    @Setup
+    public void setup() {
+        compiled = ExpressionEvaluator.compile("sqrt(x) + ln(y) / (x - y)");
+        Random random = new Random(42);
+        rows = new double[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            double x = 1 + random.nextDouble() * 10;
+            double y = x + 0.5;
+            if (random.nextInt(100) < errorPercent) {
+                // Поровну корней из отрицательного числа, логарифмов нуля и делений на ноль
+                switch (i % 3) {
+                    case 0: x = -x; break;
+                    case 1: y = 0; break;
+                    default: y = x; break;
+                }
+            }
+            rows[i] = new double[]{x, y};
+        }
+    }
+
+    @Benchmark
+    public double exceptions() {
+        double sum = 0;
+        for (double[] row : rows) {
+            try {
+                sum += compiled.evaluate(row);
+            } catch (IllegalArgumentException e) {
+                sum -= 1;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double statusCodes() {
+        double sum = 0;
+        for (double[] row : rows) {
+            double value = compiled.tryEvaluate(row, status);
+            sum += status[0] == EvaluationStatus.OK ? value : -1;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,96 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность вычисления: полный путь с разбором, вычисление готовой постфиксной формы
+ * и вычисление скомпилированного выражения (стековым и регистровым интерпретаторами, сгенерированным
+ * байт-кодом и через переиспользуемый контекст с привязкой значений по слотам).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EvaluationBenchmark {
+    @Param({"short", "nested", "functions", "variables"})
+    public String scenario;
+
+    private String expression;
+    private Map<String, Double> variables;
+    private String[] postfix;
+    private CompiledExpression compiled;
+    private double[] slots;
+    private EvaluationContext context;
+    private RegisterEvaluator registers;
+    private ExpressionCache cache;
+
+    @Setup
+    public void setup() {
+        expression = BenchmarkExpressions.expression(scenario);
+        variables = BenchmarkExpressions.variables();
+        postfix = ExpressionEvaluator.infixToPostfix(expression);
+        compiled = ExpressionEvaluator.compile(expression);
+        slots = new double[compiled.getVariableCount()];
+        for (String name : compiled.getVariableNames()) {
+            slots[compiled.slotOf(name)] = variables.get(name);
+        }
+        context = compiled.newContext();
+        registers = new RegisterEvaluator(compiled);
+        cache = new ExpressionCache(1024);
+    }
+
+    @Benchmark
+    public double evaluate() {
+        return ExpressionEvaluator.evaluate(expression, variables);
+    }
+
+    @Benchmark
+    public double evaluateCached() {
+        return cache.get(expression).evaluate(variables);
+    }
+
+    @Benchmark
+    public double evaluatePostfix() {
+        return ExpressionEvaluator.evaluatePostfix(postfix, variables);
+    }
+
+    @Benchmark
+    public double evaluateCompiled() {
+        return compiled.evaluate(slots);
+    }
+
+    @Benchmark
+    public double evaluateContext() {
+        context.reset();
+        for (int slot = 0; slot < slots.length; slot++) {
+            context.set(slot, slots[slot]);
+        }
+        return context.evaluate();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dexpression.jit.threshold=0")
+    public double evaluateInterpreted() {
+        return compiled.evaluate(slots);
+    }
+
+    @Benchmark
+    public double evaluateRegisters() {
+        return registers.evaluate(slots);
+    }
+}
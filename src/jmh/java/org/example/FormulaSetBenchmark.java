@@ -0,0 +1,82 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Вычисление набора формул с общими подвыражениями: каждая формула отдельно и общим графом.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FormulaSetBenchmark {
+    @Param({"400"})
+    public int formulas;
+
+    private CompiledExpression[] separate;
+    private double[][] separateSlots;
+    private FormulaSet shared;
+    private double[] sharedSlots;
+    private double[] out;
+
+    @Setup
+    public void setup() {
+        List<String> sources = new ArrayList<>();
+        for (int i = 0; i < formulas; i++) {
+            String a = "a" + (i % 50);
+            String b = "a" + ((i * 7 + 3) % 50);
+            switch (i % 4) {
+                case 0: sources.add(a + " * exp(-r*t) * sqrt(t)"); break;
+                case 1: sources.add(a + " * exp(-r*t) - " + b + " * sqrt(t)"); break;
+                case 2: sources.add("ln(" + a + " / " + b + ") / (sigma * sqrt(t))"); break;
+                default: sources.add("(" + a + " - " + b + ") * exp(-r*t) + sigma ^ 2 * t / 2"); break;
+            }
+        }
+        shared = FormulaSet.compile(sources);
+        sharedSlots = new double[shared.getVariableCount()];
+        for (int slot = 0; slot < sharedSlots.length; slot++) {
+            sharedSlots[slot] = 1 + slot * 0.01;
+        }
+
+        separate = new CompiledExpression[formulas];
+        separateSlots = new double[formulas][];
+        for (int i = 0; i < formulas; i++) {
+            separate[i] = ExpressionEvaluator.compile(sources.get(i));
+            separateSlots[i] = new double[separate[i].getVariableCount()];
+            for (int slot = 0; slot < separateSlots[i].length; slot++) {
+                separateSlots[i][slot] = sharedSlots[shared.slotOf(separate[i].getVariableNames().get(slot))];
+            }
+        }
+        out = new double[formulas];
+    }
+
+    @Benchmark
+    public double[] separate() {
+        for (int i = 0; i < separate.length; i++) {
+            out[i] = separate[i].evaluate(separateSlots[i]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] formulaSet() {
+        shared.evaluate(sharedSlots, out);
+        return out;
+    }
+}
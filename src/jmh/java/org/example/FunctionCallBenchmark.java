@@ -0,0 +1,51 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость вызова функций: встроенная функция против той же функции, зарегистрированной пользователем.
+ * Пользовательская функция разрешается при компиляции, поэтому вызов не ищет ее по имени.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FunctionCallBenchmark {
+    private static final String EXPRESSION = "%s(x, y) + %s(y, 1) * %s(x + y, 2)";
+
+    private CompiledExpression builtin;
+    private CompiledExpression user;
+    private double[] slots;
+
+    @Setup
+    public void setup() {
+        FunctionRegistry functions = FunctionRegistry.builder().register("userHypot", Math::hypot).build();
+        Evaluator evaluator = new Evaluator(EvaluatorConfig.builder().functions(functions).build());
+        builtin = evaluator.compile(EXPRESSION.replace("%s", "hypot"));
+        user = evaluator.compile(EXPRESSION.replace("%s", "userHypot"));
+        slots = new double[]{3, 4};
+    }
+
+    @Benchmark
+    public double builtinFunction() {
+        return builtin.evaluate(slots);
+    }
+
+    @Benchmark
+    public double userFunction() {
+        return user.evaluate(slots);
+    }
+}
@@ -0,0 +1,76 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Значение и градиент выражения: прямой и обратный режимы автоматического дифференцирования
+ * против центральных разностей (2n + 1 вычислений скомпилированного выражения).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GradientBenchmark {
+    @Param({"short", "functions", "variables"})
+    public String scenario;
+
+    private CompiledExpression compiled;
+    private Differentiator forward;
+    private Differentiator reverse;
+    private double[] slots;
+    private double[] gradient;
+
+    @Setup
+    public void setup() {
+        Map<String, Double> variables = BenchmarkExpressions.variables();
+        compiled = ExpressionEvaluator.compile(BenchmarkExpressions.expression(scenario));
+        forward = new ForwardDifferentiator(compiled);
+        reverse = new ReverseDifferentiator(compiled);
+        slots = new double[compiled.getVariableCount()];
+        gradient = new double[slots.length];
+        for (String name : compiled.getVariableNames()) {
+            slots[compiled.slotOf(name)] = variables.get(name);
+        }
+    }
+
+    @Benchmark
+    public double forward() {
+        return forward.evaluate(slots, gradient);
+    }
+
+    @Benchmark
+    public double reverse() {
+        return reverse.evaluate(slots, gradient);
+    }
+
+    @Benchmark
+    public double finiteDifferences() {
+        double value = compiled.evaluate(slots);
+        for (int slot = 0; slot < slots.length; slot++) {
+            double x = slots[slot];
+            double h = 1e-6 * Math.max(1, Math.abs(x));
+            slots[slot] = x + h;
+            double right = compiled.evaluate(slots);
+            slots[slot] = x - h;
+            double left = compiled.evaluate(slots);
+            slots[slot] = x;
+            gradient[slot] = (right - left) / (2 * h);
+        }
+        return value;
+    }
+}
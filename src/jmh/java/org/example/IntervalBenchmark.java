@@ -0,0 +1,75 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Оценка диапазона выражения: одно интервальное вычисление против перебора 1000 точек.
+ * Перебор дает лишь приближение снизу, интервальная оболочка гарантирована.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IntervalBenchmark {
+    private static final int SAMPLES = 1000;
+
+    @Param({"short", "functions", "variables"})
+    public String scenario;
+
+    private CompiledExpression compiled;
+    private IntervalEvaluator evaluator;
+    private double[] lo;
+    private double[] hi;
+    private double[] slots;
+
+    @Setup
+    public void setup() {
+        Map<String, Double> variables = BenchmarkExpressions.variables();
+        compiled = ExpressionEvaluator.compile(BenchmarkExpressions.expression(scenario));
+        evaluator = new IntervalEvaluator(compiled);
+        lo = new double[compiled.getVariableCount()];
+        hi = new double[lo.length];
+        slots = new double[lo.length];
+        for (String name : compiled.getVariableNames()) {
+            double value = variables.get(name);
+            lo[compiled.slotOf(name)] = value;
+            hi[compiled.slotOf(name)] = value + 0.5;
+        }
+    }
+
+    @Benchmark
+    public IntervalResult interval() {
+        return evaluator.evaluate(lo, hi);
+    }
+
+    @Benchmark
+    public double sampling() {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < SAMPLES; i++) {
+            double t = (double) i / (SAMPLES - 1);
+            for (int slot = 0; slot < slots.length; slot++) {
+                slots[slot] = lo[slot] + (hi[slot] - lo[slot]) * t;
+            }
+            double value = compiled.evaluate(slots);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        return max - min;
+    }
+}
@@ -0,0 +1,70 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обновление одной переменной большого выражения: полное вычисление против пересчета пути.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LiveExpressionBenchmark {
+    @Param({"30"})
+    public int variables;
+
+    private CompiledExpression compiled;
+    private LiveExpression live;
+    private double[] slots;
+    private int changedSlot;
+    private int liveSlot;
+    private double tick;
+
+    @Setup
+    public void setup() {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < variables; i++) {
+            if (i > 0) {
+                source.append(" + ");
+            }
+            source.append("sin(v").append(i).append(") * exp(-r*t) * sqrt(abs(v").append(i).append(") + t)");
+        }
+        compiled = ExpressionEvaluator.compile(source.toString());
+        live = LiveExpression.compile(source.toString());
+        slots = new double[compiled.getVariableCount()];
+        for (int slot = 0; slot < slots.length; slot++) {
+            slots[slot] = 1 + slot * 0.01;
+            live.set(compiled.getVariableNames().get(slot), slots[slot]);
+        }
+        changedSlot = compiled.slotOf("v" + (variables / 2));
+        liveSlot = live.slotOf("v" + (variables / 2));
+    }
+
+    @Benchmark
+    public double fullEvaluation() {
+        tick += 1e-6;
+        slots[changedSlot] = tick;
+        return compiled.evaluate(slots);
+    }
+
+    @Benchmark
+    public double incrementalUpdate() {
+        tick += 1e-6;
+        live.set(liveSlot, tick);
+        return live.get();
+    }
+}
@@ -0,0 +1,67 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость метрик: вычисление скомпилированного выражения при выключенных и включенных метриках.
+ * Время с выключенными метриками должно совпадать с {@link EvaluationBenchmark#evaluateCompiled()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+    @Param({"short", "functions"})
+    public String scenario;
+
+    private CompiledExpression compiled;
+    private double[] slots;
+
+    @Setup
+    public void setup() {
+        Map<String, Double> variables = BenchmarkExpressions.variables();
+        compiled = ExpressionEvaluator.compile(BenchmarkExpressions.expression(scenario));
+        slots = new double[compiled.getVariableCount()];
+        for (String name : compiled.getVariableNames()) {
+            slots[compiled.slotOf(name)] = variables.get(name);
+        }
+    }
+
+    @Benchmark
+    public double disabled() {
+        return compiled.evaluate(slots);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dexpression.metrics=true")
+    public double enabled() {
+        return compiled.evaluate(slots);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dexpression.jit.threshold=0")
+    public double disabledInterpreted() {
+        return compiled.evaluate(slots);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Dexpression.jit.threshold=0", "-Dexpression.metrics=true"})
+    public double enabledInterpreted() {
+        return compiled.evaluate(slots);
+    }
+}
@@ -0,0 +1,79 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Масштабирование параллельного пакетного вычисления по числу потоков.
+ * Ускорение считается как отношение времени при threads = 1 ко времени при большем числе потоков.
+ * При порции 4096 строк задач около тысячи (не меньше 15 на поток при 64 потоках), поэтому балансировка
+ * нагрузки не ограничивает масштабирование; порция по умолчанию (65536 строк, около 60 задач)
+ * показывает, во что обходится ее крупность.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelBenchmark {
+    @Param({"1", "4", "16", "64"})
+    public int threads;
+
+    @Param({"functions"})
+    public String scenario;
+
+    @Param({"4000000"})
+    public int rows;
+
+    @Param({"4096", "65536"})
+    public int chunkSize;
+
+    private ForkJoinPool pool;
+    private ParallelEvaluator evaluator;
+    private CompiledExpression compiled;
+    private double[][] columns;
+    private double[] out;
+    private long[] errors;
+
+    @Setup
+    public void setup() {
+        pool = new ForkJoinPool(threads);
+        evaluator = new ParallelEvaluator(pool, chunkSize);
+        compiled = ExpressionEvaluator.compile(BenchmarkExpressions.expression(scenario));
+        Random random = new Random(1);
+        columns = new double[compiled.getVariableCount()][rows];
+        for (double[] column : columns) {
+            for (int row = 0; row < rows; row++) {
+                column[row] = 1 + random.nextDouble();
+            }
+        }
+        out = new double[rows];
+        errors = new long[BatchEvaluator.errorWords(rows)];
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public double[] parallel() {
+        evaluator.evaluate(compiled, columns, out, errors);
+        return out;
+    }
+}
@@ -0,0 +1,46 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность разбора выражений: в постфиксную форму и сразу в скомпилированное выражение.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParsingBenchmark {
+    @Param({"short", "nested", "functions", "variables"})
+    public String scenario;
+
+    private String expression;
+
+    @Setup
+    public void setup() {
+        expression = BenchmarkExpressions.expression(scenario);
+    }
+
+    @Benchmark
+    public String[] infixToPostfix() {
+        return ExpressionEvaluator.infixToPostfix(expression);
+    }
+
+    @Benchmark
+    public CompiledExpression compile() {
+        return ExpressionEvaluator.compile(expression);
+    }
+}
@@ -0,0 +1,90 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Вычисление набора строк с точными функциями и в режиме {@link PrecisionPolicy#FAST}:
+ * построчно (после прогрева выражение переходит на сгенерированный байт-код), регистровым
+ * интерпретатором и пакетно.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrecisionBenchmark {
+    private static final int ROWS = 1024;
+
+    @Param({"polynomial", "trigonometry", "logarithms"})
+    public String scenario;
+
+    @Param({"STRICT", "FAST"})
+    public PrecisionPolicy precision;
+
+    private CompiledExpression compiled;
+    private RegisterEvaluator registers;
+    private double[][] rows;
+    private double[][] columns;
+    private final double[] out = new double[ROWS];
+
+    @Setup
+    public void setup() {
+        String expression;
+        switch (scenario) {
+            case "polynomial": expression = "3*x^4 - 2*x^3*y + x^2 - y^2 + hypot(x, y)^3"; break;
+            case "trigonometry": expression = "sin(x) * cos(y) + tan(x / 3) - sin(2 * y)"; break;
+            case "logarithms": expression = "ln(x^2 + 1) + log(abs(y) + 1) * ln(hypot(x, y) + 2)"; break;
+            default: throw new IllegalArgumentException("Неизвестный сценарий: " + scenario);
+        }
+        compiled = new Evaluator(EvaluatorConfig.builder().precision(precision).build()).compile(expression);
+        registers = new RegisterEvaluator(compiled);
+        Random random = new Random(42);
+        rows = new double[ROWS][];
+        columns = new double[2][ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            double x = random.nextDouble() * 20 - 10;
+            double y = random.nextDouble() * 20 - 10;
+            rows[i] = new double[]{x, y};
+            columns[0][i] = x;
+            columns[1][i] = y;
+        }
+    }
+
+    @Benchmark
+    public double rows() {
+        double sum = 0;
+        for (double[] row : rows) {
+            sum += compiled.evaluate(row);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double registers() {
+        double sum = 0;
+        for (double[] row : rows) {
+            sum += registers.evaluate(row);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double[] batch() {
+        BatchEvaluator.evaluate(compiled, columns, out, null);
+        return out;
+    }
+}
@@ -0,0 +1,92 @@
+package org.example;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочный генератор для {@link ExpressionServer}: запускает сервер в этом же процессе
+ * и заданное количество одновременных клиентов, каждый в своем виртуальном потоке.
+ * Выводит пропускную способность и перцентили задержки.
+ *
+ * <pre>
+ * mvn -Pbenchmarks compile
+ * java -cp target/classes org.example.ServerLoadGenerator [клиентов] [запросов на клиента]
+ * </pre>
+ */
+public class ServerLoadGenerator {
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        ExpressionServer server = new ExpressionServer(new InetSocketAddress("127.0.0.1", 0),
+                ExpressionServer.DEFAULT_CACHE_SIZE);
+        server.start();
+        URI uri = URI.create("http://127.0.0.1:" + server.getPort() + "/evaluate");
+        String[] bodies = {
+                BenchmarkExpressions.expression("short") + "\n",
+                BenchmarkExpressions.expression("functions") + "\n",
+                "x * exp(-r*t) + sqrt(t)\nx=100, r=0.05, t=2\nx=90, r=0.04, t=1\n"
+        };
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder().executor(executor).build();
+            // Прогрев
+            runClients(executor, client, uri, bodies, Math.min(clients, 100), requests);
+
+            long start = System.nanoTime();
+            long[] latencies = runClients(executor, client, uri, bodies, clients, requests);
+            long elapsed = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            System.out.printf("Клиентов: %d, запросов: %d, %.0f запросов/с%n", clients, latencies.length,
+                    latencies.length / (elapsed / 1e9));
+            System.out.printf("Задержка, мкс: p50=%d p90=%d p99=%d p99.9=%d max=%d%n",
+                    percentile(latencies, 0.5), percentile(latencies, 0.9), percentile(latencies, 0.99),
+                    percentile(latencies, 0.999), latencies[latencies.length - 1] / 1000);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static long[] runClients(ExecutorService executor, HttpClient client, URI uri, String[] bodies,
+                                     int clients, int requests) throws Exception {
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            int id = c;
+            futures.add(executor.submit(() -> {
+                long[] latencies = new long[requests];
+                for (int r = 0; r < requests; r++) {
+                    HttpRequest request = HttpRequest.newBuilder(uri)
+                            .POST(HttpRequest.BodyPublishers.ofString(bodies[(id + r) % bodies.length]))
+                            .build();
+                    long start = System.nanoTime();
+                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    latencies[r] = System.nanoTime() - start;
+                    if (response.statusCode() != 200) {
+                        throw new IllegalStateException("Ответ " + response.statusCode() + ": " + response.body());
+                    }
+                }
+                return latencies;
+            }));
+        }
+        long[] all = new long[clients * requests];
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(futures.get(c).get(10, TimeUnit.MINUTES), 0, all, c * requests, requests);
+        }
+        return all;
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))] / 1000;
+    }
+}
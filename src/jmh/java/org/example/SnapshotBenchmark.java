@@ -0,0 +1,87 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Старт сервиса с набором формул: разбор всех исходных текстов против загрузки двоичного снимка.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SnapshotBenchmark {
+    private static final String[] FUNCTIONS = {"sin", "cos", "sqrt", "abs", "exp", "ln"};
+
+    @Param({"50000"})
+    public int formulas;
+
+    private List<String> sources;
+    private Path snapshot;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(20);
+        sources = new ArrayList<>(formulas);
+        List<CompiledExpression> compiled = new ArrayList<>(formulas);
+        for (int i = 0; i < formulas; i++) {
+            String source = formula(random, 3);
+            sources.add(source);
+            compiled.add(ExpressionEvaluator.compile(source));
+        }
+        snapshot = Files.createTempFile("formulas", ".bin");
+        ExpressionSnapshot.write(snapshot, compiled);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshot);
+    }
+
+    @Benchmark
+    public List<CompiledExpression> coldParse() {
+        List<CompiledExpression> expressions = new ArrayList<>(sources.size());
+        for (String source : sources) {
+            expressions.add(ExpressionEvaluator.compile(source));
+        }
+        return expressions;
+    }
+
+    @Benchmark
+    public List<CompiledExpression> snapshotLoad() throws IOException {
+        return ExpressionSnapshot.read(snapshot);
+    }
+
+    private static String formula(Random random, int depth) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            return random.nextBoolean() ? String.valueOf((char) ('a' + random.nextInt(8)))
+                    : String.valueOf(random.nextInt(1000) / 10.0);
+        }
+        switch (random.nextInt(3)) {
+            case 0: return FUNCTIONS[random.nextInt(FUNCTIONS.length)] + "(" + formula(random, depth - 1) + ")";
+            case 1: return "(" + formula(random, depth - 1) + " " + "+-*/".charAt(random.nextInt(4)) + " "
+                    + formula(random, depth - 1) + ")";
+            default: return formula(random, depth - 1) + " * " + formula(random, depth - 1) + " + " + random.nextInt(100);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Пакетное вычисление выражения над столбцами значений переменных.
+ * Программа выполняется не построчно, а целиком над блоком строк: каждая инструкция
+ * обрабатывает блок простым циклом по массивам, который JIT-компилятор HotSpot векторизует
+ * для операций {@code + - * /}. Ошибки области определения не прерывают вычисление:
+ * результат такой строки равен NaN, а сама строка отмечается в битовой карте ошибок.
+ * Встроенные функции вычисляются по политике точности выражения, как и при построчном вычислении.
+ * Класс не имеет состояния; рабочие буферы выделяются на каждый вызов.
+ */
+public final class BatchEvaluator {
+    /** Количество строк, обрабатываемых одной инструкцией за проход */
+    static final int BLOCK_SIZE = 1024;
+
+    private BatchEvaluator() {
+    }
+
+    /**
+     * Вычисляет выражение для всех строк
+     * @param expression скомпилированное выражение
+     * @param columns столбцы значений переменных по номерам слотов
+     * @param out массив результатов, по одному на строку
+     * @param errors битовая карта ошибок (бит i соответствует строке i) или null, если она не нужна
+     * @return количество строк, вычисление которых завершилось ошибкой
+     * @throws IllegalArgumentException если столбцов недостаточно или их длина меньше числа строк
+     */
+    public static int evaluate(CompiledExpression expression, double[][] columns, double[] out, long[] errors)
+            throws IllegalArgumentException {
+        return evaluate(expression, columns, out, errors, 0, out.length);
+    }
+
+    /**
+     * Вычисляет выражение для всех строк, выбирая столбцы по именам переменных
+     * @param expression скомпилированное выражение
+     * @param columns столбцы значений переменных по именам
+     * @param out массив результатов, по одному на строку
+     * @param errors битовая карта ошибок (бит i соответствует строке i) или null, если она не нужна
+     * @return количество строк, вычисление которых завершилось ошибкой
+     * @throws IllegalArgumentException если столбец какой-либо переменной не задан или слишком короткий
+     */
+    public static int evaluate(CompiledExpression expression, Map<String, double[]> columns, double[] out, long[] errors)
+            throws IllegalArgumentException {
+        return evaluate(expression, columnsBySlot(expression, columns), out, errors);
+    }
+
+    /**
+     * Вычисляет выражение для строк из диапазона [from, to)
+     * @param expression скомпилированное выражение
+     * @param columns столбцы значений переменных по номерам слотов
+     * @param out массив результатов, по одному на строку
+     * @param errors битовая карта ошибок (бит i соответствует строке i) или null, если она не нужна
+     * @param from первая строка диапазона
+     * @param to строка, следующая за последней строкой диапазона
+     * @return количество строк диапазона, вычисление которых завершилось ошибкой
+     * @throws IllegalArgumentException если столбцов недостаточно или их длина меньше числа строк
+     */
+    public static int evaluate(CompiledExpression expression, double[][] columns, double[] out, long[] errors,
+                               int from, int to) throws IllegalArgumentException {
+        checkArguments(expression, columns, out, errors, from, to);
+
+        double[][] stack = new double[expression.getMaxStackDepth()][BLOCK_SIZE];
+        long[] blockErrors = new long[BLOCK_SIZE / Long.SIZE];
+        int failed = 0;
+        for (int start = from; start < to; start += BLOCK_SIZE) {
+            int length = Math.min(BLOCK_SIZE, to - start);
+            Arrays.fill(blockErrors, 0);
+            evaluateBlock(expression, columns, start, length, stack, blockErrors);
+
+            System.arraycopy(stack[0], 0, out, start, length);
+            long anyError = 0;
+            for (long word : blockErrors) {
+                anyError |= word;
+            }
+            if (anyError != 0) {
+                for (int i = 0; i < length; i++) {
+                    if ((blockErrors[i >>> 6] & (1L << i)) != 0) {
+                        // После ошибки значение могло стать числом (например, NaN^0 = 1), поэтому NaN ставится явно
+                        out[start + i] = Double.NaN;
+                        failed++;
+                    }
+                }
+            }
+            if (errors != null) {
+                storeErrors(errors, start, length, blockErrors);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Проверяет, отмечена ли строка в битовой карте ошибок
+     * @param errors битовая карта ошибок
+     * @param row номер строки
+     * @return true, если вычисление строки завершилось ошибкой
+     */
+    public static boolean isError(long[] errors, int row) {
+        return (errors[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Возвращает размер битовой карты ошибок для заданного числа строк
+     * @param rows количество строк
+     * @return длина массива long
+     */
+    public static int errorWords(int rows) {
+        return (rows + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    static double[][] columnsBySlot(CompiledExpression expression, Map<String, double[]> columns) {
+        double[][] bySlot = new double[expression.getVariableCount()][];
+        for (String name : expression.getVariableNames()) {
+            double[] column = columns.get(name);
+            if (column == null) {
+                throw new IllegalArgumentException("Не задано значение переменной: " + name);
+            }
+            bySlot[expression.slotOf(name)] = column;
+        }
+        return bySlot;
+    }
+
+    static void checkArguments(CompiledExpression expression, double[][] columns, double[] out, long[] errors,
+                               int from, int to) {
+        if (from < 0 || from > to || to > out.length) {
+            throw new IllegalArgumentException("Некорректный диапазон строк: [" + from + ", " + to + ")");
+        }
+        if (columns.length < expression.getVariableCount()) {
+            throw new IllegalArgumentException("Ожидается значений переменных: " + expression.getVariableCount());
+        }
+        for (int slot = 0; slot < expression.getVariableCount(); slot++) {
+            if (columns[slot].length < to) {
+                throw new IllegalArgumentException("Недостаточно значений переменной: "
+                        + expression.getVariableNames().get(slot));
+            }
+        }
+        if (errors != null && errors.length < errorWords(to)) {
+            throw new IllegalArgumentException("Недостаточный размер битовой карты ошибок: " + errors.length);
+        }
+    }
+
+    private static void evaluateBlock(CompiledExpression expression, double[][] columns, int start, int length,
+                                      double[][] stack, long[] blockErrors) {
+        int[] opcodes = expression.opcodes();
+        int[] operands = expression.operands();
+        double[] literals = expression.literals();
+        boolean fast = expression.getPrecision() == PrecisionPolicy.FAST;
+        int sp = 0;
+
+        for (int pc = 0; pc < opcodes.length; pc++) {
+            int op = opcodes[pc];
+            if (op == OpCode.CONST) {
+                Arrays.fill(stack[sp++], 0, length, literals[operands[pc]]);
+            } else if (op == OpCode.VAR) {
+                System.arraycopy(columns[operands[pc]], start, stack[sp++], 0, length);
+            } else if (OpCode.isBinary(op)) {
+                sp--;
+                binary(op, stack[sp - 1], stack[sp], length, blockErrors, fast);
+            } else if (op == OpCode.CLAMP) {
+                sp -= 2;
+                clamp(stack[sp - 1], stack[sp], stack[sp + 1], length, blockErrors);
+            } else if (op == OpCode.CALL) {
+                FunctionDefinition function = expression.functions()[operands[pc]];
+                sp -= function.arity - 1;
+                call(function, stack, sp - 1, length, blockErrors);
+            } else {
+                unary(op, stack[sp - 1], length, blockErrors, fast);
+            }
+        }
+    }
+
+    private static void binary(int op, double[] left, double[] right, int length, long[] blockErrors,
+                               boolean fast) {
+        switch (op) {
+            case OpCode.ADD:
+                for (int i = 0; i < length; i++) left[i] += right[i];
+                break;
+            case OpCode.SUB:
+                for (int i = 0; i < length; i++) left[i] -= right[i];
+                break;
+            case OpCode.MUL:
+                for (int i = 0; i < length; i++) left[i] *= right[i];
+                break;
+            case OpCode.DIV:
+                for (int i = 0; i < length; i++) left[i] /= right[i];
+                for (int i = 0; i < length; i++) {
+                    if (right[i] == 0) fail(left, i, blockErrors);
+                }
+                break;
+            case OpCode.POW:
+                if (fast) {
+                    for (int i = 0; i < length; i++) left[i] = FastMath.pow(left[i], right[i]);
+                } else {
+                    for (int i = 0; i < length; i++) left[i] = Math.pow(left[i], right[i]);
+                }
+                break;
+            case OpCode.MIN:
+                for (int i = 0; i < length; i++) left[i] = Math.min(left[i], right[i]);
+                break;
+            case OpCode.MAX:
+                for (int i = 0; i < length; i++) left[i] = Math.max(left[i], right[i]);
+                break;
+            case OpCode.HYPOT:
+                if (fast) {
+                    for (int i = 0; i < length; i++) left[i] = FastMath.hypot(left[i], right[i]);
+                } else {
+                    for (int i = 0; i < length; i++) left[i] = Math.hypot(left[i], right[i]);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Неизвестный оператор: " + op);
+        }
+    }
+
+    private static void clamp(double[] values, double[] min, double[] max, int length, long[] blockErrors) {
+        for (int i = 0; i < length; i++) {
+            if (min[i] > max[i]) fail(values, i, blockErrors);
+            else values[i] = Math.min(Math.max(values[i], min[i]), max[i]);
+        }
+    }
+
+    /**
+     * Вызывает пользовательскую функцию построчно; аргументы лежат в строках стека начиная с first
+     */
+    private static void call(FunctionDefinition function, double[][] stack, int first, int length,
+                             long[] blockErrors) {
+        ExpressionFunction implementation = function.implementation;
+        double[] arguments = new double[function.arity];
+        double[] values = stack[first];
+        for (int i = 0; i < length; i++) {
+            for (int k = 0; k < arguments.length; k++) {
+                arguments[k] = stack[first + k][i];
+            }
+            try {
+                values[i] = implementation.apply(arguments, 0);
+            } catch (IllegalArgumentException e) {
+                fail(values, i, blockErrors);
+            }
+        }
+    }
+
+    private static void unary(int op, double[] values, int length, long[] blockErrors, boolean fast) {
+        switch (op) {
+            case OpCode.SQRT:
+                for (int i = 0; i < length; i++) {
+                    if (values[i] < 0) fail(values, i, blockErrors);
+                    else values[i] = Math.sqrt(values[i]);
+                }
+                break;
+            case OpCode.LOG:
+                for (int i = 0; i < length; i++) {
+                    if (values[i] <= 0) fail(values, i, blockErrors);
+                    else values[i] = fast ? FastMath.log10(values[i]) : Math.log10(values[i]);
+                }
+                break;
+            case OpCode.LN:
+                for (int i = 0; i < length; i++) {
+                    if (values[i] <= 0) fail(values, i, blockErrors);
+                    else values[i] = fast ? FastMath.ln(values[i]) : Math.log(values[i]);
+                }
+                break;
+            case OpCode.ABS:
+                for (int i = 0; i < length; i++) values[i] = Math.abs(values[i]);
+                break;
+            case OpCode.NEG:
+                for (int i = 0; i < length; i++) values[i] = 0.0 - values[i];
+                break;
+            default:
+                if (fast) {
+                    for (int i = 0; i < length; i++) values[i] = FastMath.applyUnary(op, values[i]);
+                } else {
+                    for (int i = 0; i < length; i++) values[i] = OpCode.applyUnary(op, values[i]);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Переносит ошибки блока в общую битовую карту, сбрасывая биты успешных строк
+     */
+    private static void storeErrors(long[] errors, int start, int length, long[] blockErrors) {
+        if ((start & (Long.SIZE - 1)) == 0) {
+            for (int w = 0; w * Long.SIZE < length; w++) {
+                int bits = Math.min(Long.SIZE, length - w * Long.SIZE);
+                long valid = bits == Long.SIZE ? -1L : (1L << bits) - 1;
+                int index = (start >>> 6) + w;
+                errors[index] = (errors[index] & ~valid) | (blockErrors[w] & valid);
+            }
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            int row = start + i;
+            if ((blockErrors[i >>> 6] & (1L << i)) != 0) {
+                errors[row >>> 6] |= 1L << row;
+            } else {
+                errors[row >>> 6] &= ~(1L << row);
+            }
+        }
+    }
+
+    private static void fail(double[] values, int i, long[] blockErrors) {
+        values[i] = Double.NaN;
+        blockErrors[i >>> 6] |= 1L << i;
+    }
+}
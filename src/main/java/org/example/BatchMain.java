@@ -0,0 +1,226 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Пакетный режим: вычисление одного или нескольких выражений над каждой строкой входного файла.
+ *
+ * <pre>
+ * java org.example.BatchMain [--format csv|binary] [--columns a,b,c] [--chunk-rows N]
+ *                            [--precision strict|fast] --input файл --output файл выражение...
+ * </pre>
+ *
+ * Форматы:
+ * <ul>
+ *     <li>csv — первая строка содержит имена столбцов, остальные — числа через запятую;
+ *     результат — CSV со столбцом на каждое выражение;</li>
+ *     <li>binary — значения double (little-endian) по столбцам, имена столбцов задаются ключом --columns;
+ *     результат — файл того же формата со столбцом на каждое выражение.</li>
+ * </ul>
+ * Файл обрабатывается порциями по --chunk-rows строк через отображение в память, поэтому расход
+ * памяти ограничен размером порции, а чтение, вычисление и запись идут в одном потоке
+ * и не опережают друг друга. Строки, вычисление которых завершилось ошибкой, дают NaN.
+ * Ключ --precision задает политику точности встроенных функций (см. {@link PrecisionPolicy}).
+ */
+public class BatchMain {
+    /** Количество строк в порции по умолчанию */
+    static final int DEFAULT_CHUNK_ROWS = 64 * BatchEvaluator.BLOCK_SIZE;
+
+    private static final String USAGE = "Использование: BatchMain [--format csv|binary] [--columns a,b,c] "
+            + "[--chunk-rows N] [--precision strict|fast] --input файл --output файл выражение...";
+
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+        int status = run(args, System.out, System.err);
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    /**
+     * Выполняет пакетную обработку
+     * @param args аргументы командной строки
+     * @param out поток для итоговой статистики
+     * @param err поток для сообщений об ошибках
+     * @return код завершения: 0 при успехе, 1 при ошибке, 2 при некорректных аргументах
+     */
+    static int run(String[] args, PrintStream out, PrintStream err) {
+        return run(args, EvaluatorConfig.DEFAULT, out, err);
+    }
+
+    /**
+     * Выполняет пакетную обработку с заданной конфигурацией вычислителя
+     * @param args аргументы командной строки; ключ --precision заменяет политику точности конфигурации
+     * @param config конфигурация, с которой компилируются выражения
+     * @param out поток для итоговой статистики
+     * @param err поток для сообщений об ошибках
+     * @return код завершения: 0 при успехе, 1 при ошибке, 2 при некорректных аргументах
+     */
+    static int run(String[] args, EvaluatorConfig config, PrintStream out, PrintStream err) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println("Ошибка: " + e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+
+        try {
+            long[] counts = process(options, config);
+            out.println("Обработано строк: " + counts[0] + ", ошибок вычисления: " + counts[1]);
+            return 0;
+        } catch (IllegalArgumentException e) {
+            err.println("Ошибка: " + e.getMessage());
+            return 1;
+        } catch (IOException e) {
+            err.println("Ошибка ввода-вывода: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Обрабатывает файл
+     * @return количество строк и количество ошибок вычисления
+     */
+    static long[] process(Options options, EvaluatorConfig config) throws IOException {
+        if (options.precision != null) {
+            config = config.toBuilder().precision(options.precision).build();
+        }
+        Evaluator evaluator = new Evaluator(config);
+        CompiledExpression[] expressions = new CompiledExpression[options.expressions.size()];
+        for (int i = 0; i < expressions.length; i++) {
+            expressions[i] = evaluator.compile(options.expressions.get(i));
+        }
+
+        try (ColumnReader reader = openReader(options)) {
+            List<String> names = reader.getColumnNames();
+            double[][] columns = new double[names.size()][];
+            double[][][] columnsBySlot = new double[expressions.length][][];
+            for (int e = 0; e < expressions.length; e++) {
+                columnsBySlot[e] = new double[expressions[e].getVariableCount()][];
+                for (int slot = 0; slot < columnsBySlot[e].length; slot++) {
+                    String name = expressions[e].getVariableNames().get(slot);
+                    int column = names.indexOf(name);
+                    if (column < 0) {
+                        throw new IllegalArgumentException("Во входном файле нет столбца " + name);
+                    }
+                    if (columns[column] == null) {
+                        columns[column] = new double[options.chunkRows];
+                    }
+                    columnsBySlot[e][slot] = columns[column];
+                }
+            }
+            double[][] results = new double[expressions.length][options.chunkRows];
+
+            long rows = 0;
+            long failed = 0;
+            try (ColumnWriter writer = openWriter(options, reader)) {
+                int count;
+                while ((count = reader.read(columns, options.chunkRows)) > 0) {
+                    for (int e = 0; e < expressions.length; e++) {
+                        failed += BatchEvaluator.evaluate(expressions[e], columnsBySlot[e], results[e], null, 0, count);
+                    }
+                    writer.write(results, count);
+                    rows += count;
+                }
+            }
+            return new long[]{rows, failed};
+        }
+    }
+
+    private static ColumnReader openReader(Options options) throws IOException {
+        if (options.binary) {
+            if (options.columns == null) {
+                throw new IllegalArgumentException("Для двоичного формата нужно задать имена столбцов (--columns)");
+            }
+            return new BinaryColumnReader(options.input, options.columns);
+        }
+        return new CsvColumnReader(options.input);
+    }
+
+    private static ColumnWriter openWriter(Options options, ColumnReader reader) throws IOException {
+        if (options.binary) {
+            return new BinaryColumnWriter(options.output, options.expressions.size(),
+                    ((BinaryColumnReader) reader).getRowCount());
+        }
+        return new CsvColumnWriter(options.output, options.expressions);
+    }
+
+    /**
+     * Разобранные аргументы командной строки
+     */
+    static final class Options {
+        boolean binary;
+        List<String> columns;
+        int chunkRows = DEFAULT_CHUNK_ROWS;
+        PrecisionPolicy precision;
+        Path input;
+        Path output;
+        final List<String> expressions = new ArrayList<>();
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                if (!arg.startsWith("--")) {
+                    options.expressions.add(arg);
+                    continue;
+                }
+                if (i + 1 >= args.length) {
+                    throw new IllegalArgumentException("Не задано значение ключа " + arg);
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "--format":
+                        if (!value.equals("csv") && !value.equals("binary")) {
+                            throw new IllegalArgumentException("Неизвестный формат: " + value);
+                        }
+                        options.binary = value.equals("binary");
+                        break;
+                    case "--columns":
+                        options.columns = Arrays.asList(value.split(","));
+                        break;
+                    case "--chunk-rows":
+                        try {
+                            options.chunkRows = Integer.parseInt(value);
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException("Недопустимое количество строк в порции: " + value);
+                        }
+                        if (options.chunkRows <= 0) {
+                            throw new IllegalArgumentException("Недопустимое количество строк в порции: " + value);
+                        }
+                        break;
+                    case "--precision":
+                        if (!value.equals("strict") && !value.equals("fast")) {
+                            throw new IllegalArgumentException("Неизвестная политика точности: " + value);
+                        }
+                        options.precision = value.equals("fast") ? PrecisionPolicy.FAST : PrecisionPolicy.STRICT;
+                        break;
+                    case "--input":
+                        options.input = Paths.get(value);
+                        break;
+                    case "--output":
+                        options.output = Paths.get(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Неизвестный ключ: " + arg);
+                }
+            }
+            if (options.input == null || options.output == null) {
+                throw new IllegalArgumentException("Не заданы входной и выходной файлы");
+            }
+            if (options.expressions.isEmpty()) {
+                throw new IllegalArgumentException("Не задано ни одного выражения");
+            }
+            return options;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Чтение двоичного файла, в котором значения double (little-endian) записаны по столбцам:
+ * сначала все строки первого столбца, затем все строки второго и так далее.
+ * Количество строк определяется по размеру файла. Каждая порция читается через
+ * отображение в память только нужного участка каждого столбца, поэтому расход памяти
+ * не зависит от размера файла.
+ */
+final class BinaryColumnReader implements ColumnReader {
+    private final FileChannel channel;
+    private final List<String> names;
+    private final long rows;
+    private long next;
+
+    /**
+     * Открывает файл
+     * @param path путь к файлу
+     * @param names имена столбцов в порядке их расположения в файле
+     * @throws IOException при ошибке открытия файла
+     * @throws IllegalArgumentException если размер файла не соответствует количеству столбцов
+     */
+    BinaryColumnReader(Path path, List<String> names) throws IOException {
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("Не заданы имена столбцов");
+        }
+        this.names = Collections.unmodifiableList(new ArrayList<>(names));
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        long size = channel.size();
+        long rowSize = (long) Double.BYTES * names.size();
+        if (size % rowSize != 0) {
+            channel.close();
+            throw new IllegalArgumentException("Размер файла " + size + " не кратен размеру строки " + rowSize);
+        }
+        this.rows = size / rowSize;
+    }
+
+    /**
+     * Возвращает количество строк в файле
+     * @return количество строк
+     */
+    long getRowCount() {
+        return rows;
+    }
+
+    @Override
+    public List<String> getColumnNames() {
+        return names;
+    }
+
+    @Override
+    public int read(double[][] columns, int maxRows) throws IOException {
+        int count = (int) Math.min(maxRows, rows - next);
+        if (count == 0) {
+            return 0;
+        }
+        for (int column = 0; column < names.size(); column++) {
+            if (columns[column] == null) {
+                continue;
+            }
+            long offset = (column * rows + next) * Double.BYTES;
+            channel.map(FileChannel.MapMode.READ_ONLY, offset, (long) count * Double.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asDoubleBuffer()
+                    .get(columns[column], 0, count);
+        }
+        next += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,53 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Запись результатов в двоичный файл того же формата, что читает {@link BinaryColumnReader}:
+ * значения double (little-endian) по столбцам. Количество строк известно заранее,
+ * поэтому каждая порция записывается через отображение в память своего участка каждого столбца.
+ */
+final class BinaryColumnWriter implements ColumnWriter {
+    private final FileChannel channel;
+    private final int columnCount;
+    private final long rows;
+    private long next;
+
+    /**
+     * Создает файл (существующий файл перезаписывается)
+     * @param path путь к файлу
+     * @param columnCount количество столбцов
+     * @param rows количество строк
+     * @throws IOException при ошибке создания файла
+     */
+    BinaryColumnWriter(Path path, int columnCount, long rows) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.columnCount = columnCount;
+        this.rows = rows;
+    }
+
+    @Override
+    public void write(double[][] columns, int count) throws IOException {
+        if (next + count > rows) {
+            throw new IllegalArgumentException("Превышено количество строк: " + rows);
+        }
+        for (int column = 0; column < columnCount; column++) {
+            long offset = (column * rows + next) * Double.BYTES;
+            channel.map(FileChannel.MapMode.READ_WRITE, offset, (long) count * Double.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asDoubleBuffer()
+                    .put(columns[column], 0, count);
+        }
+        next += count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
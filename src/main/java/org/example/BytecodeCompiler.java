@@ -0,0 +1,372 @@
+package org.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Генератор байт-кода для часто вычисляемых выражений.
+ * Постфиксная программа превращается в метод без ветвлений: каждая инструкция стека
+ * переходит в соответствующую инструкцию JVM, а проверки области определения выполняют
+ * те же методы {@link OpCode}, что и интерпретатор, поэтому результаты совпадают побитово.
+ * Класс содержит два метода: с исключениями при ошибках и с записью кода ошибки в буфер
+ * (их варианты {@link OpCode} отличаются только способом сообщить об ошибке).
+ * Для выражений с политикой {@link PrecisionPolicy#FAST} приближенные функции вызываются из {@link FastMath},
+ * как и в интерпретаторе.
+ * Класс загружается как скрытый (hidden class) в пакете org.example и выгружается вместе с выражением.
+ *
+ * Порог перевода на байт-код задается системным свойством {@code expression.jit.threshold}
+ * (по умолчанию 10000 вычислений); значение 0 отключает генерацию.
+ */
+final class BytecodeCompiler {
+    /** Количество интерпретированных вычислений, после которого выражение компилируется в байт-код */
+    static final int THRESHOLD = Integer.getInteger("expression.jit.threshold", 10_000);
+
+    /** Ограничение JVM на длину кода метода */
+    private static final int MAX_CODE_LENGTH = 65535;
+
+    private static final String CLASS_NAME = "org/example/ExpressionKernel$Generated";
+    private static final String KERNEL_NAME = "org/example/ExpressionKernel";
+    private static final String OPCODE_NAME = "org/example/OpCode";
+    private static final String FAST_MATH_NAME = "org/example/FastMath";
+    private static final String MATH_NAME = "java/lang/Math";
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_2 = 0x2c;
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC_W = 0x13;
+    private static final int LDC2_W = 0x14;
+    private static final int DALOAD = 0x31;
+    private static final int DADD = 0x63;
+    private static final int DSUB = 0x67;
+    private static final int DMUL = 0x6b;
+    private static final int DRETURN = 0xaf;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+
+    private BytecodeCompiler() {
+    }
+
+    /**
+     * Генерирует и загружает класс, вычисляющий выражение
+     * @param expression скомпилированное выражение
+     * @return сгенерированный вычислитель или null, если выражение не помещается в один метод
+     */
+    static ExpressionKernel compile(CompiledExpression expression) {
+        byte[] bytes = generate(expression);
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (ExpressionKernel) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class))
+                    .invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Не удалось загрузить сгенерированный класс", e);
+        }
+    }
+
+    /**
+     * Строит class-файл с реализацией {@link ExpressionKernel}
+     * @param expression скомпилированное выражение
+     * @return содержимое class-файла или null, если код метода или пул констант превышают ограничения JVM
+     */
+    static byte[] generate(CompiledExpression expression) {
+        ConstantPool pool = new ConstantPool();
+        int thisClass = pool.classRef(CLASS_NAME);
+        int superClass = pool.classRef("java/lang/Object");
+        int kernelInterface = pool.classRef(KERNEL_NAME);
+        int objectInit = pool.methodRef("java/lang/Object", "<init>", "()V");
+        int initName = pool.utf8("<init>");
+        int initType = pool.utf8("()V");
+        int evaluateName = pool.utf8("evaluate");
+        int evaluateType = pool.utf8("([D)D");
+        int checkedType = pool.utf8("([D[I)D");
+        int codeAttribute = pool.utf8("Code");
+
+        byte[] code = generateEvaluate(expression, pool, false);
+        byte[] checkedCode = code == null ? null : generateEvaluate(expression, pool, true);
+        if (checkedCode == null || pool.isOverflowed()) {
+            return null;
+        }
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + code.length + checkedCode.length);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(52);
+            pool.writeTo(out);
+            out.writeShort(ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(kernelInterface);
+            out.writeShort(0); // поля
+
+            out.writeShort(3); // методы
+            out.writeShort(ACC_PUBLIC);
+            out.writeShort(initName);
+            out.writeShort(initType);
+            writeCode(out, codeAttribute, 1, 1, new byte[]{
+                    (byte) ALOAD_0, (byte) INVOKESPECIAL, (byte) (objectInit >> 8), (byte) objectInit, (byte) RETURN});
+
+            out.writeShort(ACC_PUBLIC | ACC_FINAL);
+            out.writeShort(evaluateName);
+            out.writeShort(evaluateType);
+            // Каждое значение double занимает два слова стека; еще два нужны на загрузку из массива слотов
+            writeCode(out, codeAttribute, 2 * expression.getMaxStackDepth() + 2, 2, code);
+
+            out.writeShort(ACC_PUBLIC | ACC_FINAL);
+            out.writeShort(evaluateName);
+            out.writeShort(checkedType);
+            // Перед вызовом проверяющего метода на стек кладется еще и буфер кода ошибки
+            writeCode(out, codeAttribute, 2 * expression.getMaxStackDepth() + 3, 3, checkedCode);
+
+            out.writeShort(0); // атрибуты класса
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param checked true — ошибки записываются в буфер кода (третий локальный слот), false — выбрасываются
+     */
+    private static byte[] generateEvaluate(CompiledExpression expression, ConstantPool pool, boolean checked) {
+        int[] opcodes = expression.opcodes();
+        int[] operands = expression.operands();
+        double[] literals = expression.literals();
+        boolean fast = expression.getPrecision() == PrecisionPolicy.FAST;
+        ByteArrayOutputStream code = new ByteArrayOutputStream(opcodes.length * 4 + 1);
+
+        for (int pc = 0; pc < opcodes.length; pc++) {
+            int op = opcodes[pc];
+            // Приближенные функции FastMath называются и проверяют аргументы так же, как методы Math и OpCode
+            String math = fast && FastMath.isApproximated(op) ? FAST_MATH_NAME : MATH_NAME;
+            String checking = fast && FastMath.isApproximated(op) ? FAST_MATH_NAME : OPCODE_NAME;
+            switch (op) {
+                case OpCode.CONST:
+                    emitIndexed(code, LDC2_W, pool.doubleConstant(literals[operands[pc]]));
+                    break;
+                case OpCode.VAR:
+                    code.write(ALOAD_1);
+                    emitInt(code, pool, operands[pc]);
+                    code.write(DALOAD);
+                    break;
+                case OpCode.ADD: code.write(DADD); break;
+                case OpCode.SUB: code.write(DSUB); break;
+                case OpCode.MUL: code.write(DMUL); break;
+                case OpCode.DIV: emitChecked(code, pool, checked, checking, "divide", "(DD"); break;
+                case OpCode.POW: emitCall(code, pool, math, "pow", "(DD)D"); break;
+                case OpCode.SQRT: emitChecked(code, pool, checked, checking, "sqrt", "(D"); break;
+                case OpCode.LOG: emitChecked(code, pool, checked, checking, "log10", "(D"); break;
+                case OpCode.LN: emitChecked(code, pool, checked, checking, "ln", "(D"); break;
+                case OpCode.NEG: emitCall(code, pool, OPCODE_NAME, "negate", "(D)D"); break;
+                case OpCode.MIN: emitCall(code, pool, math, "min", "(DD)D"); break;
+                case OpCode.MAX: emitCall(code, pool, math, "max", "(DD)D"); break;
+                case OpCode.HYPOT: emitCall(code, pool, math, "hypot", "(DD)D"); break;
+                case OpCode.CLAMP: emitChecked(code, pool, checked, checking, "clamp", "(DDD"); break;
+                case OpCode.CALL:
+                    // Пользовательские функции вызываются через интерфейс, компиляция не дает выигрыша
+                    return null;
+                default:
+                    if (!OpCode.isUnary(op)) {
+                        throw new IllegalStateException("Неизвестная инструкция: " + op);
+                    }
+                    // Остальные встроенные функции совпадают по имени с методами Math
+                    emitCall(code, pool, math, OpCode.name(op), "(D)D");
+                    break;
+            }
+            if (code.size() >= MAX_CODE_LENGTH) {
+                return null;
+            }
+        }
+        code.write(DRETURN);
+        return code.toByteArray();
+    }
+
+    private static void emitInt(ByteArrayOutputStream code, ConstantPool pool, int value) {
+        if (value <= 5) {
+            code.write(ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            code.write(BIPUSH);
+            code.write(value);
+        } else if (value <= Short.MAX_VALUE) {
+            emitIndexed(code, SIPUSH, value);
+        } else {
+            emitIndexed(code, LDC_W, pool.intConstant(value));
+        }
+    }
+
+    /**
+     * Вызывает метод с проверкой области определения ({@link OpCode} или {@link FastMath})
+     * @param owner внутреннее имя класса метода
+     * @param parameters начало дескриптора: типы аргументов без закрывающей скобки
+     */
+    private static void emitChecked(ByteArrayOutputStream code, ConstantPool pool, boolean checked, String owner,
+                                    String name, String parameters) {
+        if (checked) {
+            code.write(ALOAD_2);
+            emitCall(code, pool, owner, name, parameters + "[I)D");
+        } else {
+            emitCall(code, pool, owner, name, parameters + ")D");
+        }
+    }
+
+    private static void emitCall(ByteArrayOutputStream code, ConstantPool pool, String owner, String name, String type) {
+        emitIndexed(code, INVOKESTATIC, pool.methodRef(owner, name, type));
+    }
+
+    private static void emitIndexed(ByteArrayOutputStream code, int instruction, int index) {
+        code.write(instruction);
+        code.write(index >> 8);
+        code.write(index);
+    }
+
+    private static void writeCode(DataOutputStream out, int codeAttribute, int maxStack, int maxLocals, byte[] code)
+            throws IOException {
+        out.writeShort(1);
+        out.writeShort(codeAttribute);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0); // таблица исключений
+        out.writeShort(0); // атрибуты кода
+    }
+
+    /**
+     * Пул констант class-файла с устранением повторов
+     */
+    private static final class ConstantPool {
+        private static final int UTF8 = 1;
+        private static final int INTEGER = 3;
+        private static final int DOUBLE = 6;
+        private static final int CLASS = 7;
+        private static final int METHOD_REF = 10;
+        private static final int NAME_AND_TYPE = 12;
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final Map<String, Integer> entries = new HashMap<>();
+        private int count = 1;
+        private boolean overflowed;
+
+        int utf8(String value) {
+            Integer index = entries.get("U" + value);
+            if (index != null) {
+                return index;
+            }
+            try {
+                out.writeByte(UTF8);
+                out.writeUTF(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return register("U" + value, 1);
+        }
+
+        int classRef(String name) {
+            Integer index = entries.get("C" + name);
+            if (index != null) {
+                return index;
+            }
+            int nameIndex = utf8(name);
+            write(CLASS, nameIndex);
+            return register("C" + name, 1);
+        }
+
+        int methodRef(String owner, String name, String type) {
+            String key = "M" + owner + '.' + name + type;
+            Integer index = entries.get(key);
+            if (index != null) {
+                return index;
+            }
+            int ownerIndex = classRef(owner);
+            int nameIndex = utf8(name);
+            int typeIndex = utf8(type);
+            write(NAME_AND_TYPE, nameIndex, typeIndex);
+            int nameAndType = register("N" + key, 1);
+            write(METHOD_REF, ownerIndex, nameAndType);
+            return register(key, 1);
+        }
+
+        int doubleConstant(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            String key = "D" + bits;
+            Integer index = entries.get(key);
+            if (index != null) {
+                return index;
+            }
+            try {
+                out.writeByte(DOUBLE);
+                out.writeLong(bits);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            // Значения double занимают две позиции пула
+            return register(key, 2);
+        }
+
+        int intConstant(int value) {
+            String key = "I" + value;
+            Integer index = entries.get(key);
+            if (index != null) {
+                return index;
+            }
+            try {
+                out.writeByte(INTEGER);
+                out.writeInt(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return register(key, 1);
+        }
+
+        boolean isOverflowed() {
+            return overflowed;
+        }
+
+        void writeTo(DataOutputStream target) throws IOException {
+            target.writeShort(count);
+            bytes.writeTo(target);
+        }
+
+        private void write(int tag, int... indexes) {
+            try {
+                out.writeByte(tag);
+                for (int index : indexes) {
+                    out.writeShort(index);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private int register(String key, int size) {
+            if (count + size > 0xFFFF) {
+                // Класс все равно не будет загружен: generate() вернет null
+                overflowed = true;
+                return 0;
+            }
+            int index = count;
+            entries.put(key, index);
+            count += size;
+            return index;
+        }
+    }
+}
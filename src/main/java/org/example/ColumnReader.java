@@ -0,0 +1,26 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Последовательное чтение входного файла столбцами, порциями ограниченного размера.
+ */
+interface ColumnReader extends Closeable {
+    /**
+     * Возвращает имена столбцов в порядке их номеров
+     * @return имена столбцов
+     */
+    List<String> getColumnNames();
+
+    /**
+     * Читает очередную порцию строк
+     * @param columns массивы для значений по номерам столбцов; столбцы, для которых передан null, пропускаются
+     * @param maxRows наибольшее количество строк в порции (не больше длины массивов)
+     * @return количество прочитанных строк или 0, если файл закончился
+     * @throws IOException при ошибке чтения
+     * @throws IllegalArgumentException если данные файла некорректны
+     */
+    int read(double[][] columns, int maxRows) throws IOException;
+}
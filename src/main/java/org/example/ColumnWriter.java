@@ -0,0 +1,17 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Последовательная запись результатов столбцами, порциями ограниченного размера.
+ */
+interface ColumnWriter extends Closeable {
+    /**
+     * Записывает очередную порцию строк
+     * @param columns значения по номерам выходных столбцов
+     * @param rows количество строк в порции
+     * @throws IOException при ошибке записи
+     */
+    void write(double[][] columns, int rows) throws IOException;
+}
@@ -0,0 +1,576 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Скомпилированное выражение, готовое к многократному вычислению.
+ * Хранит постфиксную программу в виде типизированных инструкций: литералы уже разобраны в double,
+ * операторы и встроенные функции заменены кодами, переменные — номерами слотов, а пользовательские
+ * функции — прямыми ссылками на их реализации в таблице функций выражения.
+ * Экземпляры неизменяемы и потокобезопасны.
+ * Часто вычисляемые выражения автоматически переводятся на сгенерированный байт-код
+ * (см. {@link BytecodeCompiler}); результаты и ошибки при этом не меняются.
+ * Вычисление работает на примитивном стеке фиксированного размера, равного максимальной глубине,
+ * посчитанной при компиляции, и в установившемся режиме не выделяет память.
+ * Встроенные функции вычисляются по политике точности выражения (см. {@link PrecisionPolicy}).
+ */
+public final class CompiledExpression {
+    private static final int DEFAULT_STACK_SIZE = 64;
+    private static final FunctionDefinition[] NO_FUNCTIONS = new FunctionDefinition[0];
+
+    /** Стек вычисления, переиспользуемый в пределах потока; на время вычисления забирается из ThreadLocal */
+    private static final ThreadLocal<double[]> STACK = new ThreadLocal<>();
+
+    private final String source;
+    private final int[] opcodes;
+    private final int[] operands;
+    private final double[] literals;
+    private final String[] variableNames;
+    private final FunctionDefinition[] functions;
+    private final int maxStackDepth;
+    private final PrecisionPolicy precision;
+    /** Вычислять встроенные функции через {@link FastMath}; повторяет {@code precision == FAST} для интерпретатора */
+    private final boolean fast;
+    /** Метрики выражения; null, если метрики выключены или выражение не отслеживается */
+    private final ExpressionMetrics metrics;
+
+    private volatile ExpressionKernel kernel;
+    private int interpretedEvaluations;
+
+    CompiledExpression(String source, int[] opcodes, int[] operands, double[] literals,
+                       String[] variableNames, int maxStackDepth) {
+        this(source, opcodes, operands, literals, variableNames, NO_FUNCTIONS, maxStackDepth);
+    }
+
+    CompiledExpression(String source, int[] opcodes, int[] operands, double[] literals,
+                       String[] variableNames, FunctionDefinition[] functions, int maxStackDepth) {
+        this(source, opcodes, operands, literals, variableNames, functions, maxStackDepth, PrecisionPolicy.STRICT);
+    }
+
+    CompiledExpression(String source, int[] opcodes, int[] operands, double[] literals,
+                       String[] variableNames, FunctionDefinition[] functions, int maxStackDepth,
+                       PrecisionPolicy precision) {
+        this.source = source;
+        this.opcodes = opcodes;
+        this.operands = operands;
+        this.literals = literals;
+        this.variableNames = variableNames;
+        this.functions = functions;
+        this.maxStackDepth = maxStackDepth;
+        this.precision = precision;
+        this.fast = precision == PrecisionPolicy.FAST;
+        this.metrics = EvaluationMetrics.ENABLED ? EvaluationMetrics.forExpression(source) : null;
+    }
+
+    /**
+     * Компилирует выражение, заданное в постфиксной форме, со встроенными функциями
+     * @param source исходный текст выражения
+     * @param postfix массив токенов в постфиксной форме
+     * @return скомпилированное выражение
+     * @throws IllegalArgumentException если выражение некорректно
+     */
+    static CompiledExpression fromPostfix(String source, String[] postfix) throws IllegalArgumentException {
+        return fromPostfix(source, postfix, FunctionRegistry.DEFAULT);
+    }
+
+    /**
+     * Компилирует выражение, заданное в постфиксной форме
+     * @param source исходный текст выражения
+     * @param postfix массив токенов в постфиксной форме
+     * @param registry набор функций, по которому разрешаются имена функций
+     * @return скомпилированное выражение
+     * @throws IllegalArgumentException если выражение некорректно
+     */
+    static CompiledExpression fromPostfix(String source, String[] postfix, FunctionRegistry registry)
+            throws IllegalArgumentException {
+        int[] opcodes = new int[postfix.length];
+        int[] operands = new int[postfix.length];
+        double[] literals = new double[postfix.length];
+        int literalCount = 0;
+        Map<String, Integer> slots = new LinkedHashMap<>();
+        List<FunctionDefinition> calls = new ArrayList<>();
+        int depth = 0;
+        int maxDepth = 0;
+
+        for (int i = 0; i < postfix.length; i++) {
+            String token = postfix[i];
+            int op;
+            int arity;
+            FunctionDefinition function;
+            if (token.startsWith("VAR:")) {
+                String varName = token.substring(4);
+                Integer slot = slots.get(varName);
+                if (slot == null) {
+                    slot = slots.size();
+                    slots.put(varName, slot);
+                }
+                op = OpCode.VAR;
+                operands[i] = slot;
+            } else if (token.length() == 1 && OpCode.ofOperator(token.charAt(0)) >= 0) {
+                op = OpCode.ofOperator(token.charAt(0));
+            } else if ((function = registry.lookup(token)) != null) {
+                op = function.opcode;
+                if (op == OpCode.CALL) {
+                    int index = calls.indexOf(function);
+                    if (index < 0) {
+                        index = calls.size();
+                        calls.add(function);
+                    }
+                    operands[i] = index;
+                }
+            } else {
+                try {
+                    literals[literalCount] = Double.parseDouble(token);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Недопустимое число: " + token);
+                }
+                op = OpCode.CONST;
+                operands[i] = literalCount++;
+            }
+            opcodes[i] = op;
+
+            arity = op == OpCode.CALL ? calls.get(operands[i]).arity : OpCode.arity(op);
+            if (depth < arity) {
+                throw new IllegalArgumentException("Некорректное выражение: недостаточно операндов");
+            }
+            depth += 1 - arity;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        if (depth != 1) {
+            throw new IllegalArgumentException("Некорректное выражение");
+        }
+
+        return new CompiledExpression(source, opcodes, operands, Arrays.copyOf(literals, literalCount),
+                slots.keySet().toArray(new String[0]), calls.toArray(NO_FUNCTIONS), maxDepth);
+    }
+
+    int[] opcodes() {
+        return opcodes;
+    }
+
+    int[] operands() {
+        return operands;
+    }
+
+    double[] literals() {
+        return literals;
+    }
+
+    FunctionDefinition[] functions() {
+        return functions;
+    }
+
+    /**
+     * Возвращает количество аргументов инструкции
+     * @param pc номер инструкции
+     * @return количество значений, снимаемых инструкцией со стека
+     */
+    int arity(int pc) {
+        return opcodes[pc] == OpCode.CALL ? functions[operands[pc]].arity : OpCode.arity(opcodes[pc]);
+    }
+
+    /**
+     * Возвращает исходный текст выражения
+     * @return исходный текст
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Возвращает имена переменных в порядке их слотов
+     * @return неизменяемый список имен переменных
+     */
+    public List<String> getVariableNames() {
+        return Collections.unmodifiableList(Arrays.asList(variableNames));
+    }
+
+    /**
+     * Возвращает количество слотов переменных
+     * @return количество различных переменных в выражении
+     */
+    public int getVariableCount() {
+        return variableNames.length;
+    }
+
+    /**
+     * Возвращает номер слота переменной
+     * @param name имя переменной
+     * @return номер слота или -1, если переменная в выражении не используется
+     */
+    public int slotOf(String name) {
+        for (int i = 0; i < variableNames.length; i++) {
+            if (variableNames[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Возвращает максимальную глубину стека, необходимую для вычисления
+     * @return максимальная глубина стека
+     */
+    public int getMaxStackDepth() {
+        return maxStackDepth;
+    }
+
+    /**
+     * Возвращает политику точности встроенных функций
+     * @return политика точности, с которой выражение было скомпилировано
+     */
+    public PrecisionPolicy getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Вычисляет выражение по значениям переменных, разложенным по слотам
+     * @param slots значения переменных; индекс совпадает с номером слота из {@link #slotOf(String)}
+     * @return результат вычисления выражения
+     * @throws IllegalArgumentException если значений меньше, чем переменных, или при ошибке вычисления
+     */
+    public double evaluate(double[] slots) throws IllegalArgumentException {
+        if (EvaluationMetrics.ENABLED) {
+            return evaluateMeasured(slots, null);
+        }
+        return evaluateDirect(slots);
+    }
+
+    private double evaluateDirect(double[] slots) {
+        checkSlots(slots);
+        ExpressionKernel compiled = kernel;
+        if (compiled != null) {
+            return compiled.evaluate(slots);
+        }
+        countInterpretedEvaluation();
+
+        double[] stack = borrowStack();
+        try {
+            return interpret(slots, stack, opcodes.length);
+        } finally {
+            STACK.set(stack);
+        }
+    }
+
+    /**
+     * Забирает стек потока; после вычисления его нужно вернуть через {@code STACK.set}
+     */
+    private double[] borrowStack() {
+        double[] stack = STACK.get();
+        if (stack == null || stack.length < maxStackDepth) {
+            stack = new double[Math.max(maxStackDepth, DEFAULT_STACK_SIZE)];
+        }
+        // Пока стек занят, вложенное вычисление в этом же потоке получит собственный
+        STACK.set(null);
+        return stack;
+    }
+
+    /**
+     * Вычисляет выражение без исключений при ошибках вычисления: вместо исключения результат
+     * равен NaN, а код ошибки записывается в буфер. Классификация ошибок совпадает с {@link #evaluate(double[])}:
+     * {@code EvaluationStatus.exception(status[0])} дает то же исключение, что и обычное вычисление.
+     * Ни в случае успеха, ни в случае ошибки вызов не выделяет память.
+     * @param slots значения переменных; индекс совпадает с номером слота из {@link #slotOf(String)}
+     * @param status буфер кода результата: в status[0] записывается {@link EvaluationStatus#OK}
+     *               или код первой ошибки
+     * @return результат вычисления выражения или NaN при ошибке
+     * @throws IllegalArgumentException если значений меньше, чем переменных (ошибка вызова, а не данных)
+     */
+    public double tryEvaluate(double[] slots, int[] status) throws IllegalArgumentException {
+        checkSlots(slots);
+        long start = EvaluationMetrics.ENABLED ? System.nanoTime() : 0;
+        status[0] = EvaluationStatus.OK;
+        double result;
+        ExpressionKernel compiled = kernel;
+        if (compiled != null) {
+            result = compiled.evaluate(slots, status);
+        } else {
+            countInterpretedEvaluation();
+            double[] stack = borrowStack();
+            try {
+                result = interpret(slots, stack, status);
+            } finally {
+                STACK.set(stack);
+            }
+        }
+        if (status[0] != EvaluationStatus.OK) {
+            // После ошибки значение могло стать числом (например, NaN^0 = 1), поэтому NaN ставится явно
+            if (EvaluationMetrics.ENABLED) {
+                EvaluationMetrics.recordEvaluationError(metrics, EvaluationStatus.errorType(status[0]));
+            }
+            return Double.NaN;
+        }
+        if (EvaluationMetrics.ENABLED) {
+            EvaluationMetrics.recordEvaluation(metrics, System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    /**
+     * Вычисляет выражение на стеке, предоставленном вызывающей стороной
+     * @param slots значения переменных; индекс совпадает с номером слота из {@link #slotOf(String)}
+     * @param stack рабочий стек размером не меньше {@link #getMaxStackDepth()}
+     * @return результат вычисления выражения
+     * @throws IllegalArgumentException если значений или стека недостаточно, или при ошибке вычисления
+     */
+    public double evaluate(double[] slots, double[] stack) throws IllegalArgumentException {
+        if (EvaluationMetrics.ENABLED) {
+            return evaluateMeasured(slots, stack);
+        }
+        return evaluateDirect(slots, stack);
+    }
+
+    private double evaluateDirect(double[] slots, double[] stack) {
+        checkSlots(slots);
+        if (stack.length < maxStackDepth) {
+            throw new IllegalArgumentException("Недостаточный размер стека: " + stack.length);
+        }
+        ExpressionKernel compiled = kernel;
+        if (compiled != null) {
+            return compiled.evaluate(slots);
+        }
+        countInterpretedEvaluation();
+        return interpret(slots, stack, opcodes.length);
+    }
+
+    /**
+     * Вычисляет выражение с записью длительности или ошибки в метрики
+     * @param stack рабочий стек или null, чтобы взять стек потока
+     */
+    private double evaluateMeasured(double[] slots, double[] stack) {
+        long start = System.nanoTime();
+        try {
+            double result = stack == null ? evaluateDirect(slots) : evaluateDirect(slots, stack);
+            EvaluationMetrics.recordEvaluation(metrics, System.nanoTime() - start);
+            return result;
+        } catch (IllegalArgumentException e) {
+            EvaluationMetrics.recordEvaluationError(metrics, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Возвращает метрики выражения
+     * @return метрики или null, если метрики выключены или выражение не отслеживается
+     */
+    ExpressionMetrics metrics() {
+        return metrics;
+    }
+
+    private void checkSlots(double[] slots) {
+        if (slots.length < variableNames.length) {
+            throw new IllegalArgumentException("Ожидается значений переменных: " + variableNames.length);
+        }
+    }
+
+    /**
+     * Считает интерпретированные вычисления и по достижении порога
+     * {@link BytecodeCompiler#THRESHOLD} переводит выражение на сгенерированный байт-код.
+     * Счетчик не синхронизирован: гонка между потоками лишь немного сдвигает момент компиляции.
+     * Если класс сгенерировать или загрузить не удалось, выражение продолжает интерпретироваться.
+     */
+    private void countInterpretedEvaluation() {
+        if (BytecodeCompiler.THRESHOLD > 0 && ++interpretedEvaluations >= BytecodeCompiler.THRESHOLD) {
+            ExpressionKernel compiled;
+            try {
+                compiled = BytecodeCompiler.compile(this);
+            } catch (IllegalStateException e) {
+                compiled = null;
+            }
+            if (compiled != null) {
+                kernel = compiled;
+            } else {
+                interpretedEvaluations = Integer.MIN_VALUE;
+            }
+        }
+    }
+
+    /**
+     * Проверяет, переведено ли выражение на сгенерированный байт-код
+     * @return true, если вычисление выполняет сгенерированный класс
+     */
+    boolean isJitCompiled() {
+        return kernel != null;
+    }
+
+    /**
+     * Интерпретирует первые {@code end} инструкций программы
+     */
+    private double interpret(double[] slots, double[] stack, int end) {
+        int sp = 0;
+
+        for (int pc = 0; pc < end; pc++) {
+            switch (opcodes[pc]) {
+                case OpCode.CONST: stack[sp++] = literals[operands[pc]]; break;
+                case OpCode.VAR: stack[sp++] = slots[operands[pc]]; break;
+                case OpCode.ADD: sp--; stack[sp - 1] = stack[sp - 1] + stack[sp]; break;
+                case OpCode.SUB: sp--; stack[sp - 1] = stack[sp - 1] - stack[sp]; break;
+                case OpCode.MUL: sp--; stack[sp - 1] = stack[sp - 1] * stack[sp]; break;
+                case OpCode.DIV: sp--; stack[sp - 1] = OpCode.divide(stack[sp - 1], stack[sp]); break;
+                case OpCode.POW:
+                    sp--;
+                    stack[sp - 1] = fast ? FastMath.pow(stack[sp - 1], stack[sp]) : Math.pow(stack[sp - 1], stack[sp]);
+                    break;
+                case OpCode.SIN: stack[sp - 1] = fast ? FastMath.sin(stack[sp - 1]) : Math.sin(stack[sp - 1]); break;
+                case OpCode.COS: stack[sp - 1] = fast ? FastMath.cos(stack[sp - 1]) : Math.cos(stack[sp - 1]); break;
+                case OpCode.TAN: stack[sp - 1] = fast ? FastMath.tan(stack[sp - 1]) : Math.tan(stack[sp - 1]); break;
+                case OpCode.ASIN: stack[sp - 1] = Math.asin(stack[sp - 1]); break;
+                case OpCode.ACOS: stack[sp - 1] = Math.acos(stack[sp - 1]); break;
+                case OpCode.ATAN: stack[sp - 1] = Math.atan(stack[sp - 1]); break;
+                case OpCode.SQRT: stack[sp - 1] = OpCode.sqrt(stack[sp - 1]); break;
+                case OpCode.LOG: stack[sp - 1] = fast ? FastMath.log10(stack[sp - 1]) : OpCode.log10(stack[sp - 1]); break;
+                case OpCode.LN: stack[sp - 1] = fast ? FastMath.ln(stack[sp - 1]) : OpCode.ln(stack[sp - 1]); break;
+                case OpCode.EXP: stack[sp - 1] = Math.exp(stack[sp - 1]); break;
+                case OpCode.ABS: stack[sp - 1] = Math.abs(stack[sp - 1]); break;
+                case OpCode.NEG: stack[sp - 1] = 0.0 - stack[sp - 1]; break;
+                case OpCode.MIN: sp--; stack[sp - 1] = Math.min(stack[sp - 1], stack[sp]); break;
+                case OpCode.MAX: sp--; stack[sp - 1] = Math.max(stack[sp - 1], stack[sp]); break;
+                case OpCode.HYPOT:
+                    sp--;
+                    stack[sp - 1] = fast ? FastMath.hypot(stack[sp - 1], stack[sp]) : Math.hypot(stack[sp - 1], stack[sp]);
+                    break;
+                case OpCode.CLAMP: sp -= 2; stack[sp - 1] = OpCode.clamp(stack[sp - 1], stack[sp], stack[sp + 1]); break;
+                case OpCode.CALL: {
+                    FunctionDefinition function = functions[operands[pc]];
+                    sp -= function.arity;
+                    stack[sp] = function.implementation.apply(stack, sp);
+                    sp++;
+                    break;
+                }
+                default: throw new IllegalStateException("Неизвестная инструкция: " + opcodes[pc]);
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Интерпретатор без исключений: отличается от {@link #interpret(double[], double[], int)} только
+     * вариантами {@link OpCode} с буфером кода ошибки и перехватом ошибок пользовательских функций
+     */
+    private double interpret(double[] slots, double[] stack, int[] status) {
+        int sp = 0;
+
+        for (int pc = 0; pc < opcodes.length; pc++) {
+            switch (opcodes[pc]) {
+                case OpCode.CONST: stack[sp++] = literals[operands[pc]]; break;
+                case OpCode.VAR: stack[sp++] = slots[operands[pc]]; break;
+                case OpCode.ADD: sp--; stack[sp - 1] = stack[sp - 1] + stack[sp]; break;
+                case OpCode.SUB: sp--; stack[sp - 1] = stack[sp - 1] - stack[sp]; break;
+                case OpCode.MUL: sp--; stack[sp - 1] = stack[sp - 1] * stack[sp]; break;
+                case OpCode.DIV: sp--; stack[sp - 1] = OpCode.divide(stack[sp - 1], stack[sp], status); break;
+                case OpCode.POW:
+                    sp--;
+                    stack[sp - 1] = fast ? FastMath.pow(stack[sp - 1], stack[sp]) : Math.pow(stack[sp - 1], stack[sp]);
+                    break;
+                case OpCode.SIN: stack[sp - 1] = fast ? FastMath.sin(stack[sp - 1]) : Math.sin(stack[sp - 1]); break;
+                case OpCode.COS: stack[sp - 1] = fast ? FastMath.cos(stack[sp - 1]) : Math.cos(stack[sp - 1]); break;
+                case OpCode.TAN: stack[sp - 1] = fast ? FastMath.tan(stack[sp - 1]) : Math.tan(stack[sp - 1]); break;
+                case OpCode.ASIN: stack[sp - 1] = Math.asin(stack[sp - 1]); break;
+                case OpCode.ACOS: stack[sp - 1] = Math.acos(stack[sp - 1]); break;
+                case OpCode.ATAN: stack[sp - 1] = Math.atan(stack[sp - 1]); break;
+                case OpCode.SQRT: stack[sp - 1] = OpCode.sqrt(stack[sp - 1], status); break;
+                case OpCode.LOG:
+                    stack[sp - 1] = fast ? FastMath.log10(stack[sp - 1], status) : OpCode.log10(stack[sp - 1], status);
+                    break;
+                case OpCode.LN:
+                    stack[sp - 1] = fast ? FastMath.ln(stack[sp - 1], status) : OpCode.ln(stack[sp - 1], status);
+                    break;
+                case OpCode.EXP: stack[sp - 1] = Math.exp(stack[sp - 1]); break;
+                case OpCode.ABS: stack[sp - 1] = Math.abs(stack[sp - 1]); break;
+                case OpCode.NEG: stack[sp - 1] = 0.0 - stack[sp - 1]; break;
+                case OpCode.MIN: sp--; stack[sp - 1] = Math.min(stack[sp - 1], stack[sp]); break;
+                case OpCode.MAX: sp--; stack[sp - 1] = Math.max(stack[sp - 1], stack[sp]); break;
+                case OpCode.HYPOT:
+                    sp--;
+                    stack[sp - 1] = fast ? FastMath.hypot(stack[sp - 1], stack[sp]) : Math.hypot(stack[sp - 1], stack[sp]);
+                    break;
+                case OpCode.CLAMP: sp -= 2; stack[sp - 1] = OpCode.clamp(stack[sp - 1], stack[sp], stack[sp + 1], status); break;
+                case OpCode.CALL: {
+                    FunctionDefinition function = functions[operands[pc]];
+                    sp -= function.arity;
+                    try {
+                        stack[sp] = function.implementation.apply(stack, sp);
+                    } catch (IllegalArgumentException e) {
+                        // Исключение выбрасывает сама функция; здесь оно только превращается в код
+                        if (status[0] == EvaluationStatus.OK) {
+                            status[0] = EvaluationStatus.FUNCTION_ERROR;
+                        }
+                        stack[sp] = Double.NaN;
+                    }
+                    sp++;
+                    break;
+                }
+                default: throw new IllegalStateException("Неизвестная инструкция: " + opcodes[pc]);
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Вычисляет выражение по карте значений переменных
+     * @param variables карта значений переменных
+     * @return результат вычисления выражения
+     * @throws IllegalArgumentException если значение какой-либо переменной не задано или при ошибке вычисления;
+     *                                  сообщается первая ошибка в порядке вычисления постфиксной записи
+     */
+    public double evaluate(Map<String, Double> variables) throws IllegalArgumentException {
+        double[] slots = new double[variableNames.length];
+        for (int i = 0; i < variableNames.length; i++) {
+            Double value = variables.get(variableNames[i]);
+            if (value == null) {
+                throw missingVariable(slots, i);
+            }
+            slots[i] = value;
+        }
+        return evaluate(slots);
+    }
+
+    /**
+     * Формирует ошибку незаданной переменной. Слоты пронумерованы по первому вхождению, поэтому
+     * до первого обращения к переменной {@code slot} используются только уже заданные слоты; если
+     * эта часть программы завершается ошибкой вычисления (например, {@code 1/0 + y}), выбрасывается она.
+     * @param slots значения переменных, заданные для слотов меньше {@code slot}
+     * @param slot первый слот без значения
+     */
+    private IllegalArgumentException missingVariable(double[] slots, int slot) {
+        int end = 0;
+        while (end < opcodes.length && (opcodes[end] != OpCode.VAR || operands[end] != slot)) {
+            end++;
+        }
+        IllegalArgumentException error = new EvaluationException(ErrorType.UNKNOWN_IDENTIFIER,
+                "Не задано значение переменной: " + variableNames[slot]);
+        if (end < opcodes.length) {
+            double[] stack = borrowStack();
+            try {
+                interpret(slots, stack, end);
+            } catch (IllegalArgumentException e) {
+                error = e;
+            } finally {
+                STACK.set(stack);
+            }
+        }
+        if (EvaluationMetrics.ENABLED) {
+            EvaluationMetrics.recordEvaluationError(metrics, error);
+        }
+        return error;
+    }
+
+    /**
+     * Создает переиспользуемый контекст вычисления с привязкой значений по слотам
+     * @return новый контекст, в котором ни одна переменная не связана
+     */
+    public EvaluationContext newContext() {
+        return new EvaluationContext(this);
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
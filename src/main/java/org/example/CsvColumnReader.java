@@ -0,0 +1,234 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Потоковое чтение CSV-файла: первая строка содержит имена столбцов, остальные — числа через запятую.
+ * Файл читается через отображение в память окнами фиксированного размера; строки разбираются
+ * прямо из отображенных байтов, без создания строк для каждого значения. Значения пропускаемых
+ * столбцов не разбираются вовсе. Строка файла должна целиком помещаться в окно.
+ */
+final class CsvColumnReader implements ColumnReader {
+    /** Размер окна отображения файла в память */
+    static final int WINDOW_SIZE = 64 << 20;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int windowSize;
+    private final List<String> names;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int position;
+    private long line;
+
+    /**
+     * Открывает файл и читает строку заголовка
+     * @param path путь к файлу
+     * @throws IOException при ошибке чтения
+     * @throws IllegalArgumentException если файл пуст
+     */
+    CsvColumnReader(Path path) throws IOException {
+        this(path, WINDOW_SIZE);
+    }
+
+    CsvColumnReader(Path path, int windowSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.windowSize = windowSize;
+        try {
+            map(0);
+            int end = lineEnd();
+            if (end < 0) {
+                throw new IllegalArgumentException("Пустой файл: " + path);
+            }
+            this.names = Collections.unmodifiableList(parseHeader(position, end));
+            nextLine(end);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<String> getColumnNames() {
+        return names;
+    }
+
+    @Override
+    public int read(double[][] columns, int maxRows) throws IOException {
+        int count = 0;
+        while (count < maxRows) {
+            int end = lineEnd();
+            if (end < 0) {
+                break;
+            }
+            int start = position;
+            nextLine(end);
+            if (isBlank(start, end)) {
+                continue;
+            }
+            parseRow(start, end, columns, count);
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+        position = 0;
+    }
+
+    /**
+     * Находит конец текущей строки, при необходимости сдвигая окно к ее началу
+     * @return индекс символа '\n' в окне, длина окна для последней строки без перевода строки
+     * или -1, если файл закончился
+     */
+    private int lineEnd() throws IOException {
+        for (boolean remapped = false; ; remapped = true) {
+            int limit = window.limit();
+            boolean lastWindow = windowStart + limit == size;
+            if (position == limit && lastWindow) {
+                return -1;
+            }
+            for (int i = position; i < limit; i++) {
+                if (window.get(i) == '\n') {
+                    return i;
+                }
+            }
+            if (lastWindow) {
+                return limit;
+            }
+            if (remapped) {
+                throw new IllegalArgumentException("Строка " + (line + 1) + " длиннее " + windowSize + " байт");
+            }
+            map(windowStart + position);
+        }
+    }
+
+    private void nextLine(int end) {
+        position = Math.min(end + 1, window.limit());
+        line++;
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isSpace(window.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private List<String> parseHeader(int start, int end) {
+        List<String> header = new ArrayList<>();
+        int fieldStart = start;
+        while (true) {
+            int fieldEnd = fieldStart;
+            while (fieldEnd < end && window.get(fieldEnd) != ',') {
+                fieldEnd++;
+            }
+            byte[] bytes = new byte[fieldEnd - fieldStart];
+            window.get(fieldStart, bytes);
+            String name = new String(bytes, StandardCharsets.UTF_8).trim();
+            if (name.startsWith("\uFEFF")) {
+                name = name.substring(1);
+            }
+            if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+                name = name.substring(1, name.length() - 1);
+            }
+            header.add(name);
+            if (fieldEnd == end) {
+                return header;
+            }
+            fieldStart = fieldEnd + 1;
+        }
+    }
+
+    private void parseRow(int start, int end, double[][] columns, int row) {
+        int fieldStart = start;
+        for (int column = 0; column < names.size(); column++) {
+            int fieldEnd = fieldStart;
+            while (fieldEnd < end && window.get(fieldEnd) != ',') {
+                fieldEnd++;
+            }
+            boolean last = column == names.size() - 1;
+            if (last != (fieldEnd == end)) {
+                throw new IllegalArgumentException("Строка " + line + ": ожидается значений: " + names.size());
+            }
+            if (columns[column] != null) {
+                columns[column][row] = parseNumber(fieldStart, fieldEnd);
+            }
+            fieldStart = fieldEnd + 1;
+        }
+    }
+
+    /**
+     * Разбирает число из байтов [start, end). Десятичная запись без экспоненты с мантиссой до 53 бит
+     * разбирается на месте так же, как в {@link ExpressionParser}; остальные записи — через
+     * {@link Double#parseDouble(String)}.
+     */
+    private double parseNumber(int start, int end) {
+        while (start < end && isSpace(window.get(start))) start++;
+        while (end > start && isSpace(window.get(end - 1))) end--;
+
+        int i = start;
+        boolean negative = false;
+        if (i < end && (window.get(i) == '-' || window.get(i) == '+')) {
+            negative = window.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int fractionDigits = 0;
+        int digits = 0;
+        boolean dot = false;
+        boolean exact = true;
+        for (; i < end && exact; i++) {
+            byte b = window.get(i);
+            if (b >= '0' && b <= '9') {
+                digits++;
+                if (mantissa < ExpressionParser.MAX_EXACT_MANTISSA / 10) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (dot) fractionDigits++;
+                } else {
+                    exact = false;
+                }
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else {
+                exact = false;
+            }
+        }
+        if (exact && digits > 0 && fractionDigits < ExpressionParser.POWERS_OF_TEN.length) {
+            double value = mantissa / ExpressionParser.POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+
+        byte[] bytes = new byte[end - start];
+        window.get(start, bytes);
+        String text = new String(bytes, StandardCharsets.US_ASCII);
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Строка " + line + ": недопустимое число: " + text);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.example;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Запись результатов в CSV-файл: строка заголовка с текстами выражений в кавычках,
+ * затем значения через запятую. Строки с ошибкой вычисления записываются как NaN.
+ */
+final class CsvColumnWriter implements ColumnWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Writer writer;
+    private final int columnCount;
+
+    /**
+     * Создает файл (существующий файл перезаписывается) и записывает заголовок
+     * @param path путь к файлу
+     * @param headers заголовки столбцов
+     * @throws IOException при ошибке записи
+     */
+    CsvColumnWriter(Path path, List<String> headers) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(path), StandardCharsets.UTF_8),
+                BUFFER_SIZE);
+        this.columnCount = headers.size();
+        for (int column = 0; column < columnCount; column++) {
+            if (column > 0) {
+                writer.write(',');
+            }
+            writer.write('"');
+            writer.write(headers.get(column).replace("\"", "\"\""));
+            writer.write('"');
+        }
+        writer.write('\n');
+    }
+
+    @Override
+    public void write(double[][] columns, int rows) throws IOException {
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columnCount; column++) {
+                if (column > 0) {
+                    writer.write(',');
+                }
+                writer.write(Double.toString(columns[column][row]));
+            }
+            writer.write('\n');
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
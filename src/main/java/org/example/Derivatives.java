@@ -0,0 +1,140 @@
+package org.example;
+
+/**
+ * Частные производные инструкций по их аргументам — общая часть прямого и обратного режимов
+ * автоматического дифференцирования.
+ *
+ * В точках, где функция не дифференцируема, берется односторонняя производная или субградиент:
+ * abs, min, max и clamp дифференцируются по ветви, которую выбрало вычисление, hypot(0, 0) дает нули.
+ * Производные пользовательских функций неизвестны и оцениваются центральной разностью.
+ */
+final class Derivatives {
+    /** Относительный шаг центральной разности: кубический корень из машинного эпсилон */
+    private static final double STEP = 6.0554544523933395e-6;
+    private static final double LN_10 = Math.log(10);
+
+    private Derivatives() {
+    }
+
+    /**
+     * Вычисляет частные производные результата инструкции по ее аргументам
+     * @param op код инструкции, кроме CONST и VAR
+     * @param function вызываемая функция для {@link OpCode#CALL}, иначе null
+     * @param args массив, содержащий аргументы
+     * @param offset индекс первого аргумента
+     * @param value результат инструкции на этих аргументах
+     * @param partials массив для производных по каждому аргументу
+     * @param at индекс производной по первому аргументу в массиве partials
+     * @param scratch рабочий массив не короче количества аргументов пользовательской функции
+     */
+    static void compute(int op, FunctionDefinition function, double[] args, int offset, double value,
+                        double[] partials, int at, double[] scratch) {
+        double a = args[offset];
+        switch (op) {
+            case OpCode.ADD: partials[at] = 1; partials[at + 1] = 1; break;
+            case OpCode.SUB: partials[at] = 1; partials[at + 1] = -1; break;
+            case OpCode.MUL: partials[at] = args[offset + 1]; partials[at + 1] = a; break;
+            case OpCode.DIV: {
+                double b = args[offset + 1];
+                partials[at] = 1 / b;
+                partials[at + 1] = -a / (b * b);
+                break;
+            }
+            case OpCode.POW: {
+                double b = args[offset + 1];
+                // При b = 0 и value = 0 формулы дают 0 * inf; предел производной в этих точках равен нулю
+                partials[at] = b == 0 ? 0 : b * Math.pow(a, b - 1);
+                partials[at + 1] = value == 0 ? 0 : value * Math.log(a);
+                break;
+            }
+            case OpCode.MIN: {
+                boolean first = a <= args[offset + 1];
+                partials[at] = first ? 1 : 0;
+                partials[at + 1] = first ? 0 : 1;
+                break;
+            }
+            case OpCode.MAX: {
+                boolean first = a >= args[offset + 1];
+                partials[at] = first ? 1 : 0;
+                partials[at + 1] = first ? 0 : 1;
+                break;
+            }
+            case OpCode.HYPOT:
+                partials[at] = value == 0 ? 0 : a / value;
+                partials[at + 1] = value == 0 ? 0 : args[offset + 1] / value;
+                break;
+            case OpCode.CLAMP: {
+                boolean below = a < args[offset + 1];
+                boolean above = !below && a > args[offset + 2];
+                partials[at] = below || above ? 0 : 1;
+                partials[at + 1] = below ? 1 : 0;
+                partials[at + 2] = above ? 1 : 0;
+                break;
+            }
+            case OpCode.SIN: partials[at] = Math.cos(a); break;
+            case OpCode.COS: partials[at] = -Math.sin(a); break;
+            case OpCode.TAN: partials[at] = 1 + value * value; break;
+            case OpCode.ASIN: partials[at] = 1 / Math.sqrt(1 - a * a); break;
+            case OpCode.ACOS: partials[at] = -1 / Math.sqrt(1 - a * a); break;
+            case OpCode.ATAN: partials[at] = 1 / (1 + a * a); break;
+            case OpCode.SQRT: partials[at] = 0.5 / value; break;
+            case OpCode.LOG: partials[at] = 1 / (a * LN_10); break;
+            case OpCode.LN: partials[at] = 1 / a; break;
+            case OpCode.EXP: partials[at] = value; break;
+            case OpCode.ABS: partials[at] = a > 0 ? 1 : a < 0 ? -1 : 0; break;
+            case OpCode.NEG: partials[at] = -1; break;
+            case OpCode.CALL: difference(function, args, offset, partials, at, scratch); break;
+            default: throw new IllegalStateException("Неизвестная инструкция: " + op);
+        }
+    }
+
+    /**
+     * Центральная разность по каждому аргументу; если функция не определена в соседней точке,
+     * производная по этому аргументу равна NaN
+     */
+    private static void difference(FunctionDefinition function, double[] args, int offset,
+                                   double[] partials, int at, double[] scratch) {
+        System.arraycopy(args, offset, scratch, 0, function.arity);
+        for (int k = 0; k < function.arity; k++) {
+            double x = scratch[k];
+            double h = STEP * Math.max(1, Math.abs(x));
+            try {
+                scratch[k] = x + h;
+                double right = function.implementation.apply(scratch, 0);
+                scratch[k] = x - h;
+                double left = function.implementation.apply(scratch, 0);
+                partials[at + k] = (right - left) / (2 * h);
+            } catch (IllegalArgumentException e) {
+                partials[at + k] = Double.NaN;
+            }
+            scratch[k] = x;
+        }
+    }
+
+    /**
+     * Возвращает количество аргументов каждой инструкции выражения
+     * @param expression скомпилированное выражение
+     * @return массив по номерам инструкций; для CONST и VAR — ноль
+     */
+    static int[] arities(CompiledExpression expression) {
+        int[] opcodes = expression.opcodes();
+        int[] arities = new int[opcodes.length];
+        for (int pc = 0; pc < opcodes.length; pc++) {
+            arities[pc] = opcodes[pc] == OpCode.CONST || opcodes[pc] == OpCode.VAR ? 0 : expression.arity(pc);
+        }
+        return arities;
+    }
+
+    /**
+     * Возвращает наибольшее количество аргументов инструкций выражения
+     * @param expression скомпилированное выражение
+     * @return размер массива производных, достаточный для любой инструкции
+     */
+    static int maxArity(CompiledExpression expression) {
+        int max = 3;
+        for (FunctionDefinition function : expression.functions()) {
+            max = Math.max(max, function.arity);
+        }
+        return max;
+    }
+}
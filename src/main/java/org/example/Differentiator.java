@@ -0,0 +1,23 @@
+package org.example;
+
+/**
+ * Автоматическое дифференцирование скомпилированного выражения: за одно вычисление
+ * возвращает значение выражения и частные производные по всем переменным.
+ *
+ * Реализации: {@link ForwardDifferentiator} (прямой режим, стоимость растет с числом переменных)
+ * и {@link ReverseDifferentiator} (обратный режим, стоимость не зависит от числа переменных).
+ * Обе переиспользуют заранее выделенные массивы, поэтому вычисление не выделяет память;
+ * экземпляры изменяемые и не потокобезопасны.
+ * Функции всегда вычисляются в режиме {@link PrecisionPolicy#STRICT}, независимо от политики точности выражения.
+ */
+public interface Differentiator {
+    /**
+     * Вычисляет значение выражения и его градиент
+     * @param slots значения переменных по номерам слотов
+     * @param gradient массив для частных производных по номерам слотов
+     * @return значение выражения, вычисленное в режиме {@link PrecisionPolicy#STRICT}; для выражения,
+     *         скомпилированного в этом режиме, оно совпадает с {@link CompiledExpression#evaluate(double[])}
+     * @throws IllegalArgumentException если массивы короче числа переменных или при ошибке вычисления
+     */
+    double evaluate(double[] slots, double[] gradient) throws IllegalArgumentException;
+}
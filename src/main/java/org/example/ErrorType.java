@@ -0,0 +1,17 @@
+package org.example;
+
+/**
+ * Вид ошибки разбора или вычисления выражения; используется для подсчета ошибок в метриках.
+ */
+public enum ErrorType {
+    /** Деление на ноль */
+    DIVISION_BY_ZERO,
+    /** Аргумент вне области определения функции: корень из отрицательного числа, логарифм неположительного и т. п. */
+    DOMAIN_ERROR,
+    /** Неизвестная функция или переменная без значения */
+    UNKNOWN_IDENTIFIER,
+    /** Несогласованные скобки */
+    UNBALANCED_PARENTHESES,
+    /** Прочие синтаксические ошибки */
+    SYNTAX_ERROR
+}
@@ -0,0 +1,171 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Переиспользуемый контекст вычисления одного скомпилированного выражения.
+ * Имена переменных разрешаются в номера слотов один раз, значения хранятся в примитивном массиве,
+ * а стек вычисления принадлежит контексту. Связывание значений по номеру слота и вычисление
+ * не выполняют хеширования, упаковки и выделения памяти.
+ *
+ * Отсутствие значений проверяется при связывании ({@link #bind(Map)}); при вычислении
+ * проверяется только счетчик несвязанных переменных.
+ *
+ * Контекст не потокобезопасен: каждый поток использует собственный экземпляр, например из
+ * {@code ThreadLocal.withInitial(expression::newContext)}.
+ * <pre>
+ * EvaluationContext context = expression.newContext();
+ * int x = context.slotOf("x");
+ * for (double value : values) {
+ *     context.set(x, value);
+ *     sum += context.evaluate();
+ * }
+ * </pre>
+ */
+public final class EvaluationContext {
+    private final CompiledExpression expression;
+    private final String[] names;
+    private final double[] slots;
+    private final boolean[] bound;
+    private final double[] stack;
+    private int unbound;
+
+    /**
+     * Создает контекст, в котором ни одна переменная не связана
+     * @param expression скомпилированное выражение
+     */
+    public EvaluationContext(CompiledExpression expression) {
+        this.expression = expression;
+        this.names = expression.getVariableNames().toArray(new String[0]);
+        this.slots = new double[names.length];
+        this.bound = new boolean[names.length];
+        this.stack = new double[Math.max(expression.getMaxStackDepth(), 1)];
+        this.unbound = names.length;
+    }
+
+    /**
+     * Возвращает выражение контекста
+     * @return скомпилированное выражение
+     */
+    public CompiledExpression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Возвращает номер слота переменной
+     * @param name имя переменной
+     * @return номер слота или -1, если переменная в выражении не используется
+     */
+    public int slotOf(String name) {
+        return expression.slotOf(name);
+    }
+
+    /**
+     * Связывает переменную со значением по номеру слота
+     * @param slot номер слота из {@link #slotOf(String)}
+     * @param value значение переменной
+     * @return этот контекст
+     * @throws IndexOutOfBoundsException если слота нет в выражении
+     */
+    public EvaluationContext set(int slot, double value) {
+        slots[slot] = value;
+        if (!bound[slot]) {
+            bound[slot] = true;
+            unbound--;
+        }
+        return this;
+    }
+
+    /**
+     * Связывает переменную со значением по имени; переменные, которых нет в выражении, пропускаются
+     * @param name имя переменной
+     * @param value значение переменной
+     * @return этот контекст
+     */
+    public EvaluationContext set(String name, double value) {
+        int slot = expression.slotOf(name);
+        if (slot >= 0) {
+            set(slot, value);
+        }
+        return this;
+    }
+
+    /**
+     * Связывает все переменные выражения со значениями из карты; лишние значения пропускаются
+     * @param variables карта значений переменных
+     * @return этот контекст
+     * @throws EvaluationException если значение какой-либо переменной не задано
+     */
+    public EvaluationContext bind(Map<String, Double> variables) throws EvaluationException {
+        for (int i = 0; i < names.length; i++) {
+            Double value = variables.get(names[i]);
+            if (value == null) {
+                throw missing(i);
+            }
+            set(i, value);
+        }
+        return this;
+    }
+
+    /**
+     * Снимает связывание всех переменных; значения нужно задать заново перед следующим вычислением
+     * @return этот контекст
+     */
+    public EvaluationContext reset() {
+        Arrays.fill(bound, false);
+        unbound = names.length;
+        return this;
+    }
+
+    /**
+     * Проверяет, что все переменные выражения связаны
+     * @return true, если выражение можно вычислить
+     */
+    public boolean isBound() {
+        return unbound == 0;
+    }
+
+    /**
+     * Вычисляет выражение по связанным значениям
+     * @return результат вычисления выражения
+     * @throws IllegalArgumentException если какая-либо переменная не связана или при ошибке вычисления
+     */
+    public double evaluate() throws IllegalArgumentException {
+        if (unbound != 0) {
+            for (int i = 0; i < names.length; i++) {
+                if (!bound[i]) {
+                    throw missing(i);
+                }
+            }
+        }
+        return expression.evaluate(slots, stack);
+    }
+
+    /**
+     * Вычисляет выражение по связанным значениям без исключений
+     * (см. {@link CompiledExpression#tryEvaluate(double[], int[])})
+     * @param status буфер кода результата: в status[0] записывается {@link EvaluationStatus#OK}
+     *               или код первой ошибки; несвязанная переменная дает {@link EvaluationStatus#MISSING_VARIABLE}
+     * @return результат вычисления выражения или NaN при ошибке
+     */
+    public double tryEvaluate(int[] status) {
+        if (unbound != 0) {
+            status[0] = EvaluationStatus.MISSING_VARIABLE;
+            if (EvaluationMetrics.ENABLED) {
+                EvaluationMetrics.recordEvaluationError(expression.metrics(), ErrorType.UNKNOWN_IDENTIFIER);
+            }
+            return Double.NaN;
+        }
+        return expression.tryEvaluate(slots, status);
+    }
+
+    private EvaluationException missing(int slot) {
+        EvaluationException e = new EvaluationException(ErrorType.UNKNOWN_IDENTIFIER,
+                "Не задано значение переменной: " + names[slot]);
+        if (EvaluationMetrics.ENABLED) {
+            EvaluationMetrics.recordEvaluationError(expression.metrics(), e);
+        }
+        return e;
+    }
+}
@@ -0,0 +1,26 @@
+package org.example;
+
+/**
+ * Ошибка вычисления выражения с указанием ее вида.
+ */
+public class EvaluationException extends IllegalArgumentException {
+    private final ErrorType errorType;
+
+    /**
+     * Создает исключение
+     * @param errorType вид ошибки
+     * @param message описание ошибки
+     */
+    public EvaluationException(ErrorType errorType, String message) {
+        super(message);
+        this.errorType = errorType;
+    }
+
+    /**
+     * Возвращает вид ошибки
+     * @return вид ошибки
+     */
+    public ErrorType getErrorType() {
+        return errorType;
+    }
+}
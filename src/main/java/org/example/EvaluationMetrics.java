@@ -0,0 +1,158 @@
+package org.example;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Метрики компиляции и вычисления выражений: общие и по каждому выражению.
+ * Учитываются длительности компиляции и вычисления, попадания в кэш и ошибки по видам ({@link ErrorType}).
+ * Метрики доступны через {@link #snapshot()} и через JMX (см. {@link EvaluationMetricsMXBean}).
+ *
+ * Метрики включаются системным свойством {@code -Dexpression.metrics=true} при запуске JVM.
+ * Флаг {@link #ENABLED} — статическая константа, поэтому в выключенном состоянии JIT удаляет
+ * код замеров целиком и вычисление не несет никаких накладных расходов.
+ * Отдельно отслеживаются не более {@code expression.metrics.maxExpressions} (по умолчанию 1000)
+ * различных выражений; остальные учитываются только в общих метриках.
+ */
+public final class EvaluationMetrics {
+    /** Включены ли метрики */
+    public static final boolean ENABLED = Boolean.getBoolean("expression.metrics");
+    /** Наибольшее количество отдельно отслеживаемых выражений */
+    static final int MAX_EXPRESSIONS = Integer.getInteger("expression.metrics.maxExpressions", 1000);
+
+    private static final ExpressionMetrics GLOBAL = new ExpressionMetrics(null);
+    private static final ConcurrentHashMap<String, ExpressionMetrics> EXPRESSIONS = new ConcurrentHashMap<>();
+
+    static {
+        if (ENABLED) {
+            register(GLOBAL, "global");
+        }
+    }
+
+    private EvaluationMetrics() {
+    }
+
+    /**
+     * Возвращает снимок общих метрик
+     * @return снимок метрик всех выражений
+     */
+    public static MetricsSnapshot snapshot() {
+        return GLOBAL.snapshot();
+    }
+
+    /**
+     * Возвращает снимок метрик выражения
+     * @param expression текст выражения (пробелы, не влияющие на разбор, не учитываются)
+     * @return снимок метрик или null, если выражение не отслеживается
+     */
+    public static MetricsSnapshot snapshot(String expression) {
+        ExpressionMetrics metrics = EXPRESSIONS.get(ExpressionCache.normalize(expression));
+        return metrics == null ? null : metrics.snapshot();
+    }
+
+    /**
+     * Возвращает снимки метрик всех отслеживаемых выражений
+     * @return неизменяемая карта: нормализованный текст выражения — снимок метрик
+     */
+    public static Map<String, MetricsSnapshot> expressionSnapshots() {
+        Map<String, MetricsSnapshot> snapshots = new LinkedHashMap<>();
+        for (Map.Entry<String, ExpressionMetrics> entry : EXPRESSIONS.entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return Collections.unmodifiableMap(snapshots);
+    }
+
+    /**
+     * Возвращает метрики выражения, начиная отслеживать его при первом обращении
+     * @return метрики выражения или null, если достигнут предел отслеживаемых выражений
+     */
+    static ExpressionMetrics forExpression(String source) {
+        String key = ExpressionCache.normalize(source);
+        ExpressionMetrics metrics = EXPRESSIONS.get(key);
+        if (metrics != null || EXPRESSIONS.size() >= MAX_EXPRESSIONS) {
+            return metrics;
+        }
+        ExpressionMetrics created = new ExpressionMetrics(key);
+        metrics = EXPRESSIONS.putIfAbsent(key, created);
+        if (metrics != null) {
+            return metrics;
+        }
+        register(created, key);
+        return created;
+    }
+
+    static void recordCompilation(String source, long nanos) {
+        GLOBAL.recordCompilation(nanos);
+        ExpressionMetrics metrics = forExpression(source);
+        if (metrics != null) {
+            metrics.recordCompilation(nanos);
+        }
+    }
+
+    static void recordCompilationError(String source, IllegalArgumentException e) {
+        ErrorType type = typeOf(e, ErrorType.SYNTAX_ERROR);
+        GLOBAL.recordError(type);
+        ExpressionMetrics metrics = source == null ? null : forExpression(source);
+        if (metrics != null) {
+            metrics.recordError(type);
+        }
+    }
+
+    static void recordEvaluation(ExpressionMetrics metrics, long nanos) {
+        GLOBAL.recordEvaluation(nanos);
+        if (metrics != null) {
+            metrics.recordEvaluation(nanos);
+        }
+    }
+
+    static void recordEvaluationError(ExpressionMetrics metrics, IllegalArgumentException e) {
+        // Исключение без вида выбрасывает пользовательская функция при выходе за область определения
+        recordEvaluationError(metrics, typeOf(e, ErrorType.DOMAIN_ERROR));
+    }
+
+    static void recordEvaluationError(ExpressionMetrics metrics, ErrorType type) {
+        GLOBAL.recordError(type);
+        if (metrics != null) {
+            metrics.recordError(type);
+        }
+    }
+
+    static void recordCacheHit(ExpressionMetrics metrics) {
+        GLOBAL.recordCacheHit();
+        if (metrics != null) {
+            metrics.recordCacheHit();
+        }
+    }
+
+    static void recordCacheMiss(String source) {
+        GLOBAL.recordCacheMiss();
+        ExpressionMetrics metrics = forExpression(source);
+        if (metrics != null) {
+            metrics.recordCacheMiss();
+        }
+    }
+
+    private static ErrorType typeOf(IllegalArgumentException e, ErrorType fallback) {
+        if (e instanceof EvaluationException) {
+            return ((EvaluationException) e).getErrorType();
+        }
+        if (e instanceof ExpressionParseException) {
+            return ((ExpressionParseException) e).getErrorType();
+        }
+        return fallback;
+    }
+
+    private static void register(ExpressionMetrics metrics, String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics,
+                    new ObjectName("org.example:type=EvaluationMetrics,name=" + ObjectName.quote(name)));
+        } catch (JMException e) {
+            // Например, класс загружен повторно другим загрузчиком: метрики остаются доступны через snapshot()
+        }
+    }
+}
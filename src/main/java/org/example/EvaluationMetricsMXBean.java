@@ -0,0 +1,46 @@
+package org.example;
+
+import java.util.Map;
+
+/**
+ * Метрики вычисления выражений, доступные через JMX.
+ * Регистрируются под именем {@code org.example:type=EvaluationMetrics,name="..."}: общий набор
+ * с именем {@code "global"} и по набору на каждое отслеживаемое выражение. Длительности в наносекундах.
+ */
+public interface EvaluationMetricsMXBean {
+    /** @return текст выражения или пустая строка для общих метрик */
+    String getSource();
+
+    /** @return количество компиляций */
+    long getCompilationCount();
+
+    /** @return количество успешных вычислений */
+    long getEvaluationCount();
+
+    /** @return количество попаданий в кэш выражений */
+    long getCacheHitCount();
+
+    /** @return количество промахов кэша выражений */
+    long getCacheMissCount();
+
+    /** @return количество ошибок по видам */
+    Map<String, Long> getErrorCounts();
+
+    /** @return средняя длительность компиляции */
+    double getMeanCompilationTime();
+
+    /** @return 99-й перцентиль длительности компиляции */
+    long getCompilationTime99thPercentile();
+
+    /** @return средняя длительность вычисления */
+    double getMeanEvaluationTime();
+
+    /** @return медиана длительности вычисления */
+    long getEvaluationTime50thPercentile();
+
+    /** @return 99-й перцентиль длительности вычисления */
+    long getEvaluationTime99thPercentile();
+
+    /** @return наибольшая длительность вычисления */
+    long getMaxEvaluationTime();
+}
@@ -0,0 +1,86 @@
+package org.example;
+
+/**
+ * Коды результата вычисления без исключений (см. {@link CompiledExpression#tryEvaluate(double[], int[])}).
+ * Каждый код ошибки соответствует одному сообщению {@link EvaluationException}, которое выбрасывает
+ * обычное вычисление, поэтому классификация ошибок в обоих режимах одинакова.
+ */
+public final class EvaluationStatus {
+    /** Вычисление завершилось без ошибок */
+    public static final int OK = 0;
+    /** Деление на ноль */
+    public static final int DIVISION_BY_ZERO = 1;
+    /** Корень из отрицательного числа */
+    public static final int NEGATIVE_SQRT = 2;
+    /** Логарифм (log или ln) неположительного числа */
+    public static final int NON_POSITIVE_LOG = 3;
+    /** Нижняя граница clamp больше верхней */
+    public static final int INVALID_CLAMP_BOUNDS = 4;
+    /** Пользовательская функция завершилась ошибкой */
+    public static final int FUNCTION_ERROR = 5;
+    /** Не задано значение переменной */
+    public static final int MISSING_VARIABLE = 6;
+
+    private static final String[] MESSAGES = {
+            null,
+            "Деление на ноль",
+            "Корень из отрицательного числа",
+            "Логарифм неположительного числа",
+            "Нижняя граница clamp больше верхней",
+            "Ошибка пользовательской функции",
+            "Не задано значение переменной",
+    };
+
+    private static final ErrorType[] ERROR_TYPES = {
+            null,
+            ErrorType.DIVISION_BY_ZERO,
+            ErrorType.DOMAIN_ERROR,
+            ErrorType.DOMAIN_ERROR,
+            ErrorType.DOMAIN_ERROR,
+            ErrorType.DOMAIN_ERROR,
+            ErrorType.UNKNOWN_IDENTIFIER,
+    };
+
+    private EvaluationStatus() {
+    }
+
+    /**
+     * Возвращает сообщение об ошибке
+     * @param status код ошибки
+     * @return сообщение, совпадающее с сообщением исключения обычного вычисления
+     *         (для пользовательских функций и переменных — без подробностей)
+     * @throws IllegalArgumentException если код неизвестен или равен {@link #OK}
+     */
+    public static String message(int status) throws IllegalArgumentException {
+        checkError(status);
+        return MESSAGES[status];
+    }
+
+    /**
+     * Возвращает вид ошибки
+     * @param status код ошибки
+     * @return вид ошибки для метрик
+     * @throws IllegalArgumentException если код неизвестен или равен {@link #OK}
+     */
+    public static ErrorType errorType(int status) throws IllegalArgumentException {
+        checkError(status);
+        return ERROR_TYPES[status];
+    }
+
+    /**
+     * Создает исключение, соответствующее коду ошибки
+     * @param status код ошибки
+     * @return исключение того же вида и с тем же сообщением, что и при обычном вычислении
+     * @throws IllegalArgumentException если код неизвестен или равен {@link #OK}
+     */
+    public static EvaluationException exception(int status) throws IllegalArgumentException {
+        checkError(status);
+        return new EvaluationException(ERROR_TYPES[status], MESSAGES[status]);
+    }
+
+    private static void checkError(int status) {
+        if (status <= OK || status >= MESSAGES.length) {
+            throw new IllegalArgumentException("Неизвестный код ошибки: " + status);
+        }
+    }
+}
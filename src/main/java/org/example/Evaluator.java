@@ -0,0 +1,147 @@
+package org.example;
+
+import java.util.Map;
+
+/**
+ * Вычислитель выражений с собственной конфигурацией.
+ * Экземпляр неизменяем (кэш скомпилированных выражений, если он задан конфигурацией, потокобезопасен),
+ * поэтому один вычислитель можно разделять между потоками без блокировок, а вычислители с разными
+ * конфигурациями — использовать в одной JVM независимо друг от друга.
+ * Статические методы {@link ExpressionEvaluator} работают через вычислитель с конфигурацией по умолчанию.
+ */
+public final class Evaluator {
+    private final EvaluatorConfig config;
+    private final ExpressionCache cache;
+
+    /**
+     * Создает вычислитель с конфигурацией по умолчанию
+     */
+    public Evaluator() {
+        this(EvaluatorConfig.DEFAULT);
+    }
+
+    /**
+     * Создает вычислитель
+     * @param config конфигурация
+     */
+    public Evaluator(EvaluatorConfig config) {
+        this.config = config;
+        this.cache = config.getCacheSize() > 0 ? new ExpressionCache(config.getCacheSize(), this::compile) : null;
+    }
+
+    /**
+     * Возвращает конфигурацию вычислителя
+     * @return конфигурация
+     */
+    public EvaluatorConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Возвращает кэш скомпилированных выражений
+     * @return кэш или null, если конфигурация его не предусматривает
+     */
+    public ExpressionCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Преобразует инфиксное выражение в постфиксную форму (обратную польскую запись)
+     * @param expression инфиксное выражение
+     * @return массив токенов в постфиксной форме
+     * @throws IllegalArgumentException если выражение некорректно;
+     *         ошибки разбора сообщаются как {@link ExpressionParseException} с позицией
+     */
+    public String[] infixToPostfix(String expression) throws IllegalArgumentException {
+        return new ExpressionParser(expression, config).parse().toPostfix();
+    }
+
+    /**
+     * Компилирует инфиксное выражение для многократного вычисления.
+     * Константные подвыражения сворачиваются, а тождества вида x*1 упрощаются (см. {@link Optimizer}).
+     * Выражение получает политику точности из конфигурации.
+     * @param expression инфиксное выражение
+     * @return скомпилированное выражение
+     * @throws IllegalArgumentException если выражение некорректно
+     */
+    public CompiledExpression compile(String expression) throws IllegalArgumentException {
+        if (!EvaluationMetrics.ENABLED) {
+            return compileDirect(expression);
+        }
+        long start = System.nanoTime();
+        try {
+            CompiledExpression compiled = compileDirect(expression);
+            EvaluationMetrics.recordCompilation(expression, System.nanoTime() - start);
+            return compiled;
+        } catch (IllegalArgumentException e) {
+            EvaluationMetrics.recordCompilationError(expression, e);
+            throw e;
+        }
+    }
+
+    private CompiledExpression compileDirect(String expression) {
+        return Optimizer.optimize(new ExpressionParser(expression, config).parse().toCompiledExpression(expression),
+                config.getPrecision());
+    }
+
+    /**
+     * Упрощает инфиксное выражение: сворачивает константы, убирает нейтральные элементы
+     * и сокращает одинаковые операнды (см. {@link Simplifier})
+     * @param expression инфиксное выражение
+     * @return упрощенное выражение в инфиксной записи, которую принимает {@link #infixToPostfix(String)}
+     * @throws IllegalArgumentException если выражение некорректно
+     */
+    public String simplify(String expression) throws IllegalArgumentException {
+        return InfixPrinter.print(Simplifier.simplify(parseTree(expression)));
+    }
+
+    /**
+     * Строит производную инфиксного выражения по переменной.
+     * Результат упрощен и записан в инфиксной форме, поэтому его можно скомпилировать и кэшировать
+     * как обычное выражение.
+     * @param expression инфиксное выражение
+     * @param variable имя переменной дифференцирования
+     * @return упрощенная производная в инфиксной записи, которую принимает {@link #infixToPostfix(String)}
+     * @throws IllegalArgumentException если выражение некорректно, имя переменной недопустимо
+     *         или выражение содержит пользовательскую функцию от этой переменной
+     */
+    public String derivative(String expression, String variable) throws IllegalArgumentException {
+        if (variable == null || !ExpressionEvaluator.isValidVariableName(variable) || config.isConstant(variable)) {
+            throw new IllegalArgumentException("Недопустимое имя переменной: " + variable);
+        }
+        Node derivative = SymbolicDerivative.differentiate(parseTree(expression), variable);
+        return InfixPrinter.print(Simplifier.simplify(derivative));
+    }
+
+    private Node parseTree(String expression) {
+        return Node.of(new ExpressionParser(expression, config).parse().toCompiledExpression(expression));
+    }
+
+    /**
+     * Вычисляет значение выражения в постфиксной форме
+     * @param postfix массив токенов в постфиксной форме
+     * @param variables карта значений переменных
+     * @return результат вычисления выражения
+     * @throws IllegalArgumentException если выражение некорректно
+     */
+    public double evaluatePostfix(String[] postfix, Map<String, Double> variables) throws IllegalArgumentException {
+        return CompiledExpression.fromPostfix(String.join(" ", postfix), postfix, config.getFunctions())
+                .evaluate(variables);
+    }
+
+    /**
+     * Вычисляет значение инфиксного выражения.
+     * Если конфигурация задает кэш, выражение разбирается только при первом обращении.
+     * @param expression инфиксное выражение
+     * @param variables карта значений переменных
+     * @return результат вычисления выражения
+     * @throws IllegalArgumentException если выражение некорректно
+     */
+    public double evaluate(String expression, Map<String, Double> variables) throws IllegalArgumentException {
+        if (expression == null || expression.trim().isEmpty()) {
+            throw new IllegalArgumentException("Пустое выражение");
+        }
+        CompiledExpression compiled = cache != null ? cache.get(expression) : compile(expression);
+        return compiled.evaluate(variables);
+    }
+}
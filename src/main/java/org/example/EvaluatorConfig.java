@@ -0,0 +1,181 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Неизменяемая конфигурация вычислителя: именованные константы, набор функций,
+ * размер кэша скомпилированных выражений и политика точности.
+ * Создается через {@link #builder()}; готовый экземпляр можно без синхронизации разделять между потоками.
+ */
+public final class EvaluatorConfig {
+    /** Конфигурация по умолчанию: константы pi и e, встроенные функции, без кэша, точные функции */
+    public static final EvaluatorConfig DEFAULT = builder().build();
+
+    private final Map<String, Double> constants;
+    private final FunctionRegistry functions;
+    private final int cacheSize;
+    private final PrecisionPolicy precision;
+
+    private EvaluatorConfig(Builder builder) {
+        for (String name : builder.constants.keySet()) {
+            if (builder.functions.lookup(name) != null) {
+                throw new IllegalArgumentException("Имя константы совпадает с именем функции: " + name);
+            }
+        }
+        this.constants = Collections.unmodifiableMap(new LinkedHashMap<>(builder.constants));
+        this.functions = builder.functions;
+        this.cacheSize = builder.cacheSize;
+        this.precision = builder.precision;
+    }
+
+    /**
+     * Создает построитель, в котором уже заданы константы pi и e
+     * @return новый построитель
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Создает построитель с теми же настройками, что у этой конфигурации
+     * @return новый построитель
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.constants.clear();
+        builder.constants.putAll(constants);
+        builder.functions = functions;
+        builder.cacheSize = cacheSize;
+        builder.precision = precision;
+        return builder;
+    }
+
+    /**
+     * Возвращает именованные константы
+     * @return неизменяемая карта значений констант
+     */
+    public Map<String, Double> getConstants() {
+        return constants;
+    }
+
+    /**
+     * Возвращает набор функций, доступных в выражениях
+     * @return набор функций
+     */
+    public FunctionRegistry getFunctions() {
+        return functions;
+    }
+
+    /**
+     * Возвращает размер кэша скомпилированных выражений
+     * @return максимальное количество выражений в кэше или 0, если кэш не используется
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Возвращает политику точности, с которой компилируются выражения
+     * @return политика точности
+     */
+    public PrecisionPolicy getPrecision() {
+        return precision;
+    }
+
+    boolean isConstant(String name) {
+        return constants.containsKey(name);
+    }
+
+    double constantValue(String name) {
+        return constants.get(name);
+    }
+
+    /**
+     * Построитель конфигурации. Не потокобезопасен.
+     */
+    public static final class Builder {
+        private final Map<String, Double> constants = new LinkedHashMap<>();
+        private FunctionRegistry functions = FunctionRegistry.DEFAULT;
+        private int cacheSize;
+        private PrecisionPolicy precision = PrecisionPolicy.STRICT;
+
+        private Builder() {
+            constants.put("pi", Math.PI);
+            constants.put("e", Math.E);
+        }
+
+        /**
+         * Добавляет или заменяет именованную константу
+         * @param name имя константы
+         * @param value значение константы
+         * @return этот же построитель
+         * @throws IllegalArgumentException если имя недопустимо
+         */
+        public Builder constant(String name, double value) throws IllegalArgumentException {
+            if (name == null || !ExpressionEvaluator.isValidVariableName(name)) {
+                throw new IllegalArgumentException("Недопустимое имя константы: " + name);
+            }
+            constants.put(name, value);
+            return this;
+        }
+
+        /**
+         * Удаляет именованную константу; после этого имя разбирается как переменная
+         * @param name имя константы
+         * @return этот же построитель
+         */
+        public Builder removeConstant(String name) {
+            constants.remove(name);
+            return this;
+        }
+
+        /**
+         * Задает набор функций
+         * @param functions набор функций
+         * @return этот же построитель
+         */
+        public Builder functions(FunctionRegistry functions) {
+            this.functions = functions;
+            return this;
+        }
+
+        /**
+         * Задает размер кэша скомпилированных выражений
+         * @param cacheSize максимальное количество выражений в кэше или 0, чтобы не использовать кэш
+         * @return этот же построитель
+         * @throws IllegalArgumentException если размер отрицателен
+         */
+        public Builder cacheSize(int cacheSize) throws IllegalArgumentException {
+            if (cacheSize < 0) {
+                throw new IllegalArgumentException("Размер кэша должен быть неотрицательным");
+            }
+            this.cacheSize = cacheSize;
+            return this;
+        }
+
+        /**
+         * Задает политику точности встроенных функций
+         * @param precision политика точности
+         * @return этот же построитель
+         * @throws IllegalArgumentException если политика не задана
+         */
+        public Builder precision(PrecisionPolicy precision) throws IllegalArgumentException {
+            if (precision == null) {
+                throw new IllegalArgumentException("Политика точности не задана");
+            }
+            this.precision = precision;
+            return this;
+        }
+
+        /**
+         * Создает конфигурацию
+         * @return неизменяемая конфигурация
+         * @throws IllegalArgumentException если имя какой-либо константы совпадает с именем функции
+         */
+        public EvaluatorConfig build() throws IllegalArgumentException {
+            return new EvaluatorConfig(this);
+        }
+    }
+}
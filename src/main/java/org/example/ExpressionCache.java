@@ -0,0 +1,296 @@
+package org.example;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Ограниченный по размеру потокобезопасный кэш скомпилированных выражений.
+ * Ключом служит текст выражения, нормализованный по пробелам (см. {@link #normalize(String)}).
+ * Кэш разбит на сегменты по хэшу ключа, у каждого сегмента своя блокировка и свой список LRU,
+ * поэтому обращения к разным сегментам не конкурируют. Компиляция при промахе выполняется вне блокировки.
+ * Ограничение размера общее для всех сегментов: выражение вытесняется, только когда в кэше их больше
+ * {@code maximumSize}, поэтому рабочий набор не больше максимального размера помещается целиком
+ * при любом распределении ключей по сегментам. Вытесняется самое старое выражение сегмента,
+ * в который выполнялась вставка, а если кроме нового в нем ничего нет, то самое старое выражение соседнего сегмента.
+ */
+public final class ExpressionCache {
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int maximumSize;
+    private final Function<String, CompiledExpression> compiler;
+    private final AtomicInteger count = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Создает кэш
+     * @param maximumSize максимальное количество выражений в кэше
+     * @throws IllegalArgumentException если размер не положителен
+     */
+    public ExpressionCache(int maximumSize) throws IllegalArgumentException {
+        this(maximumSize, new Evaluator());
+    }
+
+    /**
+     * Создает кэш, компилирующий выражения вычислителем с его конфигурацией
+     * @param maximumSize максимальное количество выражений в кэше
+     * @param evaluator вычислитель, компилирующий выражения при промахе
+     * @throws IllegalArgumentException если размер не положителен
+     */
+    public ExpressionCache(int maximumSize, Evaluator evaluator) throws IllegalArgumentException {
+        this(maximumSize, evaluator::compile);
+    }
+
+    /**
+     * Создает кэш, компилирующий выражения заданной функцией
+     * @param maximumSize максимальное количество выражений в кэше
+     * @param compiler функция компиляции выражения при промахе
+     */
+    ExpressionCache(int maximumSize, Function<String, CompiledExpression> compiler) {
+        this(maximumSize, Math.min(MAX_SEGMENTS, Integer.highestOneBit(Math.max(maximumSize, 1))), compiler);
+    }
+
+    ExpressionCache(int maximumSize, int segmentCount) {
+        this(maximumSize, segmentCount, ExpressionEvaluator::compile);
+    }
+
+    private ExpressionCache(int maximumSize, int segmentCount, Function<String, CompiledExpression> compiler) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.compiler = compiler;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Возвращает скомпилированное выражение из кэша, компилируя и сохраняя его при промахе
+     * @param expression инфиксное выражение
+     * @return скомпилированное выражение
+     * @throws IllegalArgumentException если выражение некорректно; ошибки не кэшируются
+     */
+    public CompiledExpression get(String expression) throws IllegalArgumentException {
+        if (expression == null) {
+            throw new IllegalArgumentException("Пустое выражение");
+        }
+        String key = normalize(expression);
+        Segment segment = segmentFor(key);
+
+        CompiledExpression cached = segment.get(key);
+        if (cached != null) {
+            hits.increment();
+            if (EvaluationMetrics.ENABLED) {
+                EvaluationMetrics.recordCacheHit(cached.metrics());
+            }
+            return cached;
+        }
+        misses.increment();
+        if (EvaluationMetrics.ENABLED) {
+            EvaluationMetrics.recordCacheMiss(expression);
+        }
+        return segment.putIfAbsent(key, compiler.apply(expression));
+    }
+
+    /**
+     * Добавляет в кэш уже скомпилированное выражение, например загруженное из {@link ExpressionSnapshot};
+     * ключом служит нормализованный исходный текст выражения. Счетчики не меняются.
+     * @param expression скомпилированное выражение
+     * @return выражение, которое теперь хранится в кэше под этим текстом (ранее добавленное, если оно было)
+     */
+    public CompiledExpression put(CompiledExpression expression) {
+        String key = normalize(expression.getSource());
+        return segmentFor(key).putIfAbsent(key, expression);
+    }
+
+    /**
+     * Нормализует текст выражения: удаляет пробелы, не влияющие на разбор.
+     * Пробел сохраняется (один) только между двумя символами имени или числа и перед скобкой
+     * после них, так как там он меняет результат разбора.
+     * @param expression текст выражения
+     * @return нормализованный текст
+     */
+    static String normalize(String expression) {
+        StringBuilder key = new StringBuilder(expression.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == ' ') {
+                pendingSpace = key.length() > 0;
+                continue;
+            }
+            if (pendingSpace && isWordChar(key.charAt(key.length() - 1)) && (isWordChar(c) || c == '(')) {
+                key.append(' ');
+            }
+            pendingSpace = false;
+            key.append(c);
+        }
+        return key.toString();
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '.';
+    }
+
+    /**
+     * Возвращает максимальный размер кэша
+     * @return максимальное количество выражений
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Возвращает текущее количество выражений в кэше
+     * @return количество выражений
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Возвращает количество попаданий в кэш
+     * @return количество попаданий
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Возвращает количество промахов кэша
+     * @return количество промахов
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Возвращает количество вытесненных выражений
+     * @return количество вытеснений
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Удаляет все выражения из кэша; счетчики не сбрасываются
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private Segment segmentFor(String key) {
+        return segments[indexFor(key)];
+    }
+
+    private int indexFor(String key) {
+        int hash = key.hashCode();
+        hash ^= hash >>> 16;
+        return hash & (segments.length - 1);
+    }
+
+    /**
+     * Вытесняет самое старое выражение из первого непустого сегмента после заданного
+     * @param from индекс сегмента, в который выполнялась вставка
+     */
+    private void evictAfter(int from) {
+        for (int i = 1; i < segments.length; i++) {
+            if (segments[(from + i) & (segments.length - 1)].evictEldest(null)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Сегмент кэша: список LRU под собственной блокировкой
+     */
+    private final class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, CompiledExpression> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        CompiledExpression get(String key) {
+            lock.lock();
+            try {
+                return entries.get(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        CompiledExpression putIfAbsent(String key, CompiledExpression compiled) {
+            lock.lock();
+            try {
+                CompiledExpression existing = entries.putIfAbsent(key, compiled);
+                if (existing != null) {
+                    return existing;
+                }
+                if (count.incrementAndGet() <= maximumSize || evictEldest(key)) {
+                    return compiled;
+                }
+            } finally {
+                lock.unlock();
+            }
+            // Другие сегменты блокируются только после освобождения своего, чтобы не было взаимной блокировки
+            evictAfter(indexFor(key));
+            return compiled;
+        }
+
+        /**
+         * Вытесняет самое старое выражение сегмента
+         * @param keep ключ, который вытеснять нельзя (только что вставленный), или null
+         * @return true, если выражение вытеснено
+         */
+        boolean evictEldest(String keep) {
+            lock.lock();
+            try {
+                Iterator<String> keys = entries.keySet().iterator();
+                if (!keys.hasNext()) {
+                    return false;
+                }
+                String eldest = keys.next();
+                if (eldest.equals(keep)) {
+                    return false;
+                }
+                keys.remove();
+                count.decrementAndGet();
+                evictions.increment();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                count.addAndGet(-entries.size());
+                entries.clear();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
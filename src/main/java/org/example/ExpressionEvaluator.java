@@ -1,56 +1,23 @@
 package org.example;
 import java.util.Map;
-import java.util.HashMap;
-import java.util.Stack;
-import java.util.EmptyStackException;
-import java.util.*;
-import java.util.regex.Pattern;
 
 /**
  * Класс для вычисления математических выражений с поддержкой переменных, функций и констант.
  * Поддерживает основные арифметические операции, тригонометрические функции и другие математические операции.
+ * Статические методы работают через общий {@link Evaluator} с конфигурацией по умолчанию
+ * ({@link EvaluatorConfig#DEFAULT}); для собственных констант создайте отдельный {@link Evaluator}.
  */
 public class ExpressionEvaluator {
-    private static final Map<Character, Integer> OPERATOR_PRECEDENCE = new HashMap<>();
-    private static final Map<String, Integer> FUNCTION_ARITY = new HashMap<>();
-    private static final Map<String, Double> CONSTANTS = new HashMap<>();
-    private static final Map<String, Double> VARIABLES = new HashMap<>();
-    private static final Scanner scanner = new Scanner(System.in);
-    private static final Pattern VALID_VARIABLE_NAME = Pattern.compile("[a-zA-Z][a-zA-Z0-9]*");
-
-    static {
-        // Инициализация операторов, функций и констант
-        OPERATOR_PRECEDENCE.put('^', 4);
-        OPERATOR_PRECEDENCE.put('*', 3);
-        OPERATOR_PRECEDENCE.put('/', 3);
-        OPERATOR_PRECEDENCE.put('+', 2);
-        OPERATOR_PRECEDENCE.put('-', 2);
-
-        // Функции
-        FUNCTION_ARITY.put("sin", 1);
-        FUNCTION_ARITY.put("cos", 1);
-        FUNCTION_ARITY.put("tan", 1);
-        FUNCTION_ARITY.put("asin", 1);
-        FUNCTION_ARITY.put("acos", 1);
-        FUNCTION_ARITY.put("atan", 1);
-        FUNCTION_ARITY.put("sqrt", 1);
-        FUNCTION_ARITY.put("log", 1);
-        FUNCTION_ARITY.put("ln", 1);
-        FUNCTION_ARITY.put("exp", 1);
-        FUNCTION_ARITY.put("abs", 1);
-
-        // Константы
-        CONSTANTS.put("pi", Math.PI);
-        CONSTANTS.put("e", Math.E);
-    }
+    private static final Evaluator DEFAULT = new Evaluator(EvaluatorConfig.DEFAULT);
+    private static volatile ExpressionCache cache;
 
     /**
      * Проверяет, является ли символ оператором
      * @param c проверяемый символ
      * @return true, если символ является оператором, иначе false
      */
-    private static boolean isOperator(char c) {
-        return OPERATOR_PRECEDENCE.containsKey(c);
+    static boolean isOperator(char c) {
+        return OpCode.ofOperator(c) >= 0;
     }
 
     /**
@@ -58,7 +25,7 @@ public class ExpressionEvaluator {
      * @param c проверяемый символ
      * @return true, если символ является цифрой или точкой, иначе false
      */
-    private static boolean isDigitOrDot(char c) {
+    static boolean isDigitOrDot(char c) {
         return Character.isDigit(c) || c == '.';
     }
 
@@ -67,199 +34,115 @@ public class ExpressionEvaluator {
      * @param c проверяемый символ
      * @return true, если символ является буквой, иначе false
      */
-    private static boolean isLetter(char c) {
+    static boolean isLetter(char c) {
         return Character.isLetter(c);
     }
 
-    /**
-     * Проверяет, является ли строка именем функции
-     * @param token проверяемая строка
-     * @return true, если строка является именем функции, иначе false
-     */
-    private static boolean isFunction(String token) {
-        return FUNCTION_ARITY.containsKey(token);
-    }
-
-    /**
-     * Проверяет, является ли строка именем константы
-     * @param token проверяемая строка
-     * @return true, если строка является именем константы, иначе false
-     */
-    private static boolean isConstant(String token) {
-        return CONSTANTS.containsKey(token);
-    }
-
     /**
      * Проверяет, является ли строка допустимым именем переменной
      * @param name проверяемая строка
      * @return true, если строка является допустимым именем переменной, иначе false
      */
-    private static boolean isValidVariableName(String name) {
-        return VALID_VARIABLE_NAME.matcher(name).matches();
+    static boolean isValidVariableName(String name) {
+        // То же, что шаблон [a-zA-Z][a-zA-Z0-9]*, но без создания Matcher на каждый идентификатор
+        if (name.isEmpty() || !isAsciiLetter(name.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!isAsciiLetter(c) && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
     }
 
     /**
-     * Получает значение переменной, запрашивая его у пользователя при необходимости
-     * @param name имя переменной
-     * @return значение переменной
+     * Возвращает приоритет оператора
+     * @param c символ оператора
+     * @return приоритет; чем больше, тем раньше выполняется оператор
      */
-    private static double getVariableValue(String name) {
-        if (!VARIABLES.containsKey(name)) {
-            System.out.print("Введите значение переменной " + name + ": ");
-            double value = scanner.nextDouble();
-            VARIABLES.put(name, value);
+    static int precedence(char c) {
+        switch (c) {
+            case '^': return 4;
+            case '*':
+            case '/': return 3;
+            default: return 2;
         }
-        return VARIABLES.get(name);
     }
 
     /**
      * Преобразует инфиксное выражение в постфиксную форму (обратную польскую запись)
      * @param expression инфиксное выражение
      * @return массив токенов в постфиксной форме
-     * @throws IllegalArgumentException если выражение некорректно
+     * @throws IllegalArgumentException если выражение некорректно;
+     *         ошибки разбора сообщаются как {@link ExpressionParseException} с позицией
      */
     public static String[] infixToPostfix(String expression) throws IllegalArgumentException {
-        if (expression == null || expression.trim().isEmpty()) {
-            throw new IllegalArgumentException("Пустое выражение");
-        }
-
-        Stack<String> stack = new Stack<>();
-        StringBuilder output = new StringBuilder();
-        boolean expectOperand = true;
-
-        for (int i = 0; i < expression.length(); i++) {
-            char c = expression.charAt(i);
-
-            if (c == ' ') continue;
-
-            // Обработка чисел
-            if (isDigitOrDot(c)) {
-                if (!expectOperand) {
-                    throw new IllegalArgumentException("Ожидается оператор");
-                }
-
-                while (i < expression.length() && isDigitOrDot(expression.charAt(i))) {
-                    output.append(expression.charAt(i));
-                    i++;
-                }
-                output.append(' ');
-                i--;
-                expectOperand = false;
-                continue;
-            }
-
-            // Обработка функций, констант и переменных
-            if (isLetter(c)) {
-                if (!expectOperand) {
-                    throw new IllegalArgumentException("Ожидается оператор");
-                }
-
-                StringBuilder token = new StringBuilder();
-                while (i < expression.length() && (isLetter(expression.charAt(i)) || Character.isDigit(expression.charAt(i)))) {
-                    token.append(expression.charAt(i));
-                    i++;
-                }
-                i--;
-
-                String tokenStr = token.toString();
-
-                if (isFunction(tokenStr)) {
-                    stack.push(tokenStr);
-                    // Проверяем наличие скобок после функции
-                    if (i + 1 >= expression.length() || expression.charAt(i + 1) != '(') {
-                        throw new IllegalArgumentException("После функции " + tokenStr + " ожидается '('");
-                    }
-                } else if (isConstant(tokenStr)) {
-                    output.append(CONSTANTS.get(tokenStr)).append(' ');
-                    expectOperand = false;
-                } else if (isValidVariableName(tokenStr)) {
-                    output.append("VAR:").append(tokenStr).append(' ');
-                    expectOperand = false;
-                } else {
-                    throw new IllegalArgumentException("Неизвестный идентификатор: " + tokenStr);
-                }
-                continue;
-            }
-
-            // Обработка скобок
-            if (c == '(') {
-                if (!expectOperand) {
-                    throw new IllegalArgumentException("Ожидается оператор");
-                }
-                stack.push("(");
-                expectOperand = true;
-                continue;
-            }
-
-            if (c == ')') {
-                if (expectOperand) {
-                    throw new IllegalArgumentException("Ожидается операнд");
-                }
-
-                while (!stack.isEmpty() && !stack.peek().equals("(")) {
-                    output.append(stack.pop()).append(' ');
-                }
-
-                if (stack.isEmpty()) {
-                    throw new IllegalArgumentException("Несогласованные скобки");
-                }
-
-                stack.pop(); // Удаляем "("
-
-                // Если на вершине стека функция - переносим в выход
-                if (!stack.isEmpty() && isFunction(stack.peek())) {
-                    output.append(stack.pop()).append(' ');
-                }
-
-                expectOperand = false;
-                continue;
-            }
-
-            // Обработка операторов
-            if (isOperator(c)) {
-                // Обработка унарного минуса
-                if (c == '-' && expectOperand) {
-                    output.append("0 ");
-                    stack.push("-");
-                    continue;
-                }
-
-                if (expectOperand) {
-                    throw new IllegalArgumentException("Ожидается операнд");
-                }
-
-                // Для оператора ^ правоассоциативность
-                while (!stack.isEmpty() && !stack.peek().equals("(") &&
-                        (OPERATOR_PRECEDENCE.get(c) < OPERATOR_PRECEDENCE.get(stack.peek().charAt(0)) ||
-                                (c != '^' && OPERATOR_PRECEDENCE.get(c) == OPERATOR_PRECEDENCE.get(stack.peek().charAt(0))))) {
-                    output.append(stack.pop()).append(' ');
-                }
+        return DEFAULT.infixToPostfix(expression);
+    }
 
-                stack.push(String.valueOf(c));
-                expectOperand = true;
-                continue;
-            }
+    /**
+     * Компилирует инфиксное выражение для многократного вычисления.
+     * Константные подвыражения сворачиваются, а тождества вида x*1 упрощаются (см. {@link Optimizer}).
+     * @param expression инфиксное выражение
+     * @return скомпилированное выражение
+     * @throws IllegalArgumentException если выражение некорректно
+     */
+    public static CompiledExpression compile(String expression) throws IllegalArgumentException {
+        return DEFAULT.compile(expression);
+    }
 
-            throw new IllegalArgumentException("Недопустимый символ: " + c);
-        }
+    /**
+     * Упрощает инфиксное выражение
+     * @param expression инфиксное выражение
+     * @return упрощенное выражение в инфиксной записи
+     * @throws IllegalArgumentException если выражение некорректно
+     */
+    public static String simplify(String expression) throws IllegalArgumentException {
+        return DEFAULT.simplify(expression);
+    }
 
-        if (expectOperand && output.length() == 0) {
-            throw new IllegalArgumentException("Пустое выражение");
-        }
+    /**
+     * Строит упрощенную производную инфиксного выражения по переменной
+     * @param expression инфиксное выражение
+     * @param variable имя переменной дифференцирования
+     * @return производная в инфиксной записи, которую принимает {@link #infixToPostfix(String)}
+     * @throws IllegalArgumentException если выражение некорректно или производную построить нельзя
+     */
+    public static String derivative(String expression, String variable) throws IllegalArgumentException {
+        return DEFAULT.derivative(expression, variable);
+    }
 
-        if (expectOperand) {
-            throw new IllegalArgumentException("Неполное выражение");
-        }
+    /**
+     * Включает кэш скомпилированных выражений, который {@link #evaluate(String, Map)} использует автоматически
+     * @param maximumSize максимальное количество выражений в кэше
+     * @return новый кэш
+     * @throws IllegalArgumentException если размер не положителен
+     */
+    public static ExpressionCache enableCache(int maximumSize) throws IllegalArgumentException {
+        ExpressionCache created = new ExpressionCache(maximumSize);
+        cache = created;
+        return created;
+    }
 
-        while (!stack.isEmpty()) {
-            String op = stack.pop();
-            if (op.equals("(")) {
-                throw new IllegalArgumentException("Несогласованные скобки");
-            }
-            output.append(op).append(' ');
-        }
+    /**
+     * Отключает кэш скомпилированных выражений
+     */
+    public static void disableCache() {
+        cache = null;
+    }
 
-        return output.toString().trim().split("\\s+");
+    /**
+     * Возвращает текущий кэш скомпилированных выражений
+     * @return кэш или null, если кэш отключен
+     */
+    public static ExpressionCache getCache() {
+        return cache;
     }
 
     /**
@@ -270,76 +153,12 @@ public class ExpressionEvaluator {
      * @throws IllegalArgumentException если выражение некорректно
      */
     public static double evaluatePostfix(String[] postfix, Map<String, Double> variables) throws IllegalArgumentException {
-        Stack<Double> stack = new Stack<>();
-
-        try {
-            for (String token : postfix) {
-                if (token.startsWith("VAR:")) {
-                    String varName = token.substring(4);
-                    if (!variables.containsKey(varName)) {
-                        throw new IllegalArgumentException("Не задано значение переменной: " + varName);
-                    }
-                    stack.push(variables.get(varName));
-                } else if (token.length() == 1 && isOperator(token.charAt(0))) {
-                    char op = token.charAt(0);
-                    double right = stack.pop();
-                    double left = stack.pop();
-
-                    switch (op) {
-                        case '+': stack.push(left + right); break;
-                        case '-': stack.push(left - right); break;
-                        case '*': stack.push(left * right); break;
-                        case '/':
-                            if (right == 0) throw new IllegalArgumentException("Деление на ноль");
-                            stack.push(left / right);
-                            break;
-                        case '^': stack.push(Math.pow(left, right)); break;
-                    }
-                } else if (isFunction(token)) {
-                    double arg = stack.pop();
-                    switch (token) {
-                        case "sin": stack.push(Math.sin(arg)); break;
-                        case "cos": stack.push(Math.cos(arg)); break;
-                        case "tan": stack.push(Math.tan(arg)); break;
-                        case "asin": stack.push(Math.asin(arg)); break;
-                        case "acos": stack.push(Math.acos(arg)); break;
-                        case "atan": stack.push(Math.atan(arg)); break;
-                        case "sqrt":
-                            if (arg < 0) throw new IllegalArgumentException("Корень из отрицательного числа");
-                            stack.push(Math.sqrt(arg));
-                            break;
-                        case "log":
-                            if (arg <= 0) throw new IllegalArgumentException("Логарифм неположительного числа");
-                            stack.push(Math.log10(arg));
-                            break;
-                        case "ln":
-                            if (arg <= 0) throw new IllegalArgumentException("Логарифм неположительного числа");
-                            stack.push(Math.log(arg));
-                            break;
-                        case "exp": stack.push(Math.exp(arg)); break;
-                        case "abs": stack.push(Math.abs(arg)); break;
-                    }
-                } else {
-                    try {
-                        stack.push(Double.parseDouble(token));
-                    } catch (NumberFormatException e) {
-                        throw new IllegalArgumentException("Недопустимое число: " + token);
-                    }
-                }
-            }
-
-            if (stack.size() != 1) {
-                throw new IllegalArgumentException("Некорректное выражение");
-            }
-
-            return stack.pop();
-        } catch (EmptyStackException e) {
-            throw new IllegalArgumentException("Некорректное выражение: недостаточно операндов");
-        }
+        return DEFAULT.evaluatePostfix(postfix, variables);
     }
 
     /**
-     * Вычисляет значение инфиксного выражения
+     * Вычисляет значение инфиксного выражения.
+     * Если включен кэш ({@link #enableCache(int)}), выражение разбирается только при первом обращении.
      * @param expression инфиксное выражение
      * @param variables карта значений переменных
      * @return результат вычисления выражения
@@ -349,8 +168,10 @@ public class ExpressionEvaluator {
         if (expression == null || expression.trim().isEmpty()) {
             throw new IllegalArgumentException("Пустое выражение");
         }
-        Map<String, Double> localVariables = new HashMap<>(variables);
-        String[] postfix = infixToPostfix(expression);
-        return evaluatePostfix(postfix, localVariables);
+        ExpressionCache current = cache;
+        if (current == null) {
+            return DEFAULT.evaluate(expression, variables);
+        }
+        return current.get(expression).evaluate(variables);
     }
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package org.example;
+
+/**
+ * Пользовательская функция произвольного числа аргументов.
+ * Аргументы передаются без копирования: они лежат в массиве подряд, начиная с индекса offset,
+ * поэтому вызов не выделяет памяти. Массив принадлежит вычислителю: функция не должна
+ * изменять его и сохранять ссылку на него.
+ * Функция должна быть чистой: одинаковые аргументы дают одинаковый результат. Наборы формул
+ * ({@link FormulaSet}) пользовательские функции не поддерживают. Чтобы сообщить об ошибке
+ * области определения, функция выбрасывает {@link IllegalArgumentException}.
+ */
+@FunctionalInterface
+public interface ExpressionFunction {
+    /**
+     * Вычисляет функцию
+     * @param args массив, содержащий аргументы
+     * @param offset индекс первого аргумента; аргументы занимают {@code args[offset] .. args[offset + arity - 1]}
+     * @return значение функции
+     * @throws IllegalArgumentException если аргументы вне области определения
+     */
+    double apply(double[] args, int offset) throws IllegalArgumentException;
+}
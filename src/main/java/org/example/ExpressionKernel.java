@@ -0,0 +1,23 @@
+package org.example;
+
+/**
+ * Вычислитель выражения, сгенерированный в виде байт-кода.
+ * Реализации создаются {@link BytecodeCompiler} и не проверяют размер массива слотов.
+ */
+interface ExpressionKernel {
+    /**
+     * Вычисляет выражение
+     * @param slots значения переменных по номерам слотов
+     * @return результат вычисления выражения
+     */
+    double evaluate(double[] slots);
+
+    /**
+     * Вычисляет выражение без исключений при ошибках области определения
+     * @param slots значения переменных по номерам слотов
+     * @param status буфер кода результата: при ошибке в status[0] записывается код первой ошибки,
+     *               если там еще {@link EvaluationStatus#OK}
+     * @return результат вычисления выражения; после ошибки значение не определено
+     */
+    double evaluate(double[] slots, int[] status);
+}
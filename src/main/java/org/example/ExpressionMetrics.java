@@ -0,0 +1,129 @@
+package org.example;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счетчики и гистограммы одного выражения или общие для всех выражений.
+ * Все методы записи потокобезопасны и не блокируют потоки.
+ */
+public final class ExpressionMetrics implements EvaluationMetricsMXBean {
+    private static final ErrorType[] ERROR_TYPES = ErrorType.values();
+
+    private final String source;
+    private final LongAdder compilations = new LongAdder();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder[] errors = new LongAdder[ERROR_TYPES.length];
+    private final LatencyHistogram compilationTime = new LatencyHistogram();
+    private final LatencyHistogram evaluationTime = new LatencyHistogram();
+
+    ExpressionMetrics(String source) {
+        this.source = source;
+        for (int i = 0; i < errors.length; i++) {
+            errors[i] = new LongAdder();
+        }
+    }
+
+    void recordCompilation(long nanos) {
+        compilations.increment();
+        compilationTime.record(nanos);
+    }
+
+    void recordEvaluation(long nanos) {
+        evaluations.increment();
+        evaluationTime.record(nanos);
+    }
+
+    void recordCacheHit() {
+        cacheHits.increment();
+    }
+
+    void recordCacheMiss() {
+        cacheMisses.increment();
+    }
+
+    void recordError(ErrorType type) {
+        errors[type.ordinal()].increment();
+    }
+
+    /**
+     * Возвращает снимок метрик
+     * @return неизменяемый снимок текущих значений
+     */
+    public MetricsSnapshot snapshot() {
+        EnumMap<ErrorType, Long> errorCounts = new EnumMap<>(ErrorType.class);
+        for (ErrorType type : ERROR_TYPES) {
+            errorCounts.put(type, errors[type.ordinal()].sum());
+        }
+        return new MetricsSnapshot(source, compilations.sum(), evaluations.sum(), cacheHits.sum(),
+                cacheMisses.sum(), errorCounts, compilationTime.snapshot(), evaluationTime.snapshot());
+    }
+
+    @Override
+    public String getSource() {
+        return source == null ? "" : source;
+    }
+
+    @Override
+    public long getCompilationCount() {
+        return compilations.sum();
+    }
+
+    @Override
+    public long getEvaluationCount() {
+        return evaluations.sum();
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public Map<String, Long> getErrorCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (ErrorType type : ERROR_TYPES) {
+            counts.put(type.name(), errors[type.ordinal()].sum());
+        }
+        return counts;
+    }
+
+    @Override
+    public double getMeanCompilationTime() {
+        return compilationTime.snapshot().getMean();
+    }
+
+    @Override
+    public long getCompilationTime99thPercentile() {
+        return compilationTime.snapshot().getValueAtPercentile(99);
+    }
+
+    @Override
+    public double getMeanEvaluationTime() {
+        return evaluationTime.snapshot().getMean();
+    }
+
+    @Override
+    public long getEvaluationTime50thPercentile() {
+        return evaluationTime.snapshot().getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getEvaluationTime99thPercentile() {
+        return evaluationTime.snapshot().getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getMaxEvaluationTime() {
+        return evaluationTime.snapshot().getMax();
+    }
+}
@@ -0,0 +1,56 @@
+package org.example;
+
+/**
+ * Ошибка разбора выражения с указанием позиции, в которой она обнаружена.
+ */
+public class ExpressionParseException extends IllegalArgumentException {
+    private final String reason;
+    private final int position;
+    private final ErrorType errorType;
+
+    /**
+     * Создает исключение о синтаксической ошибке
+     * @param reason описание ошибки
+     * @param position индекс символа (с нуля), на котором обнаружена ошибка
+     */
+    public ExpressionParseException(String reason, int position) {
+        this(reason, position, ErrorType.SYNTAX_ERROR);
+    }
+
+    /**
+     * Создает исключение
+     * @param reason описание ошибки
+     * @param position индекс символа (с нуля), на котором обнаружена ошибка
+     * @param errorType вид ошибки
+     */
+    public ExpressionParseException(String reason, int position, ErrorType errorType) {
+        super(reason + " (позиция " + (position + 1) + ")");
+        this.reason = reason;
+        this.position = position;
+        this.errorType = errorType;
+    }
+
+    /**
+     * Возвращает описание ошибки без позиции
+     * @return описание ошибки
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * Возвращает позицию ошибки
+     * @return индекс символа (с нуля), на котором обнаружена ошибка
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Возвращает вид ошибки
+     * @return вид ошибки
+     */
+    public ErrorType getErrorType() {
+        return errorType;
+    }
+}
@@ -0,0 +1,441 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Однопроходный разбор инфиксного выражения алгоритмом сортировочной станции.
+ * Текст читается прямо из {@link CharSequence}, а результат сразу записывается в виде
+ * типизированных инструкций: числа разбираются на месте без промежуточных строк,
+ * константы сохраняются как точные значения double, переменным назначаются слоты, а функции
+ * разрешаются по набору функций из конфигурации. Аргументы функций разделяются запятыми,
+ * их количество проверяется при разборе.
+ * Ошибки сообщаются через {@link ExpressionParseException} с позицией символа.
+ * Экземпляр предназначен для разбора одного выражения и не потокобезопасен.
+ */
+final class ExpressionParser {
+    /** Открывающая скобка на стеке операторов */
+    private static final int LEFT_PAREN = -1;
+    /** Отметка литерала 0, добавленного для унарного минуса */
+    private static final int UNARY_ZERO = -2;
+    /** Отметка значения именованной константы */
+    private static final int NAMED_CONSTANT = -1;
+
+    /** Наибольшая мантисса, которая точно представима в double */
+    static final long MAX_EXACT_MANTISSA = 1L << 53;
+    static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final CharSequence text;
+    private final EvaluatorConfig config;
+
+    private int[] opcodes = new int[16];
+    private int[] operands = new int[16];
+    private int[] tokenStarts = new int[16];
+    private int[] tokenEnds = new int[16];
+    private double[] literals = new double[8];
+    private int size;
+    private int literalCount;
+    private final List<String> variables = new ArrayList<>();
+    private final Map<String, Integer> slots = new HashMap<>();
+    private int depth;
+    private int maxDepth;
+
+    private final List<FunctionDefinition> calls = new ArrayList<>();
+
+    private int[] operators = new int[16];
+    private int[] operatorPositions = new int[16];
+    /** Функция для записей стека, соответствующих вызову функции; null для операторов и скобок */
+    private FunctionDefinition[] operatorFunctions = new FunctionDefinition[16];
+    /** Количество аргументов, начатых внутри скобки, для записей LEFT_PAREN */
+    private int[] argumentCounts = new int[16];
+    private int operatorCount;
+
+    /**
+     * Создает разборщик с конфигурацией по умолчанию
+     * @param text текст выражения
+     * @throws IllegalArgumentException если выражение пустое
+     */
+    ExpressionParser(CharSequence text) throws IllegalArgumentException {
+        this(text, EvaluatorConfig.DEFAULT);
+    }
+
+    /**
+     * Создает разборщик
+     * @param text текст выражения
+     * @param config конфигурация с именованными константами и функциями
+     * @throws IllegalArgumentException если выражение пустое
+     */
+    ExpressionParser(CharSequence text, EvaluatorConfig config) throws IllegalArgumentException {
+        if (text == null || isBlank(text)) {
+            throw new IllegalArgumentException("Пустое выражение");
+        }
+        this.text = text;
+        this.config = config;
+    }
+
+    /**
+     * Разбирает выражение
+     * @return этот же разборщик с заполненной программой
+     * @throws ExpressionParseException если выражение некорректно
+     */
+    ExpressionParser parse() throws ExpressionParseException {
+        int length = text.length();
+        boolean expectOperand = true;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+
+            if (c == ' ') continue;
+
+            // Обработка чисел
+            if (ExpressionEvaluator.isDigitOrDot(c)) {
+                if (!expectOperand) {
+                    throw new ExpressionParseException("Ожидается оператор", i);
+                }
+                int end = i;
+                while (end < length && ExpressionEvaluator.isDigitOrDot(text.charAt(end))) {
+                    end++;
+                }
+                emitLiteral(parseNumber(i, end), i, end);
+                i = end - 1;
+                expectOperand = false;
+                continue;
+            }
+
+            // Обработка функций, констант и переменных
+            if (ExpressionEvaluator.isLetter(c)) {
+                if (!expectOperand) {
+                    throw new ExpressionParseException("Ожидается оператор", i);
+                }
+                int end = i;
+                while (end < length && (ExpressionEvaluator.isLetter(text.charAt(end)) || Character.isDigit(text.charAt(end)))) {
+                    end++;
+                }
+                String token = text.subSequence(i, end).toString();
+
+                // Имя функции без скобки после него разбирается как переменная: min, max и pow
+                // остаются допустимыми именами переменных, как до появления этих функций
+                boolean call = end < length && text.charAt(end) == '(';
+                FunctionDefinition function = config.getFunctions().lookup(token);
+                if (function != null && call) {
+                    pushOperator(function.opcode, i, function);
+                } else if (function != null && startsOperand(text, end)) {
+                    // "sin 5" или "sin (x)": скорее всего пропущена или отделена пробелом скобка вызова
+                    throw new ExpressionParseException("После функции " + token + " ожидается '('", end);
+                } else if (config.isConstant(token)) {
+                    emitLiteral(config.constantValue(token), NAMED_CONSTANT, NAMED_CONSTANT);
+                    expectOperand = false;
+                } else if (call) {
+                    throw new ExpressionParseException("Неизвестная функция: " + token, end,
+                            ErrorType.UNKNOWN_IDENTIFIER);
+                } else if (ExpressionEvaluator.isValidVariableName(token)) {
+                    emitVariable(token);
+                    expectOperand = false;
+                } else {
+                    throw new ExpressionParseException("Неизвестный идентификатор: " + token, i,
+                            ErrorType.UNKNOWN_IDENTIFIER);
+                }
+                i = end - 1;
+                continue;
+            }
+
+            // Обработка скобок
+            if (c == '(') {
+                if (!expectOperand) {
+                    throw new ExpressionParseException("Ожидается оператор", i);
+                }
+                pushOperator(LEFT_PAREN, i, null);
+                argumentCounts[operatorCount - 1] = 1;
+                expectOperand = true;
+                continue;
+            }
+
+            // Разделитель аргументов функции
+            if (c == ',') {
+                if (expectOperand) {
+                    throw new ExpressionParseException("Ожидается операнд", i);
+                }
+                popUntilParen(i);
+                if (operatorCount < 2 || operatorFunctions[operatorCount - 2] == null) {
+                    throw new ExpressionParseException("Запятая вне списка аргументов функции", i);
+                }
+                argumentCounts[operatorCount - 1]++;
+                expectOperand = true;
+                continue;
+            }
+
+            if (c == ')') {
+                if (expectOperand) {
+                    throw new ExpressionParseException("Ожидается операнд", i);
+                }
+                popUntilParen(i);
+                int arguments = argumentCounts[--operatorCount]; // Удаляем "("
+
+                // Если на вершине стека функция - переносим в выход
+                if (operatorCount > 0 && operatorFunctions[operatorCount - 1] != null) {
+                    FunctionDefinition function = operatorFunctions[--operatorCount];
+                    if (arguments != function.arity) {
+                        throw new ExpressionParseException("Функция " + function.name + " ожидает аргументов: "
+                                + function.arity + ", передано: " + arguments, i);
+                    }
+                    emitFunction(function, i);
+                }
+                expectOperand = false;
+                continue;
+            }
+
+            // Обработка операторов
+            if (ExpressionEvaluator.isOperator(c)) {
+                int op = OpCode.ofOperator(c);
+                // Обработка унарного минуса
+                if (op == OpCode.SUB && expectOperand) {
+                    emitLiteral(0.0, UNARY_ZERO, UNARY_ZERO);
+                    pushOperator(OpCode.SUB, i, null);
+                    continue;
+                }
+                if (expectOperand) {
+                    throw new ExpressionParseException("Ожидается операнд", i);
+                }
+
+                // Для оператора ^ правоассоциативность
+                int precedence = precedence(op);
+                while (operatorCount > 0 && operators[operatorCount - 1] != LEFT_PAREN &&
+                        (precedence < precedence(operators[operatorCount - 1]) ||
+                                (op != OpCode.POW && precedence == precedence(operators[operatorCount - 1])))) {
+                    emitOperator(operators[--operatorCount], i);
+                }
+                pushOperator(op, i, null);
+                expectOperand = true;
+                continue;
+            }
+
+            throw new ExpressionParseException("Недопустимый символ: " + c, i);
+        }
+
+        if (expectOperand && size == 0) {
+            throw new ExpressionParseException("Пустое выражение", length);
+        }
+        if (expectOperand) {
+            throw new ExpressionParseException("Неполное выражение", length);
+        }
+
+        while (operatorCount > 0) {
+            operatorCount--;
+            if (operators[operatorCount] == LEFT_PAREN) {
+                throw new ExpressionParseException("Несогласованные скобки", operatorPositions[operatorCount],
+                        ErrorType.UNBALANCED_PARENTHESES);
+            }
+            emitOperator(operators[operatorCount], length);
+        }
+        return this;
+    }
+
+    /**
+     * Создает скомпилированное выражение из разобранной программы
+     * @param source исходный текст выражения
+     * @return скомпилированное выражение
+     */
+    CompiledExpression toCompiledExpression(String source) {
+        return new CompiledExpression(source, Arrays.copyOf(opcodes, size), Arrays.copyOf(operands, size),
+                Arrays.copyOf(literals, literalCount), variables.toArray(new String[0]),
+                calls.toArray(new FunctionDefinition[0]), maxDepth);
+    }
+
+    /**
+     * Возвращает разобранную программу в виде токенов постфиксной записи.
+     * Числа записываются так же, как в исходном тексте, константы — десятичной записью значения,
+     * переменные — с префиксом "VAR:".
+     * @return массив токенов в постфиксной форме
+     */
+    String[] toPostfix() {
+        String[] tokens = new String[size];
+        for (int i = 0; i < size; i++) {
+            switch (opcodes[i]) {
+                case OpCode.CONST:
+                    if (tokenStarts[i] >= 0) {
+                        tokens[i] = text.subSequence(tokenStarts[i], tokenEnds[i]).toString();
+                    } else if (tokenStarts[i] == UNARY_ZERO) {
+                        tokens[i] = "0";
+                    } else {
+                        tokens[i] = Double.toString(literals[operands[i]]);
+                    }
+                    break;
+                case OpCode.VAR:
+                    tokens[i] = "VAR:" + variables.get(operands[i]);
+                    break;
+                case OpCode.CALL:
+                    tokens[i] = calls.get(operands[i]).name;
+                    break;
+                default:
+                    tokens[i] = OpCode.name(opcodes[i]);
+                    break;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Разбирает число из диапазона [start, end) без создания строки.
+     * Если мантисса помещается в 53 бита, а дробных цифр не больше 22, значение получается
+     * одним делением точных величин и потому округлено корректно; иначе используется
+     * {@link Double#parseDouble(String)}.
+     */
+    private double parseNumber(int start, int end) throws ExpressionParseException {
+        long mantissa = 0;
+        int fractionDigits = 0;
+        int digits = 0;
+        boolean dot = false;
+        boolean exact = true;
+
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                if (dot) {
+                    throw invalidNumber(start, end);
+                }
+                dot = true;
+            } else if (c >= '0' && c <= '9') {
+                digits++;
+                if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (dot) fractionDigits++;
+                } else {
+                    exact = false;
+                }
+            } else {
+                exact = false;
+            }
+        }
+        if (digits == 0) {
+            throw invalidNumber(start, end);
+        }
+        if (exact && fractionDigits < POWERS_OF_TEN.length) {
+            return mantissa / POWERS_OF_TEN[fractionDigits];
+        }
+        try {
+            return Double.parseDouble(text.subSequence(start, end).toString());
+        } catch (NumberFormatException e) {
+            throw invalidNumber(start, end);
+        }
+    }
+
+    private ExpressionParseException invalidNumber(int start, int end) {
+        return new ExpressionParseException("Недопустимое число: " + text.subSequence(start, end), start);
+    }
+
+    private static int precedence(int op) {
+        return ExpressionEvaluator.precedence(OpCode.name(op).charAt(0));
+    }
+
+    private static boolean isBlank(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Проверяет, начинается ли после позиции (и пробелов) операнд: число, имя или скобка
+     */
+    private static boolean startsOperand(CharSequence text, int from) {
+        int i = from;
+        while (i < text.length() && text.charAt(i) == ' ') {
+            i++;
+        }
+        if (i == text.length()) {
+            return false;
+        }
+        char c = text.charAt(i);
+        return c == '(' || ExpressionEvaluator.isDigitOrDot(c) || ExpressionEvaluator.isLetter(c);
+    }
+
+    private void pushOperator(int op, int position, FunctionDefinition function) {
+        if (operatorCount == operators.length) {
+            operators = Arrays.copyOf(operators, operatorCount * 2);
+            operatorPositions = Arrays.copyOf(operatorPositions, operatorCount * 2);
+            operatorFunctions = Arrays.copyOf(operatorFunctions, operatorCount * 2);
+            argumentCounts = Arrays.copyOf(argumentCounts, operatorCount * 2);
+        }
+        operators[operatorCount] = op;
+        operatorPositions[operatorCount] = position;
+        operatorFunctions[operatorCount] = function;
+        operatorCount++;
+    }
+
+    /**
+     * Переносит в выход операторы до ближайшей открывающей скобки, оставляя ее на стеке
+     */
+    private void popUntilParen(int position) throws ExpressionParseException {
+        while (operatorCount > 0 && operators[operatorCount - 1] != LEFT_PAREN) {
+            emitOperator(operators[--operatorCount], position);
+        }
+        if (operatorCount == 0) {
+            throw new ExpressionParseException("Несогласованные скобки", position,
+                    ErrorType.UNBALANCED_PARENTHESES);
+        }
+    }
+
+    private void emitLiteral(double value, int start, int end) {
+        if (literalCount == literals.length) {
+            literals = Arrays.copyOf(literals, literalCount * 2);
+        }
+        literals[literalCount] = value;
+        emit(OpCode.CONST, literalCount++, start, end);
+    }
+
+    private void emitVariable(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            slot = variables.size();
+            slots.put(name, slot);
+            variables.add(name);
+        }
+        emit(OpCode.VAR, slot, NAMED_CONSTANT, NAMED_CONSTANT);
+    }
+
+    private void emitOperator(int op, int position) throws ExpressionParseException {
+        if (depth < OpCode.arity(op)) {
+            throw new ExpressionParseException("Некорректное выражение: недостаточно операндов", position);
+        }
+        emit(op, 0, NAMED_CONSTANT, NAMED_CONSTANT);
+    }
+
+    private void emitFunction(FunctionDefinition function, int position) throws ExpressionParseException {
+        if (function.isBuiltin()) {
+            emitOperator(function.opcode, position);
+            return;
+        }
+        int index = calls.indexOf(function);
+        if (index < 0) {
+            index = calls.size();
+            calls.add(function);
+        }
+        emit(OpCode.CALL, index, NAMED_CONSTANT, NAMED_CONSTANT);
+    }
+
+    private void emit(int op, int operand, int start, int end) {
+        if (size == opcodes.length) {
+            int capacity = size * 2;
+            opcodes = Arrays.copyOf(opcodes, capacity);
+            operands = Arrays.copyOf(operands, capacity);
+            tokenStarts = Arrays.copyOf(tokenStarts, capacity);
+            tokenEnds = Arrays.copyOf(tokenEnds, capacity);
+        }
+        opcodes[size] = op;
+        operands[size] = operand;
+        tokenStarts[size] = start;
+        tokenEnds[size] = end;
+        size++;
+
+        depth += 1 - (op == OpCode.CALL ? calls.get(operand).arity : OpCode.arity(op));
+        maxDepth = Math.max(maxDepth, depth);
+    }
+}
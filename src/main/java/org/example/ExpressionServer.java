@@ -0,0 +1,215 @@
+package org.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * HTTP-сервер вычисления выражений на {@link HttpServer} из JDK.
+ * Каждый запрос обрабатывается в отдельном виртуальном потоке, поэтому тысячи одновременных
+ * соединений не требуют тысяч потоков операционной системы. Скомпилированные выражения
+ * хранятся в {@link ExpressionCache} и переиспользуются между запросами.
+ *
+ * Протокол (POST /evaluate, текст в UTF-8): первая строка — выражение, каждая следующая
+ * непустая строка — набор значений переменных вида {@code x=1, y=2}. Ответ содержит по одной
+ * строке на каждый набор: результат или {@code ERROR сообщение}. Если наборов нет,
+ * выражение вычисляется один раз без переменных. Некорректное выражение дает ответ 400.
+ */
+public final class ExpressionServer {
+    /** Порт по умолчанию */
+    public static final int DEFAULT_PORT = 8080;
+    /** Размер кэша выражений по умолчанию */
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+    /** Наибольший размер тела запроса в байтах */
+    static final int MAX_REQUEST_SIZE = 16 << 20;
+
+    private static final int BACKLOG = 8192;
+    private static final Pattern BINDING_SEPARATOR = Pattern.compile("[,;\\s]+");
+
+    static {
+        // Ответ HttpServer отправляет двумя записями (заголовки и тело); без TCP_NODELAY
+        // алгоритм Нейгла вместе с отложенным ACK клиента добавляет к каждому запросу около 40 мс.
+        // Свойство читается при первом создании HttpServer, явно заданное значение не меняется.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ExpressionCache cache;
+
+    /**
+     * Создает сервер; прием соединений начинается после {@link #start()}
+     * @param address адрес и порт (порт 0 — любой свободный)
+     * @param cacheSize наибольшее количество скомпилированных выражений в кэше
+     * @throws IOException если не удалось открыть порт
+     */
+    public ExpressionServer(InetSocketAddress address, int cacheSize) throws IOException {
+        this.cache = new ExpressionCache(cacheSize);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(address, BACKLOG);
+        server.setExecutor(executor);
+        server.createContext("/evaluate", this::handle);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Locale.setDefault(Locale.US);
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        ExpressionServer server = new ExpressionServer(new InetSocketAddress(port), DEFAULT_CACHE_SIZE);
+        server.start();
+        System.out.println("Сервер вычисления выражений запущен на порту " + server.getPort());
+    }
+
+    /**
+     * Начинает прием соединений
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Останавливает сервер, дожидаясь завершения текущих запросов не дольше заданного времени
+     * @param delaySeconds наибольшее время ожидания в секундах
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * Возвращает порт, на котором сервер принимает соединения
+     * @return номер порта
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Возвращает кэш скомпилированных выражений сервера
+     * @return кэш выражений
+     */
+    public ExpressionCache getCache() {
+        return cache;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "Ожидается метод POST\n");
+                return;
+            }
+            byte[] body = readBody(exchange.getRequestBody());
+            if (body == null) {
+                respond(exchange, 413, "Слишком большой запрос\n");
+                return;
+            }
+            String response;
+            try {
+                response = evaluate(new String(body, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                respond(exchange, 400, "ERROR " + e.getMessage() + "\n");
+                return;
+            }
+            respond(exchange, 200, response);
+        }
+    }
+
+    private static byte[] readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_REQUEST_SIZE);
+        if (in.read() >= 0) {
+            return null;
+        }
+        return body;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Выполняет запрос протокола
+     * @param request текст запроса: выражение и наборы значений переменных по строкам
+     * @return текст ответа, по строке на каждый набор
+     * @throws IllegalArgumentException если выражение некорректно
+     */
+    String evaluate(String request) throws IllegalArgumentException {
+        int lineEnd = request.indexOf('\n');
+        String expression = (lineEnd < 0 ? request : request.substring(0, lineEnd)).trim();
+        CompiledExpression compiled = cache.get(expression);
+
+        StringBuilder response = new StringBuilder();
+        double[] slots = new double[compiled.getVariableCount()];
+        boolean[] bound = new boolean[slots.length];
+        boolean any = false;
+        int start = lineEnd < 0 ? request.length() : lineEnd + 1;
+        while (start < request.length()) {
+            int end = request.indexOf('\n', start);
+            if (end < 0) {
+                end = request.length();
+            }
+            String line = request.substring(start, end).trim();
+            start = end + 1;
+            if (line.isEmpty()) {
+                continue;
+            }
+            any = true;
+            evaluateLine(compiled, line, slots, bound, response);
+        }
+        if (!any) {
+            evaluateLine(compiled, "", slots, bound, response);
+        }
+        return response.toString();
+    }
+
+    private static void evaluateLine(CompiledExpression compiled, String line, double[] slots, boolean[] bound,
+                                     StringBuilder response) {
+        try {
+            Arrays.fill(bound, false);
+            for (String binding : BINDING_SEPARATOR.split(line)) {
+                if (binding.isEmpty()) {
+                    continue;
+                }
+                int eq = binding.indexOf('=');
+                if (eq <= 0) {
+                    throw new IllegalArgumentException("Ожидается имя=значение: " + binding);
+                }
+                int slot = compiled.slotOf(binding.substring(0, eq));
+                if (slot < 0) {
+                    continue; // Лишние переменные игнорируются так же, как в evaluate(Map)
+                }
+                try {
+                    slots[slot] = Double.parseDouble(binding.substring(eq + 1));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Недопустимое число: " + binding.substring(eq + 1));
+                }
+                bound[slot] = true;
+            }
+            for (int slot = 0; slot < bound.length; slot++) {
+                if (!bound[slot]) {
+                    throw new IllegalArgumentException("Не задано значение переменной: "
+                            + compiled.getVariableNames().get(slot));
+                }
+            }
+            response.append(compiled.evaluate(slots)).append('\n');
+        } catch (IllegalArgumentException e) {
+            response.append("ERROR ").append(e.getMessage()).append('\n');
+        }
+    }
+}
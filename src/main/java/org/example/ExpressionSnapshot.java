@@ -0,0 +1,283 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Двоичный снимок набора скомпилированных выражений для быстрого старта: выражения загружаются
+ * из файла, отображенного в память, без повторного разбора и оптимизации.
+ *
+ * Формат (little-endian):
+ * <pre>
+ * заголовок:  "EXPR" (4 байта), версия формата (int), количество выражений (int)
+ * выражение:  исходный текст (строка)
+ *             n (int), коды инструкций (n байт), операнды инструкций (n int)
+ *             количество литералов (int), литералы (double)
+ *             количество переменных (int), имена переменных в порядке слотов (строки)
+ *             количество функций (int), для каждой — имя (строка) и количество аргументов (int)
+ *             политика точности (1 байт: порядковый номер {@link PrecisionPolicy})
+ * строка:     длина в байтах (int), UTF-8
+ * </pre>
+ * Пользовательские функции хранятся по имени и при загрузке разрешаются по набору функций,
+ * поэтому снимок не зависит от их реализации. Программа каждого выражения проверяется при загрузке:
+ * поврежденный файл приводит к {@link IllegalArgumentException}, а не к ошибке при вычислении.
+ */
+public final class ExpressionSnapshot {
+    /** Версия формата; увеличивается при любом несовместимом изменении */
+    static final int VERSION = 2;
+
+    private static final byte[] MAGIC = {'E', 'X', 'P', 'R'};
+    private static final int HEADER_SIZE = MAGIC.length + 2 * Integer.BYTES;
+    private static final PrecisionPolicy[] PRECISIONS = PrecisionPolicy.values();
+
+    private ExpressionSnapshot() {
+    }
+
+    /**
+     * Записывает выражения в файл (существующий файл перезаписывается)
+     * @param path путь к файлу
+     * @param expressions скомпилированные выражения
+     * @throws IOException при ошибке записи
+     */
+    public static void write(Path path, Collection<CompiledExpression> expressions) throws IOException {
+        List<byte[][]> strings = new ArrayList<>(expressions.size());
+        long size = HEADER_SIZE;
+        for (CompiledExpression expression : expressions) {
+            byte[][] encoded = encodeStrings(expression);
+            strings.add(encoded);
+            size += sizeOf(expression, encoded);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.order(ByteOrder.LITTLE_ENDIAN);
+            out.put(MAGIC).putInt(VERSION).putInt(expressions.size());
+            int index = 0;
+            for (CompiledExpression expression : expressions) {
+                writeExpression(out, expression, strings.get(index++));
+            }
+            out.force();
+        }
+    }
+
+    /**
+     * Загружает выражения со встроенными функциями
+     * @param path путь к файлу
+     * @return выражения в порядке записи
+     * @throws IOException при ошибке чтения
+     * @throws IllegalArgumentException если файл не является снимком, записан другой версией формата или поврежден
+     */
+    public static List<CompiledExpression> read(Path path) throws IOException {
+        return read(path, FunctionRegistry.DEFAULT);
+    }
+
+    /**
+     * Загружает выражения
+     * @param path путь к файлу
+     * @param functions набор функций, по которому разрешаются пользовательские функции
+     * @return выражения в порядке записи
+     * @throws IOException при ошибке чтения
+     * @throws IllegalArgumentException если файл не является снимком, записан другой версией формата, поврежден
+     *         или использует функцию, которой нет в наборе
+     */
+    public static List<CompiledExpression> read(Path path, FunctionRegistry functions) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            in.order(ByteOrder.LITTLE_ENDIAN);
+            return read(in, functions);
+        }
+    }
+
+    private static List<CompiledExpression> read(ByteBuffer in, FunctionRegistry functions) {
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            in.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IllegalArgumentException("Файл не является снимком выражений");
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Неподдерживаемая версия снимка: " + version + ", ожидается " + VERSION);
+            }
+            int count = count(in, 1);
+            List<CompiledExpression> expressions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                expressions.add(readExpression(in, functions));
+            }
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException("Лишние данные в конце снимка");
+            }
+            return expressions;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Снимок поврежден: файл обрезан");
+        }
+    }
+
+    private static byte[][] encodeStrings(CompiledExpression expression) {
+        List<String> names = expression.getVariableNames();
+        FunctionDefinition[] functions = expression.functions();
+        byte[][] encoded = new byte[1 + names.size() + functions.length][];
+        encoded[0] = expression.getSource().getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < names.size(); i++) {
+            encoded[1 + i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+        }
+        for (int i = 0; i < functions.length; i++) {
+            encoded[1 + names.size() + i] = functions[i].name.getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    private static long sizeOf(CompiledExpression expression, byte[][] strings) {
+        long size = 4L * Integer.BYTES;
+        size += (long) expression.opcodes().length * (1 + Integer.BYTES);
+        size += (long) expression.literals().length * Double.BYTES;
+        size += (long) expression.functions().length * Integer.BYTES;
+        size += 1;
+        for (byte[] string : strings) {
+            size += Integer.BYTES + string.length;
+        }
+        return size;
+    }
+
+    private static void writeExpression(ByteBuffer out, CompiledExpression expression, byte[][] strings) {
+        int[] opcodes = expression.opcodes();
+        int[] operands = expression.operands();
+        double[] literals = expression.literals();
+        FunctionDefinition[] functions = expression.functions();
+        int variables = expression.getVariableCount();
+
+        putString(out, strings[0]);
+        out.putInt(opcodes.length);
+        for (int op : opcodes) {
+            out.put((byte) op);
+        }
+        for (int operand : operands) {
+            out.putInt(operand);
+        }
+        out.putInt(literals.length);
+        for (double literal : literals) {
+            out.putDouble(literal);
+        }
+        out.putInt(variables);
+        for (int i = 0; i < variables; i++) {
+            putString(out, strings[1 + i]);
+        }
+        out.putInt(functions.length);
+        for (int i = 0; i < functions.length; i++) {
+            putString(out, strings[1 + variables + i]);
+            out.putInt(functions[i].arity);
+        }
+        out.put((byte) expression.getPrecision().ordinal());
+    }
+
+    private static CompiledExpression readExpression(ByteBuffer in, FunctionRegistry registry) {
+        String source = getString(in);
+        int length = count(in, 1 + Integer.BYTES);
+        byte[] codes = new byte[length];
+        in.get(codes);
+        int[] opcodes = new int[length];
+        for (int pc = 0; pc < length; pc++) {
+            opcodes[pc] = codes[pc];
+        }
+        // Массивы чисел читаются целиком через представления буфера, без поэлементных вызовов
+        int[] operands = new int[length];
+        in.asIntBuffer().get(operands);
+        in.position(in.position() + length * Integer.BYTES);
+        double[] literals = new double[count(in, Double.BYTES)];
+        in.asDoubleBuffer().get(literals);
+        in.position(in.position() + literals.length * Double.BYTES);
+        String[] variables = new String[count(in, Integer.BYTES)];
+        for (int i = 0; i < variables.length; i++) {
+            variables[i] = getString(in);
+        }
+        FunctionDefinition[] functions = new FunctionDefinition[count(in, 2 * Integer.BYTES)];
+        for (int i = 0; i < functions.length; i++) {
+            String name = getString(in);
+            int arity = in.getInt();
+            FunctionDefinition function = registry.lookup(name);
+            if (function == null || function.isBuiltin() || function.arity != arity) {
+                throw new IllegalArgumentException("Функция " + name + "/" + arity + " не найдена в наборе функций");
+            }
+            functions[i] = function;
+        }
+        int precision = in.get();
+        if (precision < 0 || precision >= PRECISIONS.length) {
+            throw corrupted(source);
+        }
+        int maxDepth = verify(source, opcodes, operands, literals.length, variables.length, functions);
+        return new CompiledExpression(source, opcodes, operands, literals, variables, functions, maxDepth,
+                PRECISIONS[precision]);
+    }
+
+    /**
+     * Проверяет программу выражения: коды инструкций, диапазоны операндов и баланс стека
+     * @return максимальная глубина стека
+     */
+    private static int verify(String source, int[] opcodes, int[] operands, int literals, int variables,
+                              FunctionDefinition[] functions) {
+        int depth = 0;
+        int maxDepth = 0;
+        for (int pc = 0; pc < opcodes.length; pc++) {
+            int op = opcodes[pc];
+            int operand = operands[pc];
+            int arity;
+            if (op == OpCode.CONST || op == OpCode.VAR || op == OpCode.CALL) {
+                int limit = op == OpCode.CONST ? literals : op == OpCode.VAR ? variables : functions.length;
+                if (operand < 0 || operand >= limit) {
+                    throw corrupted(source);
+                }
+                arity = op == OpCode.CALL ? functions[operand].arity : 0;
+            } else if (op > OpCode.VAR && op < OpCode.CALL) {
+                arity = OpCode.arity(op);
+            } else {
+                throw corrupted(source);
+            }
+            if (depth < arity) {
+                throw corrupted(source);
+            }
+            depth += 1 - arity;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        if (depth != 1) {
+            throw corrupted(source);
+        }
+        return maxDepth;
+    }
+
+    private static IllegalArgumentException corrupted(String source) {
+        return new IllegalArgumentException("Снимок поврежден: некорректная программа выражения " + source);
+    }
+
+    /**
+     * Читает количество элементов и проверяет, что они помещаются в остаток файла
+     */
+    private static int count(ByteBuffer in, int elementSize) {
+        int count = in.getInt();
+        if (count < 0 || (long) count * elementSize > in.remaining()) {
+            throw new IllegalArgumentException("Снимок поврежден: некорректная длина " + count);
+        }
+        return count;
+    }
+
+    private static void putString(ByteBuffer out, byte[] bytes) {
+        out.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[count(in, 1)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,229 @@
+package org.example;
+
+/**
+ * Быстрые приближения элементарных функций для режима {@link PrecisionPolicy#FAST}.
+ * Аргумент приводится к короткому отрезку, на котором функция вычисляется усеченным рядом Тейлора;
+ * вне рабочего диапазона (NaN, бесконечности, очень большие аргументы) вызывается функция {@link Math}.
+ *
+ * Погрешность относительно {@link Math} (проверяется в {@code FastMathTest}):
+ * <pre>
+ * ln, log10, hypot               относительная не более 1e-14
+ * sin, cos, tan                  относительная не более 1e-14 при |f(x)| >= 1e-3,
+ *                                абсолютная не более 1e-17 вблизи нулей функции
+ * x^n, n целое, 1 <= |n| <= 8    относительная не более 2e-15 для нормализованных результатов
+ * </pre>
+ * exp, asin, acos и atan не приближаются: встроенные реализации JDK для них не медленнее ряда.
+ * Эти и остальные функции (sqrt, abs, min, max, clamp) совпадают с обычным режимом побитово.
+ */
+final class FastMath {
+    /** Наибольший по модулю целый показатель степени, которая вычисляется умножением */
+    static final int MAX_INTEGER_EXPONENT = 8;
+
+    /** Граница аргумента sin, cos и tan: до нее приведение по модулю pi/2 выполняется без потери точности */
+    private static final double TRIG_LIMIT = 1e5;
+    /** Ниже этой границы sin(x) и tan(x) округляются к x; так сохраняется и знак нуля */
+    private static final double TINY = 0x1p-27;
+    private static final double TWO_OVER_PI = 0.636619772367581343076;
+    // pi/2 = PIO2_1 + PIO2_2 + PIO2_3 с точностью 1e-37; у первых двух частей 33 значащих бита,
+    // поэтому n * PIO2_1 и n * PIO2_2 точны, а остаток PIO2_3 хранится со всеми 53 битами
+    private static final double PIO2_1 = 1.57079632673412561417e+00;
+    private static final double PIO2_2 = 6.07710050630396597660e-11;
+    private static final double PIO2_3 = 2.02226624879595063154e-21;
+
+    // ln 2 = LN2_HI + LN2_LO; у LN2_HI 32 младших бита нулевые, поэтому e * LN2_HI точно
+    private static final double LN2_HI = 6.93147180369123816490e-01;
+    private static final double LN2_LO = 1.90821492927058770002e-10;
+    private static final double INV_LN10 = 0.4342944819032518;
+    private static final double SQRT2 = 1.4142135623730951;
+
+    private FastMath() {
+    }
+
+    /**
+     * Вычисляет встроенную функцию одного аргумента
+     * @param op код функции
+     * @param arg аргумент
+     * @return приближенное значение функции
+     * @throws IllegalArgumentException если аргумент вне области определения
+     */
+    static double applyUnary(int op, double arg) {
+        switch (op) {
+            case OpCode.SIN: return sin(arg);
+            case OpCode.COS: return cos(arg);
+            case OpCode.TAN: return tan(arg);
+            case OpCode.LOG: return log10(arg);
+            case OpCode.LN: return ln(arg);
+            default: return OpCode.applyUnary(op, arg);
+        }
+    }
+
+    /**
+     * Проверяет, что функция имеет быстрое приближение
+     * @param op код инструкции
+     * @return true для инструкций, результат которых в режиме FAST отличается от обычного
+     */
+    static boolean isApproximated(int op) {
+        switch (op) {
+            case OpCode.POW:
+            case OpCode.SIN:
+            case OpCode.COS:
+            case OpCode.TAN:
+            case OpCode.LOG:
+            case OpCode.LN:
+            case OpCode.HYPOT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Возводит в степень; целые показатели из [-8, 8] обрабатываются последовательным умножением
+     * слева направо, остальные передаются {@link Math#pow}
+     */
+    static double pow(double base, double exponent) {
+        int n = (int) exponent;
+        if (n != exponent || n == 0 || n > MAX_INTEGER_EXPONENT || n < -MAX_INTEGER_EXPONENT) {
+            return Math.pow(base, exponent);
+        }
+        int count = Math.abs(n);
+        double result = base;
+        for (int i = 1; i < count; i++) {
+            result *= base;
+        }
+        return n > 0 ? result : 1 / result;
+    }
+
+    // Логарифмы проверяют область определения так же, как одноименные методы OpCode
+
+    static double log10(double arg) {
+        if (arg <= 0) throw EvaluationStatus.exception(EvaluationStatus.NON_POSITIVE_LOG);
+        return log(arg) * INV_LN10;
+    }
+
+    static double ln(double arg) {
+        if (arg <= 0) throw EvaluationStatus.exception(EvaluationStatus.NON_POSITIVE_LOG);
+        return log(arg);
+    }
+
+    static double log10(double arg, int[] status) {
+        if (arg <= 0) return OpCode.fail(status, EvaluationStatus.NON_POSITIVE_LOG);
+        return log(arg) * INV_LN10;
+    }
+
+    static double ln(double arg, int[] status) {
+        if (arg <= 0) return OpCode.fail(status, EvaluationStatus.NON_POSITIVE_LOG);
+        return log(arg);
+    }
+
+    private static double log(double x) {
+        if (!(x >= Double.MIN_NORMAL && x < Double.POSITIVE_INFINITY)) {
+            return Math.log(x);
+        }
+        // x = 2^e m, m из [sqrt(1/2), sqrt(2)); ln m = 2 atanh(s), s = (m - 1) / (m + 1), |s| < 0.172
+        long bits = Double.doubleToRawLongBits(x);
+        int e = (int) (bits >>> 52) - 1023;
+        double m = Double.longBitsToDouble(bits & 0x000fffffffffffffL | 0x3ff0000000000000L);
+        if (m > SQRT2) {
+            m *= 0.5;
+            e++;
+        }
+        double f = m - 1;
+        double s = f / (m + 1);
+        double z = s * s;
+        double p = 1.0 / 17;
+        p = p * z + 1.0 / 15;
+        p = p * z + 1.0 / 13;
+        p = p * z + 1.0 / 11;
+        p = p * z + 1.0 / 9;
+        p = p * z + 1.0 / 7;
+        p = p * z + 1.0 / 5;
+        p = p * z + 1.0 / 3;
+        // ln m = 2s + 2s z p и 2s = f - s f, поэтому ln m = f - s (f - 2 z p): главный член f точен
+        double lnm = f - s * (f - 2 * z * p);
+        return e * LN2_HI + (lnm + e * LN2_LO);
+    }
+
+    static double sin(double x) {
+        if (!(Math.abs(x) <= TRIG_LIMIT)) {
+            return Math.sin(x);
+        }
+        if (Math.abs(x) < TINY) {
+            return x;
+        }
+        double n = Math.rint(x * TWO_OVER_PI);
+        double r = reduce(x, n);
+        switch ((int) n & 3) {
+            case 0: return sinKernel(r);
+            case 1: return cosKernel(r);
+            case 2: return -sinKernel(r);
+            default: return -cosKernel(r);
+        }
+    }
+
+    static double cos(double x) {
+        if (!(Math.abs(x) <= TRIG_LIMIT)) {
+            return Math.cos(x);
+        }
+        double n = Math.rint(x * TWO_OVER_PI);
+        double r = reduce(x, n);
+        switch ((int) n & 3) {
+            case 0: return cosKernel(r);
+            case 1: return -sinKernel(r);
+            case 2: return -cosKernel(r);
+            default: return sinKernel(r);
+        }
+    }
+
+    static double tan(double x) {
+        if (!(Math.abs(x) <= TRIG_LIMIT)) {
+            return Math.tan(x);
+        }
+        if (Math.abs(x) < TINY) {
+            return x;
+        }
+        double n = Math.rint(x * TWO_OVER_PI);
+        double r = reduce(x, n);
+        return ((int) n & 1) == 0 ? sinKernel(r) / cosKernel(r) : -cosKernel(r) / sinKernel(r);
+    }
+
+    /** r = x - n pi/2; все вычитания, кроме последнего, точны */
+    private static double reduce(double x, double n) {
+        return ((x - n * PIO2_1) - n * PIO2_2) - n * PIO2_3;
+    }
+
+    /** sin(r) при |r| <= pi/4: ряд до r^15 */
+    private static double sinKernel(double r) {
+        double z = r * r;
+        double p = -1.0 / 1307674368000L;
+        p = p * z + 1.0 / 6227020800L;
+        p = p * z - 1.0 / 39916800;
+        p = p * z + 1.0 / 362880;
+        p = p * z - 1.0 / 5040;
+        p = p * z + 1.0 / 120;
+        p = p * z - 1.0 / 6;
+        return r + r * z * p;
+    }
+
+    /** cos(r) при |r| <= pi/4: ряд до r^16 */
+    private static double cosKernel(double r) {
+        double z = r * r;
+        double p = 1.0 / 20922789888000L;
+        p = p * z - 1.0 / 87178291200L;
+        p = p * z + 1.0 / 479001600;
+        p = p * z - 1.0 / 3628800;
+        p = p * z + 1.0 / 40320;
+        p = p * z - 1.0 / 720;
+        p = p * z + 1.0 / 24;
+        return 1 - z * (0.5 - z * p);
+    }
+
+    static double hypot(double x, double y) {
+        double sum = x * x + y * y;
+        // Вне этого диапазона квадраты теряют точность или переполняются
+        if (sum >= 0x1p-960 && sum <= 0x1p1000) {
+            return Math.sqrt(sum);
+        }
+        return Math.hypot(x, y);
+    }
+}
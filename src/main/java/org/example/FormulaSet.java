@@ -0,0 +1,504 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Набор формул, скомпилированных вместе в общий ациклический граф.
+ * Одинаковые подвыражения — как внутри одной формулы, так и в разных формулах — хранятся
+ * одним узлом (hash-consing по скомпилированной постфиксной программе), поэтому, например,
+ * {@code exp(-r*t)}, встречающийся в десятках формул, вычисляется один раз.
+ * Все формулы вычисляются за один проход по узлам графа; переменные имеют общие слоты.
+ * Узлы совпадают только при одинаковой структуре: {@code x*y} и {@code y*x} — разные узлы.
+ *
+ * Результат и ошибка каждой формулы совпадают с результатом {@link CompiledExpression#evaluate(double[])}:
+ * при нескольких ошибках в одной формуле сообщается та, что возникла бы первой при ее отдельном вычислении.
+ * Экземпляры неизменяемы и потокобезопасны.
+ */
+public final class FormulaSet {
+    private final String[] sources;
+    private final String[] variableNames;
+    private final Map<String, Integer> slots;
+
+    /** Коды инструкций узлов: сначала все листья (CONST и VAR), затем остальные узлы в топологическом порядке */
+    private final int[] ops;
+    /** Для VAR — номер слота, для операций — номер узла левого (или единственного) аргумента */
+    private final int[] left;
+    /** Номер узла правого аргумента бинарной операции или второго аргумента clamp */
+    private final int[] right;
+    /** Номер узла третьего аргумента clamp */
+    private final int[] third;
+    /** Значения узлов CONST; для остальных узлов не используется */
+    private final double[] constants;
+    /** Номер первого узла, не являющегося листом */
+    private final int firstOperation;
+    /** Номер узла-результата для каждой формулы */
+    private final int[] outputs;
+
+    /** Значения узлов, переиспользуемые в пределах потока; узлы CONST заполнены заранее */
+    private final ThreadLocal<double[]> values = new ThreadLocal<>();
+
+    private FormulaSet(String[] sources, String[] variableNames, Map<String, Integer> slots, int[] ops,
+                       int[] left, int[] right, int[] third, double[] constants, int firstOperation, int[] outputs) {
+        this.sources = sources;
+        this.variableNames = variableNames;
+        this.slots = slots;
+        this.ops = ops;
+        this.left = left;
+        this.right = right;
+        this.third = third;
+        this.constants = constants;
+        this.firstOperation = firstOperation;
+        this.outputs = outputs;
+    }
+
+    /**
+     * Компилирует набор формул
+     * @param expressions тексты формул
+     * @return скомпилированный набор
+     * @throws IllegalArgumentException если какая-либо формула некорректна
+     */
+    public static FormulaSet compile(String... expressions) throws IllegalArgumentException {
+        return compile(Arrays.asList(expressions));
+    }
+
+    /**
+     * Компилирует набор формул с константами и функциями вычислителя
+     * @param evaluator вычислитель; его политика точности не учитывается, набор всегда вычисляется в режиме
+     *                  {@link PrecisionPolicy#STRICT}
+     * @param expressions тексты формул
+     * @return скомпилированный набор
+     * @throws IllegalArgumentException если какая-либо формула некорректна
+     */
+    public static FormulaSet compile(Evaluator evaluator, String... expressions) throws IllegalArgumentException {
+        return compile(evaluator, Arrays.asList(expressions));
+    }
+
+    /**
+     * Компилирует набор формул
+     * @param expressions тексты формул
+     * @return скомпилированный набор
+     * @throws IllegalArgumentException если какая-либо формула некорректна
+     */
+    public static FormulaSet compile(List<String> expressions) throws IllegalArgumentException {
+        return compile(new Evaluator(), expressions);
+    }
+
+    /**
+     * Компилирует набор формул с константами и функциями вычислителя
+     * @param evaluator вычислитель; его политика точности не учитывается, набор всегда вычисляется в режиме
+     *                  {@link PrecisionPolicy#STRICT}
+     * @param expressions тексты формул
+     * @return скомпилированный набор
+     * @throws IllegalArgumentException если какая-либо формула некорректна
+     */
+    public static FormulaSet compile(Evaluator evaluator, List<String> expressions) throws IllegalArgumentException {
+        EvaluatorConfig config = evaluator.getConfig();
+        if (config.getPrecision() != PrecisionPolicy.STRICT) {
+            // В режиме FAST оптимизатор разворачивает степени в умножения, а граф вычисляет их точными функциями
+            evaluator = new Evaluator(config.toBuilder().precision(PrecisionPolicy.STRICT).cacheSize(0).build());
+        }
+        Builder builder = new Builder();
+        int[] outputs = new int[expressions.size()];
+        for (int i = 0; i < outputs.length; i++) {
+            outputs[i] = builder.add(evaluator.compile(expressions.get(i)));
+        }
+        return builder.build(expressions.toArray(new String[0]), outputs);
+    }
+
+    /**
+     * Возвращает количество формул
+     * @return количество формул в наборе
+     */
+    public int getFormulaCount() {
+        return sources.length;
+    }
+
+    /**
+     * Возвращает текст формулы
+     * @param index номер формулы
+     * @return исходный текст формулы
+     */
+    public String getSource(int index) {
+        return sources[index];
+    }
+
+    /**
+     * Возвращает имена переменных всех формул в порядке их слотов
+     * @return неизменяемый список имен переменных
+     */
+    public List<String> getVariableNames() {
+        return Collections.unmodifiableList(Arrays.asList(variableNames));
+    }
+
+    /**
+     * Возвращает количество слотов переменных
+     * @return количество различных переменных во всех формулах
+     */
+    public int getVariableCount() {
+        return variableNames.length;
+    }
+
+    /**
+     * Возвращает номер слота переменной
+     * @param name имя переменной
+     * @return номер слота или -1, если переменная ни в одной формуле не используется
+     */
+    public int slotOf(String name) {
+        Integer slot = slots.get(name);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Возвращает количество узлов общего графа
+     * @return количество различных подвыражений во всех формулах
+     */
+    public int getNodeCount() {
+        return ops.length;
+    }
+
+    int[] ops() {
+        return ops;
+    }
+
+    int[] left() {
+        return left;
+    }
+
+    int[] right() {
+        return right;
+    }
+
+    int[] third() {
+        return third;
+    }
+
+    double[] constants() {
+        return constants;
+    }
+
+    int firstOperation() {
+        return firstOperation;
+    }
+
+    int[] outputs() {
+        return outputs;
+    }
+
+    /**
+     * Вычисляет все формулы
+     * @param slots значения переменных; индекс совпадает с номером слота из {@link #slotOf(String)}
+     * @param out массив результатов, по одному на формулу
+     * @throws IllegalArgumentException если значений или места для результатов недостаточно,
+     * или при ошибке вычисления какой-либо формулы (сообщается ошибка формулы с наименьшим номером)
+     */
+    public void evaluate(double[] slots, double[] out) throws IllegalArgumentException {
+        checkArguments(slots, out);
+        double[] nodeValues = borrowValues();
+        try {
+            if (!compute(slots, nodeValues)) {
+                int[] errors = findErrors(nodeValues);
+                for (int output : outputs) {
+                    if (errors[output] != EvaluationStatus.OK) {
+                        throw EvaluationStatus.exception(errors[output]);
+                    }
+                }
+            }
+            for (int i = 0; i < outputs.length; i++) {
+                out[i] = nodeValues[outputs[i]];
+            }
+        } finally {
+            values.set(nodeValues);
+        }
+    }
+
+    /**
+     * Вычисляет все формулы, не прерываясь на ошибках: результат формулы, вычисление которой
+     * завершилось ошибкой, равен NaN, а сама формула отмечается в битовой карте ошибок
+     * @param slots значения переменных; индекс совпадает с номером слота из {@link #slotOf(String)}
+     * @param out массив результатов, по одному на формулу
+     * @param errors битовая карта ошибок (бит i соответствует формуле i) или null, если она не нужна
+     * @return количество формул, вычисление которых завершилось ошибкой
+     * @throws IllegalArgumentException если значений, места для результатов или битовой карты недостаточно
+     */
+    public int evaluate(double[] slots, double[] out, long[] errors) throws IllegalArgumentException {
+        checkArguments(slots, out);
+        if (errors != null && errors.length < BatchEvaluator.errorWords(outputs.length)) {
+            throw new IllegalArgumentException("Недостаточный размер битовой карты ошибок: " + errors.length);
+        }
+        double[] nodeValues = borrowValues();
+        try {
+            if (errors != null) {
+                Arrays.fill(errors, 0, BatchEvaluator.errorWords(outputs.length), 0);
+            }
+            if (compute(slots, nodeValues)) {
+                for (int i = 0; i < outputs.length; i++) {
+                    out[i] = nodeValues[outputs[i]];
+                }
+                return 0;
+            }
+
+            int[] nodeErrors = findErrors(nodeValues);
+            int failed = 0;
+            for (int i = 0; i < outputs.length; i++) {
+                if (nodeErrors[outputs[i]] != EvaluationStatus.OK) {
+                    out[i] = Double.NaN;
+                    if (errors != null) {
+                        errors[i >>> 6] |= 1L << i;
+                    }
+                    failed++;
+                } else {
+                    out[i] = nodeValues[outputs[i]];
+                }
+            }
+            return failed;
+        } finally {
+            values.set(nodeValues);
+        }
+    }
+
+    /**
+     * Вычисляет все формулы по карте значений переменных
+     * @param variables карта значений переменных
+     * @return результаты формул в порядке их номеров
+     * @throws IllegalArgumentException если значение какой-либо переменной не задано или при ошибке вычисления
+     */
+    public double[] evaluate(Map<String, Double> variables) throws IllegalArgumentException {
+        double[] slotValues = new double[variableNames.length];
+        for (int i = 0; i < variableNames.length; i++) {
+            Double value = variables.get(variableNames[i]);
+            if (value == null) {
+                throw new IllegalArgumentException("Не задано значение переменной: " + variableNames[i]);
+            }
+            slotValues[i] = value;
+        }
+        double[] out = new double[outputs.length];
+        evaluate(slotValues, out);
+        return out;
+    }
+
+    private void checkArguments(double[] slots, double[] out) {
+        if (slots.length < variableNames.length) {
+            throw new IllegalArgumentException("Ожидается значений переменных: " + variableNames.length);
+        }
+        if (out.length < outputs.length) {
+            throw new IllegalArgumentException("Ожидается места для результатов: " + outputs.length);
+        }
+    }
+
+    private double[] borrowValues() {
+        double[] nodeValues = values.get();
+        if (nodeValues == null) {
+            nodeValues = constants.clone();
+        }
+        // Пока массив занят, вложенное вычисление в этом же потоке получит собственный
+        values.set(null);
+        return nodeValues;
+    }
+
+    /**
+     * Вычисляет все узлы без выбрасывания исключений
+     * @return false, если хотя бы одна операция вышла за область определения
+     */
+    private boolean compute(double[] slots, double[] v) {
+        for (int i = 0; i < firstOperation; i++) {
+            if (ops[i] == OpCode.VAR) {
+                v[i] = slots[left[i]];
+            }
+        }
+
+        boolean valid = true;
+        for (int i = firstOperation; i < ops.length; i++) {
+            int op = ops[i];
+            double a = v[left[i]];
+            double b = OpCode.arity(op) >= 2 ? v[right[i]] : 0;
+            double c = op == OpCode.CLAMP ? v[third[i]] : 0;
+            // Значение узла с ошибкой не используется: findErrors определит, какие формулы она затронула
+            if (OpCode.check(op, a, b, c) == EvaluationStatus.OK) {
+                v[i] = OpCode.apply(op, a, b, c);
+            } else {
+                valid = false;
+                v[i] = Double.NaN;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Повторный проход после ошибки: для каждого узла определяет первую ошибку в порядке
+     * постфиксного вычисления его поддерева (сначала левый аргумент, затем правый, затем сама операция)
+     * @return коды ошибок {@link EvaluationStatus} по номерам узлов ({@link EvaluationStatus#OK}, если узел вычислен без ошибок)
+     */
+    private int[] findErrors(double[] v) {
+        int[] errors = new int[ops.length];
+        for (int i = firstOperation; i < ops.length; i++) {
+            int op = ops[i];
+            int error = errors[left[i]];
+            if (error == EvaluationStatus.OK && OpCode.arity(op) >= 2) {
+                error = errors[right[i]];
+            }
+            if (error == EvaluationStatus.OK && op == OpCode.CLAMP) {
+                error = errors[third[i]];
+            }
+            if (error == EvaluationStatus.OK) {
+                error = OpCode.check(op, v[left[i]], OpCode.arity(op) >= 2 ? v[right[i]] : 0,
+                        op == OpCode.CLAMP ? v[third[i]] : 0);
+            }
+            errors[i] = error;
+        }
+        return errors;
+    }
+
+    /**
+     * Строит общий граф, объединяя одинаковые узлы
+     */
+    private static final class Builder {
+        private final List<Vertex> nodes = new ArrayList<>();
+        private final Map<Vertex, Integer> index = new HashMap<>();
+        private final Map<String, Integer> slots = new HashMap<>();
+        private final List<String> variableNames = new ArrayList<>();
+
+        /**
+         * Добавляет выражение в граф
+         * @return номер узла-результата
+         */
+        int add(CompiledExpression expression) {
+            int[] opcodes = expression.opcodes();
+            int[] operands = expression.operands();
+            double[] literals = expression.literals();
+            List<String> names = expression.getVariableNames();
+            int[] stack = new int[expression.getMaxStackDepth()];
+            int sp = 0;
+
+            for (int pc = 0; pc < opcodes.length; pc++) {
+                int op = opcodes[pc];
+                if (op == OpCode.CONST) {
+                    stack[sp++] = intern(new Vertex(op, 0, 0, 0, Double.doubleToRawLongBits(literals[operands[pc]])));
+                } else if (op == OpCode.VAR) {
+                    stack[sp++] = intern(new Vertex(op, slotOf(names.get(operands[pc])), 0, 0, 0));
+                } else if (op == OpCode.CALL) {
+                    throw new IllegalArgumentException("Пользовательские функции в наборе формул не поддерживаются: "
+                            + expression.functions()[operands[pc]].name);
+                } else if (op == OpCode.CLAMP) {
+                    sp -= 2;
+                    stack[sp - 1] = intern(new Vertex(op, stack[sp - 1], stack[sp], stack[sp + 1], 0));
+                } else if (OpCode.isBinary(op)) {
+                    sp--;
+                    stack[sp - 1] = intern(new Vertex(op, stack[sp - 1], stack[sp], 0, 0));
+                } else {
+                    stack[sp - 1] = intern(new Vertex(op, stack[sp - 1], 0, 0, 0));
+                }
+            }
+            return stack[0];
+        }
+
+        private int slotOf(String name) {
+            Integer slot = slots.get(name);
+            if (slot == null) {
+                slot = variableNames.size();
+                slots.put(name, slot);
+                variableNames.add(name);
+            }
+            return slot;
+        }
+
+        private int intern(Vertex node) {
+            Integer existing = index.get(node);
+            if (existing != null) {
+                return existing;
+            }
+            nodes.add(node);
+            index.put(node, nodes.size() - 1);
+            return nodes.size() - 1;
+        }
+
+        /**
+         * Переупорядочивает узлы так, чтобы листья шли первыми; порядок добавления остальных
+         * узлов уже топологический, так как аргументы добавляются раньше операции
+         */
+        FormulaSet build(String[] sources, int[] outputs) {
+            int count = nodes.size();
+            int[] position = new int[count];
+            int next = 0;
+            for (int i = 0; i < count; i++) {
+                if (nodes.get(i).isLeaf()) {
+                    position[i] = next++;
+                }
+            }
+            int firstOperation = next;
+            for (int i = 0; i < count; i++) {
+                if (!nodes.get(i).isLeaf()) {
+                    position[i] = next++;
+                }
+            }
+
+            int[] ops = new int[count];
+            int[] left = new int[count];
+            int[] right = new int[count];
+            int[] third = new int[count];
+            double[] constants = new double[count];
+            for (int i = 0; i < count; i++) {
+                Vertex node = nodes.get(i);
+                int p = position[i];
+                ops[p] = node.op;
+                if (node.op == OpCode.CONST) {
+                    constants[p] = Double.longBitsToDouble(node.bits);
+                } else if (node.op == OpCode.VAR) {
+                    left[p] = node.left;
+                } else {
+                    left[p] = position[node.left];
+                    right[p] = OpCode.arity(node.op) >= 2 ? position[node.right] : 0;
+                    third[p] = node.op == OpCode.CLAMP ? position[node.third] : 0;
+                }
+            }
+            int[] outputNodes = new int[outputs.length];
+            for (int i = 0; i < outputs.length; i++) {
+                outputNodes[i] = position[outputs[i]];
+            }
+            return new FormulaSet(sources, variableNames.toArray(new String[0]), new HashMap<>(slots),
+                    ops, left, right, third, constants, firstOperation, outputNodes);
+        }
+    }
+
+    /**
+     * Вершина графа в момент построения; равенство вершин означает одинаковые подвыражения
+     */
+    private static final class Vertex {
+        final int op;
+        final int left;
+        final int right;
+        final int third;
+        final long bits;
+
+        Vertex(int op, int left, int right, int third, long bits) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+            this.third = third;
+            this.bits = bits;
+        }
+
+        boolean isLeaf() {
+            return op == OpCode.CONST || op == OpCode.VAR;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Vertex)) {
+                return false;
+            }
+            Vertex other = (Vertex) o;
+            return op == other.op && left == other.left && right == other.right && third == other.third
+                    && bits == other.bits;
+        }
+
+        @Override
+        public int hashCode() {
+            return (((op * 31 + left) * 31 + right) * 31 + third) * 31 + Long.hashCode(bits);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Прямой режим автоматического дифференцирования: вместе с каждым значением на стеке хранится
+ * вектор его производных по всем переменным (дуальные числа). Один проход по программе дает
+ * значение и весь градиент; стоимость пропорциональна длине программы, умноженной на число переменных,
+ * поэтому режим выгоден для выражений с небольшим числом переменных.
+ */
+public final class ForwardDifferentiator implements Differentiator {
+    private final CompiledExpression expression;
+    private final int variables;
+    private final double[] stack;
+    /** Производные значения на позиции стека sp по переменной j: tangents[sp * variables + j] */
+    private final double[] tangents;
+    /** Количество аргументов каждой инструкции */
+    private final int[] arities;
+    private final double[] partials;
+    private final double[] scratch;
+
+    /**
+     * Создает вычислитель градиента для выражения
+     * @param expression скомпилированное выражение
+     */
+    public ForwardDifferentiator(CompiledExpression expression) {
+        this.expression = expression;
+        this.variables = expression.getVariableCount();
+        this.stack = new double[expression.getMaxStackDepth()];
+        this.tangents = new double[expression.getMaxStackDepth() * variables];
+        this.arities = Derivatives.arities(expression);
+        this.partials = new double[Derivatives.maxArity(expression)];
+        this.scratch = new double[partials.length];
+    }
+
+    @Override
+    public double evaluate(double[] slots, double[] gradient) throws IllegalArgumentException {
+        if (slots.length < variables || gradient.length < variables) {
+            throw new IllegalArgumentException("Ожидается значений переменных: " + variables);
+        }
+        int[] opcodes = expression.opcodes();
+        int[] operands = expression.operands();
+        double[] literals = expression.literals();
+        FunctionDefinition[] functions = expression.functions();
+        int sp = 0;
+        for (int pc = 0; pc < opcodes.length; pc++) {
+            int op = opcodes[pc];
+            if (op == OpCode.CONST) {
+                stack[sp] = literals[operands[pc]];
+                Arrays.fill(tangents, sp * variables, (sp + 1) * variables, 0);
+                sp++;
+            } else if (op == OpCode.VAR) {
+                stack[sp] = slots[operands[pc]];
+                Arrays.fill(tangents, sp * variables, (sp + 1) * variables, 0);
+                tangents[sp * variables + operands[pc]] = 1;
+                sp++;
+            } else {
+                int arity = arities[pc];
+                sp -= arity;
+                FunctionDefinition function = op == OpCode.CALL ? functions[operands[pc]] : null;
+                double value = op == OpCode.CALL ? function.implementation.apply(stack, sp) : OpCode.apply(op, stack, sp);
+                Derivatives.compute(op, function, stack, sp, value, partials, 0, scratch);
+                int base = sp * variables;
+                for (int j = 0; j < variables; j++) {
+                    double sum = 0;
+                    for (int k = 0; k < arity; k++) {
+                        double tangent = tangents[base + k * variables + j];
+                        // Аргумент, не зависящий от переменной, не вносит вклад даже при бесконечной производной
+                        if (tangent != 0) {
+                            sum += partials[k] * tangent;
+                        }
+                    }
+                    tangents[base + j] = sum;
+                }
+                stack[sp++] = value;
+            }
+        }
+        System.arraycopy(tangents, 0, gradient, 0, variables);
+        return stack[0];
+    }
+}
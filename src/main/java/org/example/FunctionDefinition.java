@@ -0,0 +1,38 @@
+package org.example;
+
+/**
+ * Функция, доступная в выражениях: встроенная (вычисляется собственной инструкцией)
+ * или пользовательская (вызывается инструкцией {@link OpCode#CALL} по прямой ссылке).
+ */
+final class FunctionDefinition {
+    final String name;
+    final int arity;
+    /** Код инструкции; {@link OpCode#CALL} для пользовательских функций */
+    final int opcode;
+    /** Реализация пользовательской функции; null для встроенных */
+    final ExpressionFunction implementation;
+
+    private FunctionDefinition(String name, int arity, int opcode, ExpressionFunction implementation) {
+        this.name = name;
+        this.arity = arity;
+        this.opcode = opcode;
+        this.implementation = implementation;
+    }
+
+    static FunctionDefinition builtin(String name, int opcode) {
+        return new FunctionDefinition(name, OpCode.arity(opcode), opcode, null);
+    }
+
+    static FunctionDefinition user(String name, int arity, ExpressionFunction implementation) {
+        return new FunctionDefinition(name, arity, OpCode.CALL, implementation);
+    }
+
+    boolean isBuiltin() {
+        return implementation == null;
+    }
+
+    @Override
+    public String toString() {
+        return name + "/" + arity;
+    }
+}
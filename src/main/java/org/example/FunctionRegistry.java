@@ -0,0 +1,135 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Неизменяемый набор функций, доступных в выражениях.
+ * Всегда содержит встроенные функции: sin, cos, tan, asin, acos, atan, sqrt, log, ln, exp, abs,
+ * min(a, b), max(a, b), pow(a, b), hypot(a, b) и clamp(x, lo, hi). Пользовательские функции
+ * добавляются через {@link #builder()}. При компиляции имя функции заменяется прямой ссылкой
+ * на ее реализацию, поэтому при вычислении ни сравнения строк, ни поиска в таблице нет.
+ */
+public final class FunctionRegistry {
+    /** Только встроенные функции */
+    public static final FunctionRegistry DEFAULT = builder().build();
+
+    private final Map<String, FunctionDefinition> functions;
+
+    private FunctionRegistry(Map<String, FunctionDefinition> functions) {
+        this.functions = Collections.unmodifiableMap(new LinkedHashMap<>(functions));
+    }
+
+    /**
+     * Создает построитель, содержащий только встроенные функции
+     * @return новый построитель
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Создает построитель с теми же функциями, что в этом наборе
+     * @return новый построитель
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.functions.putAll(functions);
+        return builder;
+    }
+
+    /**
+     * Возвращает имена всех функций
+     * @return неизменяемое множество имен
+     */
+    public Set<String> getNames() {
+        return functions.keySet();
+    }
+
+    /**
+     * Возвращает количество аргументов функции
+     * @param name имя функции
+     * @return количество аргументов или -1, если функции с таким именем нет
+     */
+    public int arityOf(String name) {
+        FunctionDefinition function = functions.get(name);
+        return function == null ? -1 : function.arity;
+    }
+
+    FunctionDefinition lookup(String name) {
+        return functions.get(name);
+    }
+
+    /**
+     * Построитель набора функций. Не потокобезопасен.
+     */
+    public static final class Builder {
+        private final Map<String, FunctionDefinition> functions = new LinkedHashMap<>();
+
+        private Builder() {
+            for (String name : new String[]{"sin", "cos", "tan", "asin", "acos", "atan", "sqrt", "log", "ln", "exp",
+                    "abs", "min", "max", "pow", "hypot", "clamp"}) {
+                functions.put(name, FunctionDefinition.builtin(name, OpCode.ofFunction(name)));
+            }
+        }
+
+        /**
+         * Регистрирует функцию одного аргумента
+         * @param name имя функции
+         * @param function реализация
+         * @return этот же построитель
+         * @throws IllegalArgumentException если имя недопустимо или уже занято
+         */
+        public Builder register(String name, DoubleUnaryOperator function) throws IllegalArgumentException {
+            return register(name, 1, (args, offset) -> function.applyAsDouble(args[offset]));
+        }
+
+        /**
+         * Регистрирует функцию двух аргументов
+         * @param name имя функции
+         * @param function реализация
+         * @return этот же построитель
+         * @throws IllegalArgumentException если имя недопустимо или уже занято
+         */
+        public Builder register(String name, DoubleBinaryOperator function) throws IllegalArgumentException {
+            return register(name, 2, (args, offset) -> function.applyAsDouble(args[offset], args[offset + 1]));
+        }
+
+        /**
+         * Регистрирует функцию произвольного числа аргументов
+         * @param name имя функции
+         * @param arity количество аргументов
+         * @param function реализация
+         * @return этот же построитель
+         * @throws IllegalArgumentException если имя недопустимо или уже занято, или количество аргументов не положительно
+         */
+        public Builder register(String name, int arity, ExpressionFunction function) throws IllegalArgumentException {
+            if (name == null || !ExpressionEvaluator.isValidVariableName(name)) {
+                throw new IllegalArgumentException("Недопустимое имя функции: " + name);
+            }
+            if (functions.containsKey(name)) {
+                throw new IllegalArgumentException("Функция уже определена: " + name);
+            }
+            if (arity <= 0) {
+                throw new IllegalArgumentException("Количество аргументов функции должно быть положительным: " + arity);
+            }
+            if (function == null) {
+                throw new IllegalArgumentException("Не задана реализация функции " + name);
+            }
+            functions.put(name, FunctionDefinition.user(name, arity, function));
+            return this;
+        }
+
+        /**
+         * Создает набор функций
+         * @return неизменяемый набор
+         */
+        public FunctionRegistry build() {
+            return new FunctionRegistry(functions);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.example;
+
+import java.math.BigDecimal;
+
+/**
+ * Печать дерева выражения в инфиксной записи, которую принимает разбор ({@link ExpressionParser}).
+ * Скобки ставятся только там, где без них изменится порядок вычисления: операторы одного
+ * приоритета левоассоциативны, {@code ^} правоассоциативен. Унарный минус разбирается как вычитание
+ * из нуля с приоритетом сложения, поэтому везде, кроме начала выражения или слагаемого, он берется в скобки.
+ * Числа печатаются без экспоненты, так как разбор ее не поддерживает.
+ */
+final class InfixPrinter {
+    /** Приоритет операнда, который не нужно заключать в скобки: корень, аргумент функции */
+    private static final int TOP = 0;
+    private static final int ADDITIVE = 2;
+    private static final int MULTIPLICATIVE = 3;
+    private static final int POWER = 4;
+    /** Приоритет числа, переменной и вызова функции */
+    private static final int ATOM = 5;
+
+    private InfixPrinter() {
+    }
+
+    /**
+     * Печатает выражение
+     * @param node корень дерева
+     * @return инфиксная запись
+     * @throws IllegalArgumentException если дерево содержит бесконечность или NaN, не представимые в записи
+     */
+    static String print(Node node) throws IllegalArgumentException {
+        StringBuilder out = new StringBuilder();
+        print(node, TOP, out);
+        return out.toString();
+    }
+
+    private static void print(Node node, int context, StringBuilder out) {
+        int precedence = precedence(node);
+        boolean parenthesize = precedence < context;
+        if (parenthesize) {
+            out.append('(');
+        }
+        switch (node.op) {
+            case OpCode.CONST:
+                if (node.value < 0 || node.value == 0 && 1 / node.value < 0) {
+                    out.append('-');
+                }
+                out.append(number(Math.abs(node.value)));
+                break;
+            case OpCode.VAR:
+                out.append(node.name);
+                break;
+            case OpCode.NEG:
+                out.append('-');
+                print(node.args[0], MULTIPLICATIVE, out);
+                break;
+            case OpCode.ADD:
+            case OpCode.SUB:
+            case OpCode.MUL:
+            case OpCode.DIV:
+                // Левоассоциативные операторы: правый операнд того же приоритета берется в скобки
+                print(node.args[0], precedence, out);
+                out.append(' ').append(OpCode.name(node.op)).append(' ');
+                print(node.args[1], precedence + 1, out);
+                break;
+            case OpCode.POW:
+                print(node.args[0], POWER + 1, out);
+                out.append('^');
+                print(node.args[1], POWER, out);
+                break;
+            default:
+                out.append(node.op == OpCode.CALL ? node.function.name : OpCode.name(node.op)).append('(');
+                for (int i = 0; i < node.args.length; i++) {
+                    if (i > 0) {
+                        out.append(", ");
+                    }
+                    print(node.args[i], TOP, out);
+                }
+                out.append(')');
+                break;
+        }
+        if (parenthesize) {
+            out.append(')');
+        }
+    }
+
+    private static int precedence(Node node) {
+        switch (node.op) {
+            case OpCode.CONST:
+                return node.value < 0 || node.value == 0 && 1 / node.value < 0 ? ADDITIVE : ATOM;
+            case OpCode.ADD:
+            case OpCode.SUB:
+            case OpCode.NEG:
+                return ADDITIVE;
+            case OpCode.MUL:
+            case OpCode.DIV:
+                return MULTIPLICATIVE;
+            case OpCode.POW:
+                return POWER;
+            default:
+                return ATOM;
+        }
+    }
+
+    /**
+     * Десятичная запись числа без экспоненты, точно восстанавливающая значение при разборе
+     */
+    private static String number(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("Значение не представимо в записи выражения: " + value);
+        }
+        if (value == Math.rint(value) && value < ExpressionParser.MAX_EXACT_MANTISSA) {
+            return Long.toString((long) value);
+        }
+        return BigDecimal.valueOf(value).stripTrailingZeros().toPlainString();
+    }
+}
@@ -0,0 +1,83 @@
+package org.example;
+
+/**
+ * Замкнутый интервал [lo, hi] значений переменной для интервального вычисления (см. {@link IntervalEvaluator}).
+ * Бесконечные границы означают неограниченный диапазон.
+ */
+public final class Interval {
+    private final double lo;
+    private final double hi;
+
+    private Interval(double lo, double hi) {
+        this.lo = lo;
+        this.hi = hi;
+    }
+
+    /**
+     * Создает интервал
+     * @param lo нижняя граница
+     * @param hi верхняя граница
+     * @return интервал [lo, hi]
+     * @throws IllegalArgumentException если граница равна NaN или lo больше hi
+     */
+    public static Interval of(double lo, double hi) throws IllegalArgumentException {
+        if (!(lo <= hi)) {
+            throw new IllegalArgumentException("Некорректный интервал: [" + lo + ", " + hi + "]");
+        }
+        return new Interval(lo, hi);
+    }
+
+    /**
+     * Создает интервал из одной точки
+     * @param value значение
+     * @return интервал [value, value]
+     * @throws IllegalArgumentException если значение равно NaN
+     */
+    public static Interval point(double value) throws IllegalArgumentException {
+        return of(value, value);
+    }
+
+    /**
+     * Возвращает нижнюю границу
+     * @return нижняя граница
+     */
+    public double getLo() {
+        return lo;
+    }
+
+    /**
+     * Возвращает верхнюю границу
+     * @return верхняя граница
+     */
+    public double getHi() {
+        return hi;
+    }
+
+    /**
+     * Проверяет, принадлежит ли значение интервалу
+     * @param value значение
+     * @return true, если lo ≤ value ≤ hi
+     */
+    public boolean contains(double value) {
+        return lo <= value && value <= hi;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Interval)) {
+            return false;
+        }
+        Interval other = (Interval) o;
+        return Double.compare(lo, other.lo) == 0 && Double.compare(hi, other.hi) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(lo) * 31 + Double.hashCode(hi);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + lo + ", " + hi + "]";
+    }
+}
@@ -0,0 +1,396 @@
+package org.example;
+
+import java.util.Map;
+
+/**
+ * Интервальное вычисление скомпилированного выражения: по диапазону [lo, hi] каждой переменной
+ * за один проход по программе строит гарантированную оболочку значений выражения на всем диапазоне
+ * и определяет, какие ошибки ({@link ErrorType#DIVISION_BY_ZERO}, {@link ErrorType#DOMAIN_ERROR})
+ * могут возникнуть хотя бы в одной точке. Это позволяет отбросить или разбить диапазон входных
+ * значений без вычисления выражения в отдельных точках.
+ *
+ * Границы округляются наружу: после каждой арифметической операции — на одну единицу последнего разряда,
+ * после функций {@link Math} — на две (их погрешность не превышает одной единицы), поэтому оболочка
+ * содержит точный результат вычисления в любой точке, даже если ее границы не достижимы.
+ * Оболочка может быть шире точного множества значений: зависимость между вхождениями одной
+ * переменной не учитывается ({@code x - x} при x из [0, 1] дает [-1, 1]).
+ * Пользовательские функции считаются непредсказуемыми: их результат — вся числовая прямая.
+ *
+ * Экземпляр переиспользует стеки границ, поэтому вычисление не выделяет память, кроме результата.
+ * Экземпляр изменяемый и не потокобезопасен.
+ */
+public final class IntervalEvaluator {
+    private static final double TWO_PI = 2 * Math.PI;
+    /** Аргументы тригонометрических функций, при которых положение экстремумов еще определяется надежно */
+    private static final double MAX_TRIG_ARGUMENT = 1e8;
+    /** Запас в долях периода при поиске экстремумов, перекрывающий погрешность деления на период */
+    private static final double PERIOD_MARGIN = 1e-6;
+
+    private final CompiledExpression expression;
+    private final double[] lo;
+    private final double[] hi;
+    private int errors;
+    private boolean nanPossible;
+
+    /**
+     * Создает вычислитель для выражения
+     * @param expression скомпилированное выражение
+     */
+    public IntervalEvaluator(CompiledExpression expression) {
+        this.expression = expression;
+        this.lo = new double[expression.getMaxStackDepth()];
+        this.hi = new double[expression.getMaxStackDepth()];
+    }
+
+    /**
+     * Вычисляет оболочку выражения по диапазонам переменных, заданным по именам
+     * @param expression скомпилированное выражение
+     * @param ranges диапазоны переменных
+     * @return оболочка значений и возможные ошибки
+     * @throws IllegalArgumentException если диапазон какой-либо переменной не задан
+     */
+    public static IntervalResult evaluate(CompiledExpression expression, Map<String, Interval> ranges)
+            throws IllegalArgumentException {
+        double[] slotLo = new double[expression.getVariableCount()];
+        double[] slotHi = new double[slotLo.length];
+        for (int slot = 0; slot < slotLo.length; slot++) {
+            String name = expression.getVariableNames().get(slot);
+            Interval range = ranges.get(name);
+            if (range == null) {
+                throw new IllegalArgumentException("Не задан интервал переменной: " + name);
+            }
+            slotLo[slot] = range.getLo();
+            slotHi[slot] = range.getHi();
+        }
+        return new IntervalEvaluator(expression).evaluate(slotLo, slotHi);
+    }
+
+    /**
+     * Вычисляет оболочку выражения
+     * @param slotLo нижние границы переменных по слотам
+     * @param slotHi верхние границы переменных по слотам
+     * @return оболочка значений и возможные ошибки
+     * @throws IllegalArgumentException если границ меньше, чем переменных, или какой-либо интервал некорректен
+     */
+    public IntervalResult evaluate(double[] slotLo, double[] slotHi) throws IllegalArgumentException {
+        int variables = expression.getVariableCount();
+        if (slotLo.length < variables || slotHi.length < variables) {
+            throw new IllegalArgumentException("Ожидается интервалов переменных: " + variables);
+        }
+        for (int slot = 0; slot < variables; slot++) {
+            if (!(slotLo[slot] <= slotHi[slot])) {
+                throw new IllegalArgumentException("Некорректный интервал переменной "
+                        + expression.getVariableNames().get(slot) + ": [" + slotLo[slot] + ", " + slotHi[slot] + "]");
+            }
+        }
+
+        int[] opcodes = expression.opcodes();
+        int[] operands = expression.operands();
+        double[] literals = expression.literals();
+        errors = 0;
+        nanPossible = false;
+        int sp = 0;
+        for (int pc = 0; pc < opcodes.length; pc++) {
+            int op = opcodes[pc];
+            if (op == OpCode.CONST) {
+                lo[sp] = literals[operands[pc]];
+                hi[sp] = lo[sp];
+                sp++;
+            } else if (op == OpCode.VAR) {
+                lo[sp] = slotLo[operands[pc]];
+                hi[sp] = slotHi[operands[pc]];
+                sp++;
+            } else {
+                int arity = expression.arity(pc);
+                sp -= arity - 1;
+                apply(op, sp - 1, arity);
+            }
+        }
+        return new IntervalResult(lo[0], hi[0], errors, nanPossible);
+    }
+
+    private void apply(int op, int i, int arity) {
+        for (int k = i; k < i + arity; k++) {
+            if (lo[k] > hi[k]) {
+                // Ни в одной точке аргумент не вычисляется, значит, и результат тоже
+                setEmpty(i);
+                return;
+            }
+        }
+        double al = lo[i];
+        double ah = hi[i];
+        double bl = arity > 1 ? lo[i + 1] : 0;
+        double bh = arity > 1 ? hi[i + 1] : 0;
+        switch (op) {
+            case OpCode.ADD: set(i, down(al + bl), up(ah + bh)); break;
+            case OpCode.SUB: set(i, down(al - bh), up(ah - bl)); break;
+            case OpCode.MUL: multiply(i, al, ah, bl, bh, true); break;
+            case OpCode.DIV: divide(i, al, ah, bl, bh); break;
+            case OpCode.POW: pow(i, al, ah, bl, bh); break;
+            case OpCode.MIN: set(i, Math.min(al, bl), Math.min(ah, bh)); break;
+            case OpCode.MAX: set(i, Math.max(al, bl), Math.max(ah, bh)); break;
+            case OpCode.HYPOT: {
+                double aMin = magnitudeMin(al, ah);
+                double bMin = magnitudeMin(bl, bh);
+                double aMax = Math.max(-al, ah);
+                double bMax = Math.max(-bl, bh);
+                set(i, Math.max(0, down2(Math.hypot(aMin, bMin))), up2(Math.hypot(aMax, bMax)));
+                break;
+            }
+            case OpCode.CLAMP: {
+                double cl = lo[i + 2];
+                double ch = hi[i + 2];
+                if (bl > ch) {
+                    errors |= 1 << ErrorType.DOMAIN_ERROR.ordinal();
+                    setEmpty(i);
+                    break;
+                }
+                if (bh > cl) {
+                    errors |= 1 << ErrorType.DOMAIN_ERROR.ordinal();
+                }
+                set(i, Math.min(Math.max(al, bl), cl), Math.min(Math.max(ah, bh), ch));
+                break;
+            }
+            case OpCode.NEG: set(i, 0.0 - ah, 0.0 - al); break;
+            case OpCode.ABS: set(i, magnitudeMin(al, ah), Math.max(-al, ah)); break;
+            case OpCode.SQRT: {
+                if (ah < 0) {
+                    errors |= 1 << ErrorType.DOMAIN_ERROR.ordinal();
+                    setEmpty(i);
+                    break;
+                }
+                if (al < 0) {
+                    errors |= 1 << ErrorType.DOMAIN_ERROR.ordinal();
+                }
+                set(i, Math.max(0, down(Math.sqrt(Math.max(al, 0)))), up(Math.sqrt(ah)));
+                break;
+            }
+            case OpCode.LOG:
+            case OpCode.LN: {
+                if (ah <= 0) {
+                    errors |= 1 << ErrorType.DOMAIN_ERROR.ordinal();
+                    setEmpty(i);
+                    break;
+                }
+                double low = Double.NEGATIVE_INFINITY;
+                if (al <= 0) {
+                    errors |= 1 << ErrorType.DOMAIN_ERROR.ordinal();
+                } else {
+                    low = down2(op == OpCode.LOG ? Math.log10(al) : Math.log(al));
+                }
+                set(i, low, up2(op == OpCode.LOG ? Math.log10(ah) : Math.log(ah)));
+                break;
+            }
+            case OpCode.EXP: set(i, Math.max(0, down2(Math.exp(al))), up2(Math.exp(ah))); break;
+            case OpCode.ATAN: set(i, down2(Math.atan(al)), up2(Math.atan(ah))); break;
+            case OpCode.ASIN:
+            case OpCode.ACOS: {
+                if (al < -1 || ah > 1) {
+                    nanPossible = true;
+                }
+                double cl = Math.max(al, -1);
+                double ch = Math.min(ah, 1);
+                if (cl > ch) {
+                    setEmpty(i);
+                } else if (op == OpCode.ASIN) {
+                    set(i, down2(Math.asin(cl)), up2(Math.asin(ch)));
+                } else {
+                    set(i, down2(Math.acos(ch)), up2(Math.acos(cl)));
+                }
+                break;
+            }
+            case OpCode.SIN: periodic(i, al, ah, Math.PI / 2, -Math.PI / 2, true); break;
+            case OpCode.COS: periodic(i, al, ah, 0, Math.PI, false); break;
+            case OpCode.TAN: {
+                if (Double.isInfinite(al) || Double.isInfinite(ah)) {
+                    nanPossible = true;
+                }
+                if (ah - al >= Math.PI || Math.max(-al, ah) > MAX_TRIG_ARGUMENT
+                        || containsCritical(al, ah, Math.PI / 2, Math.PI)) {
+                    set(i, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+                } else {
+                    set(i, down2(Math.tan(al)), up2(Math.tan(ah)));
+                }
+                break;
+            }
+            case OpCode.CALL:
+                // Пользовательская функция может вернуть что угодно и выбросить исключение
+                errors |= 1 << ErrorType.DOMAIN_ERROR.ordinal();
+                nanPossible = true;
+                set(i, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+                break;
+            default:
+                throw new IllegalStateException("Неизвестная инструкция: " + op);
+        }
+    }
+
+    /**
+     * Умножение интервалов; произведение нуля на бесконечную границу считается нулем,
+     * так как бесконечная граница обычно означает неограниченность, а не достигаемое значение
+     */
+    private void multiply(int i, double al, double ah, double bl, double bh, boolean infinityAttainable) {
+        if (infinityAttainable && (contains(al, ah, 0) && (Double.isInfinite(bl) || Double.isInfinite(bh))
+                || contains(bl, bh, 0) && (Double.isInfinite(al) || Double.isInfinite(ah)))) {
+            nanPossible = true;
+        }
+        double p1 = product(al, bl);
+        double p2 = product(al, bh);
+        double p3 = product(ah, bl);
+        double p4 = product(ah, bh);
+        set(i, down(Math.min(Math.min(p1, p2), Math.min(p3, p4))), up(Math.max(Math.max(p1, p2), Math.max(p3, p4))));
+    }
+
+    private void divide(int i, double al, double ah, double bl, double bh) {
+        if (bl > 0 || bh < 0) {
+            double q1 = quotient(al, bl);
+            double q2 = quotient(al, bh);
+            double q3 = quotient(ah, bl);
+            double q4 = quotient(ah, bh);
+            set(i, down(Math.min(Math.min(q1, q2), Math.min(q3, q4))), up(Math.max(Math.max(q1, q2), Math.max(q3, q4))));
+            return;
+        }
+        errors |= 1 << ErrorType.DIVISION_BY_ZERO.ordinal();
+        if (bl == 0 && bh == 0) {
+            setEmpty(i);
+            return;
+        }
+        // Делитель без нуля: (0, bh], [bl, 0) или объединение обоих; a / b = a * (1 / b)
+        double rl = bl == 0 ? down(1 / bh) : Double.NEGATIVE_INFINITY;
+        double rh = bh == 0 ? up(1 / bl) : Double.POSITIVE_INFINITY;
+        multiply(i, al, ah, rl, rh, false);
+    }
+
+    private void pow(int i, double al, double ah, double bl, double bh) {
+        if (bl == bh && bl == Math.rint(bl) && !Double.isInfinite(bl)) {
+            if (bl == 0) {
+                set(i, 1, 1);
+                return;
+            }
+            // Целый показатель: функция монотонна на каждой полуоси, экстремумы — на границах и в нуле
+            double p1 = Math.pow(al, bl);
+            double p2 = Math.pow(ah, bl);
+            double min = Math.min(p1, p2);
+            double max = Math.max(p1, p2);
+            if (al <= 0 && 0 <= ah) {
+                double z1 = Math.pow(0.0, bl);
+                double z2 = Math.pow(-0.0, bl);
+                min = Math.min(min, Math.min(z1, z2));
+                max = Math.max(max, Math.max(z1, z2));
+            }
+            double low = down2(min);
+            set(i, bl % 2 == 0 ? Math.max(low, 0) : low, up2(max));
+            return;
+        }
+
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        if (ah >= 0) {
+            // При неотрицательном основании функция монотонна по каждому аргументу: экстремумы в углах
+            double xl = Math.max(al, 0);
+            double p1 = Math.pow(xl, bl);
+            double p2 = Math.pow(xl, bh);
+            double p3 = Math.pow(ah, bl);
+            double p4 = Math.pow(ah, bh);
+            min = Math.min(Math.min(p1, p2), Math.min(p3, p4));
+            max = Math.max(Math.max(p1, p2), Math.max(p3, p4));
+        }
+        if (al < 0) {
+            // Отрицательное основание с дробным показателем дает NaN, с целым — ±|x|^y
+            nanPossible = true;
+            if (Math.floor(bh) >= Math.ceil(bl)) {
+                double ml = magnitudeMin(al, Math.min(ah, 0));
+                double mh = -al;
+                double bound = Math.max(Math.max(Math.pow(ml, bl), Math.pow(ml, bh)),
+                        Math.max(Math.pow(mh, bl), Math.pow(mh, bh)));
+                min = Math.min(min, -bound);
+                max = Math.max(max, bound);
+            }
+        }
+        if (min > max) {
+            setEmpty(i);
+        } else {
+            set(i, down2(min), up2(max));
+        }
+    }
+
+    /**
+     * Синус и косинус: значения на границах и ±1, если интервал может содержать точку экстремума
+     */
+    private void periodic(int i, double al, double ah, double maxPoint, double minPoint, boolean sine) {
+        if (Double.isInfinite(al) || Double.isInfinite(ah)) {
+            nanPossible = true;
+        }
+        if (ah - al >= TWO_PI || Math.max(-al, ah) > MAX_TRIG_ARGUMENT) {
+            set(i, -1, 1);
+            return;
+        }
+        double v1 = sine ? Math.sin(al) : Math.cos(al);
+        double v2 = sine ? Math.sin(ah) : Math.cos(ah);
+        double low = containsCritical(al, ah, minPoint, TWO_PI) ? -1 : down2(Math.min(v1, v2));
+        double high = containsCritical(al, ah, maxPoint, TWO_PI) ? 1 : up2(Math.max(v1, v2));
+        set(i, Math.max(low, -1), Math.min(high, 1));
+    }
+
+    /**
+     * Проверяет с запасом, содержит ли интервал точку вида offset + k * period
+     */
+    private static boolean containsCritical(double lo, double hi, double offset, double period) {
+        double from = (lo - offset) / period - PERIOD_MARGIN;
+        double to = (hi - offset) / period + PERIOD_MARGIN;
+        return Math.floor(to) >= Math.ceil(from);
+    }
+
+    private void set(int i, double low, double high) {
+        // NaN на границе возникает из неопределенностей вида inf - inf
+        if (Double.isNaN(low)) {
+            low = Double.NEGATIVE_INFINITY;
+            nanPossible = true;
+        }
+        if (Double.isNaN(high)) {
+            high = Double.POSITIVE_INFINITY;
+            nanPossible = true;
+        }
+        lo[i] = low;
+        hi[i] = high;
+    }
+
+    private void setEmpty(int i) {
+        lo[i] = Double.POSITIVE_INFINITY;
+        hi[i] = Double.NEGATIVE_INFINITY;
+    }
+
+    private static double product(double a, double b) {
+        return a == 0 || b == 0 ? 0 : a * b;
+    }
+
+    private static double quotient(double a, double b) {
+        return a == 0 ? 0 : a / b;
+    }
+
+    private static boolean contains(double lo, double hi, double value) {
+        return lo <= value && value <= hi;
+    }
+
+    /**
+     * Наименьший модуль значений интервала
+     */
+    private static double magnitudeMin(double lo, double hi) {
+        return lo > 0 ? lo : hi < 0 ? -hi : 0;
+    }
+
+    private static double down(double value) {
+        return Math.nextDown(value);
+    }
+
+    private static double up(double value) {
+        return Math.nextUp(value);
+    }
+
+    private static double down2(double value) {
+        return Math.nextDown(Math.nextDown(value));
+    }
+
+    private static double up2(double value) {
+        return Math.nextUp(Math.nextUp(value));
+    }
+}
@@ -0,0 +1,104 @@
+package org.example;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Результат интервального вычисления: гарантированная оболочка значений выражения
+ * и виды ошибок, которые могут возникнуть в каких-либо точках диапазона.
+ */
+public final class IntervalResult {
+    private static final ErrorType[] ERROR_TYPES = ErrorType.values();
+
+    private final double lo;
+    private final double hi;
+    private final int errors;
+    private final boolean nanPossible;
+
+    IntervalResult(double lo, double hi, int errors, boolean nanPossible) {
+        this.lo = lo;
+        this.hi = hi;
+        this.errors = errors;
+        this.nanPossible = nanPossible;
+    }
+
+    /**
+     * Возвращает нижнюю границу оболочки
+     * @return число, не превосходящее ни одного значения выражения в диапазоне
+     */
+    public double getLo() {
+        return lo;
+    }
+
+    /**
+     * Возвращает верхнюю границу оболочки
+     * @return число, не меньшее любого значения выражения в диапазоне
+     */
+    public double getHi() {
+        return hi;
+    }
+
+    /**
+     * Проверяет, пуста ли оболочка: ни в одной точке диапазона выражение не дает числового значения
+     * (например, {@code sqrt(x)} при x из [-2, -1])
+     * @return true, если оболочка пуста
+     */
+    public boolean isEmpty() {
+        return lo > hi;
+    }
+
+    /**
+     * Проверяет, лежит ли значение в оболочке
+     * @param value значение
+     * @return true, если lo ≤ value ≤ hi
+     */
+    public boolean contains(double value) {
+        return lo <= value && value <= hi;
+    }
+
+    /**
+     * Проверяет, возможна ли в диапазоне хоть какая-то ошибка вычисления
+     * @return false, если вычисление в любой точке диапазона гарантированно завершится без ошибки
+     */
+    public boolean isErrorPossible() {
+        return errors != 0;
+    }
+
+    /**
+     * Проверяет, возможна ли в диапазоне ошибка заданного вида
+     * @param type вид ошибки
+     * @return true, если ошибка может возникнуть
+     */
+    public boolean isErrorPossible(ErrorType type) {
+        return (errors & (1 << type.ordinal())) != 0;
+    }
+
+    /**
+     * Возвращает виды ошибок, которые могут возникнуть в диапазоне
+     * @return множество видов ошибок
+     */
+    public Set<ErrorType> getPossibleErrors() {
+        EnumSet<ErrorType> types = EnumSet.noneOf(ErrorType.class);
+        for (ErrorType type : ERROR_TYPES) {
+            if (isErrorPossible(type)) {
+                types.add(type);
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Проверяет, может ли результат быть равен NaN без ошибки (например, {@code asin(2)});
+     * такие значения в оболочку не входят
+     * @return true, если NaN возможен
+     */
+    public boolean isNaNPossible() {
+        return nanPossible;
+    }
+
+    @Override
+    public String toString() {
+        String range = isEmpty() ? "[]" : "[" + lo + ", " + hi + "]";
+        return range + (errors != 0 ? " ошибки: " + getPossibleErrors() : "") + (nanPossible ? " NaN" : "");
+    }
+}
@@ -0,0 +1,138 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Гистограмма длительностей в наносекундах с логарифмическими корзинами (по образцу HdrHistogram).
+ * Каждая степень двойки делится на {@value #SUB_BUCKETS} корзин, поэтому относительная погрешность
+ * перцентилей не превышает 12,5%, а вся гистограмма занимает фиксированный массив счетчиков.
+ * Запись не блокирует потоки: одна атомарная операция над счетчиком корзины и над суммой.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Значения меньше SUB_BUCKETS хранятся точно, далее по SUB_BUCKETS корзин на каждый показатель степени */
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Записывает длительность
+     * @param nanos длительность в наносекундах; отрицательные значения считаются нулем
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(bucketOf(value));
+        sum.addAndGet(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Возвращает копию гистограммы; значения, записываемые одновременно со снятием копии,
+     * могут попасть в нее частично
+     * @return снимок гистограммы
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, sum.get(), max.get());
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Возвращает наибольшее значение, попадающее в корзину
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * Неизменяемый снимок гистограммы
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * Возвращает количество записанных значений
+         * @return количество значений
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Возвращает среднее значение
+         * @return среднее в наносекундах или 0, если значений нет
+         */
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Возвращает наибольшее записанное значение
+         * @return максимум в наносекундах
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * Возвращает перцентиль с точностью до корзины (оценка сверху, не больше максимума)
+         * @param percentile перцентиль от 0 до 100
+         * @return значение в наносекундах или 0, если значений нет
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(count * Math.min(Math.max(percentile, 0), 100) / 100));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", mean=" + Math.round(getMean()) + "ns, p50=" + getValueAtPercentile(50)
+                    + "ns, p99=" + getValueAtPercentile(99) + "ns, max=" + max + "ns";
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package org.example;
+
+import java.util.List;
+
+/**
+ * Выражение с сохраненными промежуточными результатами для потоковых обновлений.
+ * Выражение хранится в виде графа подвыражений (одинаковые подвыражения объединены, см. {@link FormulaSet}),
+ * значение каждого узла запоминается. Для каждой переменной заранее вычислен список зависящих
+ * от нее узлов в топологическом порядке, поэтому {@link #set(int, double)} пересчитывает только
+ * путь от измененной переменной до результата, а не все выражение.
+ *
+ * Ошибки области определения хранятся как коды {@link EvaluationStatus} по узлам и распространяются вверх так же,
+ * как при обычном вычислении: {@link #get()} выбрасывает ту ошибку, которая возникла бы первой.
+ * Изначально значения всех переменных не заданы.
+ * Экземпляр изменяемый и не потокобезопасен.
+ */
+public final class LiveExpression {
+    private final FormulaSet graph;
+    private final int[] ops;
+    private final int[] left;
+    private final int[] right;
+    private final int[] third;
+    private final int output;
+
+    /** Номер узла VAR для каждого слота */
+    private final int[] variableNodes;
+    /** Узлы-операции, зависящие от каждого слота, по возрастанию номера (то есть в топологическом порядке) */
+    private final int[][] dependents;
+
+    private final double[] values;
+    private final int[] errors;
+    private final boolean[] assigned;
+    private int unassigned;
+
+    private LiveExpression(FormulaSet graph) {
+        this.graph = graph;
+        this.ops = graph.ops();
+        this.left = graph.left();
+        this.right = graph.right();
+        this.third = graph.third();
+        this.output = graph.outputs()[0];
+        this.values = graph.constants().clone();
+        this.errors = new int[ops.length];
+        this.assigned = new boolean[graph.getVariableCount()];
+        this.unassigned = assigned.length;
+
+        variableNodes = new int[graph.getVariableCount()];
+        for (int i = 0; i < graph.firstOperation(); i++) {
+            if (ops[i] == OpCode.VAR) {
+                variableNodes[left[i]] = i;
+            }
+        }
+
+        // Множество слотов, от которых зависит каждый узел, строится одним проходом в топологическом порядке
+        int words = (assigned.length + Long.SIZE - 1) / Long.SIZE;
+        long[][] uses = new long[ops.length][words];
+        int[] counts = new int[assigned.length];
+        for (int i = 0; i < ops.length; i++) {
+            if (ops[i] == OpCode.VAR) {
+                uses[i][left[i] >>> 6] |= 1L << left[i];
+            } else if (i >= graph.firstOperation()) {
+                for (int w = 0; w < words; w++) {
+                    uses[i][w] = uses[left[i]][w] | (OpCode.arity(ops[i]) >= 2 ? uses[right[i]][w] : 0)
+                            | (ops[i] == OpCode.CLAMP ? uses[third[i]][w] : 0);
+                }
+                for (int slot = 0; slot < counts.length; slot++) {
+                    if ((uses[i][slot >>> 6] & (1L << slot)) != 0) {
+                        counts[slot]++;
+                    }
+                }
+            }
+        }
+        dependents = new int[assigned.length][];
+        for (int slot = 0; slot < counts.length; slot++) {
+            dependents[slot] = new int[counts[slot]];
+            counts[slot] = 0;
+        }
+        for (int i = graph.firstOperation(); i < ops.length; i++) {
+            for (int slot = 0; slot < counts.length; slot++) {
+                if ((uses[i][slot >>> 6] & (1L << slot)) != 0) {
+                    dependents[slot][counts[slot]++] = i;
+                }
+            }
+        }
+
+        for (int i = graph.firstOperation(); i < ops.length; i++) {
+            recompute(i);
+        }
+    }
+
+    /**
+     * Компилирует выражение для потоковых обновлений
+     * @param expression текст выражения
+     * @return выражение, в котором значения всех переменных еще не заданы
+     * @throws IllegalArgumentException если выражение некорректно
+     */
+    public static LiveExpression compile(String expression) throws IllegalArgumentException {
+        return compile(new Evaluator(), expression);
+    }
+
+    /**
+     * Компилирует выражение для потоковых обновлений с константами и функциями вычислителя
+     * @param evaluator вычислитель; выражение всегда вычисляется в режиме {@link PrecisionPolicy#STRICT}
+     * @param expression текст выражения
+     * @return выражение, в котором значения всех переменных еще не заданы
+     * @throws IllegalArgumentException если выражение некорректно
+     */
+    public static LiveExpression compile(Evaluator evaluator, String expression) throws IllegalArgumentException {
+        return new LiveExpression(FormulaSet.compile(evaluator, expression));
+    }
+
+    /**
+     * Возвращает исходный текст выражения
+     * @return исходный текст
+     */
+    public String getSource() {
+        return graph.getSource(0);
+    }
+
+    /**
+     * Возвращает имена переменных в порядке их слотов
+     * @return неизменяемый список имен переменных
+     */
+    public List<String> getVariableNames() {
+        return graph.getVariableNames();
+    }
+
+    /**
+     * Возвращает номер слота переменной
+     * @param name имя переменной
+     * @return номер слота или -1, если переменная в выражении не используется
+     */
+    public int slotOf(String name) {
+        return graph.slotOf(name);
+    }
+
+    /**
+     * Задает значение переменной и пересчитывает зависящие от нее подвыражения
+     * @param name имя переменной
+     * @param value новое значение
+     * @throws IllegalArgumentException если переменная в выражении не используется
+     */
+    public void set(String name, double value) throws IllegalArgumentException {
+        int slot = graph.slotOf(name);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Переменная не используется в выражении: " + name);
+        }
+        set(slot, value);
+    }
+
+    /**
+     * Задает значение переменной и пересчитывает зависящие от нее подвыражения.
+     * Если значение не изменилось, ничего не пересчитывается.
+     * @param slot номер слота переменной из {@link #slotOf(String)}
+     * @param value новое значение
+     */
+    public void set(int slot, double value) {
+        int node = variableNodes[slot];
+        if (!assigned[slot]) {
+            assigned[slot] = true;
+            unassigned--;
+        } else if (Double.doubleToRawLongBits(values[node]) == Double.doubleToRawLongBits(value)) {
+            return;
+        }
+        values[node] = value;
+        for (int dependent : dependents[slot]) {
+            recompute(dependent);
+        }
+    }
+
+    /**
+     * Возвращает значение выражения при текущих значениях переменных
+     * @return результат вычисления выражения
+     * @throws IllegalArgumentException если значение какой-либо переменной не задано или при ошибке вычисления
+     */
+    public double get() throws IllegalArgumentException {
+        if (unassigned > 0) {
+            for (int slot = 0; slot < assigned.length; slot++) {
+                if (!assigned[slot]) {
+                    throw new EvaluationException(ErrorType.UNKNOWN_IDENTIFIER,
+                            "Не задано значение переменной: " + graph.getVariableNames().get(slot));
+                }
+            }
+        }
+        if (errors[output] != EvaluationStatus.OK) {
+            throw EvaluationStatus.exception(errors[output]);
+        }
+        return values[output];
+    }
+
+    /**
+     * Возвращает количество узлов, пересчитываемых при изменении переменной
+     * @param slot номер слота переменной
+     * @return длина пути пересчета
+     */
+    int dependentCount(int slot) {
+        return dependents[slot].length;
+    }
+
+    /**
+     * Пересчитывает узел по уже актуальным значениям аргументов.
+     * Ошибка аргумента имеет приоритет над собственной ошибкой узла, аргументы проверяются
+     * слева направо, что повторяет порядок постфиксного вычисления.
+     */
+    private void recompute(int i) {
+        int op = ops[i];
+        double a = values[left[i]];
+        int error = errors[left[i]];
+        if (error == EvaluationStatus.OK && OpCode.arity(op) >= 2) {
+            error = errors[right[i]];
+        }
+        if (error == EvaluationStatus.OK && op == OpCode.CLAMP) {
+            error = errors[third[i]];
+        }
+        double b = OpCode.arity(op) >= 2 ? values[right[i]] : 0;
+        double c = op == OpCode.CLAMP ? values[third[i]] : 0;
+        if (error == EvaluationStatus.OK) {
+            error = OpCode.check(op, a, b, c);
+        }
+        // Значение узла с ошибкой не используется: get() выбрасывает исключение по коду ошибки
+        values[i] = error == EvaluationStatus.OK ? OpCode.apply(op, a, b, c) : Double.NaN;
+        errors[i] = error;
+    }
+
+    @Override
+    public String toString() {
+        return getSource();
+    }
+}
@@ -1,51 +1,212 @@
 package org.example;
-import java.util.Map;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.HashMap;
-import java.util.Scanner;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
+/**
+ * Калькулятор выражений.
+ *
+ * <pre>
+ * java org.example.Main                    — диалоговый режим
+ * java org.example.Main --script [файл]    — сценарий из файла или со стандартного ввода ("-")
+ * </pre>
+ *
+ * В диалоговом режиме выражение разбирается один раз, а значения всех его переменных вводятся
+ * одной строкой через пробел или запятую.
+ *
+ * Сценарий состоит из строк двух видов: присваивание {@code имя = значение} задает переменную
+ * для следующих строк (значение — число или выражение от уже заданных переменных), любая другая
+ * строка — выражение, результат которого выводится отдельной строкой. Пустые строки и строки,
+ * начинающиеся с '#', пропускаются. На каждую строку-выражение выводится ровно одна строка:
+ * результат или сообщение об ошибке. Ввод и вывод буферизованы, а каждое различное выражение
+ * разбирается один раз (скомпилированные выражения хранятся в кэше).
+ */
 public class Main {
+    /** Размер буферов ввода и вывода сценария */
+    static final int BUFFER_SIZE = 1 << 16;
+    /** Количество различных выражений, скомпилированные формы которых хранятся при выполнении сценария */
+    static final int SCRIPT_CACHE_SIZE = 4096;
+
+    private static final String USAGE = "Использование: Main [--script [файл]]";
+
     public static void main(String[] args) {
         Locale.setDefault(Locale.US);
-        Scanner scanner = new Scanner(System.in);
-        scanner.useLocale(Locale.US);
+        int status = run(args, System.in, System.out, System.err);
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    /**
+     * Запускает калькулятор
+     * @param args аргументы командной строки
+     * @param in стандартный ввод
+     * @param out поток для результатов
+     * @param err поток для сообщений об ошибках сценария и итоговой статистики
+     * @return код завершения: 0 при успехе, 1 при ошибке ввода-вывода, 2 при некорректных аргументах
+     */
+    static int run(String[] args, InputStream in, PrintStream out, PrintStream err) {
+        if (args.length == 0) {
+            interactive(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), out);
+            return 0;
+        }
+        if (!args[0].equals("--script") || args.length > 2) {
+            err.println(USAGE);
+            return 2;
+        }
+        String file = args.length == 2 ? args[1] : "-";
+        try (BufferedReader reader = file.equals("-")
+                ? new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE)
+                : Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            long[] counts = script(reader, writer, err);
+            writer.flush();
+            err.println("Вычислено выражений: " + counts[0] + ", ошибок: " + counts[1]);
+            return 0;
+        } catch (IOException e) {
+            err.println("Ошибка ввода-вывода: " + e.getMessage());
+            return 1;
+        }
+    }
 
-        System.out.println("Калькулятор выражений с поддержкой переменных и функций");
-        System.out.println("Примеры выражений: 'x + y', 'sin(a) + cos(b)', '2*pi*r'");
-        System.out.println("Для выхода введите 'exit'");
+    private static void interactive(BufferedReader in, PrintStream out) {
+        out.println("Калькулятор выражений с поддержкой переменных и функций");
+        out.println("Примеры выражений: 'x + y', 'sin(a) + cos(b)', '2*pi*r'");
+        out.println("Для выхода введите 'exit'");
 
-        while (true) {
-            System.out.print("\nВведите выражение: ");
-            String input = scanner.nextLine().trim();
+        try {
+            while (true) {
+                out.print("\nВведите выражение: ");
+                String line = in.readLine();
+                if (line == null || line.trim().equalsIgnoreCase("exit")) {
+                    break;
+                }
+                String input = line.trim();
 
-            if (input.equalsIgnoreCase("exit")) {
-                break;
+                try {
+                    CompiledExpression compiled = ExpressionEvaluator.compile(input);
+                    double[] slots = readValues(compiled.getVariableNames(), in, out);
+                    if (slots == null) {
+                        break;
+                    }
+                    out.println("Результат: " + compiled.evaluate(slots));
+                } catch (IllegalArgumentException e) {
+                    out.println("Ошибка: " + e.getMessage());
+                }
             }
+        } catch (IOException e) {
+            out.println("Ошибка ввода-вывода: " + e.getMessage());
+        }
 
-            try {
+        out.println("Работа калькулятора завершена");
+    }
 
-                Map<String, Double> variables = new HashMap<>();
-                String[] postfix = ExpressionEvaluator.infixToPostfix(input);
-                for (String token : postfix) {
-                    if (token.startsWith("VAR:")) {
-                        String varName = token.substring(4);
-                        if (!variables.containsKey(varName)) {
-                            System.out.print("Введите значение переменной " + varName + ": ");
-                            double value = scanner.nextDouble();
-                            scanner.nextLine();
-                            variables.put(varName, value);
-                        }
-                    }
+    /**
+     * Запрашивает значения переменных одной строкой; если значений меньше, чем переменных,
+     * недостающие запрашиваются следующей строкой
+     * @return значения по слотам или null, если ввод закончился
+     */
+    private static double[] readValues(List<String> names, BufferedReader in, PrintStream out)
+            throws IOException {
+        double[] slots = new double[names.size()];
+        int filled = 0;
+        while (filled < slots.length) {
+            List<String> missing = names.subList(filled, names.size());
+            out.print(missing.size() == 1
+                    ? "Введите значение переменной " + missing.get(0) + ": "
+                    : "Введите значения переменных " + String.join(", ", missing) + ": ");
+            String line = in.readLine();
+            if (line == null) {
+                return null;
+            }
+            for (String token : line.trim().split("[\\s,;]+")) {
+                if (token.isEmpty()) {
+                    continue;
+                }
+                if (filled == slots.length) {
+                    throw new IllegalArgumentException("Лишнее значение: " + token);
                 }
+                slots[filled++] = parseValue(token);
+            }
+        }
+        return slots;
+    }
 
-                double result = ExpressionEvaluator.evaluate(input, variables);
-                System.out.println("Результат: " + result);
+    private static double parseValue(String token) {
+        try {
+            return Double.parseDouble(token);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Недопустимое число: " + token);
+        }
+    }
+
+    /**
+     * Выполняет сценарий
+     * @param in строки сценария
+     * @param out поток для результатов выражений
+     * @param err поток для ошибок в присваиваниях
+     * @return количество вычисленных выражений и количество ошибок
+     * @throws IOException при ошибке чтения или записи
+     */
+    static long[] script(BufferedReader in, Writer out, PrintStream err) throws IOException {
+        ExpressionCache cache = new ExpressionCache(SCRIPT_CACHE_SIZE);
+        Map<String, Double> variables = new HashMap<>();
+        long evaluated = 0;
+        long failed = 0;
+        long lineNumber = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            String text = line.trim();
+            if (text.isEmpty() || text.charAt(0) == '#') {
+                continue;
+            }
+
+            int assignment = text.indexOf('=');
+            if (assignment >= 0) {
+                try {
+                    assign(text.substring(0, assignment).trim(), text.substring(assignment + 1).trim(), cache, variables);
+                } catch (IllegalArgumentException e) {
+                    failed++;
+                    err.println("Ошибка в строке " + lineNumber + ": " + e.getMessage());
+                }
+                continue;
+            }
+
+            evaluated++;
+            try {
+                out.write(Double.toString(cache.get(text).evaluate(variables)));
             } catch (IllegalArgumentException e) {
-                System.out.println("Ошибка: " + e.getMessage());
+                failed++;
+                out.write("Ошибка в строке " + lineNumber + ": " + e.getMessage());
             }
+            out.write('\n');
         }
+        return new long[]{evaluated, failed};
+    }
 
-        System.out.println("Работа калькулятора завершена");
-        scanner.close();
+    private static void assign(String name, String value, ExpressionCache cache, Map<String, Double> variables) {
+        if (!ExpressionEvaluator.isValidVariableName(name) || EvaluatorConfig.DEFAULT.isConstant(name)) {
+            throw new IllegalArgumentException("Недопустимое имя переменной: " + name);
+        }
+        double number;
+        try {
+            number = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            number = cache.get(value).evaluate(variables);
+        }
+        variables.put(name, number);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,125 @@
+package org.example;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Неизменяемый снимок метрик выражения или общих метрик (см. {@link EvaluationMetrics}).
+ */
+public final class MetricsSnapshot {
+    private final String source;
+    private final long compilationCount;
+    private final long evaluationCount;
+    private final long cacheHitCount;
+    private final long cacheMissCount;
+    private final Map<ErrorType, Long> errorCounts;
+    private final LatencyHistogram.Snapshot compilationTime;
+    private final LatencyHistogram.Snapshot evaluationTime;
+
+    MetricsSnapshot(String source, long compilationCount, long evaluationCount, long cacheHitCount,
+                    long cacheMissCount, EnumMap<ErrorType, Long> errorCounts,
+                    LatencyHistogram.Snapshot compilationTime, LatencyHistogram.Snapshot evaluationTime) {
+        this.source = source;
+        this.compilationCount = compilationCount;
+        this.evaluationCount = evaluationCount;
+        this.cacheHitCount = cacheHitCount;
+        this.cacheMissCount = cacheMissCount;
+        this.errorCounts = Collections.unmodifiableMap(errorCounts);
+        this.compilationTime = compilationTime;
+        this.evaluationTime = evaluationTime;
+    }
+
+    /**
+     * Возвращает текст выражения
+     * @return текст выражения или null для общих метрик
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Возвращает количество компиляций
+     * @return количество компиляций, включая завершившиеся ошибкой
+     */
+    public long getCompilationCount() {
+        return compilationCount;
+    }
+
+    /**
+     * Возвращает количество успешных вычислений
+     * @return количество вычислений без ошибок
+     */
+    public long getEvaluationCount() {
+        return evaluationCount;
+    }
+
+    /**
+     * Возвращает количество попаданий в кэш выражений
+     * @return количество попаданий
+     */
+    public long getCacheHitCount() {
+        return cacheHitCount;
+    }
+
+    /**
+     * Возвращает количество промахов кэша выражений
+     * @return количество промахов
+     */
+    public long getCacheMissCount() {
+        return cacheMissCount;
+    }
+
+    /**
+     * Возвращает количество ошибок заданного вида
+     * @param type вид ошибки
+     * @return количество ошибок
+     */
+    public long getErrorCount(ErrorType type) {
+        return errorCounts.get(type);
+    }
+
+    /**
+     * Возвращает количество ошибок по видам
+     * @return неизменяемая карта с записью для каждого вида ошибки
+     */
+    public Map<ErrorType, Long> getErrorCounts() {
+        return errorCounts;
+    }
+
+    /**
+     * Возвращает общее количество ошибок
+     * @return сумма ошибок всех видов
+     */
+    public long getTotalErrorCount() {
+        long total = 0;
+        for (long count : errorCounts.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Возвращает распределение длительности компиляции
+     * @return гистограмма в наносекундах
+     */
+    public LatencyHistogram.Snapshot getCompilationTime() {
+        return compilationTime;
+    }
+
+    /**
+     * Возвращает распределение длительности успешных вычислений
+     * @return гистограмма в наносекундах
+     */
+    public LatencyHistogram.Snapshot getEvaluationTime() {
+        return evaluationTime;
+    }
+
+    @Override
+    public String toString() {
+        return (source == null ? "global" : source) + ": compilations=" + compilationCount
+                + ", evaluations=" + evaluationCount + ", cacheHits=" + cacheHitCount
+                + ", cacheMisses=" + cacheMissCount + ", errors=" + errorCounts
+                + ", compilationTime={" + compilationTime + "}, evaluationTime={" + evaluationTime + "}";
+    }
+}
@@ -0,0 +1,132 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Узел дерева выражения. Вид узла задается кодом инструкции ({@link OpCode}):
+ * CONST хранит значение, VAR — имя переменной, остальные узлы — аргументы,
+ * CALL дополнительно хранит вызываемую функцию.
+ * Узлы неизменяемы и сравниваются по структуре, поэтому общие поддеревья можно разделять.
+ */
+final class Node {
+    private static final Node[] NO_ARGS = new Node[0];
+
+    static final Node ZERO = constant(0);
+    static final Node ONE = constant(1);
+    static final Node TWO = constant(2);
+
+    final int op;
+    final double value;
+    final String name;
+    final FunctionDefinition function;
+    final Node[] args;
+
+    private Node(int op, double value, String name, FunctionDefinition function, Node[] args) {
+        this.op = op;
+        this.value = value;
+        this.name = name;
+        this.function = function;
+        this.args = args;
+    }
+
+    static Node constant(double value) {
+        return new Node(OpCode.CONST, value, null, null, NO_ARGS);
+    }
+
+    static Node variable(String name) {
+        return new Node(OpCode.VAR, 0, name, null, NO_ARGS);
+    }
+
+    /**
+     * Создает узел встроенной инструкции
+     * @param op код инструкции, кроме CONST, VAR и CALL
+     * @param args аргументы в количестве {@link OpCode#arity(int)}
+     * @return узел
+     */
+    static Node apply(int op, Node... args) {
+        return new Node(op, 0, null, null, args);
+    }
+
+    static Node call(FunctionDefinition function, Node... args) {
+        return new Node(OpCode.CALL, 0, null, function, args);
+    }
+
+    /**
+     * Строит дерево по программе скомпилированного выражения
+     * @param expression скомпилированное выражение
+     * @return корень дерева
+     */
+    static Node of(CompiledExpression expression) {
+        int[] opcodes = expression.opcodes();
+        int[] operands = expression.operands();
+        Node[] stack = new Node[expression.getMaxStackDepth()];
+        int sp = 0;
+        for (int pc = 0; pc < opcodes.length; pc++) {
+            int op = opcodes[pc];
+            if (op == OpCode.CONST) {
+                stack[sp++] = constant(expression.literals()[operands[pc]]);
+            } else if (op == OpCode.VAR) {
+                stack[sp++] = variable(expression.getVariableNames().get(operands[pc]));
+            } else {
+                int arity = expression.arity(pc);
+                sp -= arity;
+                Node[] args = Arrays.copyOfRange(stack, sp, sp + arity);
+                stack[sp++] = op == OpCode.CALL ? call(expression.functions()[operands[pc]], args) : apply(op, args);
+            }
+        }
+        return stack[0];
+    }
+
+    boolean isConstant() {
+        return op == OpCode.CONST;
+    }
+
+    boolean isConstant(double expected) {
+        return op == OpCode.CONST && value == expected;
+    }
+
+    /**
+     * Проверяет, зависит ли поддерево от переменной
+     * @param variable имя переменной
+     * @return true, если переменная встречается в поддереве
+     */
+    boolean dependsOn(String variable) {
+        if (op == OpCode.VAR) {
+            return name.equals(variable);
+        }
+        for (Node arg : args) {
+            if (arg.dependsOn(variable)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Node)) {
+            return false;
+        }
+        Node other = (Node) o;
+        return op == other.op
+                && Double.compare(value, other.value) == 0
+                && (name == null ? other.name == null : name.equals(other.name))
+                && function == other.function
+                && Arrays.equals(args, other.args);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = op * 31 + Double.hashCode(value);
+        hash = hash * 31 + (name == null ? 0 : name.hashCode());
+        return hash * 31 + Arrays.hashCode(args);
+    }
+
+    @Override
+    public String toString() {
+        return InfixPrinter.print(this);
+    }
+}
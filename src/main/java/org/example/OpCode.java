@@ -0,0 +1,296 @@
+package org.example;
+
+/**
+ * Коды инструкций скомпилированного выражения и их семантика.
+ * Все проверки области определения (деление на ноль, корень из отрицательного числа,
+ * логарифм неположительного числа) собраны здесь, чтобы разные способы вычисления
+ * давали одинаковые результаты и одинаковые ошибки.
+ */
+final class OpCode {
+    /** Загрузка литерала из таблицы констант */
+    static final int CONST = 0;
+    /** Загрузка значения переменной из слота */
+    static final int VAR = 1;
+
+    static final int ADD = 2;
+    static final int SUB = 3;
+    static final int MUL = 4;
+    static final int DIV = 5;
+    static final int POW = 6;
+
+    static final int SIN = 7;
+    static final int COS = 8;
+    static final int TAN = 9;
+    static final int ASIN = 10;
+    static final int ACOS = 11;
+    static final int ATAN = 12;
+    static final int SQRT = 13;
+    static final int LOG = 14;
+    static final int LN = 15;
+    static final int EXP = 16;
+    static final int ABS = 17;
+    /** Унарный минус, вычисляется как 0 - x, то есть так же, как исходная запись "0 x -" */
+    static final int NEG = 18;
+
+    static final int MIN = 19;
+    static final int MAX = 20;
+    static final int HYPOT = 21;
+    /** clamp(x, lo, hi) — единственная встроенная функция трех аргументов */
+    static final int CLAMP = 22;
+    /**
+     * Вызов пользовательской функции; операнд — номер функции в таблице выражения,
+     * количество аргументов задается самой функцией
+     */
+    static final int CALL = 23;
+
+    private static final String[] NAMES = {
+            "CONST", "VAR", "+", "-", "*", "/", "^",
+            "sin", "cos", "tan", "asin", "acos", "atan", "sqrt", "log", "ln", "exp", "abs", "neg",
+            "min", "max", "hypot", "clamp", "call"
+    };
+
+    private OpCode() {
+    }
+
+    /**
+     * Возвращает код бинарного оператора
+     * @param c символ оператора
+     * @return код инструкции или -1, если символ не является оператором
+     */
+    static int ofOperator(char c) {
+        switch (c) {
+            case '+': return ADD;
+            case '-': return SUB;
+            case '*': return MUL;
+            case '/': return DIV;
+            case '^': return POW;
+            default: return -1;
+        }
+    }
+
+    /**
+     * Возвращает код встроенной функции
+     * @param name имя функции
+     * @return код инструкции или -1, если функция неизвестна
+     */
+    static int ofFunction(String name) {
+        for (int op = SIN; op <= ABS; op++) {
+            if (NAMES[op].equals(name)) {
+                return op;
+            }
+        }
+        for (int op = MIN; op <= CLAMP; op++) {
+            if (NAMES[op].equals(name)) {
+                return op;
+            }
+        }
+        return name.equals("pow") ? POW : -1;
+    }
+
+    /**
+     * Возвращает текстовое представление инструкции (символ оператора или имя функции)
+     * @param op код инструкции
+     * @return имя инструкции
+     */
+    static String name(int op) {
+        return NAMES[op];
+    }
+
+    /**
+     * Проверяет, является ли инструкция бинарным оператором
+     * @param op код инструкции
+     * @return true, если инструкция снимает со стека два операнда
+     */
+    static boolean isBinary(int op) {
+        return (op >= ADD && op <= POW) || (op >= MIN && op <= HYPOT);
+    }
+
+    /**
+     * Проверяет, является ли инструкция унарной (функция одного аргумента или унарный минус)
+     * @param op код инструкции
+     * @return true, если инструкция снимает со стека один операнд
+     */
+    static boolean isUnary(int op) {
+        return op >= SIN && op <= NEG;
+    }
+
+    /**
+     * Возвращает количество аргументов инструкции
+     * @param op код инструкции, кроме {@link #CALL}
+     * @return количество значений, снимаемых со стека
+     */
+    static int arity(int op) {
+        if (op == CONST || op == VAR) {
+            return 0;
+        }
+        if (isUnary(op)) {
+            return 1;
+        }
+        if (isBinary(op)) {
+            return 2;
+        }
+        if (op == CLAMP) {
+            return 3;
+        }
+        throw new IllegalStateException("Количество аргументов определяется функцией: " + op);
+    }
+
+    /**
+     * Выполняет бинарный оператор
+     * @param op код оператора
+     * @param left левый операнд
+     * @param right правый операнд
+     * @return результат операции
+     * @throws IllegalArgumentException при делении на ноль
+     */
+    static double applyBinary(int op, double left, double right) {
+        switch (op) {
+            case ADD: return left + right;
+            case SUB: return left - right;
+            case MUL: return left * right;
+            case DIV: return divide(left, right);
+            case POW: return Math.pow(left, right);
+            case MIN: return Math.min(left, right);
+            case MAX: return Math.max(left, right);
+            case HYPOT: return Math.hypot(left, right);
+            default: throw new IllegalStateException("Неизвестный оператор: " + op);
+        }
+    }
+
+    /**
+     * Вычисляет встроенную функцию одного аргумента
+     * @param op код функции
+     * @param arg аргумент
+     * @return значение функции
+     * @throws IllegalArgumentException если аргумент вне области определения
+     */
+    static double applyUnary(int op, double arg) {
+        switch (op) {
+            case SIN: return Math.sin(arg);
+            case COS: return Math.cos(arg);
+            case TAN: return Math.tan(arg);
+            case ASIN: return Math.asin(arg);
+            case ACOS: return Math.acos(arg);
+            case ATAN: return Math.atan(arg);
+            case SQRT: return sqrt(arg);
+            case LOG: return log10(arg);
+            case LN: return ln(arg);
+            case EXP: return Math.exp(arg);
+            case ABS: return Math.abs(arg);
+            case NEG: return negate(arg);
+            default: throw new IllegalStateException("Неизвестная функция: " + op);
+        }
+    }
+
+    /**
+     * Выполняет встроенную функцию по аргументам на стеке
+     * @param op код встроенной инструкции, кроме CONST, VAR и CALL
+     * @param args массив, содержащий аргументы
+     * @param offset индекс первого аргумента
+     * @return результат
+     * @throws IllegalArgumentException если аргументы вне области определения
+     */
+    static double apply(int op, double[] args, int offset) {
+        switch (arity(op)) {
+            case 1: return applyUnary(op, args[offset]);
+            case 2: return applyBinary(op, args[offset], args[offset + 1]);
+            default: return clamp(args[offset], args[offset + 1], args[offset + 2]);
+        }
+    }
+
+    /**
+     * Выполняет встроенную инструкцию над аргументами, переданными по отдельности
+     * @param op код встроенной инструкции, кроме CONST, VAR и CALL
+     * @param a первый аргумент
+     * @param b второй аргумент; функции одного аргумента его не используют
+     * @param c третий аргумент; используется только {@link #CLAMP}
+     * @return результат
+     * @throws IllegalArgumentException если аргументы вне области определения (см. {@link #check})
+     */
+    static double apply(int op, double a, double b, double c) {
+        switch (arity(op)) {
+            case 1: return applyUnary(op, a);
+            case 2: return applyBinary(op, a, b);
+            default: return clamp(a, b, c);
+        }
+    }
+
+    static double negate(double arg) {
+        return 0.0 - arg;
+    }
+
+    static double divide(double left, double right) {
+        if (right == 0) throw EvaluationStatus.exception(EvaluationStatus.DIVISION_BY_ZERO);
+        return left / right;
+    }
+
+    static double sqrt(double arg) {
+        if (arg < 0) throw EvaluationStatus.exception(EvaluationStatus.NEGATIVE_SQRT);
+        return Math.sqrt(arg);
+    }
+
+    static double log10(double arg) {
+        if (arg <= 0) throw EvaluationStatus.exception(EvaluationStatus.NON_POSITIVE_LOG);
+        return Math.log10(arg);
+    }
+
+    static double ln(double arg) {
+        if (arg <= 0) throw EvaluationStatus.exception(EvaluationStatus.NON_POSITIVE_LOG);
+        return Math.log(arg);
+    }
+
+    static double clamp(double value, double min, double max) {
+        if (min > max) throw EvaluationStatus.exception(EvaluationStatus.INVALID_CLAMP_BOUNDS);
+        return Math.min(Math.max(value, min), max);
+    }
+
+    // Варианты без исключений: при ошибке возвращают NaN и записывают код в status[0],
+    // если там еще нет более ранней ошибки
+
+    static double divide(double left, double right, int[] status) {
+        if (right == 0) return fail(status, EvaluationStatus.DIVISION_BY_ZERO);
+        return left / right;
+    }
+
+    static double sqrt(double arg, int[] status) {
+        if (arg < 0) return fail(status, EvaluationStatus.NEGATIVE_SQRT);
+        return Math.sqrt(arg);
+    }
+
+    static double log10(double arg, int[] status) {
+        if (arg <= 0) return fail(status, EvaluationStatus.NON_POSITIVE_LOG);
+        return Math.log10(arg);
+    }
+
+    static double ln(double arg, int[] status) {
+        if (arg <= 0) return fail(status, EvaluationStatus.NON_POSITIVE_LOG);
+        return Math.log(arg);
+    }
+
+    static double clamp(double value, double min, double max, int[] status) {
+        if (min > max) return fail(status, EvaluationStatus.INVALID_CLAMP_BOUNDS);
+        return Math.min(Math.max(value, min), max);
+    }
+
+    /**
+     * Проверяет аргументы встроенной инструкции, не вычисляя ее
+     * @return {@link EvaluationStatus#OK} или код ошибки, с которой завершилось бы вычисление
+     */
+    static int check(int op, double a, double b, double c) {
+        switch (op) {
+            case DIV: return b == 0 ? EvaluationStatus.DIVISION_BY_ZERO : EvaluationStatus.OK;
+            case SQRT: return a < 0 ? EvaluationStatus.NEGATIVE_SQRT : EvaluationStatus.OK;
+            case LOG:
+            case LN: return a <= 0 ? EvaluationStatus.NON_POSITIVE_LOG : EvaluationStatus.OK;
+            case CLAMP: return b > c ? EvaluationStatus.INVALID_CLAMP_BOUNDS : EvaluationStatus.OK;
+            default: return EvaluationStatus.OK;
+        }
+    }
+
+    static double fail(int[] status, int code) {
+        if (status[0] == EvaluationStatus.OK) {
+            status[0] = code;
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,213 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Оптимизация скомпилированного выражения между разбором и вычислением.
+ * Выполняет свертку константных подвыражений и безопасные алгебраические тождества:
+ * {@code x*1, 1*x, x/1, x+(-0.0), (-0.0)+x, x-0, x^1} заменяются на {@code x}, а {@code 0 - x}
+ * (так разбирается унарный минус) — на одну инструкцию {@link OpCode#NEG}.
+ * Подвыражение, вычисление которого завершается ошибкой ({@code 1/0}, {@code sqrt(-1)}, {@code log(0)}),
+ * не сворачивается, и ошибка по-прежнему возникает при вычислении. Вызовы пользовательских функций
+ * не сворачиваются никогда. Результаты совпадают с неоптимизированной программой побитово.
+ *
+ * В режиме {@link PrecisionPolicy#FAST} степень переменной с целым показателем от 2 до {@link #MAX_EXPANDED_EXPONENT}
+ * разворачивается в умножения: {@code x^3} становится {@code x x * x *}. Порядок умножений тот же,
+ * что в {@link FastMath#pow}, поэтому результат не зависит от того, развернута степень или нет.
+ *
+ * Постфиксная программа обрабатывается за один проход: на стеке хранятся начала участков
+ * кода, вычисляющих каждый операнд, поэтому операнд можно заменить или удалить целиком.
+ */
+final class Optimizer {
+    /** Наибольший показатель степени, которая разворачивается в умножения; длина кода растет линейно */
+    static final int MAX_EXPANDED_EXPONENT = 4;
+
+    private Optimizer() {
+    }
+
+    /**
+     * Оптимизирует скомпилированное выражение, сохраняя его политику точности
+     * @param expression исходное выражение
+     * @return оптимизированное выражение с тем же текстом и теми же слотами переменных
+     */
+    static CompiledExpression optimize(CompiledExpression expression) {
+        return optimize(expression, expression.getPrecision());
+    }
+
+    /**
+     * Оптимизирует скомпилированное выражение
+     * @param expression исходное выражение
+     * @param precision политика точности результата
+     * @return оптимизированное выражение с тем же текстом и теми же слотами переменных
+     */
+    static CompiledExpression optimize(CompiledExpression expression, PrecisionPolicy precision) {
+        int[] opcodes = expression.opcodes();
+        int[] operands = expression.operands();
+        double[] literals = expression.literals();
+        FunctionDefinition[] functions = expression.functions();
+
+        // Развернутая степень x^n занимает 2n - 1 инструкций вместо трех
+        int capacity = precision == PrecisionPolicy.FAST ? opcodes.length * MAX_EXPANDED_EXPONENT : opcodes.length;
+        int[] outOps = new int[capacity];
+        int[] outOperands = new int[capacity];
+        double[] outValues = new double[capacity];
+        int[] starts = new int[expression.getMaxStackDepth()];
+        int size = 0;
+        int sp = 0;
+
+        for (int pc = 0; pc < opcodes.length; pc++) {
+            int op = opcodes[pc];
+            if (op == OpCode.CONST || op == OpCode.VAR) {
+                starts[sp++] = size;
+                outOps[size] = op;
+                outOperands[size] = operands[pc];
+                outValues[size] = op == OpCode.CONST ? literals[operands[pc]] : 0;
+                size++;
+                continue;
+            }
+
+            if (op == OpCode.CALL) {
+                sp -= functions[operands[pc]].arity - 1;
+                outOps[size] = op;
+                outOperands[size++] = operands[pc];
+                continue;
+            }
+
+            if (!OpCode.isBinary(op)) {
+                int arity = OpCode.arity(op);
+                sp -= arity - 1;
+                int start = starts[sp - 1];
+                if (size - start == arity && allConstant(outOps, start, size)) {
+                    try {
+                        outValues[start] = OpCode.apply(op, outValues, start);
+                        size = start + 1;
+                        continue;
+                    } catch (IllegalArgumentException e) {
+                        // Ошибка должна возникнуть при вычислении, оставляем инструкцию как есть
+                    }
+                }
+                outOps[size++] = op;
+                continue;
+            }
+
+            int rightStart = starts[--sp];
+            int leftStart = starts[sp - 1];
+            boolean leftConst = rightStart - leftStart == 1 && outOps[leftStart] == OpCode.CONST;
+            boolean rightConst = size - rightStart == 1 && outOps[rightStart] == OpCode.CONST;
+
+            if (leftConst && rightConst) {
+                try {
+                    outValues[leftStart] = OpCode.applyBinary(op, outValues[leftStart], outValues[rightStart]);
+                    size = leftStart + 1;
+                    continue;
+                } catch (IllegalArgumentException e) {
+                    // Например, 1/0: оставляем деление до вычисления
+                }
+            }
+            if (rightConst && isRightIdentity(op, outValues[rightStart])) {
+                size = rightStart;
+                continue;
+            }
+            if (leftConst && isLeftIdentity(op, outValues[leftStart])) {
+                size = remove(outOps, outOperands, outValues, leftStart, size);
+                continue;
+            }
+            if (leftConst && op == OpCode.SUB && Double.doubleToRawLongBits(outValues[leftStart]) == 0L) {
+                size = remove(outOps, outOperands, outValues, leftStart, size);
+                outOps[size++] = OpCode.NEG;
+                continue;
+            }
+            if (precision == PrecisionPolicy.FAST && op == OpCode.POW && rightConst
+                    && rightStart - leftStart == 1 && outOps[leftStart] == OpCode.VAR) {
+                int exponent = (int) outValues[rightStart];
+                if (exponent == outValues[rightStart] && exponent >= 2 && exponent <= MAX_EXPANDED_EXPONENT) {
+                    size = rightStart;
+                    for (int i = 1; i < exponent; i++) {
+                        outOps[size] = OpCode.VAR;
+                        outOperands[size++] = outOperands[leftStart];
+                        outOps[size++] = OpCode.MUL;
+                    }
+                    continue;
+                }
+            }
+            outOps[size++] = op;
+        }
+
+        return build(expression, outOps, outOperands, outValues, size, precision);
+    }
+
+    private static boolean isRightIdentity(int op, double value) {
+        switch (op) {
+            case OpCode.MUL:
+            case OpCode.DIV:
+            case OpCode.POW:
+                return value == 1.0;
+            case OpCode.ADD:
+                return isNegativeZero(value);
+            case OpCode.SUB:
+                // x - (-0.0) при x = -0.0 дает 0.0, поэтому убирается только +0.0
+                return Double.doubleToRawLongBits(value) == 0L;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean allConstant(int[] ops, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (ops[i] != OpCode.CONST) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLeftIdentity(int op, double value) {
+        return (op == OpCode.MUL && value == 1.0) || (op == OpCode.ADD && isNegativeZero(value));
+    }
+
+    /**
+     * Нейтральный элемент сложения — только -0.0: -0.0 + 0.0 дает 0.0, и x+0 при x = -0.0 сменил бы знак
+     */
+    private static boolean isNegativeZero(double value) {
+        return Double.doubleToRawLongBits(value) == Double.doubleToRawLongBits(-0.0);
+    }
+
+    /**
+     * Удаляет одну инструкцию, сдвигая следующие за ней
+     * @return новый размер программы
+     */
+    private static int remove(int[] ops, int[] operands, double[] values, int index, int size) {
+        System.arraycopy(ops, index + 1, ops, index, size - index - 1);
+        System.arraycopy(operands, index + 1, operands, index, size - index - 1);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        return size - 1;
+    }
+
+    private static CompiledExpression build(CompiledExpression expression, int[] ops, int[] operands,
+                                            double[] values, int size, PrecisionPolicy precision) {
+        FunctionDefinition[] functions = expression.functions();
+        double[] literals = new double[size];
+        Map<Long, Integer> literalIndexes = new HashMap<>();
+        int literalCount = 0;
+        int depth = 0;
+        int maxDepth = 0;
+        for (int i = 0; i < size; i++) {
+            if (ops[i] == OpCode.CONST) {
+                Integer index = literalIndexes.get(Double.doubleToRawLongBits(values[i]));
+                if (index == null) {
+                    index = literalCount;
+                    literalIndexes.put(Double.doubleToRawLongBits(values[i]), index);
+                    literals[literalCount++] = values[i];
+                }
+                operands[i] = index;
+            }
+            depth += 1 - (ops[i] == OpCode.CALL ? functions[operands[i]].arity : OpCode.arity(ops[i]));
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        return new CompiledExpression(expression.getSource(), Arrays.copyOf(ops, size), Arrays.copyOf(operands, size),
+                Arrays.copyOf(literals, literalCount), expression.getVariableNames().toArray(new String[0]), functions,
+                maxDepth, precision);
+    }
+}
@@ -0,0 +1,117 @@
+package org.example;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Параллельное пакетное вычисление выражения на {@link ForkJoinPool}.
+ * Диапазон строк рекурсивно делится пополам, пока не станет не больше размера блока,
+ * после чего блок вычисляется {@link BatchEvaluator}. Задачи разделяют только неизменяемое
+ * скомпилированное выражение и входные столбцы; каждая пишет в свой диапазон выходного
+ * массива. Границы блоков кратны 64 строкам, поэтому разные задачи не пишут в одно слово
+ * битовой карты ошибок.
+ * Экземпляры неизменяемы и могут использоваться из нескольких потоков одновременно.
+ */
+public final class ParallelEvaluator {
+    /** Размер блока строк по умолчанию */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    /** Наибольший размер блока: наибольшее кратное 64 значение int */
+    private static final int MAX_CHUNK_SIZE = Integer.MAX_VALUE / Long.SIZE * Long.SIZE;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    /**
+     * Создает вычислитель на общем пуле с размером блока по умолчанию
+     */
+    public ParallelEvaluator() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Создает вычислитель
+     * @param pool пул потоков, на котором выполняются задачи
+     * @param chunkSize минимальное количество строк в задаче; округляется вверх до кратного 64,
+     *                  но не больше {@code Integer.MAX_VALUE - 63}
+     * @throws IllegalArgumentException если размер блока не положителен
+     */
+    public ParallelEvaluator(ForkJoinPool pool, int chunkSize) throws IllegalArgumentException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Размер блока должен быть положительным: " + chunkSize);
+        }
+        this.pool = pool;
+        this.chunkSize = (int) Math.min(MAX_CHUNK_SIZE, ((long) chunkSize + Long.SIZE - 1) / Long.SIZE * Long.SIZE);
+    }
+
+    /**
+     * Возвращает размер блока строк
+     * @return количество строк, кратное 64
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Вычисляет выражение для всех строк
+     * @param expression скомпилированное выражение
+     * @param columns столбцы значений переменных по номерам слотов
+     * @param out массив результатов, по одному на строку
+     * @param errors битовая карта ошибок (бит i соответствует строке i) или null, если она не нужна
+     * @return количество строк, вычисление которых завершилось ошибкой
+     * @throws IllegalArgumentException если столбцов недостаточно или их длина меньше числа строк
+     */
+    public int evaluate(CompiledExpression expression, double[][] columns, double[] out, long[] errors)
+            throws IllegalArgumentException {
+        BatchEvaluator.checkArguments(expression, columns, out, errors, 0, out.length);
+        return pool.invoke(new Chunk(expression, columns, out, errors, 0, out.length));
+    }
+
+    /**
+     * Вычисляет выражение для всех строк, выбирая столбцы по именам переменных
+     * @param expression скомпилированное выражение
+     * @param columns столбцы значений переменных по именам
+     * @param out массив результатов, по одному на строку
+     * @param errors битовая карта ошибок (бит i соответствует строке i) или null, если она не нужна
+     * @return количество строк, вычисление которых завершилось ошибкой
+     * @throws IllegalArgumentException если столбец какой-либо переменной не задан или слишком короткий
+     */
+    public int evaluate(CompiledExpression expression, Map<String, double[]> columns, double[] out, long[] errors)
+            throws IllegalArgumentException {
+        return evaluate(expression, BatchEvaluator.columnsBySlot(expression, columns), out, errors);
+    }
+
+    private final class Chunk extends RecursiveTask<Integer> {
+        private final CompiledExpression expression;
+        private final double[][] columns;
+        private final double[] out;
+        private final long[] errors;
+        private final int from;
+        private final int to;
+
+        Chunk(CompiledExpression expression, double[][] columns, double[] out, long[] errors, int from, int to) {
+            this.expression = expression;
+            this.columns = columns;
+            this.out = out;
+            this.errors = errors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            int length = to - from;
+            if (length <= chunkSize) {
+                return BatchEvaluator.evaluate(expression, columns, out, errors, from, to);
+            }
+            // chunks / 2 * chunkSize < length, поэтому середина не переполняется
+            int chunks = length / chunkSize + (length % chunkSize == 0 ? 0 : 1);
+            int middle = from + chunks / 2 * chunkSize;
+            Chunk left = new Chunk(expression, columns, out, errors, from, middle);
+            Chunk right = new Chunk(expression, columns, out, errors, middle, to);
+            left.fork();
+            int failed = right.compute();
+            return failed + left.join();
+        }
+    }
+}
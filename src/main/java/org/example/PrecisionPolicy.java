@@ -0,0 +1,22 @@
+package org.example;
+
+/**
+ * Политика точности вычисления встроенных функций. Задается в {@link EvaluatorConfig} и сохраняется
+ * в каждом скомпилированном выражении, поэтому выражения с разными политиками можно вычислять в одной JVM.
+ *
+ * Политика действует на обычное вычисление {@link CompiledExpression}, сгенерированный байт-код,
+ * {@link RegisterEvaluator} и {@link BatchEvaluator}. Интервальное вычисление, дифференцирование,
+ * {@link FormulaSet} и {@link LiveExpression} всегда работают в режиме {@link #STRICT}:
+ * их гарантии (включение значения в интервал, совпадение с обычным вычислением) опираются на функции {@link Math}.
+ */
+public enum PrecisionPolicy {
+    /** Функции {@link Math}; результат не зависит от способа вычисления (режим по умолчанию) */
+    STRICT,
+    /**
+     * Быстрые приближения sin, cos, tan, ln, log, hypot и возведение в целую степень умножением.
+     * Относительная погрешность не превышает 1e-14 (границы по функциям описаны в {@code FastMath});
+     * ошибки области определения те же, что в режиме {@link #STRICT}.
+     * Константные подвыражения сворачиваются при компиляции точными функциями.
+     */
+    FAST
+}
@@ -0,0 +1,230 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Регистровый интерпретатор скомпилированного выражения.
+ * При создании постфиксная программа один раз анализируется: проверяется баланс стека, а каждое
+ * значение на стеке получает постоянный регистр. Переменные и литералы занимают собственные регистры
+ * и не требуют инструкций загрузки, а промежуточные результаты размещаются во временных регистрах,
+ * которые освобождаются сразу после использования. Поэтому инструкций меньше, чем в постфиксной
+ * программе (только операции), а временных регистров обычно меньше максимальной глубины стека:
+ * для {@code x + y * z} глубина равна 3, а временный регистр нужен один.
+ *
+ * Файл регистров: {@code [переменные | литералы | временные | аргументы вызова]}.
+ * Пользовательской функции аргументы передаются подряд, поэтому перед вызовом они копируются
+ * в последний участок файла.
+ *
+ * Результаты и ошибки совпадают с обычным вычислением побитово: операции выполняют те же методы {@link OpCode}
+ * и {@link FastMath} (для выражений с политикой {@link PrecisionPolicy#FAST}).
+ * Экземпляр владеет файлом регистров, поэтому вычисление не выделяет память.
+ * Экземпляр изменяемый и не потокобезопасен.
+ */
+public final class RegisterEvaluator {
+    private final CompiledExpression expression;
+    private final FunctionDefinition[] functions;
+    private final int[] ops;
+    private final int[] targets;
+    private final int[] first;
+    private final int[] second;
+    private final int[] third;
+    /** Регистры аргументов вызовов пользовательских функций; инструкция CALL хранит в second начало своего участка */
+    private final int[] callArguments;
+    private final int variableCount;
+    private final int temporaryCount;
+    private final int argumentsStart;
+    private final int result;
+    private final boolean fast;
+    private final double[] registers;
+
+    /**
+     * Анализирует выражение и распределяет регистры
+     * @param expression скомпилированное выражение
+     * @throws IllegalArgumentException если программа выражения не сбалансирована по стеку
+     */
+    public RegisterEvaluator(CompiledExpression expression) throws IllegalArgumentException {
+        this.expression = expression;
+        this.functions = expression.functions();
+        int[] opcodes = expression.opcodes();
+        int[] operands = expression.operands();
+        double[] literals = expression.literals();
+        variableCount = expression.getVariableCount();
+        fast = expression.getPrecision() == PrecisionPolicy.FAST;
+        int temporariesStart = variableCount + literals.length;
+
+        int operations = 0;
+        int callArgumentCount = 0;
+        int maxArity = 0;
+        for (int pc = 0; pc < opcodes.length; pc++) {
+            if (opcodes[pc] != OpCode.CONST && opcodes[pc] != OpCode.VAR) {
+                operations++;
+            }
+            if (opcodes[pc] == OpCode.CALL) {
+                int arity = functions[operands[pc]].arity;
+                callArgumentCount += arity;
+                maxArity = Math.max(maxArity, arity);
+            }
+        }
+        ops = new int[operations];
+        targets = new int[operations];
+        first = new int[operations];
+        second = new int[operations];
+        third = new int[operations];
+        callArguments = new int[callArgumentCount];
+
+        // Регистры значений на стеке; временный регистр возвращается в пул, как только значение снято со стека
+        int[] stack = new int[opcodes.length];
+        boolean[] busy = new boolean[opcodes.length];
+        int sp = 0;
+        int used = 0;
+        int instruction = 0;
+        int argumentOffset = 0;
+        for (int pc = 0; pc < opcodes.length; pc++) {
+            int op = opcodes[pc];
+            if (op == OpCode.CONST || op == OpCode.VAR) {
+                stack[sp++] = op == OpCode.VAR ? operands[pc] : variableCount + operands[pc];
+                continue;
+            }
+            int arity = expression.arity(pc);
+            if (sp < arity) {
+                throw new IllegalArgumentException("Некорректное выражение: недостаточно операндов");
+            }
+            sp -= arity;
+            ops[instruction] = op;
+            if (op == OpCode.CALL) {
+                first[instruction] = operands[pc];
+                second[instruction] = argumentOffset;
+                System.arraycopy(stack, sp, callArguments, argumentOffset, arity);
+                argumentOffset += arity;
+            } else {
+                first[instruction] = stack[sp];
+                second[instruction] = arity > 1 ? stack[sp + 1] : 0;
+                third[instruction] = arity > 2 ? stack[sp + 2] : 0;
+            }
+            for (int k = 0; k < arity; k++) {
+                if (stack[sp + k] >= temporariesStart) {
+                    busy[stack[sp + k] - temporariesStart] = false;
+                }
+            }
+            // Аргументы читаются до записи результата, поэтому результат может занять регистр аргумента
+            int temporary = 0;
+            while (busy[temporary]) {
+                temporary++;
+            }
+            busy[temporary] = true;
+            used = Math.max(used, temporary + 1);
+            targets[instruction++] = temporariesStart + temporary;
+            stack[sp++] = temporariesStart + temporary;
+        }
+        if (sp != 1) {
+            throw new IllegalArgumentException("Некорректное выражение");
+        }
+
+        temporaryCount = used;
+        argumentsStart = temporariesStart + used;
+        result = stack[0];
+        registers = new double[argumentsStart + maxArity];
+        System.arraycopy(literals, 0, registers, variableCount, literals.length);
+    }
+
+    /**
+     * Возвращает выражение
+     * @return скомпилированное выражение
+     */
+    public CompiledExpression getExpression() {
+        return expression;
+    }
+
+    /**
+     * Возвращает количество инструкций регистровой программы
+     * @return количество операций; загрузки переменных и литералов инструкциями не являются
+     */
+    public int getInstructionCount() {
+        return ops.length;
+    }
+
+    /**
+     * Возвращает количество временных регистров
+     * @return количество регистров для промежуточных результатов
+     */
+    public int getTemporaryCount() {
+        return temporaryCount;
+    }
+
+    /**
+     * Возвращает размер файла регистров
+     * @return количество регистров, включая переменные, литералы и аргументы вызовов
+     */
+    public int getRegisterCount() {
+        return registers.length;
+    }
+
+    /**
+     * Вычисляет выражение
+     * @param slots значения переменных; индекс совпадает с номером слота из {@link CompiledExpression#slotOf(String)}
+     * @return результат вычисления выражения
+     * @throws IllegalArgumentException если значений меньше, чем переменных, или при ошибке вычисления
+     */
+    public double evaluate(double[] slots) throws IllegalArgumentException {
+        if (slots.length < variableCount) {
+            throw new IllegalArgumentException("Ожидается значений переменных: " + variableCount);
+        }
+        double[] r = registers;
+        System.arraycopy(slots, 0, r, 0, variableCount);
+
+        for (int i = 0; i < ops.length; i++) {
+            int a = first[i];
+            int b = second[i];
+            switch (ops[i]) {
+                case OpCode.ADD: r[targets[i]] = r[a] + r[b]; break;
+                case OpCode.SUB: r[targets[i]] = r[a] - r[b]; break;
+                case OpCode.MUL: r[targets[i]] = r[a] * r[b]; break;
+                case OpCode.DIV: r[targets[i]] = OpCode.divide(r[a], r[b]); break;
+                case OpCode.POW: r[targets[i]] = fast ? FastMath.pow(r[a], r[b]) : Math.pow(r[a], r[b]); break;
+                case OpCode.SIN: r[targets[i]] = fast ? FastMath.sin(r[a]) : Math.sin(r[a]); break;
+                case OpCode.COS: r[targets[i]] = fast ? FastMath.cos(r[a]) : Math.cos(r[a]); break;
+                case OpCode.TAN: r[targets[i]] = fast ? FastMath.tan(r[a]) : Math.tan(r[a]); break;
+                case OpCode.ASIN: r[targets[i]] = Math.asin(r[a]); break;
+                case OpCode.ACOS: r[targets[i]] = Math.acos(r[a]); break;
+                case OpCode.ATAN: r[targets[i]] = Math.atan(r[a]); break;
+                case OpCode.SQRT: r[targets[i]] = OpCode.sqrt(r[a]); break;
+                case OpCode.LOG: r[targets[i]] = fast ? FastMath.log10(r[a]) : OpCode.log10(r[a]); break;
+                case OpCode.LN: r[targets[i]] = fast ? FastMath.ln(r[a]) : OpCode.ln(r[a]); break;
+                case OpCode.EXP: r[targets[i]] = Math.exp(r[a]); break;
+                case OpCode.ABS: r[targets[i]] = Math.abs(r[a]); break;
+                case OpCode.NEG: r[targets[i]] = 0.0 - r[a]; break;
+                case OpCode.MIN: r[targets[i]] = Math.min(r[a], r[b]); break;
+                case OpCode.MAX: r[targets[i]] = Math.max(r[a], r[b]); break;
+                case OpCode.HYPOT: r[targets[i]] = fast ? FastMath.hypot(r[a], r[b]) : Math.hypot(r[a], r[b]); break;
+                case OpCode.CLAMP: r[targets[i]] = OpCode.clamp(r[a], r[b], r[third[i]]); break;
+                case OpCode.CALL: {
+                    FunctionDefinition function = functions[a];
+                    for (int k = 0; k < function.arity; k++) {
+                        r[argumentsStart + k] = r[callArguments[b + k]];
+                    }
+                    r[targets[i]] = function.implementation.apply(r, argumentsStart);
+                    break;
+                }
+                default: throw new IllegalStateException("Неизвестная инструкция: " + ops[i]);
+            }
+        }
+        return r[result];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < ops.length; i++) {
+            text.append('r').append(targets[i]).append(" = ")
+                    .append(ops[i] == OpCode.CALL ? functions[first[i]].name : OpCode.name(ops[i])).append(' ');
+            int[] arguments = ops[i] == OpCode.CALL
+                    ? Arrays.copyOfRange(callArguments, second[i], second[i] + functions[first[i]].arity)
+                    : Arrays.copyOf(new int[]{first[i], second[i], third[i]}, OpCode.arity(ops[i]));
+            for (int k = 0; k < arguments.length; k++) {
+                text.append(k == 0 ? "r" : ", r").append(arguments[k]);
+            }
+            text.append('\n');
+        }
+        return text.append("return r").append(result).toString();
+    }
+}
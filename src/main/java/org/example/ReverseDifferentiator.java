@@ -0,0 +1,107 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Обратный режим автоматического дифференцирования: прямой проход вычисляет значение и записывает
+ * на ленту частные производные каждой инструкции по ее аргументам, обратный проход распространяет
+ * сопряженные значения от результата к переменным. Стоимость — два прохода по программе
+ * независимо от числа переменных, поэтому режим выгоден для выражений со многими переменными.
+ *
+ * Структура ленты (какая инструкция вычислила каждый аргумент) определяется программой и строится
+ * один раз в конструкторе; при вычислении заполняются только производные.
+ */
+public final class ReverseDifferentiator implements Differentiator {
+    private final CompiledExpression expression;
+    private final double[] stack;
+    /** Начало записей инструкции на ленте: по одной записи на каждый аргумент */
+    private final int[] tapeOffsets;
+    /** Номер инструкции, вычислившей аргумент записи */
+    private final int[] tapeArguments;
+    /** Частная производная инструкции по аргументу записи */
+    private final double[] tapePartials;
+    /** Производная результата по значению каждой инструкции */
+    private final double[] adjoints;
+    /** Количество аргументов каждой инструкции */
+    private final int[] arities;
+    private final double[] scratch;
+
+    /**
+     * Создает вычислитель градиента для выражения
+     * @param expression скомпилированное выражение
+     */
+    public ReverseDifferentiator(CompiledExpression expression) {
+        this.expression = expression;
+        int[] opcodes = expression.opcodes();
+        this.stack = new double[expression.getMaxStackDepth()];
+        this.tapeOffsets = new int[opcodes.length];
+        this.adjoints = new double[opcodes.length];
+        this.arities = Derivatives.arities(expression);
+        this.scratch = new double[Derivatives.maxArity(expression)];
+
+        int size = 0;
+        for (int pc = 0; pc < opcodes.length; pc++) {
+            tapeOffsets[pc] = size;
+            size += arities[pc];
+        }
+        this.tapeArguments = new int[size];
+        this.tapePartials = new double[size];
+        int[] producers = new int[expression.getMaxStackDepth()];
+        int sp = 0;
+        for (int pc = 0; pc < opcodes.length; pc++) {
+            int arity = arities[pc];
+            sp -= arity;
+            System.arraycopy(producers, sp, tapeArguments, tapeOffsets[pc], arity);
+            producers[sp++] = pc;
+        }
+    }
+
+    @Override
+    public double evaluate(double[] slots, double[] gradient) throws IllegalArgumentException {
+        int variables = expression.getVariableCount();
+        if (slots.length < variables || gradient.length < variables) {
+            throw new IllegalArgumentException("Ожидается значений переменных: " + variables);
+        }
+        int[] opcodes = expression.opcodes();
+        int[] operands = expression.operands();
+        double[] literals = expression.literals();
+        FunctionDefinition[] functions = expression.functions();
+
+        int sp = 0;
+        for (int pc = 0; pc < opcodes.length; pc++) {
+            int op = opcodes[pc];
+            if (op == OpCode.CONST) {
+                stack[sp++] = literals[operands[pc]];
+            } else if (op == OpCode.VAR) {
+                stack[sp++] = slots[operands[pc]];
+            } else {
+                sp -= arities[pc];
+                FunctionDefinition function = op == OpCode.CALL ? functions[operands[pc]] : null;
+                double value = op == OpCode.CALL ? function.implementation.apply(stack, sp) : OpCode.apply(op, stack, sp);
+                Derivatives.compute(op, function, stack, sp, value, tapePartials, tapeOffsets[pc], scratch);
+                stack[sp++] = value;
+            }
+        }
+
+        Arrays.fill(gradient, 0, variables, 0);
+        Arrays.fill(adjoints, 0);
+        adjoints[opcodes.length - 1] = 1;
+        for (int pc = opcodes.length - 1; pc >= 0; pc--) {
+            double adjoint = adjoints[pc];
+            // Инструкция, от которой результат не зависит, не вносит вклад даже при бесконечной производной
+            if (adjoint == 0) {
+                continue;
+            }
+            int op = opcodes[pc];
+            if (op == OpCode.VAR) {
+                gradient[operands[pc]] += adjoint;
+            } else if (op != OpCode.CONST) {
+                int end = tapeOffsets[pc] + arities[pc];
+                for (int entry = tapeOffsets[pc]; entry < end; entry++) {
+                    adjoints[tapeArguments[entry]] += adjoint * tapePartials[entry];
+                }
+            }
+        }
+        return stack[0];
+    }
+}
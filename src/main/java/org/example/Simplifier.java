@@ -0,0 +1,130 @@
+package org.example;
+
+/**
+ * Алгебраическое упрощение дерева выражения: свертка констант, нейтральные и поглощающие элементы,
+ * сокращение одинаковых операндов и перенос унарного минуса наружу.
+ * Узлы упрощаются снизу вверх; результат переписывающего правила упрощается повторно.
+ *
+ * В отличие от {@link Optimizer}, который сохраняет результат побитово, здесь применяются и правила,
+ * верные лишь для конечных ненулевых x: 0 * x = 0, 0 / x = 0, x / x = 1. Упрощенное выражение может
+ * вернуть число там, где исходное дает NaN или ошибку деления на ноль.
+ * Константы, вычисление которых завершается ошибкой или дает бесконечность, не сворачиваются.
+ */
+final class Simplifier {
+    private Simplifier() {
+    }
+
+    /**
+     * Упрощает выражение
+     * @param node корень дерева
+     * @return упрощенное дерево
+     */
+    static Node simplify(Node node) {
+        if (node.args.length == 0) {
+            return node;
+        }
+        Node[] args = new Node[node.args.length];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = simplify(node.args[i]);
+        }
+        return node.op == OpCode.CALL ? Node.call(node.function, args) : rewrite(node.op, args);
+    }
+
+    /**
+     * Строит узел из уже упрощенных аргументов, применяя правила упрощения
+     */
+    private static Node rewrite(int op, Node... args) {
+        Node folded = fold(op, args);
+        if (folded != null) {
+            return folded;
+        }
+        if (allConstant(args)) {
+            // Значение не конечно или вычисляется с ошибкой: правила ниже снова свели бы узел к тем же константам
+            return Node.apply(op, args);
+        }
+        Node a = args[0];
+        Node b = args.length > 1 ? args[1] : null;
+        switch (op) {
+            case OpCode.ADD:
+                if (a.isConstant(0)) return b;
+                if (b.isConstant(0)) return a;
+                if (b.op == OpCode.NEG) return rewrite(OpCode.SUB, a, b.args[0]);
+                if (a.op == OpCode.NEG) return rewrite(OpCode.SUB, b, a.args[0]);
+                if (b.isConstant() && b.value < 0) return rewrite(OpCode.SUB, a, Node.constant(-b.value));
+                if (a.equals(b)) return rewrite(OpCode.MUL, Node.TWO, a);
+                break;
+            case OpCode.SUB:
+                if (b.isConstant(0)) return a;
+                if (a.isConstant(0)) return rewrite(OpCode.NEG, b);
+                if (a.equals(b)) return Node.ZERO;
+                if (b.op == OpCode.NEG) return rewrite(OpCode.ADD, a, b.args[0]);
+                if (b.isConstant() && b.value < 0) return rewrite(OpCode.ADD, a, Node.constant(-b.value));
+                break;
+            case OpCode.MUL:
+                if (a.isConstant(0) || b.isConstant(0)) return Node.ZERO;
+                if (a.isConstant(1)) return b;
+                if (b.isConstant(1)) return a;
+                if (a.isConstant(-1)) return rewrite(OpCode.NEG, b);
+                if (b.isConstant(-1)) return rewrite(OpCode.NEG, a);
+                if (a.op == OpCode.NEG) return rewrite(OpCode.NEG, rewrite(OpCode.MUL, a.args[0], b));
+                if (b.op == OpCode.NEG) return rewrite(OpCode.NEG, rewrite(OpCode.MUL, a, b.args[0]));
+                // Константный множитель переносится влево, а его знак — наружу: -2 * x вместо x * (-2)
+                if (b.isConstant() && !a.isConstant()) return rewrite(OpCode.MUL, b, a);
+                if (a.isConstant() && a.value < 0) return rewrite(OpCode.NEG, rewrite(OpCode.MUL, Node.constant(-a.value), b));
+                if (a.isConstant() && b.op == OpCode.MUL && b.args[0].isConstant()) {
+                    return rewrite(OpCode.MUL, rewrite(OpCode.MUL, a, b.args[0]), b.args[1]);
+                }
+                if (a.equals(b)) return rewrite(OpCode.POW, a, Node.TWO);
+                break;
+            case OpCode.DIV:
+                if (b.isConstant(1)) return a;
+                if (a.isConstant(0)) return Node.ZERO;
+                if (a.equals(b)) return Node.ONE;
+                if (a.op == OpCode.NEG) return rewrite(OpCode.NEG, rewrite(OpCode.DIV, a.args[0], b));
+                if (b.op == OpCode.NEG) return rewrite(OpCode.NEG, rewrite(OpCode.DIV, a, b.args[0]));
+                if (a.isConstant() && a.value < 0) return rewrite(OpCode.NEG, rewrite(OpCode.DIV, Node.constant(-a.value), b));
+                break;
+            case OpCode.POW:
+                if (b.isConstant(0)) return Node.ONE;
+                if (b.isConstant(1)) return a;
+                if (a.isConstant(1)) return Node.ONE;
+                break;
+            case OpCode.NEG:
+                if (a.op == OpCode.NEG) return a.args[0];
+                if (a.op == OpCode.SUB) return rewrite(OpCode.SUB, a.args[1], a.args[0]);
+                break;
+            default:
+                break;
+        }
+        return Node.apply(op, args);
+    }
+
+    private static boolean allConstant(Node[] args) {
+        for (Node arg : args) {
+            if (!arg.isConstant()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Вычисляет инструкцию над константами
+     * @return константа или null, если аргументы не константы либо значение не конечно
+     */
+    private static Node fold(int op, Node[] args) {
+        if (!allConstant(args)) {
+            return null;
+        }
+        double[] values = new double[args.length];
+        for (int i = 0; i < args.length; i++) {
+            values[i] = args[i].value;
+        }
+        try {
+            double value = OpCode.apply(op, values, 0);
+            return Double.isNaN(value) || Double.isInfinite(value) ? null : Node.constant(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
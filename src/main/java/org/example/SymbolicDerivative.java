@@ -0,0 +1,111 @@
+package org.example;
+
+/**
+ * Символьное дифференцирование дерева выражения по одной переменной.
+ * Результат не упрощается; для компактной записи его нужно пропустить через {@link Simplifier}.
+ *
+ * Производные abs, min, max и clamp записываются через знак u / |u|, поэтому содержат
+ * деление на |u| и в точках излома (u = 0, равенство аргументов min и max, x на границе clamp)
+ * вычисляются с ошибкой деления на ноль: производной там не существует.
+ * Производные пользовательских функций неизвестны: если аргумент вызова зависит от переменной,
+ * дифференцирование завершается ошибкой.
+ */
+final class SymbolicDerivative {
+    private SymbolicDerivative() {
+    }
+
+    /**
+     * Дифференцирует выражение
+     * @param node корень дерева
+     * @param variable имя переменной
+     * @return дерево производной
+     * @throws IllegalArgumentException если выражение содержит пользовательскую функцию от переменной
+     */
+    static Node differentiate(Node node, String variable) throws IllegalArgumentException {
+        if (!node.dependsOn(variable)) {
+            return Node.ZERO;
+        }
+        if (node.op == OpCode.VAR) {
+            return Node.ONE;
+        }
+        Node u = node.args[0];
+        Node du = differentiate(u, variable);
+        Node v = node.args.length > 1 ? node.args[1] : null;
+        Node dv = v != null ? differentiate(v, variable) : null;
+        switch (node.op) {
+            case OpCode.ADD: return add(du, dv);
+            case OpCode.SUB: return sub(du, dv);
+            case OpCode.MUL: return add(mul(du, v), mul(u, dv));
+            case OpCode.DIV:
+                if (!v.dependsOn(variable)) {
+                    return div(du, v);
+                }
+                return div(sub(mul(du, v), mul(u, dv)), pow(v, Node.TWO));
+            case OpCode.POW:
+                if (!v.dependsOn(variable)) {
+                    return mul(mul(v, pow(u, sub(v, Node.ONE))), du);
+                }
+                if (!u.dependsOn(variable)) {
+                    return mul(mul(node, fn(OpCode.LN, u)), dv);
+                }
+                // (u^v)' = u^v * (v' * ln(u) + v * u' / u)
+                return mul(node, add(mul(dv, fn(OpCode.LN, u)), div(mul(v, du), u)));
+            case OpCode.NEG: return fn(OpCode.NEG, du);
+            case OpCode.SIN: return mul(fn(OpCode.COS, u), du);
+            case OpCode.COS: return fn(OpCode.NEG, mul(fn(OpCode.SIN, u), du));
+            case OpCode.TAN: return div(du, pow(fn(OpCode.COS, u), Node.TWO));
+            case OpCode.ASIN: return div(du, fn(OpCode.SQRT, sub(Node.ONE, pow(u, Node.TWO))));
+            case OpCode.ACOS: return fn(OpCode.NEG, div(du, fn(OpCode.SQRT, sub(Node.ONE, pow(u, Node.TWO)))));
+            case OpCode.ATAN: return div(du, add(Node.ONE, pow(u, Node.TWO)));
+            case OpCode.SQRT: return div(du, mul(Node.TWO, node));
+            case OpCode.LOG: return div(du, mul(u, fn(OpCode.LN, Node.constant(10))));
+            case OpCode.LN: return div(du, u);
+            case OpCode.EXP: return mul(node, du);
+            case OpCode.ABS: return mul(sign(u), du);
+            case OpCode.HYPOT: return div(add(mul(u, du), mul(v, dv)), node);
+            case OpCode.MIN:
+            case OpCode.MAX: {
+                // min(u, v) = (u + v - |u - v|) / 2, max(u, v) = (u + v + |u - v|) / 2
+                Node kink = mul(sign(sub(u, v)), sub(du, dv));
+                Node sum = add(du, dv);
+                return div(node.op == OpCode.MIN ? sub(sum, kink) : add(sum, kink), Node.TWO);
+            }
+            case OpCode.CLAMP:
+                // clamp(x, lo, hi) = min(max(x, lo), hi)
+                return differentiate(Node.apply(OpCode.MIN, Node.apply(OpCode.MAX, u, v), node.args[2]), variable);
+            case OpCode.CALL:
+                throw new IllegalArgumentException("Производная функции " + node.function.name + " неизвестна");
+            default:
+                throw new IllegalStateException("Неизвестная инструкция: " + node.op);
+        }
+    }
+
+    /** Знак u в виде u / |u|; не определен при u = 0, как и производная |u| */
+    private static Node sign(Node u) {
+        return div(u, fn(OpCode.ABS, u));
+    }
+
+    private static Node add(Node a, Node b) {
+        return Node.apply(OpCode.ADD, a, b);
+    }
+
+    private static Node sub(Node a, Node b) {
+        return Node.apply(OpCode.SUB, a, b);
+    }
+
+    private static Node mul(Node a, Node b) {
+        return Node.apply(OpCode.MUL, a, b);
+    }
+
+    private static Node div(Node a, Node b) {
+        return Node.apply(OpCode.DIV, a, b);
+    }
+
+    private static Node pow(Node a, Node b) {
+        return Node.apply(OpCode.POW, a, b);
+    }
+
+    private static Node fn(int op, Node a) {
+        return Node.apply(op, a);
+    }
+}
@@ -0,0 +1,101 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class BatchEvaluatorTest {
+    @Test
+    void testMatchesRowByRowEvaluation() {
+        CompiledExpression expression = ExpressionEvaluator.compile("(x + y) * sin(x) - y / 3 + sqrt(abs(x)) ^ 2.5");
+        int rows = 3 * BatchEvaluator.BLOCK_SIZE + 17;
+        double[][] columns = randomColumns(2, rows, 1);
+        double[] out = new double[rows];
+
+        assertEquals(0, BatchEvaluator.evaluate(expression, columns, out, null));
+        for (int row = 0; row < rows; row++) {
+            double expected = expression.evaluate(new double[]{columns[0][row], columns[1][row]});
+            assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(out[row]));
+        }
+    }
+
+    @Test
+    void testDomainErrorsAreReportedPerRow() {
+        CompiledExpression expression = ExpressionEvaluator.compile("1 / x + sqrt(y) + log(z) * 0 ^ 0");
+        double[][] columns = {
+                {1, 0, 1, 1, 2},
+                {4, 4, -1, 4, 9},
+                {1, 1, 1, 0, 10}
+        };
+        double[] out = new double[5];
+        long[] errors = new long[BatchEvaluator.errorWords(5)];
+
+        assertEquals(3, BatchEvaluator.evaluate(expression, columns, out, errors));
+        assertEquals(1 + 2 + 0, out[0], 0.0001);
+        assertTrue(Double.isNaN(out[1]));
+        assertTrue(Double.isNaN(out[2]));
+        assertTrue(Double.isNaN(out[3]));
+        assertEquals(0.5 + 3 + 1, out[4], 0.0001);
+        assertFalse(BatchEvaluator.isError(errors, 0));
+        assertTrue(BatchEvaluator.isError(errors, 1));
+        assertTrue(BatchEvaluator.isError(errors, 2));
+        assertTrue(BatchEvaluator.isError(errors, 3));
+        assertFalse(BatchEvaluator.isError(errors, 4));
+    }
+
+    @Test
+    void testRange() {
+        CompiledExpression expression = ExpressionEvaluator.compile("x * 2");
+        double[][] columns = {{1, 2, 3, 4, 5}};
+        double[] out = new double[5];
+        BatchEvaluator.evaluate(expression, columns, out, null, 1, 4);
+        assertEquals(0, out[0]);
+        assertEquals(4, out[1]);
+        assertEquals(8, out[3]);
+        assertEquals(0, out[4]);
+    }
+
+    @Test
+    void testColumnsByName() {
+        CompiledExpression expression = ExpressionEvaluator.compile("a - b");
+        Map<String, double[]> columns = new HashMap<>();
+        columns.put("b", new double[]{1, 2});
+        columns.put("a", new double[]{10, 20});
+        double[] out = new double[2];
+        BatchEvaluator.evaluate(expression, columns, out, null);
+        assertEquals(9, out[0]);
+        assertEquals(18, out[1]);
+
+        columns.remove("b");
+        assertThrows(IllegalArgumentException.class, () -> BatchEvaluator.evaluate(expression, columns, out, null));
+    }
+
+    @Test
+    void testShortColumn() {
+        CompiledExpression expression = ExpressionEvaluator.compile("x + 1");
+        assertThrows(IllegalArgumentException.class, () ->
+                BatchEvaluator.evaluate(expression, new double[][]{{1}}, new double[2], null));
+    }
+
+    static double[][] randomColumns(int count, int rows, long seed) {
+        Random random = new Random(seed);
+        double[][] columns = new double[count][rows];
+        for (double[] column : columns) {
+            for (int row = 0; row < rows; row++) {
+                column[row] = random.nextDouble() * 20 - 10;
+            }
+        }
+        return columns;
+    }
+}
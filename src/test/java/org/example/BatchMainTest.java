@@ -0,0 +1,125 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class BatchMainTest {
+    @TempDir
+    Path directory;
+
+    private int run(String... args) {
+        PrintStream sink = new PrintStream(new ByteArrayOutputStream());
+        return BatchMain.run(args, sink, sink);
+    }
+
+    @Test
+    void testCsv() throws IOException {
+        Path input = directory.resolve("in.csv");
+        Path output = directory.resolve("out.csv");
+        Files.writeString(input, "x, y, unused\n1,2,abc\r\n-0.5 , 1e2,\n\n3.25,0,7\n4,-2,8");
+
+        assertEquals(0, run("--input", input.toString(), "--output", output.toString(), "x + y", "x / y"));
+        List<String> lines = Files.readAllLines(output);
+        assertEquals(List.of("\"x + y\",\"x / y\"", "3.0,0.5", "99.5,-0.005", "3.25,NaN", "2.0,-2.0"), lines);
+    }
+
+    @Test
+    void testCsvWindowBoundaries() throws IOException {
+        Path input = directory.resolve("in.csv");
+        StringBuilder text = new StringBuilder("a,b\n");
+        double[] expected = new double[1000];
+        for (int row = 0; row < expected.length; row++) {
+            text.append(row).append(',').append(row * 0.125).append('\n');
+            expected[row] = row + row * 0.125;
+        }
+        Files.writeString(input, text);
+
+        try (CsvColumnReader reader = new CsvColumnReader(input, 64)) {
+            double[][] columns = {new double[300], new double[300]};
+            double[] actual = new double[expected.length];
+            int total = 0;
+            int count;
+            while ((count = reader.read(columns, 300)) > 0) {
+                for (int row = 0; row < count; row++) {
+                    actual[total + row] = columns[0][row] + columns[1][row];
+                }
+                total += count;
+            }
+            assertEquals(expected.length, total);
+            assertArrayEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void testBinary() throws IOException {
+        int rows = 5000;
+        Path input = directory.resolve("in.bin");
+        Path output = directory.resolve("out.bin");
+        ByteBuffer buffer = ByteBuffer.allocate(rows * 2 * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int row = 0; row < rows; row++) {
+            buffer.putDouble(row * Double.BYTES, row);
+            buffer.putDouble((rows + row) * Double.BYTES, row % 7);
+        }
+        Files.write(input, buffer.array());
+
+        assertEquals(0, run("--format", "binary", "--columns", "a,b", "--chunk-rows", "1024",
+                "--input", input.toString(), "--output", output.toString(), "a * 2 + b", "a / b"));
+        ByteBuffer result = ByteBuffer.wrap(Files.readAllBytes(output)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(rows * 2 * Double.BYTES, result.capacity());
+        for (int row = 0; row < rows; row++) {
+            assertEquals(row * 2.0 + row % 7, result.getDouble(row * Double.BYTES));
+            double quotient = result.getDouble((rows + row) * Double.BYTES);
+            if (row % 7 == 0) {
+                assertTrue(Double.isNaN(quotient));
+            } else {
+                assertEquals((double) row / (row % 7), quotient);
+            }
+        }
+    }
+
+    @Test
+    void testConfiguration() throws IOException {
+        Path input = directory.resolve("in.csv");
+        Path output = directory.resolve("out.csv");
+        Files.writeString(input, "x\n1\n2\n");
+        EvaluatorConfig config = EvaluatorConfig.builder().constant("k", 10).build();
+        PrintStream sink = new PrintStream(new ByteArrayOutputStream());
+
+        assertEquals(0, BatchMain.run(new String[]{"--precision", "fast", "--input", input.toString(),
+                "--output", output.toString(), "k * x"}, config, sink, sink));
+        assertEquals(List.of("\"k * x\"", "10.0", "20.0"), Files.readAllLines(output));
+        assertEquals(1, run("--input", input.toString(), "--output", output.toString(), "k * x"));
+        assertEquals(2, run("--precision", "exact", "--input", input.toString(), "--output", output.toString(), "x"));
+    }
+
+    @Test
+    void testErrors() throws IOException {
+        Path input = directory.resolve("in.csv");
+        Path output = directory.resolve("out.csv");
+        Files.writeString(input, "x\n1\n2,3\n", StandardCharsets.UTF_8);
+
+        assertEquals(2, run("--input", input.toString(), "x"));
+        assertEquals(2, run("--format", "xml", "--input", input.toString(), "--output", output.toString(), "x"));
+        assertEquals(1, run("--input", input.toString(), "--output", output.toString(), "y"));
+        assertEquals(1, run("--input", input.toString(), "--output", output.toString(), "x"));
+        assertEquals(1, run("--format", "binary", "--input", input.toString(), "--output", output.toString(), "x"));
+    }
+}
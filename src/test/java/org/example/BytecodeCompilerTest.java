@@ -0,0 +1,117 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+
+
+import java.util.Random;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class BytecodeCompilerTest {
+    private static final String[] EXPRESSIONS = {
+            "2 + 2",
+            "x * y - z / 3",
+            "(a + b) * c - sqrt(b^2) / log(a^b) + sin(pi/2)",
+            "sin(x) + cos(y) * tan(z) - asin(x / 10) + acos(y / 10) - atan(z)",
+            "exp(-x) * abs(y) ^ 1.5 + ln(abs(z) + 1)",
+            "-x ^ 2 + 5 * -y"
+    };
+
+    @Test
+    void testMatchesInterpreterBitForBit() {
+        Random random = new Random(42);
+        for (String source : EXPRESSIONS) {
+            CompiledExpression expression = ExpressionEvaluator.compile(source);
+            ExpressionKernel kernel = BytecodeCompiler.compile(expression);
+            assertNotNull(kernel, source);
+
+            double[] slots = new double[expression.getVariableCount()];
+            double[] stack = new double[expression.getMaxStackDepth()];
+            for (int i = 0; i < 1000; i++) {
+                for (int s = 0; s < slots.length; s++) {
+                    slots[s] = random.nextDouble() * 10 - 5;
+                }
+                double interpreted;
+                try {
+                    interpreted = expression.evaluate(slots, stack);
+                } catch (IllegalArgumentException e) {
+                    IllegalArgumentException compiled = assertThrows(IllegalArgumentException.class,
+                            () -> kernel.evaluate(slots), source);
+                    assertEquals(e.getMessage(), compiled.getMessage());
+                    continue;
+                }
+                assertEquals(Double.doubleToRawLongBits(interpreted), Double.doubleToRawLongBits(kernel.evaluate(slots)),
+                        source);
+            }
+        }
+    }
+
+    @Test
+    void testDomainErrors() {
+        ExpressionKernel division = BytecodeCompiler.compile(ExpressionEvaluator.compile("1 / x"));
+        assertEquals("Деление на ноль",
+                assertThrows(IllegalArgumentException.class, () -> division.evaluate(new double[]{0})).getMessage());
+
+        ExpressionKernel root = BytecodeCompiler.compile(ExpressionEvaluator.compile("sqrt(x)"));
+        assertEquals("Корень из отрицательного числа",
+                assertThrows(IllegalArgumentException.class, () -> root.evaluate(new double[]{-1})).getMessage());
+
+        ExpressionKernel log = BytecodeCompiler.compile(ExpressionEvaluator.compile("log(x) + ln(x)"));
+        assertEquals("Логарифм неположительного числа",
+                assertThrows(IllegalArgumentException.class, () -> log.evaluate(new double[]{0})).getMessage());
+    }
+
+    @Test
+    void testCheckedEvaluation() {
+        ExpressionKernel kernel = BytecodeCompiler.compile(ExpressionEvaluator.compile("sqrt(x) + clamp(y, 1, x) / y"));
+        int[] status = {EvaluationStatus.OK};
+        assertEquals(3.0, kernel.evaluate(new double[]{4, 2}, status));
+        assertEquals(EvaluationStatus.OK, status[0]);
+
+        kernel.evaluate(new double[]{-1, 0}, status);
+        assertEquals(EvaluationStatus.NEGATIVE_SQRT, status[0]);
+        // Записывается первая ошибка
+        kernel.evaluate(new double[]{4, 0}, status);
+        assertEquals(EvaluationStatus.NEGATIVE_SQRT, status[0]);
+        status[0] = EvaluationStatus.OK;
+        kernel.evaluate(new double[]{4, 0}, status);
+        assertEquals(EvaluationStatus.DIVISION_BY_ZERO, status[0]);
+        status[0] = EvaluationStatus.OK;
+        kernel.evaluate(new double[]{0.5, 2}, status);
+        assertEquals(EvaluationStatus.INVALID_CLAMP_BOUNDS, status[0]);
+    }
+
+    @Test
+    void testManyVariables() {
+        StringBuilder source = new StringBuilder("v0");
+        for (int i = 1; i < 300; i++) {
+            source.append(" + v").append(i);
+        }
+        CompiledExpression expression = ExpressionEvaluator.compile(source.toString());
+        double[] slots = new double[300];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = i;
+        }
+        assertEquals(expression.evaluate(slots, new double[2]), BytecodeCompiler.compile(expression).evaluate(slots));
+    }
+
+    @Test
+    void testPromotionAfterThreshold() {
+        CompiledExpression expression = ExpressionEvaluator.compile("x * x + 1");
+        double[] slots = {3.0};
+        assertFalse(expression.isJitCompiled());
+        for (int i = 0; i < BytecodeCompiler.THRESHOLD; i++) {
+            assertEquals(10.0, expression.evaluate(slots));
+        }
+        assertTrue(expression.isJitCompiled());
+        assertEquals(10.0, expression.evaluate(slots));
+        assertThrows(IllegalArgumentException.class, () -> expression.evaluate(new double[0]));
+    }
+}
@@ -0,0 +1,207 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class CompiledExpressionTest {
+    @Test
+    void testSlotsFollowFirstOccurrence() {
+        CompiledExpression expression = ExpressionEvaluator.compile("y * x + y");
+        assertEquals(List.of("y", "x"), expression.getVariableNames());
+        assertEquals(0, expression.slotOf("y"));
+        assertEquals(1, expression.slotOf("x"));
+        assertEquals(-1, expression.slotOf("z"));
+    }
+
+    @Test
+    void testEvaluateManyTimes() {
+        CompiledExpression expression = ExpressionEvaluator.compile("x^2 + 2*x + 1");
+        for (int x = -10; x <= 10; x++) {
+            assertEquals((x + 1.0) * (x + 1.0), expression.evaluate(new double[]{x}), 0.0001);
+        }
+    }
+
+    @Test
+    void testEvaluateWithMap() {
+        CompiledExpression expression = ExpressionEvaluator.compile("sin(a) + cos(b)");
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("a", 0.0);
+        variables.put("b", 0.0);
+        assertEquals(1.0, expression.evaluate(variables), 0.0001);
+    }
+
+    @Test
+    void testMatchesEvaluate() {
+        String source = "(a + b) * c - sqrt(b^2) / log(a^b) + sin(pi/2)";
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("a", 2.0);
+        variables.put("b", 3.0);
+        variables.put("c", 4.0);
+
+        CompiledExpression expression = ExpressionEvaluator.compile(source);
+        assertEquals(ExpressionEvaluator.evaluate(source, variables), expression.evaluate(variables));
+    }
+
+    @Test
+    void testMaxStackDepth() {
+        assertEquals(1, ExpressionEvaluator.compile("x").getMaxStackDepth());
+        assertEquals(2, ExpressionEvaluator.compile("x + y + z").getMaxStackDepth());
+        assertEquals(3, ExpressionEvaluator.compile("x + y * z").getMaxStackDepth());
+    }
+
+    @Test
+    void testMissingVariable() {
+        CompiledExpression expression = ExpressionEvaluator.compile("x + y");
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 1.0);
+        assertThrows(IllegalArgumentException.class, () -> expression.evaluate(variables));
+        assertThrows(IllegalArgumentException.class, () -> expression.evaluate(new double[]{1.0}));
+    }
+
+    @Test
+    void testDomainErrorsAtEvaluation() {
+        CompiledExpression division = ExpressionEvaluator.compile("1 / x");
+        assertEquals(0.5, division.evaluate(new double[]{2.0}), 0.0001);
+        assertThrows(IllegalArgumentException.class, () -> division.evaluate(new double[]{0.0}));
+
+        CompiledExpression root = ExpressionEvaluator.compile("sqrt(x)");
+        assertThrows(IllegalArgumentException.class, () -> root.evaluate(new double[]{-1.0}));
+    }
+
+    @Test
+    void testTryEvaluateMatchesExceptions() {
+        FunctionRegistry functions = FunctionRegistry.builder()
+                .register("inv", x -> {
+                    if (x == 0) throw new IllegalArgumentException("inv(0)");
+                    return 1 / x;
+                })
+                .build();
+        Evaluator evaluator = new Evaluator(EvaluatorConfig.builder().functions(functions).build());
+        String[] sources = {"1 / x", "sqrt(x - 1)", "log(x) + ln(x + 1)", "clamp(1, x, 2)", "inv(x) ^ 0",
+                "x / 0 + sqrt(-1)", "(1 / x) ^ 0"};
+        double[] values = {-2, -1, 0, 0.5, 1, 3};
+        int[] status = new int[1];
+        for (String source : sources) {
+            CompiledExpression expression = evaluator.compile(source);
+            for (int round = 0; round < 2; round++) {
+                for (double x : values) {
+                    double[] slots = {x};
+                    double result = expression.tryEvaluate(slots, status);
+                    try {
+                        double expected = expression.evaluate(slots);
+                        assertEquals(EvaluationStatus.OK, status[0], source + " при x = " + x);
+                        assertEquals(expected, result);
+                    } catch (EvaluationException e) {
+                        assertTrue(Double.isNaN(result), source + " при x = " + x);
+                        assertEquals(e.getMessage(), EvaluationStatus.message(status[0]));
+                        assertEquals(e.getErrorType(), EvaluationStatus.errorType(status[0]));
+                    } catch (IllegalArgumentException e) {
+                        assertEquals(EvaluationStatus.FUNCTION_ERROR, status[0]);
+                        assertTrue(Double.isNaN(result));
+                    }
+                }
+                // Второй проход — на сгенерированном байт-коде
+                for (int i = 0; i < BytecodeCompiler.THRESHOLD; i++) {
+                    expression.tryEvaluate(new double[]{3}, status);
+                }
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.compile("x + y").tryEvaluate(new double[1], status));
+        assertThrows(IllegalArgumentException.class, () -> EvaluationStatus.message(EvaluationStatus.OK));
+        EvaluationContext context = ExpressionEvaluator.compile("x + y").newContext().set("x", 1);
+        assertTrue(Double.isNaN(context.tryEvaluate(status)));
+        assertEquals(EvaluationStatus.MISSING_VARIABLE, status[0]);
+        assertEquals(3.0, context.set("y", 2).tryEvaluate(status));
+        assertEquals(EvaluationStatus.OK, status[0]);
+    }
+
+    // После прогрева вычисляет сгенерированный байт-код; интерпретатор проверяет InterpreterAllocationTest
+    @Test
+    void testTryEvaluateDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        CompiledExpression expression = ExpressionEvaluator.compile("sqrt(x) + 1 / (x - 4)");
+        double[] slots = new double[1];
+        int[] status = new int[1];
+        int failed = 0;
+        for (int i = 0; i < 20_000; i++) {
+            slots[0] = i % 10 - 1;
+            expression.tryEvaluate(slots, status);
+        }
+
+        threads.getCurrentThreadAllocatedBytes();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            slots[0] = i % 10 - 1;
+            expression.tryEvaluate(slots, status);
+            if (status[0] != EvaluationStatus.OK) {
+                failed++;
+            }
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertEquals(20_000, failed);
+        assertTrue(allocated < 1024, "Выделено байт: " + allocated);
+    }
+
+    @Test
+    void testErrorsFollowPostfixOrder() {
+        Map<String, Double> variables = new HashMap<>();
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ExpressionEvaluator.compile("1/0 + y").evaluate(variables));
+        assertEquals("Деление на ноль", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class,
+                () -> ExpressionEvaluator.compile("y + 1/0").evaluate(variables));
+        assertEquals("Не задано значение переменной: y", e.getMessage());
+
+        variables.put("x", -1.0);
+        e = assertThrows(IllegalArgumentException.class,
+                () -> ExpressionEvaluator.compile("x * 2 + sqrt(x) * y").evaluate(variables));
+        assertEquals("Корень из отрицательного числа", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class,
+                () -> ExpressionEvaluator.compile("x + y * sqrt(x)").evaluate(variables));
+        assertEquals("Не задано значение переменной: y", e.getMessage());
+    }
+
+    @Test
+    void testMalformedPostfix() {
+        assertThrows(IllegalArgumentException.class, () ->
+                ExpressionEvaluator.evaluatePostfix(new String[]{"1", "+"}, new HashMap<>()));
+        assertThrows(IllegalArgumentException.class, () ->
+                ExpressionEvaluator.evaluatePostfix(new String[]{"1", "2"}, new HashMap<>()));
+    }
+
+    // После прогрева вычисляет сгенерированный байт-код; интерпретатор проверяет InterpreterAllocationTest
+    @Test
+    void testSteadyStateEvaluationDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        CompiledExpression expression = ExpressionEvaluator.compile("(a + b) * c - sqrt(b^2) / log(a^b) + sin(pi/2)");
+        double[] slots = {2.0, 3.0, 4.0};
+        double sum = 0;
+        for (int i = 0; i < 20_000; i++) {
+            sum += expression.evaluate(slots);
+        }
+
+        threads.getCurrentThreadAllocatedBytes();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            sum += expression.evaluate(slots);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue(sum > 0);
+        assertTrue(allocated < 1024, "Выделено байт: " + allocated);
+    }
+}
@@ -0,0 +1,118 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+
+
+import java.util.Random;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class DifferentiatorTest {
+    private static double[] gradient(Differentiator differentiator, double... slots) {
+        double[] gradient = new double[slots.length];
+        differentiator.evaluate(slots, gradient);
+        return gradient;
+    }
+
+    @Test
+    void testExactDerivatives() {
+        CompiledExpression expression = ExpressionEvaluator.compile("x^2 * y + sin(x) - y / x");
+        for (Differentiator differentiator : new Differentiator[]{
+                new ForwardDifferentiator(expression), new ReverseDifferentiator(expression)}) {
+            double[] slots = new double[2];
+            slots[expression.slotOf("x")] = 2;
+            slots[expression.slotOf("y")] = 3;
+            double[] gradient = new double[2];
+            assertEquals(expression.evaluate(slots), differentiator.evaluate(slots, gradient));
+            assertEquals(2 * 2 * 3 + Math.cos(2) + 3.0 / 4, gradient[expression.slotOf("x")], 1e-12);
+            assertEquals(4 - 0.5, gradient[expression.slotOf("y")], 1e-12);
+        }
+
+        // Производные в точках, где наивные формулы дают 0 * inf
+        CompiledExpression square = ExpressionEvaluator.compile("x^2 + x^3 + hypot(x, 0) * 0 + abs(x)");
+        assertArrayEquals(new double[]{0}, gradient(new ForwardDifferentiator(square), 0));
+        assertArrayEquals(new double[]{0}, gradient(new ReverseDifferentiator(square), 0));
+        CompiledExpression power = ExpressionEvaluator.compile("2^x + x^x");
+        assertArrayEquals(new double[]{4 * Math.log(2) + 4 * (Math.log(2) + 1)},
+                gradient(new ReverseDifferentiator(power), 2), 1e-12);
+
+        // Переменная, от которой результат не зависит, и константное выражение
+        CompiledExpression constant = ExpressionEvaluator.compile("0 * x + 5");
+        assertArrayEquals(new double[]{0}, gradient(new ForwardDifferentiator(constant), 7));
+        assertArrayEquals(new double[]{0}, gradient(new ReverseDifferentiator(constant), 7));
+    }
+
+    @Test
+    void testAgainstFiniteDifferences() {
+        String[] expressions = {
+                "x * y - x / (y + 20) + 3", "sin(x) * cos(y) + tan(x / 4)", "exp(x / 3) - ln(abs(y) + 1)",
+                "(x + 6)^2.5 + y^3 - (x + 6)^(y / 5)", "sqrt(x + 7) / hypot(x, y)",
+                "max(x, y) * min(x, -y) + clamp(x, -1, 1) * clamp(y, x - 10, x + 10)",
+                "atan(x * y) + asin(x / 9) - acos(y / 9)", "-x^2 / (1 + y^2)", "log(x * x + y * y + 1) ^ 2",
+                "pow(x, 2) * -y + x * x * x * y",
+        };
+        Random random = new Random(18);
+        for (String source : expressions) {
+            CompiledExpression expression = ExpressionEvaluator.compile(source);
+            Differentiator forward = new ForwardDifferentiator(expression);
+            Differentiator reverse = new ReverseDifferentiator(expression);
+            double[] slots = new double[expression.getVariableCount()];
+            double[] forwardGradient = new double[slots.length];
+            double[] reverseGradient = new double[slots.length];
+            for (int point = 0; point < 100; point++) {
+                for (int slot = 0; slot < slots.length; slot++) {
+                    slots[slot] = random.nextDouble() * 10 - 5;
+                }
+                double value = expression.evaluate(slots);
+                assertEquals(value, forward.evaluate(slots, forwardGradient), source);
+                assertEquals(value, reverse.evaluate(slots, reverseGradient), source);
+                for (int slot = 0; slot < slots.length; slot++) {
+                    double x = slots[slot];
+                    double h = 1e-6 * Math.max(1, Math.abs(x));
+                    slots[slot] = x + h;
+                    double right = expression.evaluate(slots);
+                    slots[slot] = x - h;
+                    double left = expression.evaluate(slots);
+                    slots[slot] = x;
+                    double expected = (right - left) / (2 * h);
+                    double tolerance = 1e-5 * Math.max(1, Math.abs(expected));
+                    assertEquals(expected, forwardGradient[slot], tolerance, source);
+                    assertEquals(forwardGradient[slot], reverseGradient[slot],
+                            1e-12 * Math.max(1, Math.abs(expected)), source);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testUserFunctionsAndErrors() {
+        FunctionRegistry functions = FunctionRegistry.builder()
+                .register("cube", x -> x * x * x)
+                .register("lerp", 3, (args, offset) -> args[offset] + (args[offset + 1] - args[offset]) * args[offset + 2])
+                .build();
+        Evaluator evaluator = new Evaluator(EvaluatorConfig.builder().functions(functions).build());
+        CompiledExpression expression = evaluator.compile("cube(x) + lerp(0, 10, x)");
+        double[] forward = gradient(new ForwardDifferentiator(expression), 2);
+        double[] reverse = gradient(new ReverseDifferentiator(expression), 2);
+        assertEquals(12 + 10, forward[0], 1e-6);
+        assertEquals(forward[0], reverse[0], 1e-12);
+
+        CompiledExpression division = ExpressionEvaluator.compile("1 / x + sqrt(x - 1)");
+        for (Differentiator differentiator : new Differentiator[]{
+                new ForwardDifferentiator(division), new ReverseDifferentiator(division)}) {
+            EvaluationException e = assertThrows(EvaluationException.class,
+                    () -> differentiator.evaluate(new double[]{0}, new double[1]));
+            assertEquals(ErrorType.DIVISION_BY_ZERO, e.getErrorType());
+            assertThrows(IllegalArgumentException.class, () -> differentiator.evaluate(new double[0], new double[1]));
+            assertThrows(IllegalArgumentException.class, () -> differentiator.evaluate(new double[1], new double[0]));
+            // После ошибки вычислитель остается пригодным
+            assertTrue(Double.isInfinite(gradient(differentiator, 1)[0]));
+        }
+    }
+}
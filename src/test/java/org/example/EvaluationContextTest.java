@@ -0,0 +1,74 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class EvaluationContextTest {
+    @Test
+    void testBindBySlot() {
+        CompiledExpression expression = ExpressionEvaluator.compile("x * y + hypot(x, 3)");
+        EvaluationContext context = expression.newContext();
+        assertSame(expression, context.getExpression());
+        int x = context.slotOf("x");
+        int y = context.slotOf("y");
+        assertEquals(-1, context.slotOf("z"));
+
+        context.set(y, 2);
+        for (int i = 0; i <= 4; i++) {
+            assertEquals(i * 2 + Math.hypot(i, 3), context.set(x, i).evaluate());
+        }
+        // Значения сохраняются между вычислениями до сброса
+        assertEquals(8 + 5.0, context.evaluate());
+        assertEquals(4 * 0.5 + 5.0, context.set("y", 0.5).set("unused", 1).evaluate());
+    }
+
+    @Test
+    void testBindMap() {
+        EvaluationContext context = ExpressionEvaluator.compile("a / b").newContext();
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("a", 3.0);
+        variables.put("c", 1.0);
+
+        EvaluationException e = assertThrows(EvaluationException.class, () -> context.bind(variables));
+        assertEquals("Не задано значение переменной: b", e.getMessage());
+        assertEquals(ErrorType.UNKNOWN_IDENTIFIER, e.getErrorType());
+
+        variables.put("b", 4.0);
+        assertEquals(0.75, context.bind(variables).evaluate());
+        variables.put("b", 0.0);
+        assertThrows(EvaluationException.class, () -> context.bind(variables).evaluate());
+    }
+
+    @Test
+    void testReset() {
+        EvaluationContext context = ExpressionEvaluator.compile("x - y").newContext();
+        assertFalse(context.isBound());
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, context::evaluate);
+        assertEquals("Не задано значение переменной: x", e.getMessage());
+
+        context.set("x", 5).set("y", 2);
+        assertTrue(context.isBound());
+        assertEquals(3.0, context.evaluate());
+
+        context.reset().set("y", 1);
+        e = assertThrows(IllegalArgumentException.class, context::evaluate);
+        assertEquals("Не задано значение переменной: x", e.getMessage());
+        assertEquals(6.0, context.set("x", 7).evaluate());
+
+        EvaluationContext constant = ExpressionEvaluator.compile("2 + 2").newContext();
+        assertTrue(constant.isBound());
+        assertEquals(4.0, constant.evaluate());
+    }
+}
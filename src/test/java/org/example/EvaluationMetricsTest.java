@@ -0,0 +1,111 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class EvaluationMetricsTest {
+    @Test
+    void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.snapshot().getValueAtPercentile(50));
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000L);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(50_500, snapshot.getMean(), 1e-9);
+        assertEquals(100_000, snapshot.getMax());
+        assertEquals(100_000, snapshot.getValueAtPercentile(100));
+        long median = snapshot.getValueAtPercentile(50);
+        assertTrue(median >= 50_000 && median <= 50_000 * 1.125, String.valueOf(median));
+        long p99 = snapshot.getValueAtPercentile(99);
+        assertTrue(p99 >= 99_000 && p99 <= 100_000, String.valueOf(p99));
+
+        for (long value : new long[]{0, 7, 8, 15, 16, 1000, 123_456_789, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(LatencyHistogram.upperBound(bucket) >= value);
+            assertTrue(bucket == 0 || LatencyHistogram.upperBound(bucket - 1) < value);
+        }
+    }
+
+    @Test
+    void testPerExpressionMetrics() {
+        assertTrue(EvaluationMetrics.ENABLED, "Тесты запускаются с -Dexpression.metrics=true");
+        Evaluator evaluator = new Evaluator(EvaluatorConfig.builder().cacheSize(16).build());
+        MetricsSnapshot globalBefore = EvaluationMetrics.snapshot();
+
+        Map<String, Double> variables = new HashMap<>();
+        for (int i = 2; i < 6; i++) {
+            variables.put("metricsX", (double) i);
+            evaluator.evaluate("sqrt(metricsX) / (metricsX - 1) + metricsX", variables);
+        }
+        variables.put("metricsX", 1.0);
+        assertThrows(IllegalArgumentException.class,
+                () -> evaluator.evaluate("sqrt(metricsX) / (metricsX - 1) + metricsX", variables));
+        variables.put("metricsX", -1.0);
+        assertThrows(IllegalArgumentException.class,
+                () -> evaluator.evaluate("sqrt(metricsX) / (metricsX - 1) + metricsX", variables));
+        assertThrows(IllegalArgumentException.class,
+                () -> evaluator.evaluate("sqrt(metricsX) / (metricsX - 1) + metricsX", new HashMap<>()));
+
+        // Пробелы, не влияющие на разбор, не делают выражение другим
+        MetricsSnapshot snapshot = EvaluationMetrics.snapshot("sqrt(metricsX)/(metricsX-1)+metricsX");
+        assertNotNull(snapshot);
+        assertEquals(1, snapshot.getCompilationCount());
+        assertEquals(1, snapshot.getCacheMissCount());
+        assertEquals(6, snapshot.getCacheHitCount());
+        assertEquals(4, snapshot.getEvaluationCount());
+        assertEquals(4, snapshot.getEvaluationTime().getCount());
+        assertEquals(1, snapshot.getErrorCount(ErrorType.DIVISION_BY_ZERO));
+        assertEquals(1, snapshot.getErrorCount(ErrorType.DOMAIN_ERROR));
+        assertEquals(1, snapshot.getErrorCount(ErrorType.UNKNOWN_IDENTIFIER));
+        assertEquals(3, snapshot.getTotalErrorCount());
+        assertTrue(EvaluationMetrics.expressionSnapshots().containsKey("sqrt(metricsX)/(metricsX-1)+metricsX"));
+
+        MetricsSnapshot global = EvaluationMetrics.snapshot();
+        assertTrue(global.getEvaluationCount() - globalBefore.getEvaluationCount() >= 4);
+        assertTrue(global.getErrorCount(ErrorType.DIVISION_BY_ZERO)
+                - globalBefore.getErrorCount(ErrorType.DIVISION_BY_ZERO) >= 1);
+    }
+
+    @Test
+    void testParseErrors() {
+        Evaluator evaluator = new Evaluator();
+        assertThrows(IllegalArgumentException.class, () -> evaluator.compile("(metricsY + 1"));
+        assertThrows(IllegalArgumentException.class, () -> evaluator.compile("metricsY + 1)"));
+        assertThrows(IllegalArgumentException.class, () -> evaluator.compile("metricsUnknown(1)"));
+        assertThrows(IllegalArgumentException.class, () -> evaluator.compile("metricsY +* 1"));
+
+        assertEquals(1, EvaluationMetrics.snapshot("(metricsY + 1").getErrorCount(ErrorType.UNBALANCED_PARENTHESES));
+        assertEquals(1, EvaluationMetrics.snapshot("metricsY + 1)").getErrorCount(ErrorType.UNBALANCED_PARENTHESES));
+        assertEquals(1, EvaluationMetrics.snapshot("metricsUnknown(1)").getErrorCount(ErrorType.UNKNOWN_IDENTIFIER));
+        assertEquals(1, EvaluationMetrics.snapshot("metricsY +* 1").getErrorCount(ErrorType.SYNTAX_ERROR));
+    }
+
+    @Test
+    void testJmx() throws Exception {
+        CompiledExpression expression = ExpressionEvaluator.compile("metricsZ * 3");
+        for (int i = 0; i < 3; i++) {
+            expression.evaluate(new double[]{i});
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("org.example:type=EvaluationMetrics,name=" + ObjectName.quote("metricsZ*3"));
+        assertEquals(3L, server.getAttribute(name, "EvaluationCount"));
+        assertEquals("metricsZ*3", server.getAttribute(name, "Source"));
+        assertTrue(server.isRegistered(new ObjectName("org.example:type=EvaluationMetrics,name=\"global\"")));
+    }
+}
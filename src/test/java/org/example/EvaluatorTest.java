@@ -0,0 +1,149 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class EvaluatorTest {
+    @Test
+    void testCustomConstants() {
+        Evaluator physics = new Evaluator(EvaluatorConfig.builder().constant("g", 9.81).build());
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("t", 2.0);
+        assertEquals(9.81 * 4 / 2, physics.evaluate("g * t^2 / 2", variables), 1e-12);
+        assertEquals(Math.PI, physics.evaluate("pi", variables));
+
+        // В конфигурации по умолчанию g — обычная переменная
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.evaluate("g * t", variables));
+        variables.put("g", 1.0);
+        assertEquals(2.0, ExpressionEvaluator.evaluate("g * t", variables));
+    }
+
+    @Test
+    void testRemovedConstantBecomesVariable() {
+        Evaluator evaluator = new Evaluator(EvaluatorConfig.builder().removeConstant("e").build());
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("e", 3.0);
+        assertEquals(6.0, evaluator.evaluate("e * 2", variables));
+        assertEquals(Math.E * 2, ExpressionEvaluator.evaluate("e * 2", variables));
+    }
+
+    @Test
+    void testConfigValidation() {
+        assertThrows(IllegalArgumentException.class, () -> EvaluatorConfig.builder().constant("sin", 1).build());
+        assertThrows(IllegalArgumentException.class, () -> EvaluatorConfig.builder().constant("2x", 1));
+        assertThrows(IllegalArgumentException.class, () -> EvaluatorConfig.builder().cacheSize(-1));
+
+        EvaluatorConfig config = EvaluatorConfig.builder().constant("c", 299792458).cacheSize(10).build();
+        EvaluatorConfig copy = config.toBuilder().constant("h", 6.626e-34).build();
+        assertEquals(3, config.getConstants().size());
+        assertEquals(4, copy.getConstants().size());
+        assertEquals(10, copy.getCacheSize());
+        assertThrows(UnsupportedOperationException.class, () -> config.getConstants().put("x", 1.0));
+    }
+
+    @Test
+    void testCachePerEvaluator() {
+        assertNull(new Evaluator().getCache());
+        Evaluator cached = new Evaluator(EvaluatorConfig.builder().constant("k", 2).cacheSize(8).build());
+        assertNotNull(cached.getCache());
+        assertEquals(4.0, cached.evaluate("k * 2", new HashMap<>()));
+        assertEquals(4.0, cached.evaluate("k*2", new HashMap<>()));
+        assertEquals(1, cached.getCache().getHitCount());
+    }
+
+    @Test
+    void testConcurrentEvaluatorsWithDifferentConfigs() throws Exception {
+        Evaluator one = new Evaluator(EvaluatorConfig.builder().constant("k", 1).cacheSize(16).build());
+        Evaluator two = new Evaluator(EvaluatorConfig.builder().constant("k", 2).build());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Double>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                Evaluator evaluator = i % 2 == 0 ? one : two;
+                double x = i;
+                results.add(executor.submit(() -> {
+                    Map<String, Double> variables = new HashMap<>();
+                    variables.put("x", x);
+                    return evaluator.evaluate("k * x", variables);
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i * (i % 2 == 0 ? 1.0 : 2.0), results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testPrecisionPolicy() {
+        assertEquals(PrecisionPolicy.STRICT, EvaluatorConfig.DEFAULT.getPrecision());
+        assertThrows(IllegalArgumentException.class, () -> EvaluatorConfig.builder().precision(null));
+        EvaluatorConfig fastConfig = EvaluatorConfig.builder().constant("k", 3).precision(PrecisionPolicy.FAST).build();
+        assertEquals(PrecisionPolicy.FAST, fastConfig.toBuilder().build().getPrecision());
+
+        Evaluator strict = new Evaluator(EvaluatorConfig.builder().constant("k", 3).build());
+        Evaluator fast = new Evaluator(fastConfig);
+        String[] sources = {
+                "x^2 + k*x*y^3 - y^4 / 2", "sin(x) * cos(y) + tan(x / 4)", "ln(x^2 + 1) + log(y^2 + 2)",
+                "hypot(x, y) ^ -3 + x ^ 8", "exp(x) - atan(y) + sqrt(abs(x)) ^ 2.5", "(x + y) ^ 3 - ln(x)",
+        };
+        Random random = new Random(11);
+        int[] status = new int[1];
+        for (String source : sources) {
+            CompiledExpression exact = strict.compile(source);
+            CompiledExpression approximate = fast.compile(source);
+            assertEquals(PrecisionPolicy.STRICT, exact.getPrecision());
+            assertEquals(PrecisionPolicy.FAST, approximate.getPrecision());
+            ExpressionKernel kernel = BytecodeCompiler.compile(approximate);
+            RegisterEvaluator registers = new RegisterEvaluator(approximate);
+
+            double[][] columns = new double[2][500];
+            double[] batch = new double[500];
+            for (int i = 0; i < 500; i++) {
+                columns[0][i] = random.nextDouble() * 8 - 4;
+                columns[1][i] = random.nextDouble() * 8 - 4;
+            }
+            BatchEvaluator.evaluate(approximate, columns, batch, null);
+            for (int i = 0; i < 500; i++) {
+                double[] slots = {columns[0][i], columns[1][i]};
+                double expected;
+                try {
+                    expected = exact.evaluate(slots);
+                } catch (IllegalArgumentException e) {
+                    assertEquals(e.getMessage(), assertThrows(IllegalArgumentException.class,
+                            () -> approximate.evaluate(slots)).getMessage(), source);
+                    assertTrue(Double.isNaN(approximate.tryEvaluate(slots, status)));
+                    assertTrue(Double.isNaN(batch[i]));
+                    continue;
+                }
+                double actual = approximate.evaluate(slots);
+                assertEquals(expected, actual, 1e-13 * Math.max(1, Math.abs(expected)), source);
+                // Все способы вычисления в режиме FAST дают один и тот же результат
+                long bits = Double.doubleToRawLongBits(actual);
+                assertEquals(bits, Double.doubleToRawLongBits(approximate.tryEvaluate(slots, status)), source);
+                assertEquals(bits, Double.doubleToRawLongBits(kernel.evaluate(slots)), source);
+                assertEquals(bits, Double.doubleToRawLongBits(registers.evaluate(slots)), source);
+                assertEquals(bits, Double.doubleToRawLongBits(batch[i]), source);
+            }
+        }
+    }
+}
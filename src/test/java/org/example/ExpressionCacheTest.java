@@ -0,0 +1,129 @@
+package org.example;
+
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class ExpressionCacheTest {
+    @AfterEach
+    void disableCache() {
+        ExpressionEvaluator.disableCache();
+    }
+
+    @Test
+    void testHitsAndMisses() {
+        ExpressionCache cache = new ExpressionCache(10);
+        CompiledExpression first = cache.get("x + 1");
+        assertSame(first, cache.get("x + 1"));
+        assertSame(first, cache.get("  x+1 "));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testNormalization() {
+        assertEquals("2*(x+1)", ExpressionCache.normalize("  2 * ( x + 1 )  "));
+        assertEquals("sin(x)", ExpressionCache.normalize("sin(x)"));
+        assertEquals("sin (x)", ExpressionCache.normalize("sin  (x)"));
+        assertEquals("1 2", ExpressionCache.normalize("1   2"));
+    }
+
+    @Test
+    void testSignificantSpacesAreNotMerged() {
+        ExpressionCache cache = new ExpressionCache(10);
+        cache.get("sin(x)");
+        assertThrows(IllegalArgumentException.class, () -> cache.get("sin (x)"));
+        cache.get("12");
+        assertThrows(IllegalArgumentException.class, () -> cache.get("1 2"));
+    }
+
+    @Test
+    void testLeastRecentlyUsedEviction() {
+        ExpressionCache cache = new ExpressionCache(2, 1);
+        CompiledExpression a = cache.get("a");
+        cache.get("b");
+        cache.get("a");
+        cache.get("c");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertSame(a, cache.get("a"));
+        long misses = cache.getMissCount();
+        cache.get("b");
+        assertEquals(misses + 1, cache.getMissCount());
+    }
+
+    @Test
+    void testSizeNeverExceedsMaximum() {
+        for (int maximumSize : new int[]{1, 3, 17, 100}) {
+            ExpressionCache cache = new ExpressionCache(maximumSize);
+            for (int i = 0; i < maximumSize * 20; i++) {
+                cache.get("x + " + i);
+                assertTrue(cache.size() <= maximumSize, maximumSize + ": " + cache.size());
+            }
+            assertEquals(maximumSize * 20 - cache.size(), cache.getEvictionCount());
+        }
+    }
+
+    @Test
+    void testWorkingSetBelowMaximumIsNotEvicted() {
+        for (int maximumSize : new int[]{16, 64, 1000}) {
+            ExpressionCache cache = new ExpressionCache(maximumSize);
+            int keys = maximumSize * 3 / 4;
+            for (int round = 0; round < 100; round++) {
+                for (int i = 0; i < keys; i++) {
+                    cache.get("x + " + i);
+                }
+            }
+            assertEquals(keys, cache.size(), "maximumSize " + maximumSize);
+            assertEquals(0, cache.getEvictionCount(), "maximumSize " + maximumSize);
+            assertEquals(keys, cache.getMissCount(), "maximumSize " + maximumSize);
+        }
+    }
+
+    @Test
+    void testEvaluatorConfiguration() {
+        Evaluator evaluator = new Evaluator(EvaluatorConfig.builder().constant("c", 2).build());
+        ExpressionCache cache = new ExpressionCache(10, evaluator);
+        assertEquals(6.0, cache.get("c * x").evaluate(new double[]{3}));
+        assertEquals(2, new ExpressionCache(10).get("c * x").getVariableCount());
+    }
+
+    @Test
+    void testErrorsAreNotCached() {
+        ExpressionCache cache = new ExpressionCache(10);
+        assertThrows(IllegalArgumentException.class, () -> cache.get("2 +"));
+        assertThrows(IllegalArgumentException.class, () -> cache.get("2 +"));
+        assertEquals(0, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> new ExpressionCache(0));
+    }
+
+    @Test
+    void testEvaluateUsesCache() {
+        ExpressionCache cache = ExpressionEvaluator.enableCache(100);
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 2.0);
+        assertEquals(5.0, ExpressionEvaluator.evaluate("x^2 + 1", variables), 0.0001);
+        assertEquals(5.0, ExpressionEvaluator.evaluate("x^2 + 1", variables), 0.0001);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+
+        ExpressionEvaluator.disableCache();
+        assertNotSame(ExpressionEvaluator.compile("x"), ExpressionEvaluator.compile("x"));
+        ExpressionEvaluator.evaluate("x^2 + 1", variables);
+        assertEquals(1, cache.getHitCount());
+    }
+}
@@ -0,0 +1,79 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+
+
+import java.util.Random;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+public class ExpressionParserTest {
+    private static ExpressionParseException parseError(String expression) {
+        return assertThrows(ExpressionParseException.class, () -> ExpressionEvaluator.infixToPostfix(expression));
+    }
+
+    @Test
+    void testPostfixTokens() {
+        assertArrayEquals(new String[]{"2", "VAR:x", "*", "3.50", "+"}, ExpressionEvaluator.infixToPostfix("2*x + 3.50"));
+        assertArrayEquals(new String[]{"0", "VAR:x", "-"}, ExpressionEvaluator.infixToPostfix("-x"));
+        assertArrayEquals(new String[]{String.valueOf(Math.PI), "2", "/", "sin"}, ExpressionEvaluator.infixToPostfix("sin(pi/2)"));
+        assertArrayEquals(new String[]{"2", "3", "2", "^", "^"}, ExpressionEvaluator.infixToPostfix("2^3^2"));
+    }
+
+    @Test
+    void testErrorPositions() {
+        assertEquals(2, parseError("2 3").getPosition());
+        assertEquals(4, parseError("2 + * 3").getPosition());
+        assertEquals(2, parseError("2 $ 3").getPosition());
+        assertEquals(3, parseError("sin 5").getPosition());
+        assertEquals(4, parseError("2 + (3 * 4").getPosition());
+        assertEquals(5, parseError("2 + 3) * 4").getPosition());
+        assertEquals(7, parseError("unknown(5)").getPosition());
+        assertEquals(4, parseError("x + \u00e9").getPosition());
+        assertEquals(4, parseError("2 + ").getPosition());
+
+        ExpressionParseException error = parseError("2..3");
+        assertEquals(0, error.getPosition());
+        assertEquals("Недопустимое число: 2..3", error.getReason());
+    }
+
+    @Test
+    void testNumbersMatchParseDouble() {
+        Random random = new Random(11);
+        for (int i = 0; i < 10_000; i++) {
+            StringBuilder number = new StringBuilder();
+            int digits = 1 + random.nextInt(25);
+            int dot = random.nextInt(digits + 1);
+            for (int d = 0; d < digits; d++) {
+                if (d == dot) number.append('.');
+                number.append((char) ('0' + random.nextInt(10)));
+            }
+            String text = number.toString();
+            CompiledExpression expression = ExpressionEvaluator.compile(text);
+            assertEquals(Double.doubleToRawLongBits(Double.parseDouble(text)),
+                    Double.doubleToRawLongBits(expression.evaluate(new double[0])), text);
+        }
+        assertEquals(0.1, ExpressionEvaluator.compile("0.1").evaluate(new double[0]));
+        assertEquals(5.0, ExpressionEvaluator.compile("5.").evaluate(new double[0]));
+        assertEquals(0.5, ExpressionEvaluator.compile(".5").evaluate(new double[0]));
+        parseError(".");
+    }
+
+    @Test
+    void testConstantsAreExact() {
+        assertEquals(Math.PI, ExpressionEvaluator.compile("pi").evaluate(new double[0]));
+        assertEquals(Math.E, ExpressionEvaluator.compile("e").evaluate(new double[0]));
+    }
+
+    @Test
+    void testCharSequenceInput() {
+        StringBuilder text = new StringBuilder("x * (y + 1)");
+        CompiledExpression expression = new ExpressionParser(text).parse().toCompiledExpression(text.toString());
+        assertEquals(8.0, expression.evaluate(new double[]{2, 3}));
+    }
+}
@@ -0,0 +1,65 @@
+package org.example;
+
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+public class ExpressionServerTest {
+    private ExpressionServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new ExpressionServer(new InetSocketAddress("127.0.0.1", 0), 100);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testProtocol() {
+        assertEquals("5.0\n", server.evaluate("2 + 3"));
+        assertEquals("3.0\n", server.evaluate("x + y\nx=1, y=2\n"));
+        assertEquals("3.0\n4.0\nERROR Не задано значение переменной: y\nERROR Деление на ноль\n",
+                server.evaluate("x + y / x\nx=1 y=2\n\ny=4;x=2;z=0\nx=1\r\nx=0 y=1"));
+        assertThrows(IllegalArgumentException.class, () -> server.evaluate("2 +\nx=1"));
+    }
+
+    @Test
+    void testHttp() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        URI uri = URI.create("http://127.0.0.1:" + server.getPort() + "/evaluate");
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri)
+                .POST(HttpRequest.BodyPublishers.ofString("x * 2\nx=21")).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals("42.0\n", response.body());
+
+        response = client.send(HttpRequest.newBuilder(uri)
+                .POST(HttpRequest.BodyPublishers.ofString("sin(")).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+
+        response = client.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, response.statusCode());
+
+        client.send(HttpRequest.newBuilder(uri)
+                .POST(HttpRequest.BodyPublishers.ofString("x * 2\nx=1")).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(1, server.getCache().getHitCount());
+    }
+}
@@ -0,0 +1,157 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class ExpressionSnapshotTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRoundTrip() throws IOException {
+        String[] sources = {
+                "2 * x + 1", "sin(x) * cos(y) - sqrt(abs(z))", "x + y * 0.1", "clamp(x, -1, 1) ^ 2",
+                "hypot(a, b) / (1 + min(a, b))", "pi * 3", "1 / x",
+        };
+        List<CompiledExpression> expressions = new ArrayList<>();
+        for (String source : sources) {
+            expressions.add(ExpressionEvaluator.compile(source));
+        }
+        Path file = directory.resolve("formulas.bin");
+        ExpressionSnapshot.write(file, expressions);
+        List<CompiledExpression> loaded = ExpressionSnapshot.read(file);
+
+        assertEquals(expressions.size(), loaded.size());
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 0.75);
+        variables.put("y", -2.0);
+        variables.put("z", 9.0);
+        variables.put("a", 3.0);
+        variables.put("b", 4.0);
+        for (int i = 0; i < expressions.size(); i++) {
+            CompiledExpression original = expressions.get(i);
+            CompiledExpression copy = loaded.get(i);
+            assertEquals(original.getSource(), copy.getSource());
+            assertEquals(original.getVariableNames(), copy.getVariableNames());
+            assertEquals(original.getMaxStackDepth(), copy.getMaxStackDepth());
+            assertArrayEquals(original.opcodes(), copy.opcodes());
+            assertArrayEquals(original.literals(), copy.literals());
+            assertEquals(original.evaluate(variables), copy.evaluate(variables));
+        }
+        variables.put("x", 0.0);
+        assertThrows(EvaluationException.class, () -> loaded.get(6).evaluate(variables));
+
+        // Загруженные выражения можно сразу положить в кэш
+        ExpressionCache cache = new ExpressionCache(16);
+        for (CompiledExpression expression : loaded) {
+            cache.put(expression);
+        }
+        assertSame(loaded.get(0), cache.get("2*x+1"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+
+        // Политика точности сохраняется вместе с программой
+        Evaluator fast = new Evaluator(EvaluatorConfig.builder().precision(PrecisionPolicy.FAST).build());
+        ExpressionSnapshot.write(file, Arrays.asList(fast.compile("sin(x) * x^3"), expressions.get(1)));
+        List<CompiledExpression> precisions = ExpressionSnapshot.read(file);
+        variables.put("x", 0.75);
+        assertEquals(PrecisionPolicy.FAST, precisions.get(0).getPrecision());
+        assertEquals(PrecisionPolicy.STRICT, precisions.get(1).getPrecision());
+        assertEquals(FastMath.sin(0.75) * (0.75 * 0.75 * 0.75), precisions.get(0).evaluate(variables));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] = 7;
+        Files.write(file, bytes);
+        assertThrows(IllegalArgumentException.class, () -> ExpressionSnapshot.read(file));
+
+        ExpressionSnapshot.write(file, new ArrayList<>());
+        assertTrue(ExpressionSnapshot.read(file).isEmpty());
+    }
+
+    @Test
+    void testUserFunctions() throws IOException {
+        FunctionRegistry functions = FunctionRegistry.builder()
+                .register("sq", x -> x * x)
+                .register("avg", (a, b) -> (a + b) / 2)
+                .build();
+        Evaluator evaluator = new Evaluator(EvaluatorConfig.builder().functions(functions).build());
+        Path file = directory.resolve("functions.bin");
+        ExpressionSnapshot.write(file, Arrays.asList(evaluator.compile("sq(x) + avg(x, 3)")));
+
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 5.0);
+        assertEquals(29.0, ExpressionSnapshot.read(file, functions).get(0).evaluate(variables));
+
+        // Реализация может измениться, важны только имя и количество аргументов
+        FunctionRegistry replaced = FunctionRegistry.builder()
+                .register("sq", x -> x * x * 10)
+                .register("avg", (a, b) -> (a + b) / 2)
+                .build();
+        assertEquals(254.0, ExpressionSnapshot.read(file, replaced).get(0).evaluate(variables));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> ExpressionSnapshot.read(file));
+        assertTrue(e.getMessage().contains("sq"), e.getMessage());
+        FunctionRegistry wrongArity = FunctionRegistry.builder()
+                .register("sq", 2, (args, offset) -> args[offset])
+                .register("avg", (a, b) -> (a + b) / 2)
+                .build();
+        assertThrows(IllegalArgumentException.class, () -> ExpressionSnapshot.read(file, wrongArity));
+    }
+
+    @Test
+    void testCorruptedFiles() throws IOException {
+        Path file = directory.resolve("corrupted.bin");
+        ExpressionSnapshot.write(file, Arrays.asList(ExpressionEvaluator.compile("x * y + 2")));
+        byte[] valid = Files.readAllBytes(file);
+
+        Files.write(file, Arrays.copyOf(valid, valid.length - 3));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionSnapshot.read(file));
+
+        byte[] magic = valid.clone();
+        magic[0] = 'X';
+        Files.write(file, magic);
+        assertThrows(IllegalArgumentException.class, () -> ExpressionSnapshot.read(file));
+
+        byte[] version = valid.clone();
+        ByteBuffer.wrap(version).order(ByteOrder.LITTLE_ENDIAN).putInt(4, ExpressionSnapshot.VERSION + 1);
+        Files.write(file, version);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> ExpressionSnapshot.read(file));
+        assertTrue(e.getMessage().contains("верси"), e.getMessage());
+
+        // Программа "x y * 2 +": вторая инструкция (y) ссылается на слот 1; заменяем его несуществующим
+        byte[] slot = valid.clone();
+        int sourceLength = ByteBuffer.wrap(valid).order(ByteOrder.LITTLE_ENDIAN).getInt(12);
+        int operands = 12 + 4 + sourceLength + 4 + 5;
+        ByteBuffer.wrap(slot).order(ByteOrder.LITTLE_ENDIAN).putInt(operands + 4, 7);
+        Files.write(file, slot);
+        assertThrows(IllegalArgumentException.class, () -> ExpressionSnapshot.read(file));
+
+        byte[] opcode = valid.clone();
+        opcode[12 + 4 + sourceLength + 4 + 2] = OpCode.CONST + 100;
+        Files.write(file, opcode);
+        assertThrows(IllegalArgumentException.class, () -> ExpressionSnapshot.read(file));
+
+        Files.write(file, Arrays.copyOf(valid, valid.length + 1));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionSnapshot.read(file));
+    }
+}
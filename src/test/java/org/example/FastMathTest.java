@@ -0,0 +1,150 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+
+
+import java.util.Random;
+import java.util.function.DoubleUnaryOperator;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class FastMathTest {
+    private static final int SAMPLES = 200_000;
+    private static final double RELATIVE_BOUND = 1e-14;
+    private static final double POWER_BOUND = 2e-15;
+    /** Вблизи нулей тригонометрических функций погрешность ограничена абсолютно */
+    private static final double ZERO_BOUND = 1e-17;
+
+    private static void assertClose(double expected, double actual, double bound, String message) {
+        if (Double.isNaN(expected) || Double.isInfinite(expected)) {
+            assertEquals(expected, actual, message);
+            return;
+        }
+        double error = Math.abs(actual - expected);
+        assertTrue(error <= bound * Math.abs(expected), message + ": " + actual + " вместо " + expected);
+    }
+
+    private static void assertTrigonometry(DoubleUnaryOperator fast, DoubleUnaryOperator strict, String name) {
+        Random random = new Random(1);
+        double[] ranges = {1e-3, 1, 10, 1000, 1e5};
+        for (double range : ranges) {
+            for (int i = 0; i < SAMPLES; i++) {
+                double x = (random.nextDouble() * 2 - 1) * range;
+                double expected = strict.applyAsDouble(x);
+                double actual = fast.applyAsDouble(x);
+                if (Math.abs(expected) < 1e-3) {
+                    assertTrue(Math.abs(actual - expected) <= ZERO_BOUND, name + "(" + x + ")");
+                } else {
+                    assertClose(expected, actual, RELATIVE_BOUND, name + "(" + x + ")");
+                }
+            }
+        }
+        // Кратные pi/2 — худший случай приведения аргумента
+        for (int k = -60000; k <= 60000; k += 7) {
+            double x = k * (Math.PI / 2);
+            double expected = strict.applyAsDouble(x);
+            double actual = fast.applyAsDouble(x);
+            if (Math.abs(expected) < 1e-3) {
+                assertTrue(Math.abs(actual - expected) <= ZERO_BOUND, name + "(" + x + ")");
+            } else {
+                assertClose(expected, actual, RELATIVE_BOUND, name + "(" + x + ")");
+            }
+        }
+        // Вне рабочего диапазона используется Math
+        for (double x : new double[]{2e5, -1e300, Double.NaN, Double.POSITIVE_INFINITY, 0.0, -0.0}) {
+            assertEquals(strict.applyAsDouble(x), fast.applyAsDouble(x), name + "(" + x + ")");
+        }
+    }
+
+    @Test
+    void testTrigonometricAccuracy() {
+        assertTrigonometry(FastMath::sin, Math::sin, "sin");
+        assertTrigonometry(FastMath::cos, Math::cos, "cos");
+        assertTrigonometry(FastMath::tan, Math::tan, "tan");
+    }
+
+    @Test
+    void testLogarithmAccuracy() {
+        Random random = new Random(2);
+        for (int i = 0; i < SAMPLES; i++) {
+            // Аргументы от 1e-300 до 1e300 и отдельно вблизи единицы, где логарифм близок к нулю
+            double wide = Math.pow(10, random.nextDouble() * 600 - 300);
+            double narrow = 1 + (random.nextDouble() - 0.5) * 1e-3;
+            for (double x : new double[]{wide, narrow}) {
+                assertClose(Math.log(x), FastMath.ln(x), RELATIVE_BOUND, "ln(" + x + ")");
+                assertClose(Math.log10(x), FastMath.log10(x), RELATIVE_BOUND, "log10(" + x + ")");
+            }
+        }
+        assertEquals(0.0, FastMath.ln(1));
+        assertEquals(Math.log(Double.MIN_VALUE), FastMath.ln(Double.MIN_VALUE));
+        assertEquals(Double.POSITIVE_INFINITY, FastMath.ln(Double.POSITIVE_INFINITY));
+        assertTrue(Double.isNaN(FastMath.log10(Double.NaN)));
+
+        assertEquals("Логарифм неположительного числа",
+                assertThrows(IllegalArgumentException.class, () -> FastMath.ln(0)).getMessage());
+        assertThrows(IllegalArgumentException.class, () -> FastMath.log10(-1));
+        int[] status = {EvaluationStatus.OK};
+        assertTrue(Double.isNaN(FastMath.log10(-1, status)));
+        assertEquals(EvaluationStatus.NON_POSITIVE_LOG, status[0]);
+    }
+
+    @Test
+    void testHypotAccuracy() {
+        Random random = new Random(3);
+        for (int i = 0; i < SAMPLES; i++) {
+            double x = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(301) - 150);
+            double y = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(301) - 150);
+            assertClose(Math.hypot(x, y), FastMath.hypot(x, y), RELATIVE_BOUND, "hypot(" + x + ", " + y + ")");
+        }
+        // Квадраты переполнились бы или потеряли точность: вычисляет Math.hypot
+        assertEquals(Math.hypot(1e300, 1e300), FastMath.hypot(1e300, 1e300));
+        assertEquals(Math.hypot(1e-300, 3e-300), FastMath.hypot(1e-300, 3e-300));
+        assertEquals(Double.POSITIVE_INFINITY, FastMath.hypot(Double.NEGATIVE_INFINITY, Double.NaN));
+    }
+
+    @Test
+    void testIntegerPowers() {
+        Random random = new Random(4);
+        for (int n = -FastMath.MAX_INTEGER_EXPONENT; n <= FastMath.MAX_INTEGER_EXPONENT; n++) {
+            for (int i = 0; i < SAMPLES / 10; i++) {
+                double x = (random.nextBoolean() ? 1 : -1) * Math.pow(10, random.nextDouble() * 6 - 3);
+                assertClose(Math.pow(x, n), FastMath.pow(x, n), POWER_BOUND, x + "^" + n);
+            }
+        }
+        // Умножение слева направо: совпадает с развернутой оптимизатором программой
+        double x = 1.1;
+        assertEquals(x * x * x, FastMath.pow(x, 3));
+        assertEquals(1 / (x * x), FastMath.pow(x, -2));
+
+        // Дробные, нулевой и большие показатели передаются Math.pow
+        for (double exponent : new double[]{0, 0.5, -1.5, 9, 100, Double.NaN, Double.POSITIVE_INFINITY}) {
+            for (double base : new double[]{2.5, -2, 0, -0.0, Double.NaN, Double.NEGATIVE_INFINITY}) {
+                assertEquals(Math.pow(base, exponent), FastMath.pow(base, exponent), base + "^" + exponent);
+            }
+        }
+        assertEquals(Double.NEGATIVE_INFINITY, FastMath.pow(-0.0, -3));
+        assertEquals(Double.POSITIVE_INFINITY, FastMath.pow(0.0, -2));
+        assertTrue(Double.isNaN(FastMath.pow(Double.NaN, 2)));
+    }
+
+    @Test
+    void testExactFunctionsAreNotApproximated() {
+        int[] exact = {OpCode.ASIN, OpCode.ACOS, OpCode.ATAN, OpCode.EXP, OpCode.SQRT, OpCode.ABS, OpCode.NEG};
+        Random random = new Random(5);
+        for (int op : exact) {
+            assertFalse(FastMath.isApproximated(op), OpCode.name(op));
+            for (int i = 0; i < 1000; i++) {
+                double x = random.nextDouble();
+                assertEquals(OpCode.applyUnary(op, x), FastMath.applyUnary(op, x), OpCode.name(op));
+            }
+        }
+        assertTrue(FastMath.isApproximated(OpCode.POW));
+        assertTrue(FastMath.isApproximated(OpCode.SIN));
+    }
+}
@@ -0,0 +1,113 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class FormulaSetTest {
+    @Test
+    void testSharedSubexpressions() {
+        FormulaSet formulas = FormulaSet.compile(
+                "S * exp(-r*t) * sqrt(t)",
+                "K * exp(-r*t)",
+                "sqrt(t) + exp(-r*t)");
+        // S, r, t, K, -r, -r*t, exp(-r*t), sqrt(t) и еще четыре операции, каждая по одному разу
+        assertEquals(12, formulas.getNodeCount());
+        assertEquals(3, formulas.getFormulaCount());
+        assertEquals(List.of("S", "r", "t", "K"), formulas.getVariableNames());
+        assertEquals(3, formulas.slotOf("K"));
+        assertEquals(-1, formulas.slotOf("q"));
+
+        double[] out = new double[3];
+        formulas.evaluate(new double[]{100, 0.05, 2, 90}, out);
+        assertArrayEquals(new double[]{
+                100 * Math.exp(-0.05 * 2) * Math.sqrt(2),
+                90 * Math.exp(-0.05 * 2),
+                Math.sqrt(2) + Math.exp(-0.05 * 2)}, out);
+    }
+
+    @Test
+    void testEvaluatorConfiguration() {
+        Evaluator evaluator = new Evaluator(EvaluatorConfig.builder()
+                .constant("k", 3).precision(PrecisionPolicy.FAST).build());
+        FormulaSet formulas = FormulaSet.compile(evaluator, "k * x", "x^3 + k");
+        assertEquals(List.of("x"), formulas.getVariableNames());
+        double[] out = new double[2];
+        formulas.evaluate(new double[]{1.1}, out);
+        // Степень вычисляется точной функцией, а не разворачивается в умножения
+        assertArrayEquals(new double[]{3 * 1.1, Math.pow(1.1, 3) + 3}, out);
+        assertEquals(List.of("k", "x"), FormulaSet.compile("k * x").getVariableNames());
+    }
+
+    @Test
+    void testSameResultsAsSeparateEvaluation() {
+        String[] sources = {
+                "x ^ 2 + 5 * -y - (0 - r)",
+                "exp(-x) * abs(y) ^ (2 - 0.5) + ln(abs(r) + 1)",
+                "x ^ 2 + sin(y) * cos(r)",
+                "2 * pi",
+                "abs(y) ^ (2 - 0.5) / (x ^ 2 + 1)"
+        };
+        FormulaSet formulas = FormulaSet.compile(sources);
+        Random random = new Random(5);
+        double[] out = new double[sources.length];
+        Map<String, Double> variables = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            variables.put("x", random.nextDouble() * 10 - 5);
+            variables.put("y", random.nextDouble() * 10 - 5);
+            variables.put("r", random.nextDouble() * 10 - 5);
+            out = formulas.evaluate(variables);
+            for (int f = 0; f < sources.length; f++) {
+                assertEquals(Double.doubleToRawLongBits(ExpressionEvaluator.compile(sources[f]).evaluate(variables)),
+                        Double.doubleToRawLongBits(out[f]), sources[f]);
+            }
+        }
+    }
+
+    @Test
+    void testErrorOfFirstFailingFormula() {
+        FormulaSet formulas = FormulaSet.compile("x + 1", "sqrt(x) + 1 / y", "1 / y");
+        double[] out = new double[3];
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> formulas.evaluate(new double[]{-1, 0}, out));
+        assertEquals("Корень из отрицательного числа", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class, () -> formulas.evaluate(new double[]{1, 0}, out));
+        assertEquals("Деление на ноль", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> formulas.evaluate(new HashMap<>()));
+        assertThrows(IllegalArgumentException.class, () -> formulas.evaluate(new double[1], out));
+    }
+
+    @Test
+    void testErrorBitmap() {
+        FormulaSet formulas = FormulaSet.compile("x + 1", "ln(x) ^ 0", "1 / y");
+        double[] out = new double[3];
+        long[] errors = new long[1];
+
+        assertEquals(1, formulas.evaluate(new double[]{-1, 2}, out, errors));
+        assertEquals(0.0, out[0]);
+        // NaN^0 = 1, но формула с ошибкой все равно дает NaN
+        assertTrue(Double.isNaN(out[1]));
+        assertEquals(0.5, out[2]);
+        assertFalse(BatchEvaluator.isError(errors, 0));
+        assertTrue(BatchEvaluator.isError(errors, 1));
+        assertFalse(BatchEvaluator.isError(errors, 2));
+
+        assertEquals(0, formulas.evaluate(new double[]{1, 2}, out, errors));
+        assertEquals(0L, errors[0]);
+        assertEquals(2, formulas.evaluate(new double[]{0, 0}, out, null));
+    }
+}
@@ -0,0 +1,162 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class FunctionRegistryTest {
+    @Test
+    void testBuiltinMultiArgumentFunctions() {
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 3.0);
+        variables.put("y", 4.0);
+        assertEquals(3.0, ExpressionEvaluator.evaluate("min(x, y)", variables));
+        assertEquals(4.0, ExpressionEvaluator.evaluate("max(x, y)", variables));
+        assertEquals(81.0, ExpressionEvaluator.evaluate("pow(x, y)", variables));
+        assertEquals(5.0, ExpressionEvaluator.evaluate("hypot(x, y)", variables));
+        assertEquals(3.5, ExpressionEvaluator.evaluate("clamp(x + 1, 0, y - 0.5)", variables));
+        assertEquals(7.0, ExpressionEvaluator.evaluate("max(min(x, y), -y) + clamp(y, x, 10)", variables));
+        assertEquals(0.5, ExpressionEvaluator.evaluate("clamp(2, 0, 1) / 2", variables));
+
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.evaluate("clamp(x, y, 0)", variables));
+        assertEquals(-2.0, ExpressionEvaluator.evaluate("-max(1, 2)", variables));
+        assertEquals(16.0, ExpressionEvaluator.evaluate("2^max(1, 4)", variables));
+    }
+
+    @Test
+    void testFunctionNamesAsVariables() {
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 5.0);
+        variables.put("min", 0.0);
+        variables.put("max", 10.0);
+        assertEquals(0.5, ExpressionEvaluator.evaluate("(x-min)/(max-min)", variables));
+        assertEquals(5.0, ExpressionEvaluator.evaluate("max(min, x)", variables));
+        assertEquals(10.0, ExpressionEvaluator.evaluate("min(max, 2 * x)", variables));
+        assertArrayEquals(new String[]{"x", "min", "max"},
+                ExpressionEvaluator.compile("(x-min)/(max-min)").getVariableNames().toArray(new String[0]));
+
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.compile("max 2"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.evaluate("pow", variables));
+    }
+
+    @Test
+    void testArgumentErrors() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ExpressionEvaluator.compile("min(1)"));
+        assertTrue(e.getMessage().contains("min"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.compile("sin(1, 2)"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.compile("clamp(1, 2)"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.compile("1, 2"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.compile("(1, 2)"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.compile("max(1,)"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.compile("max(, 1)"));
+    }
+
+    @Test
+    void testUserFunctions() {
+        FunctionRegistry functions = FunctionRegistry.builder()
+                .register("sq", x -> x * x)
+                .register("avg", (a, b) -> (a + b) / 2)
+                .register("lerp", 3, (args, offset) -> args[offset] + (args[offset + 1] - args[offset]) * args[offset + 2])
+                .register("inv", 1, (args, offset) -> {
+                    if (args[offset] == 0) {
+                        throw new IllegalArgumentException("Обратное к нулю");
+                    }
+                    return 1 / args[offset];
+                })
+                .build();
+        Evaluator evaluator = new Evaluator(EvaluatorConfig.builder().functions(functions).build());
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 3.0);
+        assertEquals(9.0, evaluator.evaluate("sq(x)", variables));
+        assertEquals(2.0, evaluator.evaluate("avg(x, 1)", variables));
+        assertEquals(5.0, evaluator.evaluate("lerp(1, 2 * x - 1, sq(x) / 9)", variables));
+        assertEquals(1 + 1.0 / 3, evaluator.evaluate("sq(1) + inv(x)", variables), 1e-15);
+        assertEquals(3, functions.arityOf("lerp"));
+        assertEquals(-1, functions.arityOf("nope"));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> evaluator.evaluate("inv(x - 3)", variables));
+        assertEquals("Обратное к нулю", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> evaluator.evaluate("avg(x)", variables));
+
+        // Постфиксная форма сохраняет имя функции и разрешается тем же набором
+        String[] postfix = evaluator.infixToPostfix("lerp(0, 10, x / 6)");
+        assertArrayEquals(new String[]{"0", "10", "VAR:x", "6", "/", "lerp"}, postfix);
+        assertEquals(5.0, evaluator.evaluatePostfix(postfix, variables));
+
+        // В конфигурации по умолчанию пользовательских функций нет
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.compile("sq(2)"));
+    }
+
+    @Test
+    void testRegistryValidation() {
+        assertThrows(IllegalArgumentException.class, () -> FunctionRegistry.builder().register("sin", x -> x));
+        assertThrows(IllegalArgumentException.class, () -> FunctionRegistry.builder().register("2f", x -> x));
+        assertThrows(IllegalArgumentException.class, () -> FunctionRegistry.builder().register("f", 0, (a, o) -> 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> FunctionRegistry.builder().register("f", 1, (ExpressionFunction) null));
+
+        FunctionRegistry functions = FunctionRegistry.builder().register("g", x -> x).build();
+        assertThrows(IllegalArgumentException.class,
+                () -> EvaluatorConfig.builder().functions(functions).constant("g", 1).build());
+        assertTrue(functions.getNames().contains("clamp"));
+        assertEquals(1, FunctionRegistry.DEFAULT.toBuilder().register("g", x -> x).build().arityOf("g"));
+        assertEquals(-1, FunctionRegistry.DEFAULT.arityOf("g"));
+    }
+
+    @Test
+    void testCompiledPaths() {
+        FunctionRegistry functions = FunctionRegistry.builder().register("twice", x -> 2 * x).build();
+        Evaluator evaluator = new Evaluator(EvaluatorConfig.builder().functions(functions).build());
+
+        // Встроенные функции компилируются в байт-код, пользовательские остаются в интерпретаторе
+        CompiledExpression builtin = evaluator.compile("clamp(hypot(x, 4), 0, min(x, 4))");
+        ExpressionKernel kernel = BytecodeCompiler.compile(builtin);
+        assertNotNull(kernel);
+        assertEquals(3.0, kernel.evaluate(new double[]{3}));
+        assertThrows(IllegalArgumentException.class, () -> kernel.evaluate(new double[]{-5}));
+        assertNull(BytecodeCompiler.compile(evaluator.compile("twice(x) + 1")));
+
+        // Константные аргументы встроенных функций сворачиваются, пользовательских — нет
+        assertEquals(1, evaluator.compile("min(2, 3) * clamp(5, 0, 1)").opcodes().length);
+        assertEquals(4, evaluator.compile("twice(2) + 1").opcodes().length);
+
+        CompiledExpression expression = evaluator.compile("twice(clamp(x, 0, 10)) / (x - 1)");
+        double[] x = {-1, 1, 5, 20};
+        double[] out = new double[x.length];
+        long[] errors = new long[1];
+        assertEquals(1, BatchEvaluator.evaluate(expression, new double[][]{x}, out, errors));
+        assertEquals(-0.0, out[0]);
+        assertTrue(BatchEvaluator.isError(errors, 1));
+        assertEquals(2.5, out[2]);
+        assertEquals(20.0 / 19, out[3], 1e-15);
+
+        FormulaSet set = FormulaSet.compile("clamp(x, 0, 1)", "clamp(x, 1, 0)", "max(x, 1) + clamp(x, 0, 1)");
+        double[] results = new double[3];
+        assertEquals(1, set.evaluate(new double[]{0.5}, results, null));
+        assertEquals(0.5, results[0]);
+        assertTrue(Double.isNaN(results[1]));
+        assertEquals(1.5, results[2]);
+        assertThrows(IllegalArgumentException.class, () -> set.evaluate(new double[]{0.5}, results));
+
+        LiveExpression live = LiveExpression.compile("clamp(x, y, 1)");
+        live.set("x", 2);
+        live.set("y", 0);
+        assertEquals(1.0, live.get());
+        live.set("y", 3);
+        assertThrows(IllegalArgumentException.class, live::get);
+    }
+}
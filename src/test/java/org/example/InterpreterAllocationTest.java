@@ -0,0 +1,76 @@
+package org.example;
+
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+
+import java.lang.management.ManagementFactory;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * Проверки выделения памяти интерпретатором. Запускаются в отдельной JVM с
+ * {@code expression.jit.threshold=0}: иначе после прогрева выражение переходит на
+ * сгенерированный байт-код и проверяется он, а не интерпретатор (см. {@link CompiledExpressionTest}).
+ */
+public class InterpreterAllocationTest {
+    @BeforeAll
+    static void checkJitDisabled() {
+        assertEquals(0, BytecodeCompiler.THRESHOLD, "Тесты интерпретатора запускаются с expression.jit.threshold=0");
+    }
+
+    @Test
+    void testTryEvaluateDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        CompiledExpression expression = ExpressionEvaluator.compile("sqrt(x) + 1 / (x - 4)");
+        double[] slots = new double[1];
+        int[] status = new int[1];
+        int failed = 0;
+        for (int i = 0; i < 20_000; i++) {
+            slots[0] = i % 10 - 1;
+            expression.tryEvaluate(slots, status);
+        }
+
+        threads.getCurrentThreadAllocatedBytes();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            slots[0] = i % 10 - 1;
+            expression.tryEvaluate(slots, status);
+            if (status[0] != EvaluationStatus.OK) {
+                failed++;
+            }
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertFalse(expression.isJitCompiled());
+        assertEquals(20_000, failed);
+        assertTrue(allocated < 1024, "Выделено байт: " + allocated);
+    }
+
+    @Test
+    void testSteadyStateEvaluationDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        CompiledExpression expression = ExpressionEvaluator.compile("(a + b) * c - sqrt(b^2) / log(a^b) + sin(pi/2)");
+        double[] slots = {2.0, 3.0, 4.0};
+        double sum = 0;
+        for (int i = 0; i < 20_000; i++) {
+            sum += expression.evaluate(slots);
+        }
+
+        threads.getCurrentThreadAllocatedBytes();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            sum += expression.evaluate(slots);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertFalse(expression.isJitCompiled());
+        assertTrue(sum > 0);
+        assertTrue(allocated < 1024, "Выделено байт: " + allocated);
+    }
+}
@@ -0,0 +1,158 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class IntervalEvaluatorTest {
+    private static IntervalResult range(String expression, double lo, double hi) {
+        Map<String, Interval> ranges = new HashMap<>();
+        ranges.put("x", Interval.of(lo, hi));
+        return IntervalEvaluator.evaluate(ExpressionEvaluator.compile(expression), ranges);
+    }
+
+    private static void assertEnclosure(double lo, double hi, IntervalResult result) {
+        assertTrue(result.getLo() == lo || result.getLo() < lo && result.getLo() > lo - 1e-12 * Math.max(1, Math.abs(lo)),
+                result.toString());
+        assertTrue(result.getHi() == hi || result.getHi() > hi && result.getHi() < hi + 1e-12 * Math.max(1, Math.abs(hi)),
+                result.toString());
+    }
+
+    @Test
+    void testBounds() {
+        assertEnclosure(-1, 11, range("2 * x + 1", -1, 5));
+        assertEnclosure(0, 9, range("x^2", -2, 3));
+        assertEnclosure(-8, 27, range("x^3", -2, 3));
+        assertEnclosure(0, 1, range("sin(x)", 0, Math.PI / 2));
+        assertEnclosure(-1, 1, range("cos(x)", 0, 4));
+        assertEnclosure(0, 2, range("log(x)", 1, 100));
+        assertEnclosure(1, 3, range("clamp(x, 1, 3)", -10, 10));
+        assertEnclosure(0, 4, range("hypot(x, 4) - 4 + abs(x)", -3, 0));
+        assertEquals(0.0, range("x^2", -2, 3).getLo());
+
+        // Зависимость между вхождениями переменной не учитывается
+        assertEnclosure(-1, 1, range("x - x", 0, 1));
+
+        IntervalResult result = range("2 + 3", 0, 0);
+        assertTrue(result.contains(5) && !result.isErrorPossible());
+    }
+
+    @Test
+    void testPossibleErrors() {
+        IntervalResult division = range("1 / (x - 1)", 0, 2);
+        assertTrue(division.isErrorPossible(ErrorType.DIVISION_BY_ZERO));
+        assertEquals(Double.NEGATIVE_INFINITY, division.getLo());
+        assertEquals(Double.POSITIVE_INFINITY, division.getHi());
+
+        IntervalResult positive = range("1 / x", 0, 2);
+        assertTrue(positive.isErrorPossible(ErrorType.DIVISION_BY_ZERO));
+        assertEnclosure(0.5, Double.POSITIVE_INFINITY, positive);
+
+        IntervalResult root = range("sqrt(x)", -1, 4);
+        assertTrue(root.isErrorPossible(ErrorType.DOMAIN_ERROR));
+        assertEnclosure(0, 2, root);
+
+        IntervalResult noErrors = range("sqrt(x) + log(x) / (x + 1)", 1, 4);
+        assertFalse(noErrors.isErrorPossible());
+        assertTrue(noErrors.getPossibleErrors().isEmpty());
+
+        IntervalResult always = range("1 + ln(x)", -3, -1);
+        assertTrue(always.isEmpty());
+        assertTrue(always.isErrorPossible(ErrorType.DOMAIN_ERROR));
+        assertTrue(range("x / 0", 1, 2).isEmpty());
+
+        assertTrue(range("clamp(1, x, 0)", -1, 1).isErrorPossible(ErrorType.DOMAIN_ERROR));
+        assertTrue(range("asin(x)", 0, 2).isNaNPossible());
+        assertFalse(range("asin(x)", 0, 2).isErrorPossible());
+        assertTrue(range("x^0.5", -1, 1).isNaNPossible());
+
+        assertThrows(IllegalArgumentException.class, () -> Interval.of(2, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new IntervalEvaluator(ExpressionEvaluator.compile("x")).evaluate(new double[]{1}, new double[]{0}));
+        assertThrows(IllegalArgumentException.class,
+                () -> IntervalEvaluator.evaluate(ExpressionEvaluator.compile("x + y"), new HashMap<>()));
+    }
+
+    @Test
+    void testPruning() {
+        // Поиск корней x^3 - 2x - 5 делением отрезка: части, где оболочка не содержит нуля, отбрасываются
+        IntervalEvaluator evaluator = new IntervalEvaluator(ExpressionEvaluator.compile("x^3 - 2*x - 5"));
+        Deque<double[]> pending = new ArrayDeque<>();
+        pending.push(new double[]{-100, 100});
+        List<double[]> roots = new ArrayList<>();
+        int evaluations = 0;
+        while (!pending.isEmpty()) {
+            double[] range = pending.pop();
+            evaluations++;
+            if (!evaluator.evaluate(new double[]{range[0]}, new double[]{range[1]}).contains(0)) {
+                continue;
+            }
+            if (range[1] - range[0] < 1e-9) {
+                roots.add(range);
+                continue;
+            }
+            double mid = (range[0] + range[1]) / 2;
+            pending.push(new double[]{range[0], mid});
+            pending.push(new double[]{mid, range[1]});
+        }
+        assertFalse(roots.isEmpty());
+        for (double[] root : roots) {
+            assertEquals(2.0945514815423265, root[0], 1e-8);
+        }
+        assertTrue(evaluations < 1000, String.valueOf(evaluations));
+    }
+
+    @Test
+    void testEnclosureOnRandomPoints() {
+        String[] expressions = {
+                "x * y - x / (y + 2)", "sin(x) * cos(y) + tan(x / 4)", "exp(x) - ln(abs(y) + 1)",
+                "x^2 + y^3 - x^y", "sqrt(x + 3) / hypot(x, y)", "max(x, y) * min(x, -y) + clamp(x, -1, 1)",
+                "atan(x * y) + asin(x / 5) - acos(y / 5)", "-x^2 / (1 + y^2)", "log(x * x + y * y + 1)",
+        };
+        Random random = new Random(17);
+        for (String source : expressions) {
+            CompiledExpression expression = ExpressionEvaluator.compile(source);
+            IntervalEvaluator evaluator = new IntervalEvaluator(expression);
+            for (int box = 0; box < 200; box++) {
+                double[] lo = new double[expression.getVariableCount()];
+                double[] hi = new double[lo.length];
+                for (int slot = 0; slot < lo.length; slot++) {
+                    double a = random.nextDouble() * 10 - 5;
+                    double b = a + random.nextDouble() * (box % 2 == 0 ? 0.01 : 5);
+                    lo[slot] = a;
+                    hi[slot] = b;
+                }
+                IntervalResult result = evaluator.evaluate(lo, hi);
+                double[] point = new double[lo.length];
+                for (int sample = 0; sample < 50; sample++) {
+                    for (int slot = 0; slot < lo.length; slot++) {
+                        point[slot] = sample == 0 ? lo[slot] : sample == 1 ? hi[slot]
+                                : lo[slot] + random.nextDouble() * (hi[slot] - lo[slot]);
+                    }
+                    try {
+                        double value = expression.evaluate(point);
+                        assertTrue(result.contains(value) || Double.isNaN(value) && result.isNaNPossible(),
+                                source + " " + value + " вне " + result);
+                    } catch (EvaluationException e) {
+                        assertTrue(result.isErrorPossible(e.getErrorType()), source + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+}
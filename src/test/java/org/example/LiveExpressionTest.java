@@ -0,0 +1,105 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+public class LiveExpressionTest {
+    @Test
+    void testIncrementalUpdates() {
+        LiveExpression live = LiveExpression.compile("a * exp(-r*t) + sqrt(t) * b");
+        live.set("a", 100);
+        live.set("r", 0.05);
+        live.set("t", 2);
+        live.set("b", 3);
+        assertEquals(100 * Math.exp(-0.05 * 2) + Math.sqrt(2) * 3, live.get());
+
+        live.set("b", 4);
+        assertEquals(100 * Math.exp(-0.05 * 2) + Math.sqrt(2) * 4, live.get());
+        live.set(live.slotOf("r"), 0.1);
+        assertEquals(100 * Math.exp(-0.1 * 2) + Math.sqrt(2) * 4, live.get());
+
+        // От b зависят только умножение на sqrt(t) и сложение
+        assertEquals(2, live.dependentCount(live.slotOf("b")));
+    }
+
+    @Test
+    void testEvaluatorConfiguration() {
+        Evaluator evaluator = new Evaluator(EvaluatorConfig.builder().constant("g", 9.81).build());
+        LiveExpression live = LiveExpression.compile(evaluator, "g * t^2 / 2");
+        live.set("t", 2);
+        assertEquals(9.81 * 4 / 2, live.get());
+        assertEquals(2, LiveExpression.compile("g * t").getVariableNames().size());
+    }
+
+    @Test
+    void testUnassignedAndUnknownVariables() {
+        LiveExpression live = LiveExpression.compile("x + y");
+        live.set("x", 1);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, live::get);
+        assertEquals("Не задано значение переменной: y", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> live.set("z", 1));
+
+        assertEquals(Math.PI, LiveExpression.compile("pi").get());
+    }
+
+    @Test
+    void testErrorsRecover() {
+        LiveExpression live = LiveExpression.compile("sqrt(x) + 1 / y");
+        live.set("x", -1);
+        live.set("y", 0);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, live::get);
+        assertEquals("Корень из отрицательного числа", e.getMessage());
+        assertEquals(ErrorType.DOMAIN_ERROR, ((EvaluationException) e).getErrorType());
+
+        live.set("x", 4);
+        e = assertThrows(IllegalArgumentException.class, live::get);
+        assertEquals("Деление на ноль", e.getMessage());
+        assertEquals(ErrorType.DIVISION_BY_ZERO, ((EvaluationException) e).getErrorType());
+
+        live.set("y", 0.5);
+        live.set("x", 0);
+        assertEquals(2.0, live.get());
+        live.set("x", 4);
+        LiveExpression logarithm = LiveExpression.compile("ln(x) + clamp(1, y, 0)");
+        logarithm.set("y", 5);
+        logarithm.set("x", 0);
+        assertEquals("Логарифм неположительного числа", assertThrows(IllegalArgumentException.class, logarithm::get).getMessage());
+        logarithm.set("x", 1);
+        assertEquals("Нижняя граница clamp больше верхней",
+                assertThrows(IllegalArgumentException.class, logarithm::get).getMessage());
+
+        live.set("y", 2);
+        assertEquals(2.5, live.get());
+    }
+
+    @Test
+    void testSameResultsAsFullEvaluation() {
+        String source = "exp(-x) * abs(y) ^ (2 - 0.5) + ln(abs(r) + 1) - x / y + sin(r * x) * cos(y)";
+        CompiledExpression compiled = ExpressionEvaluator.compile(source);
+        LiveExpression live = LiveExpression.compile(source);
+        Map<String, Double> variables = new HashMap<>();
+        Random random = new Random(11);
+        for (String name : live.getVariableNames()) {
+            variables.put(name, 1.0);
+            live.set(name, 1.0);
+        }
+        for (int i = 0; i < 1000; i++) {
+            String name = live.getVariableNames().get(random.nextInt(3));
+            double value = random.nextDouble() * 10 - 5;
+            variables.put(name, value);
+            live.set(name, value);
+            assertEquals(Double.doubleToRawLongBits(compiled.evaluate(variables)),
+                    Double.doubleToRawLongBits(live.get()));
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class MainTest {
+    @TempDir
+    Path directory;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private int run(String input, String... args) {
+        ByteArrayInputStream in = new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8));
+        return Main.run(args, in, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    private String output() {
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testInteractive() {
+        assertEquals(0, run("x * y + z\n2, 3\n4\n2*pi\nsqrt(a)\nabc\n  exit  \n"));
+        String text = output();
+        assertTrue(text.contains("Введите значения переменных x, y, z: "), text);
+        assertTrue(text.contains("Введите значение переменной z: "), text);
+        assertTrue(text.contains("Результат: 10.0"), text);
+        assertTrue(text.contains("Результат: " + 2 * Math.PI), text);
+        assertTrue(text.contains("Ошибка: Недопустимое число: abc"), text);
+        assertTrue(text.endsWith("Работа калькулятора завершена" + System.lineSeparator()), text);
+
+        out.reset();
+        assertEquals(0, run("x + 1\n1 2\n1 +\n"));
+        text = output();
+        assertTrue(text.contains("Ошибка: Лишнее значение: 2"), text);
+        assertTrue(text.contains("Ошибка: "), text);
+        assertTrue(text.endsWith("Работа калькулятора завершена" + System.lineSeparator()), text);
+    }
+
+    @Test
+    void testScript() throws IOException {
+        String script = "# параметры\n"
+                + "r = 2\n"
+                + "h = r * 3\n"
+                + "\n"
+                + "pi * r^2 * h\n"
+                + "r + missing\n"
+                + "1 / (r - 2)\n"
+                + "r = -0.5\n"
+                + "  abs(r)  \n"
+                + "pi = 3\n"
+                + "1 +\n";
+        Path file = directory.resolve("script.txt");
+        Files.writeString(file, script);
+
+        assertEquals(0, run("", "--script", file.toString()));
+        String[] lines = output().split("\n");
+        assertEquals(5, lines.length);
+        assertEquals(Double.toString(Math.PI * 4 * 6), lines[0]);
+        assertTrue(lines[1].startsWith("Ошибка в строке 6: "), lines[1]);
+        assertTrue(lines[1].contains("missing"), lines[1]);
+        assertTrue(lines[2].startsWith("Ошибка в строке 7: "), lines[2]);
+        assertEquals("0.5", lines[3]);
+        assertTrue(lines[4].startsWith("Ошибка в строке 11: "), lines[4]);
+
+        String messages = err.toString(StandardCharsets.UTF_8);
+        assertTrue(messages.contains("Ошибка в строке 10: Недопустимое имя переменной: pi"), messages);
+        assertTrue(messages.contains("Вычислено выражений: 5, ошибок: 4"), messages);
+
+        // Со стандартного ввода результат тот же
+        out.reset();
+        assertEquals(0, run(script, "--script"));
+        assertEquals(5, output().split("\n").length);
+        out.reset();
+        assertEquals(0, run(script, "--script", "-"));
+        assertEquals(Double.toString(Math.PI * 4 * 6), output().split("\n")[0]);
+    }
+
+    @Test
+    void testArguments() {
+        assertEquals(2, run("", "--unknown"));
+        assertEquals(2, run("", "--script", "a", "b"));
+        assertEquals(1, run("", "--script", directory.resolve("missing.txt").toString()));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("Ошибка ввода-вывода"));
+    }
+}
@@ -0,0 +1,112 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+
+
+import java.util.Arrays;
+import java.util.Random;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+public class OptimizerTest {
+    private static CompiledExpression unoptimized(String source) {
+        return CompiledExpression.fromPostfix(source, ExpressionEvaluator.infixToPostfix(source));
+    }
+
+    @Test
+    void testConstantFolding() {
+        CompiledExpression circle = ExpressionEvaluator.compile("2*pi*r");
+        assertArrayEquals(new int[]{OpCode.CONST, OpCode.VAR, OpCode.MUL}, circle.opcodes());
+        assertEquals(2 * Math.PI * 3, circle.evaluate(new double[]{3}));
+
+        assertArrayEquals(new int[]{OpCode.CONST, OpCode.VAR, OpCode.MUL},
+                ExpressionEvaluator.compile("(1+1)^3*x").opcodes());
+        assertArrayEquals(new int[]{OpCode.CONST}, ExpressionEvaluator.compile("sqrt(16) + log(100)").opcodes());
+    }
+
+    @Test
+    void testIdentities() {
+        assertArrayEquals(new int[]{OpCode.VAR}, ExpressionEvaluator.compile("sin(pi/2)*y").opcodes());
+        assertArrayEquals(new int[]{OpCode.VAR}, ExpressionEvaluator.compile("1 * x ^ 1 / 1 - 0").opcodes());
+        assertArrayEquals(new int[]{OpCode.VAR}, ExpressionEvaluator.compile("x + 0 * -1").opcodes());
+        assertArrayEquals(new int[]{OpCode.VAR}, ExpressionEvaluator.compile("0 * -1 + x").opcodes());
+        assertArrayEquals(new int[]{OpCode.VAR, OpCode.NEG}, ExpressionEvaluator.compile("-x").opcodes());
+        assertArrayEquals(new int[]{OpCode.VAR, OpCode.VAR, OpCode.MUL, OpCode.NEG},
+                ExpressionEvaluator.compile("-x * y").opcodes());
+    }
+
+    @Test
+    void testDomainErrorsAreNotFolded() {
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.evaluate("1/0", new java.util.HashMap<>()));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.compile("x + sqrt(-1)").evaluate(new double[]{1}));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.compile("x * log(0)").evaluate(new double[]{1}));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.compile("0 * (1 / (1 - 1))").evaluate(new double[0]));
+    }
+
+    @Test
+    void testUnaryMinusKeepsSignOfZero() {
+        assertEquals(Double.doubleToRawLongBits(0.0), Double.doubleToRawLongBits(ExpressionEvaluator.compile("-x").evaluate(new double[]{0})));
+        assertEquals(Double.doubleToRawLongBits(0.0), Double.doubleToRawLongBits(ExpressionEvaluator.compile("-0").evaluate(new double[0])));
+    }
+
+    @Test
+    void testAddingZeroKeepsSignOfZero() {
+        for (String source : new String[]{"x + 0", "0 + x", "(x + 0) * 1"}) {
+            CompiledExpression expression = ExpressionEvaluator.compile(source);
+            assertEquals(Double.doubleToRawLongBits(0.0), Double.doubleToRawLongBits(expression.evaluate(new double[]{-0.0})), source);
+            assertEquals(Double.doubleToRawLongBits(unoptimized(source).evaluate(new double[]{-0.0})),
+                    Double.doubleToRawLongBits(expression.evaluate(new double[]{-0.0})), source);
+        }
+        assertArrayEquals(new int[]{OpCode.VAR, OpCode.CONST, OpCode.ADD}, ExpressionEvaluator.compile("x + 0").opcodes());
+    }
+
+    @Test
+    void testSameResultsAsUnoptimized() {
+        String[] sources = {
+                "2*pi*r + (1+1)^3*x - sin(pi/2)*y",
+                "-x ^ 2 + 5 * -y - (0 - r)",
+                "x * 1 + 1 * y - r / 1 + x ^ 1 + 0 + r - 0",
+                "exp(-x) * abs(y) ^ (2 - 0.5) + ln(abs(r) + 1) * cos(0)"
+        };
+        Random random = new Random(3);
+        for (String source : sources) {
+            CompiledExpression optimized = ExpressionEvaluator.compile(source);
+            CompiledExpression plain = unoptimized(source);
+            double[] slots = new double[plain.getVariableCount()];
+            for (int i = 0; i < 1000; i++) {
+                for (int s = 0; s < slots.length; s++) {
+                    slots[s] = random.nextDouble() * 10 - 5;
+                }
+                assertEquals(Double.doubleToRawLongBits(plain.evaluate(slots)),
+                        Double.doubleToRawLongBits(optimized.evaluate(slots)), source);
+            }
+        }
+    }
+
+    @Test
+    void testFastPowerExpansion() {
+        Evaluator fast = new Evaluator(EvaluatorConfig.builder().precision(PrecisionPolicy.FAST).build());
+        CompiledExpression cube = fast.compile("x^3");
+        assertArrayEquals(new int[]{OpCode.VAR, OpCode.VAR, OpCode.MUL, OpCode.VAR, OpCode.MUL}, cube.opcodes());
+        assertEquals(2, cube.getMaxStackDepth());
+        assertEquals(1.1 * 1.1 * 1.1, cube.evaluate(new double[]{1.1}));
+        assertEquals(PrecisionPolicy.FAST, cube.getPrecision());
+
+        // Показатели вне [2, 4], дробные и степени подвыражений остаются инструкцией POW
+        assertArrayEquals(new int[]{OpCode.VAR, OpCode.CONST, OpCode.POW}, fast.compile("x^5").opcodes());
+        assertArrayEquals(new int[]{OpCode.VAR, OpCode.CONST, OpCode.POW}, fast.compile("x^2.5").opcodes());
+        assertArrayEquals(new int[]{OpCode.VAR, OpCode.CONST, OpCode.POW}, fast.compile("x^-2").opcodes());
+        assertEquals(OpCode.POW, fast.compile("(x+1)^2").opcodes()[4]);
+        assertArrayEquals(new int[]{OpCode.VAR, OpCode.CONST, OpCode.POW}, ExpressionEvaluator.compile("x^2").opcodes());
+
+        CompiledExpression polynomial = fast.compile("y^4 - 3*y^2 + y");
+        assertEquals(0, Arrays.stream(polynomial.opcodes()).filter(op -> op == OpCode.POW).count());
+        double y = -1.7;
+        assertEquals(y * y * y * y - 3 * (y * y) + y, polynomial.evaluate(new double[]{y}));
+    }
+}
@@ -0,0 +1,59 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+
+
+import java.util.concurrent.ForkJoinPool;
+
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+public class ParallelEvaluatorTest {
+    @Test
+    void testMatchesSingleThreadedBatch() {
+        CompiledExpression expression = ExpressionEvaluator.compile("sqrt(x) + 1 / y - ln(x * y)");
+        int rows = 100_003;
+        double[][] columns = BatchEvaluatorTest.randomColumns(2, rows, 7);
+        double[] expected = new double[rows];
+        long[] expectedErrors = new long[BatchEvaluator.errorWords(rows)];
+        int expectedFailed = BatchEvaluator.evaluate(expression, columns, expected, expectedErrors);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelEvaluator evaluator = new ParallelEvaluator(pool, 1000);
+            double[] out = new double[rows];
+            long[] errors = new long[BatchEvaluator.errorWords(rows)];
+            assertEquals(expectedFailed, evaluator.evaluate(expression, columns, out, errors));
+            assertArrayEquals(expected, out);
+            assertArrayEquals(expectedErrors, errors);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testChunkSizeIsMultipleOf64() {
+        assertEquals(1024, new ParallelEvaluator(ForkJoinPool.commonPool(), 1000).getChunkSize());
+        assertEquals(64, new ParallelEvaluator(ForkJoinPool.commonPool(), 1).getChunkSize());
+        // Округление вверх не переполняет int
+        ParallelEvaluator huge = new ParallelEvaluator(ForkJoinPool.commonPool(), Integer.MAX_VALUE);
+        assertEquals(Integer.MAX_VALUE - 63, huge.getChunkSize());
+        assertEquals(Integer.MAX_VALUE - 63, new ParallelEvaluator(ForkJoinPool.commonPool(), Integer.MAX_VALUE - 100)
+                .getChunkSize());
+        double[] out = new double[3];
+        assertEquals(0, huge.evaluate(ExpressionEvaluator.compile("x * 2"), new double[][]{{1, 2, 3}}, out, null));
+        assertEquals(6.0, out[2]);
+        assertThrows(IllegalArgumentException.class, () -> new ParallelEvaluator(ForkJoinPool.commonPool(), 0));
+    }
+
+    @Test
+    void testSmallInput() {
+        double[] out = new double[3];
+        new ParallelEvaluator().evaluate(ExpressionEvaluator.compile("x + 1"), new double[][]{{1, 2, 3}}, out, null);
+        assertArrayEquals(new double[]{2, 3, 4}, out);
+    }
+}
@@ -0,0 +1,82 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+
+
+import java.util.Random;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+public class RegisterEvaluatorTest {
+    @Test
+    void testMatchesStackInterpreter() {
+        FunctionRegistry functions = FunctionRegistry.builder()
+                .register("avg", (a, b) -> (a + b) / 2)
+                .register("mid", 3, (args, offset) -> args[offset] + args[offset + 1] - args[offset + 2])
+                .build();
+        Evaluator evaluator = new Evaluator(EvaluatorConfig.builder().functions(functions).build());
+        String[] sources = {
+                "2 + 2", "x", "x * y - z / 3", "(a + b) * c - sqrt(b^2) / log(a^b) + sin(pi/2)",
+                "-x ^ 2 + 5 * -y", "clamp(x, -1, 1) + hypot(min(x, y), max(x, y))",
+                "avg(x, mid(y, x * 2, avg(y, 1))) * mid(1, 2, x)", "((x + 1) * (y + 2)) / ((x - 3) * (y - 4))",
+        };
+        Random random = new Random(7);
+        for (String source : sources) {
+            CompiledExpression expression = evaluator.compile(source);
+            RegisterEvaluator registers = new RegisterEvaluator(expression);
+            double[] slots = new double[expression.getVariableCount()];
+            double[] stack = new double[expression.getMaxStackDepth()];
+            for (int i = 0; i < 200; i++) {
+                for (int s = 0; s < slots.length; s++) {
+                    slots[s] = random.nextInt(9) - 4 + random.nextDouble();
+                }
+                double expected;
+                try {
+                    expected = expression.evaluate(slots, stack);
+                } catch (IllegalArgumentException e) {
+                    assertEquals(e.getMessage(),
+                            assertThrows(IllegalArgumentException.class, () -> registers.evaluate(slots)).getMessage());
+                    continue;
+                }
+                assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(registers.evaluate(slots)),
+                        source);
+            }
+        }
+    }
+
+    @Test
+    void testAllocation() {
+        // Глубина стека 3, но y * z и сумма помещаются в один временный регистр
+        RegisterEvaluator sum = new RegisterEvaluator(ExpressionEvaluator.compile("x + y * z"));
+        assertEquals(2, sum.getInstructionCount());
+        assertEquals(1, sum.getTemporaryCount());
+        assertEquals(4, sum.getRegisterCount());
+        assertEquals("r3 = * r1, r2\nr3 = + r0, r3\nreturn r3", sum.toString());
+
+        // Два независимых промежуточных результата живут одновременно
+        RegisterEvaluator product = new RegisterEvaluator(ExpressionEvaluator.compile("(a + b) * (c + d)"));
+        assertEquals(2, product.getTemporaryCount());
+
+        RegisterEvaluator leaf = new RegisterEvaluator(ExpressionEvaluator.compile("x"));
+        assertEquals(0, leaf.getInstructionCount());
+        assertEquals(7.5, leaf.evaluate(new double[]{7.5}));
+        assertEquals(3.0, new RegisterEvaluator(ExpressionEvaluator.compile("3")).evaluate(new double[0]));
+
+        assertThrows(IllegalArgumentException.class, () -> sum.evaluate(new double[2]));
+    }
+
+    @Test
+    void testRejectsUnbalancedProgram() {
+        CompiledExpression missingOperand = new CompiledExpression("+", new int[]{OpCode.ADD}, new int[1],
+                new double[0], new String[0], 0);
+        assertThrows(IllegalArgumentException.class, () -> new RegisterEvaluator(missingOperand));
+
+        CompiledExpression extraValue = new CompiledExpression("1 2", new int[]{OpCode.CONST, OpCode.CONST},
+                new int[]{0, 1}, new double[]{1, 2}, new String[0], 2);
+        assertThrows(IllegalArgumentException.class, () -> new RegisterEvaluator(extraValue));
+    }
+}
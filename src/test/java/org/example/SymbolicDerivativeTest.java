@@ -0,0 +1,120 @@
+package org.example;
+
+
+import org.junit.jupiter.api.Test;
+
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+public class SymbolicDerivativeTest {
+    @Test
+    void testDerivatives() {
+        assertEquals("2 * x", ExpressionEvaluator.derivative("x^2", "x"));
+        assertEquals("3 * x^2 - 2", ExpressionEvaluator.derivative("x^3 - 2*x + 1", "x"));
+        assertEquals("cos(x) * x + sin(x)", ExpressionEvaluator.derivative("sin(x) * x", "x"));
+        assertEquals("2", ExpressionEvaluator.derivative("3*x + 2*y", "y"));
+        assertEquals("1 / y", ExpressionEvaluator.derivative("x / y", "x"));
+        assertEquals("-1 / x^2", ExpressionEvaluator.derivative("1 / x", "x"));
+        assertEquals("2 * x / (x^2 + 1)", ExpressionEvaluator.derivative("ln(x^2 + 1)", "x"));
+        assertEquals("-2 * x", ExpressionEvaluator.derivative("-x^2", "x"));
+        assertEquals("0", ExpressionEvaluator.derivative("sin(y) + 5", "x"));
+
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.derivative("x^2", "2x"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.derivative("x^2", "pi"));
+        assertThrows(IllegalArgumentException.class, () -> ExpressionEvaluator.derivative("x^", "x"));
+
+        Evaluator evaluator = new Evaluator(EvaluatorConfig.builder()
+                .functions(FunctionRegistry.builder().register("sq", x -> x * x).build())
+                .build());
+        assertEquals("1", evaluator.derivative("x + sq(y)", "x"));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> evaluator.derivative("sq(x)", "x"));
+        assertTrue(e.getMessage().contains("sq"), e.getMessage());
+    }
+
+    @Test
+    void testOverflowingConstantsAreKept() {
+        String[] expressions = {"10^300 * 10^300", "x * (10^200 * 10^200)", "10^308 + 10^308", "x * 10^300 * 10^300"};
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("x", 2.0);
+        for (String source : expressions) {
+            String simplified = ExpressionEvaluator.simplify(source);
+            assertEquals(simplified, ExpressionEvaluator.simplify(simplified), source);
+            assertEquals(Double.POSITIVE_INFINITY, ExpressionEvaluator.evaluate(simplified, variables), source);
+        }
+        assertEquals(Double.POSITIVE_INFINITY, ExpressionEvaluator.evaluate(
+                ExpressionEvaluator.derivative("x * 10^300 * 10^300 + (10^308 + 10^308) * x^2", "x"), variables));
+    }
+
+    @Test
+    void testPrintedFormRoundTrip() {
+        String[] expressions = {
+                "-x^2 + y", "2^-x", "x - (y - 3)", "(x^y)^2", "x^y^2", "-(x + y) * 3", "x / (y / 4)",
+                "min(-x, y) - max(x, -y)", "0.00001 * x + 123456789012 * y", "pi * x - e", "clamp(x, -1, y * y + 1)",
+                "2 * -x + 1", "--x", "x * (0 - 1)", "(x + 0) * 1 - 0 / (y + 9)", "hypot(x, 2 - y) / 3",
+        };
+        Random random = new Random(19);
+        for (String source : expressions) {
+            String simplified = ExpressionEvaluator.simplify(source);
+            CompiledExpression original = ExpressionEvaluator.compile(source);
+            CompiledExpression printed = ExpressionEvaluator.compile(simplified);
+            assertEquals(simplified, ExpressionEvaluator.simplify(simplified), source);
+            for (int point = 0; point < 20; point++) {
+                Map<String, Double> variables = new HashMap<>();
+                variables.put("x", random.nextDouble() * 4 - 2);
+                variables.put("y", random.nextDouble() * 4 - 2);
+                double expected = original.evaluate(variables);
+                double actual = printed.evaluate(variables);
+                assertTrue(Double.isNaN(expected) ? Double.isNaN(actual)
+                        : Math.abs(expected - actual) <= 1e-12 * Math.max(1, Math.abs(expected)),
+                        source + " -> " + simplified + ": " + expected + " != " + actual);
+            }
+        }
+        assertEquals("x - (y - 3)", ExpressionEvaluator.simplify("x - (y - 3)"));
+        assertEquals("(x^y)^2", ExpressionEvaluator.simplify("(x^y)^2"));
+        assertEquals("x^y^2", ExpressionEvaluator.simplify("x^(y^2)"));
+        assertEquals("2^(-x)", ExpressionEvaluator.simplify("2^-x"));
+        assertEquals("x", ExpressionEvaluator.simplify("--x"));
+        assertEquals("0.00001 * x", ExpressionEvaluator.simplify("0.00001 * x"));
+    }
+
+    @Test
+    void testDerivativesMatchAutomaticDifferentiation() {
+        String[] expressions = {
+                "x * y - x / (y + 20) + 3", "sin(x) * cos(y) + tan(x / 4)", "exp(x / 3) - ln(abs(y) + 1)",
+                "(x + 6)^2.5 + y^3 - (x + 6)^(y / 5)", "sqrt(x + 7) / hypot(x, y)",
+                "max(x, y) * min(x, -y) + clamp(x, -1, 1) * clamp(y, x - 10, x + 10)",
+                "atan(x * y) + asin(x / 9) - acos(y / 9)", "-x^2 / (1 + y^2)", "log(x * x + y * y + 1) ^ 2",
+                "abs(x)^3 * 2^y",
+        };
+        Random random = new Random(19);
+        for (String source : expressions) {
+            CompiledExpression expression = ExpressionEvaluator.compile(source);
+            CompiledExpression dx = ExpressionEvaluator.compile(ExpressionEvaluator.derivative(source, "x"));
+            CompiledExpression dy = ExpressionEvaluator.compile(ExpressionEvaluator.derivative(source, "y"));
+            Differentiator reverse = new ReverseDifferentiator(expression);
+            double[] slots = new double[expression.getVariableCount()];
+            double[] gradient = new double[slots.length];
+            for (int point = 0; point < 50; point++) {
+                Map<String, Double> variables = new HashMap<>();
+                variables.put("x", random.nextDouble() * 10 - 5);
+                variables.put("y", random.nextDouble() * 10 - 5);
+                for (String name : expression.getVariableNames()) {
+                    slots[expression.slotOf(name)] = variables.get(name);
+                }
+                reverse.evaluate(slots, gradient);
+                double expectedX = gradient[expression.slotOf("x")];
+                double expectedY = gradient[expression.slotOf("y")];
+                assertEquals(expectedX, dx.evaluate(variables), 1e-9 * Math.max(1, Math.abs(expectedX)), source);
+                assertEquals(expectedY, dy.evaluate(variables), 1e-9 * Math.max(1, Math.abs(expectedY)), source);
+            }
+        }
+    }
+}